@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.abr.AbrPolicy;
+import com.devbrackets.android.exomedia.abr.BufferAbrPolicy;
+import com.devbrackets.android.exomedia.abr.HybridAbrPolicy;
+import com.devbrackets.android.exomedia.abr.ThroughputAbrPolicy;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the {@link AbrPolicy} implementations by replaying bandwidth traces with
+ * the {@link AbrSimulator}, both with and without a stored bandwidth estimate.
+ * <p/>
+ * Traces are text files where each line contains the duration in milliseconds and the
+ * bandwidth in kilobits per second of a period, separated by whitespace or a comma.  Lines
+ * starting with # are ignored.  When no trace files are specified a set of synthetic traces
+ * are used. (command: ./gradlew :benchmark:simulateAbr -Ptraces=trace1.txt,trace2.txt)
+ */
+public class AbrSimulation {
+    private static final long[] VARIANT_BITRATES = {250000, 500000, 1000000, 2000000, 4000000};
+    private static final long SEGMENT_DURATION_MS = 4000;
+    private static final int SEGMENT_COUNT = 150;
+
+    public static void main(String[] args) throws IOException {
+        List<AbrSimulator.Trace> traces = new ArrayList<>();
+        for (String path : args) {
+            traces.add(readTrace(new File(path)));
+        }
+
+        if (traces.isEmpty()) {
+            traces.add(new AbrSimulator.Trace("stable 3Mbps", new long[] {60000}, new long[] {3000000}));
+            traces.add(new AbrSimulator.Trace("step down", new long[] {120000, 120000}, new long[] {5000000, 700000}));
+            traces.add(new AbrSimulator.Trace("fluctuating", new long[] {8000, 4000, 10000, 6000}, new long[] {2500000, 400000, 4000000, 900000}));
+        }
+
+        Map<String, AbrPolicy> policies = new LinkedHashMap<>();
+        policies.put("throughput", new ThroughputAbrPolicy());
+        policies.put("buffer", new BufferAbrPolicy(VARIANT_BITRATES[0], VARIANT_BITRATES[VARIANT_BITRATES.length - 1]));
+        policies.put("hybrid", new HybridAbrPolicy());
+
+        AbrSimulator simulator = new AbrSimulator(VARIANT_BITRATES, SEGMENT_DURATION_MS);
+        for (AbrSimulator.Trace trace : traces) {
+            System.out.println(trace.getName());
+
+            for (Map.Entry<String, AbrPolicy> policy : policies.entrySet()) {
+                AbrSimulator.Result cold = simulator.simulate(policy.getValue(), trace, SEGMENT_COUNT, AbrPolicy.NO_ESTIMATE);
+                AbrSimulator.Result warm = simulator.simulate(policy.getValue(), trace, SEGMENT_COUNT, getStoredEstimate(trace));
+
+                System.out.println(String.format("  %-10s no estimate:     %s", policy.getKey(), cold));
+                System.out.println(String.format("  %-10s stored estimate: %s", "", warm));
+            }
+        }
+    }
+
+    /**
+     * Uses the bandwidth measured at the start of the trace as the stored
+     * estimate, as if the previous playback was on the same network.
+     */
+    private static long getStoredEstimate(AbrSimulator.Trace trace) {
+        long bytes = 1000000;
+        return bytes * 8000 / trace.getTransferTimeMs(0, bytes);
+    }
+
+    private static AbrSimulator.Trace readTrace(File file) throws IOException {
+        List<Long> durations = new ArrayList<>();
+        List<Long> bitrates = new ArrayList<>();
+
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] values = line.split("[,\\s]+");
+                durations.add(Long.parseLong(values[0]));
+                bitrates.add(Long.parseLong(values[1]) * 1000);
+            }
+        } finally {
+            reader.close();
+        }
+
+        long[] durationsMs = new long[durations.size()];
+        long[] bitrateValues = new long[bitrates.size()];
+        for (int i = 0; i < durationsMs.length; i++) {
+            durationsMs[i] = durations.get(i);
+            bitrateValues[i] = bitrates.get(i);
+        }
+
+        return new AbrSimulator.Trace(file.getName(), durationsMs, bitrateValues);
+    }
+}
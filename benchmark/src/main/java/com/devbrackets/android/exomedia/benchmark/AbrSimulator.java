@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.abr.AbrPolicy;
+
+/**
+ * Simulates the segment by segment download and playback of an adaptive stream over a
+ * recorded bandwidth trace so that the {@link AbrPolicy} implementations can be compared
+ * offline.  The selection mirrors the HlsChunkSource; the highest variant whose bitrate
+ * fits in to a fraction of the policy's target bitrate is selected, falling back to the
+ * lowest variant when there is no estimate.
+ */
+public class AbrSimulator {
+    public static final float BANDWIDTH_FRACTION = 0.8f;
+    public static final long MIN_BUFFER_MS = 1000;
+    public static final long MIN_REBUFFER_MS = 5000;
+    public static final long MAX_BUFFER_MS = 30000;
+    private static final float ESTIMATE_SMOOTHING_FACTOR = 0.3f;
+
+    /**
+     * A recorded bandwidth trace, made up of periods of constant bandwidth.
+     * The trace is repeated if the simulation outlasts it.
+     */
+    public static class Trace {
+        private final String name;
+        private final long[] durationsMs;
+        private final long[] bitrates;
+
+        /**
+         * @param name The name to display for the trace
+         * @param durationsMs The duration of each period in milliseconds
+         * @param bitrates The bandwidth for each period in bits per second
+         */
+        public Trace(String name, long[] durationsMs, long[] bitrates) {
+            this.name = name;
+            this.durationsMs = durationsMs;
+            this.bitrates = bitrates;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Determines the amount of time to transfer the bytes starting at the time
+         */
+        long getTransferTimeMs(long startTimeMs, long bytes) {
+            long totalDuration = 0;
+            for (long duration : durationsMs) {
+                totalDuration += duration;
+            }
+
+            double bitsRemaining = bytes * 8d;
+            long time = startTimeMs;
+            while (bitsRemaining > 0) {
+                //Finds the period containing the time
+                long offset = time % totalDuration;
+                int period = 0;
+                while (offset >= durationsMs[period]) {
+                    offset -= durationsMs[period];
+                    period++;
+                }
+
+                long periodRemainingMs = durationsMs[period] - offset;
+                double periodBits = bitrates[period] * periodRemainingMs / 1000d;
+                if (periodBits >= bitsRemaining) {
+                    time += (long) Math.ceil(bitsRemaining * 1000d / bitrates[period]);
+                    bitsRemaining = 0;
+                } else {
+                    time += periodRemainingMs;
+                    bitsRemaining -= periodBits;
+                }
+            }
+
+            return time - startTimeMs;
+        }
+    }
+
+    public static class Result {
+        public long averageBitrate;
+        public int switchCount;
+        public int stallCount;
+        public long stallDurationMs;
+        public long startupDelayMs;
+
+        @Override
+        public String toString() {
+            return String.format("avg %5d kbps, %3d switches, %2d stalls (%6d ms), startup %5d ms",
+                    averageBitrate / 1000, switchCount, stallCount, stallDurationMs, startupDelayMs);
+        }
+    }
+
+    private final long[] variantBitrates;
+    private final long segmentDurationMs;
+
+    /**
+     * @param variantBitrates The bitrates of the variants in bits per second, sorted from lowest to highest
+     * @param segmentDurationMs The duration of each segment in milliseconds
+     */
+    public AbrSimulator(long[] variantBitrates, long segmentDurationMs) {
+        this.variantBitrates = variantBitrates;
+        this.segmentDurationMs = segmentDurationMs;
+    }
+
+    /**
+     * Simulates the playback of the segments
+     *
+     * @param policy The policy to select the variants with
+     * @param trace The bandwidth trace to download the segments over
+     * @param segmentCount The number of segments in the media
+     * @param initialEstimate The stored estimate to start with, or {@link AbrPolicy#NO_ESTIMATE}
+     * @return The result of the simulation
+     */
+    public Result simulate(AbrPolicy policy, Trace trace, int segmentCount, long initialEstimate) {
+        Result result = new Result();
+
+        long time = 0;
+        long bufferMs = 0;
+        long estimate = initialEstimate;
+        boolean playing = false;
+        boolean started = false;
+        long stallStartTime = 0;
+        long bitrateSum = 0;
+        int previousVariant = -1;
+
+        for (int segment = 0; segment < segmentCount; segment++) {
+            //Waits for the buffer to drain before loading more
+            if (playing && bufferMs + segmentDurationMs > MAX_BUFFER_MS) {
+                long waitMs = bufferMs + segmentDurationMs - MAX_BUFFER_MS;
+                time += waitMs;
+                bufferMs -= waitMs;
+            }
+
+            int variant = selectVariant(policy.getTargetBitrate(estimate, bufferMs));
+            if (previousVariant != -1 && variant != previousVariant) {
+                result.switchCount++;
+            }
+            previousVariant = variant;
+            bitrateSum += variantBitrates[variant];
+
+            long bytes = variantBitrates[variant] * segmentDurationMs / 8000;
+            long downloadMs = Math.max(1, trace.getTransferTimeMs(time, bytes));
+            time += downloadMs;
+
+            long measuredBitrate = bytes * 8000 / downloadMs;
+            estimate = estimate == AbrPolicy.NO_ESTIMATE ? measuredBitrate :
+                    (long) (ESTIMATE_SMOOTHING_FACTOR * measuredBitrate + (1 - ESTIMATE_SMOOTHING_FACTOR) * estimate);
+
+            //Drains the buffer while downloading, stalling if it runs out
+            if (playing) {
+                if (downloadMs > bufferMs) {
+                    result.stallCount++;
+                    stallStartTime = time - (downloadMs - bufferMs);
+                    bufferMs = 0;
+                    playing = false;
+                } else {
+                    bufferMs -= downloadMs;
+                }
+            }
+
+            bufferMs += segmentDurationMs;
+
+            long requiredBuffer = started ? MIN_REBUFFER_MS : MIN_BUFFER_MS;
+            if (!playing && (bufferMs >= requiredBuffer || segment == segmentCount - 1)) {
+                playing = true;
+                if (!started) {
+                    started = true;
+                    result.startupDelayMs = time;
+                } else {
+                    result.stallDurationMs += time - stallStartTime;
+                }
+            }
+        }
+
+        result.averageBitrate = bitrateSum / segmentCount;
+        return result;
+    }
+
+    private int selectVariant(long targetBitrate) {
+        if (targetBitrate == AbrPolicy.NO_ESTIMATE) {
+            return 0;
+        }
+
+        long allowedBitrate = (long) (targetBitrate * BANDWIDTH_FRACTION);
+        int selected = 0;
+        for (int i = 0; i < variantBitrates.length; i++) {
+            if (variantBitrates[i] <= allowedBitrate) {
+                selected = i;
+            }
+        }
+
+        return selected;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.event.EMEventDispatcher;
+import com.devbrackets.android.exomedia.event.EMMediaPlayPauseEvent;
+import com.devbrackets.android.exomedia.event.EMMediaProgressEvent;
+import com.devbrackets.android.exomedia.event.OttoEventDispatcher;
+import com.devbrackets.android.exomedia.event.TypedEventDispatcher;
+import com.devbrackets.android.exomedia.util.TimeFormatter;
+import com.squareup.otto.Bus;
+import com.squareup.otto.Subscribe;
+import com.squareup.otto.ThreadEnforcer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting the EM* events on each {@link EMEventDispatcher}, including the complete
+ * work performed on each progress tick when the dispatcher and the default controls
+ * are both displaying the progress.  The <code>otto</code> dispatcher posts on the Otto Bus
+ * (reflective dispatch) and the <code>typed</code> dispatcher uses the {@link TypedEventDispatcher}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventBusBenchmark {
+    private static final int TICK_DELAY = 33;
+    private static final long DURATION = 600000;
+
+    @Param({"1", "4"})
+    public int subscriberCount;
+
+    @Param({"otto", "typed"})
+    public String dispatcherType;
+
+    private EMEventDispatcher dispatcher;
+    private EMMediaProgressEvent progressEvent = new EMMediaProgressEvent();
+    private TimeFormatter timeFormatter = new TimeFormatter();
+    private long position = 0;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        if ("typed".equals(dispatcherType)) {
+            TypedEventDispatcher typedDispatcher = new TypedEventDispatcher();
+            for (int i = 0; i < subscriberCount; i++) {
+                Subscriber subscriber = new Subscriber(blackhole);
+                typedDispatcher.register(EMMediaProgressEvent.class, subscriber.progressSubscriber);
+                typedDispatcher.register(EMMediaPlayPauseEvent.class, subscriber.playPauseSubscriber);
+            }
+
+            dispatcher = typedDispatcher;
+            return;
+        }
+
+        Bus bus = new Bus(ThreadEnforcer.ANY);
+        for (int i = 0; i < subscriberCount; i++) {
+            bus.register(new Subscriber(blackhole));
+        }
+
+        dispatcher = new OttoEventDispatcher(bus);
+    }
+
+    @Benchmark
+    public void postProgress() {
+        dispatcher.post(progressEvent);
+    }
+
+    @Benchmark
+    public void postPlayPause() {
+        dispatcher.post(new EMMediaPlayPauseEvent());
+    }
+
+    @Benchmark
+    public void postPlayPauseShared() {
+        dispatcher.post(EMMediaPlayPauseEvent.INSTANCE);
+    }
+
+    /**
+     * Mirrors the work performed by the EMVideoView progress callback:
+     * updating the event, formatting the position label, and posting the event
+     */
+    @Benchmark
+    public String progressTick() {
+        position = (position + TICK_DELAY) % DURATION;
+        progressEvent.update(position, (int) (position * 100 / DURATION), DURATION);
+        dispatcher.post(progressEvent);
+        return timeFormatter.format(position);
+    }
+
+    public static class Subscriber {
+        private final Blackhole blackhole;
+
+        private final TypedEventDispatcher.Subscriber<EMMediaProgressEvent> progressSubscriber = new TypedEventDispatcher.Subscriber<EMMediaProgressEvent>() {
+            @Override
+            public void onEvent(EMMediaProgressEvent event) {
+                onProgress(event);
+            }
+        };
+
+        private final TypedEventDispatcher.Subscriber<EMMediaPlayPauseEvent> playPauseSubscriber = new TypedEventDispatcher.Subscriber<EMMediaPlayPauseEvent>() {
+            @Override
+            public void onEvent(EMMediaPlayPauseEvent event) {
+                onPlayPause(event);
+            }
+        };
+
+        public Subscriber(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Subscribe
+        public void onProgress(EMMediaProgressEvent event) {
+            blackhole.consume(event.getPosition());
+        }
+
+        @Subscribe
+        public void onPlayPause(EMMediaPlayPauseEvent event) {
+            blackhole.consume(event);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.hls.HlsPlaylistSnapshot;
+import com.devbrackets.android.exomedia.hls.HlsSegment;
+import com.devbrackets.android.exomedia.hls.IncrementalHlsPlaylistParser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Measures parsing a refresh of a large synthetic live media playlist, where the window slid
+ * by {@link #APPENDED_SEGMENTS} segments since the previous load.  {@link #lineParser()} reads
+ * the playlist the same way as the ExoPlayer HlsPlaylistParser (a String per line, regular
+ * expressions and Double parsing) and acts as the baseline for the streaming
+ * {@link IncrementalHlsPlaylistParser}, both with and without the previous snapshot.
+ * Run with <code>-prof gc</code> (the default for the jmh task) for the allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HlsPlaylistBenchmark {
+    private static final int APPENDED_SEGMENTS = 2;
+    private static final long FIRST_SEQUENCE = 1000;
+
+    private static final Pattern MEDIA_DURATION_REGEX = Pattern.compile("#EXTINF:([\\d.]+),");
+    private static final Pattern MEDIA_SEQUENCE_REGEX = Pattern.compile("#EXT-X-MEDIA-SEQUENCE:(\\d+)");
+    private static final Pattern TARGET_DURATION_REGEX = Pattern.compile("#EXT-X-TARGETDURATION:(\\d+)");
+
+    @Param({"500", "5000"})
+    public int segmentCount;
+
+    private final IncrementalHlsPlaylistParser parser = new IncrementalHlsPlaylistParser();
+    private byte[] refreshedPlaylist;
+    private HlsPlaylistSnapshot previousSnapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        byte[] previousPlaylist = createPlaylist(FIRST_SEQUENCE, segmentCount);
+        refreshedPlaylist = createPlaylist(FIRST_SEQUENCE + APPENDED_SEGMENTS, segmentCount);
+        previousSnapshot = parser.parse(new ByteArrayInputStream(previousPlaylist), null);
+    }
+
+    @Benchmark
+    public List<HlsSegment> lineParser() throws IOException {
+        return parseLines(refreshedPlaylist);
+    }
+
+    @Benchmark
+    public HlsPlaylistSnapshot streamingFullParse() throws IOException {
+        return parser.parse(new ByteArrayInputStream(refreshedPlaylist), null);
+    }
+
+    @Benchmark
+    public HlsPlaylistSnapshot streamingIncrementalParse() throws IOException {
+        return parser.parse(new ByteArrayInputStream(refreshedPlaylist), previousSnapshot);
+    }
+
+    /**
+     * Creates a live media playlist similar to those produced by the common packagers, with a
+     * program date time for every segment and a discontinuity every 100 segments.
+     */
+    private static byte[] createPlaylist(long firstSequence, int segmentCount) {
+        StringBuilder builder = new StringBuilder(segmentCount * 96);
+        builder.append("#EXTM3U\n");
+        builder.append("#EXT-X-VERSION:3\n");
+        builder.append("#EXT-X-TARGETDURATION:6\n");
+        builder.append("#EXT-X-MEDIA-SEQUENCE:").append(firstSequence).append('\n');
+
+        for (long sequence = firstSequence; sequence < firstSequence + segmentCount; sequence++) {
+            if (sequence % 100 == 0) {
+                builder.append("#EXT-X-DISCONTINUITY\n");
+            }
+
+            builder.append("#EXT-X-PROGRAM-DATE-TIME:2015-06-01T12:").append(sequence / 10 % 60).append(":00.000Z\n");
+            builder.append("#EXTINF:").append(sequence % 3 == 0 ? "5.967" : "6.006").append(",\n");
+            builder.append("media_b2000000_").append(sequence).append(".ts\n");
+        }
+
+        try {
+            return builder.toString().getBytes("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Parses the media playlist one String line at a time, matching the approach used by the
+     * ExoPlayer HlsPlaylistParser
+     */
+    private static List<HlsSegment> parseLines(byte[] playlist) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(playlist), "UTF-8"));
+        List<HlsSegment> segments = new ArrayList<>();
+
+        long sequence = 0;
+        int targetDurationSecs = 0;
+        double durationSecs = 0;
+        boolean discontinuity = false;
+        long startTimeUs = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+
+            if (line.startsWith("#EXTINF")) {
+                durationSecs = Double.parseDouble(parseStringAttr(line, MEDIA_DURATION_REGEX));
+            } else if (line.startsWith("#EXT-X-MEDIA-SEQUENCE")) {
+                sequence = Long.parseLong(parseStringAttr(line, MEDIA_SEQUENCE_REGEX));
+            } else if (line.startsWith("#EXT-X-TARGETDURATION")) {
+                targetDurationSecs = Integer.parseInt(parseStringAttr(line, TARGET_DURATION_REGEX));
+            } else if (line.equals("#EXT-X-DISCONTINUITY")) {
+                discontinuity = true;
+            } else if (!line.startsWith("#")) {
+                long durationUs = (long) (durationSecs * 1000000);
+                segments.add(new HlsSegment(sequence++, line, durationUs, startTimeUs, discontinuity, null, null, null, 0, HlsSegment.LENGTH_UNBOUNDED));
+                startTimeUs += durationUs;
+                discontinuity = false;
+            }
+        }
+
+        if (targetDurationSecs == 0) {
+            throw new IOException("Missing the target duration");
+        }
+
+        return segments;
+    }
+
+    private static String parseStringAttr(String line, Pattern pattern) throws IOException {
+        Matcher matcher = pattern.matcher(line);
+        if (matcher.find() && matcher.groupCount() == 1) {
+            return matcher.group(1);
+        }
+
+        throw new IOException("Couldn't match " + pattern.pattern() + " in " + line);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.listener.ExoPlayerListener;
+import com.devbrackets.android.exomedia.util.ListenerRegistry;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the fan-out of the player state changes to the registered
+ * {@link ExoPlayerListener}s using the {@link ListenerRegistry} that the EMListenerMux
+ * and EMExoPlayer hold their listeners in, both with the snapshot loop and with
+ * {@link ListenerRegistry#dispatch(ListenerRegistry.Event)}.  The LinkedList and
+ * CopyOnWriteArrayList the listeners were previously held in are kept for comparison.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ListenerDispatchBenchmark {
+    @Param({"1", "4", "16"})
+    public int listenerCount;
+
+    private List<ExoPlayerListener> linkedListeners = new LinkedList<>();
+    private List<ExoPlayerListener> copyOnWriteListeners = new CopyOnWriteArrayList<>();
+    private ListenerRegistry<ExoPlayerListener> registryListeners = new ListenerRegistry<>();
+
+    private final ListenerRegistry.Event<ExoPlayerListener> stateChangedEvent = new ListenerRegistry.Event<ExoPlayerListener>() {
+        @Override
+        public void dispatch(ExoPlayerListener listener) {
+            listener.onStateChanged(true, 4);
+        }
+    };
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        for (int i = 0; i < listenerCount; i++) {
+            ExoPlayerListener listener = new ConsumingListener(blackhole);
+            linkedListeners.add(listener);
+            copyOnWriteListeners.add(listener);
+            registryListeners.add(listener);
+        }
+    }
+
+    @Benchmark
+    public void dispatchLinkedList() {
+        for (ExoPlayerListener listener : linkedListeners) {
+            listener.onStateChanged(true, 4);
+        }
+    }
+
+    @Benchmark
+    public void dispatchCopyOnWriteArrayList() {
+        for (ExoPlayerListener listener : copyOnWriteListeners) {
+            listener.onStateChanged(true, 4);
+        }
+    }
+
+    @Benchmark
+    public void dispatchListenerRegistrySnapshot() {
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = registryListeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onStateChanged(true, 4);
+            }
+        }
+    }
+
+    @Benchmark
+    public void dispatchListenerRegistryEvent() {
+        registryListeners.dispatch(stateChangedEvent);
+    }
+
+    private static class ConsumingListener implements ExoPlayerListener {
+        private final Blackhole blackhole;
+
+        public ConsumingListener(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onStateChanged(boolean playWhenReady, int playbackState) {
+            blackhole.consume(playbackState);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            blackhole.consume(e);
+        }
+
+        @Override
+        public void onVideoSizeChanged(int width, int height, float pixelWidthHeightRatio) {
+            blackhole.consume(width);
+        }
+    }
+}
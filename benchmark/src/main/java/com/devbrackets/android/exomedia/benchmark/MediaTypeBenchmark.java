@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.util.MediaTypeDetector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the media type detection performed each time a video or audio uri is set.
+ * {@link #regexMatch()} is the check previously performed by the VideoType and AudioType
+ * and acts as the baseline for the {@link MediaTypeDetector} path and mime type matching.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MediaTypeBenchmark {
+    @Param({
+            "http://www.example.com/video/stream/master.m3u8",
+            "http://www.example.com/video/progressive/big_buck_bunny_480p_surround.mp4?token=a1b2c3d4e5f6",
+            "http://www.example.com/video/dash/manifest.mpd"
+    })
+    public String url;
+
+    @Benchmark
+    public boolean regexMatch() {
+        return url.matches(".*\\.m3u8.*");
+    }
+
+    @Benchmark
+    public MediaTypeDetector.MediaType detectorPath() {
+        return MediaTypeDetector.getType(url);
+    }
+
+    @Benchmark
+    public MediaTypeDetector.MediaType detectorMimeType() {
+        return MediaTypeDetector.getType(url, "application/vnd.apple.mpegurl");
+    }
+}
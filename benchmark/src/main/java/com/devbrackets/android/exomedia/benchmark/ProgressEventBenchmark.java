@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.benchmark;
+
+import com.devbrackets.android.exomedia.event.EMMediaProgressEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-tick cost of the progress event delivery.  When run with the
+ * gc profiler (the default for the jmh task) the gc.alloc.rate.norm for
+ * {@link #update()} and {@link #updateAndCopy()} should be 0 bytes per operation,
+ * while {@link #obtain()} shows the cost of allocating a copy each tick.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgressEventBenchmark {
+    private static final int TICK_DELAY = 33;
+    private static final long DURATION = 600000;
+
+    private EMMediaProgressEvent event = new EMMediaProgressEvent();
+    private EMMediaProgressEvent snapshot = new EMMediaProgressEvent();
+    private long position = 0;
+
+    @Benchmark
+    public EMMediaProgressEvent update() {
+        position = (position + TICK_DELAY) % DURATION;
+        event.update(position, (int) (position * 100 / DURATION), DURATION);
+        return event;
+    }
+
+    @Benchmark
+    public EMMediaProgressEvent updateAndCopy() {
+        update();
+        event.copyTo(snapshot);
+        return snapshot;
+    }
+
+    @Benchmark
+    public EMMediaProgressEvent obtain() {
+        update();
+        return EMMediaProgressEvent.obtain(event);
+    }
+}
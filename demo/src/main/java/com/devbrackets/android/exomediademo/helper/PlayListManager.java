@@ -38,6 +38,19 @@ public class PlayListManager {
         return getCurrentAudioUrl();
     }
 
+    /**
+     * Retrieves the url for the item after the current one without
+     * changing the current item.
+     */
+    @Nullable
+    public String peekNextAudioUrl() {
+        if (index + 1 >= 0 && index + 1 < audioUrls.size()) {
+            return audioUrls.get(index + 1);
+        }
+
+        return null;
+    }
+
     @Nullable
     public String getPreviousAudioUrl() {
         index--;
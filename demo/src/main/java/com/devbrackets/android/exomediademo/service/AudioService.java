@@ -137,6 +137,7 @@ public class AudioService extends Service implements EMAudioFocusCallback, Media
     public void onPrepared(MediaPlayer mp) {
         startAudioPlayer();
         updateNotification();
+        prepareNextAudioItem();
     }
 
     /**
@@ -241,6 +242,15 @@ public class AudioService extends Service implements EMAudioFocusCallback, Media
         audioPlayer.prepareAsync();
     }
 
+    /**
+     * Starts preparing the item after the current one so that the transition
+     * to it is quick.
+     */
+    private void prepareNextAudioItem() {
+        String nextUrl = playListManager.peekNextAudioUrl();
+        audioPlayer.prepareNext(nextUrl != null ? Uri.parse(nextUrl) : null);
+    }
+
     /**
      * Stops the AudioService, cleaning up any objects that need to be removed
      */
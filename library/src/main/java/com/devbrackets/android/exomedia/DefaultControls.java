@@ -31,16 +31,14 @@ import android.widget.RelativeLayout;
 import android.widget.SeekBar;
 import android.widget.TextView;
 
+import com.devbrackets.android.exomedia.event.EMEventDispatcher;
 import com.devbrackets.android.exomedia.event.EMMediaNextEvent;
 import com.devbrackets.android.exomedia.event.EMMediaPlayPauseEvent;
 import com.devbrackets.android.exomedia.event.EMMediaPreviousEvent;
 import com.devbrackets.android.exomedia.event.EMMediaProgressEvent;
 import com.devbrackets.android.exomedia.event.EMVideoViewControlVisibilityEvent;
 import com.devbrackets.android.exomedia.listener.EMVideoViewControlsCallback;
-import com.squareup.otto.Bus;
-
-import java.util.Formatter;
-import java.util.Locale;
+import com.devbrackets.android.exomedia.util.TimeFormatter;
 
 /**
  * This is a simple abstraction for the EMVideoView to have a single "View" to add
@@ -57,8 +55,8 @@ class DefaultControls extends RelativeLayout {
     private ImageButton nextButton;
     private ProgressBar loadingProgress;
 
-    private StringBuilder formatBuilder;
-    private Formatter formatter;
+    private TimeFormatter timeFormatter = new TimeFormatter();
+    private long displayedSecond = -1;
     private EMVideoViewControlsCallback callback;
 
     //Remember, 0 is not a valid resourceId
@@ -72,12 +70,17 @@ class DefaultControls extends RelativeLayout {
     private long hideDelay = -1;
     private boolean userInteracting = false;
 
+    //For live streams the seek bar covers the live window and the current time is the time behind the live edge
+    private boolean live = false;
+    private long liveWindowStart = 0;
+    private long liveWindowEnd = 0;
+
     private boolean isVisible = true;
     private boolean canViewHide = true;
     private Handler visibilityHandler = new Handler();
 
     private EMVideoView videoView;
-    private Bus bus;
+    private EMEventDispatcher eventDispatcher;
 
     public DefaultControls(Context context) {
         super(context);
@@ -104,9 +107,6 @@ class DefaultControls extends RelativeLayout {
     private void setup(Context context) {
         View.inflate(context, R.layout.exomedia_video_controls_overlay, this);
 
-        formatBuilder = new StringBuilder();
-        formatter = new Formatter(formatBuilder, Locale.getDefault());
-
         currentTime = (TextView) findViewById(R.id.exomedia_controls_current_time);
         endTime = (TextView) findViewById(R.id.exomedia_controls_end_time);
         seekBar = (SeekBar) findViewById(R.id.exomedia_controls_video_seek);
@@ -138,13 +138,13 @@ class DefaultControls extends RelativeLayout {
     }
 
     /**
-     * Sets the bus to use for dispatching Events that correspond to the callbacks
+     * Sets the dispatcher to use for dispatching Events that correspond to the callbacks
      * listed in {@link com.devbrackets.android.exomedia.listener.EMVideoViewControlsCallback}
      *
-     * @param bus The Otto bus to dispatch events on
+     * @param eventDispatcher The dispatcher to post the events on
      */
-    void setBus(Bus bus) {
-        this.bus = bus;
+    void setEventDispatcher(EMEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
     }
 
     /**
@@ -197,7 +197,7 @@ class DefaultControls extends RelativeLayout {
      * @param position The position in milliseconds
      */
     void setPosition(long position) {
-        currentTime.setText(formatTime(position));
+        updateCurrentTime(position);
         seekBar.setProgress((int) position);
     }
 
@@ -208,6 +208,8 @@ class DefaultControls extends RelativeLayout {
      * @param duration The duration of the video in milliseconds
      */
     void setDuration(long duration) {
+        live = false;
+        liveWindowStart = 0;
         endTime.setText(formatTime(duration));
         seekBar.setMax((int) duration);
     }
@@ -220,9 +222,48 @@ class DefaultControls extends RelativeLayout {
      */
     void setProgressEvent(EMMediaProgressEvent event) {
         if (!userInteracting) {
+            if (event.isLive()) {
+                updateLiveWindow(event.getWindowStart(), event.getWindowEnd());
+            }
+
             seekBar.setSecondaryProgress((int) (seekBar.getMax() * event.getBufferPercentFloat()));
-            seekBar.setProgress((int)event.getPosition());
-            currentTime.setText(formatTime(event.getPosition()));
+            long position = event.getPosition();
+            seekBar.setProgress((int) (position - liveWindowStart));
+            updateCurrentTime(position);
+        }
+    }
+
+    /**
+     * Updates the seek bar to cover the live window, displaying the
+     * live label in place of the duration.
+     *
+     * @param windowStart The start of the live window in milliseconds
+     * @param windowEnd The live edge in milliseconds
+     */
+    private void updateLiveWindow(long windowStart, long windowEnd) {
+        if (!live) {
+            live = true;
+            displayedSecond = -1;
+            endTime.setText(R.string.exomedia_controls_live);
+        }
+
+        liveWindowStart = windowStart;
+        liveWindowEnd = windowEnd;
+        seekBar.setMax((int) (windowEnd - windowStart));
+    }
+
+    /**
+     * Updates the current time field.  Since the field only displays whole
+     * seconds the text is only formatted and set when the second changes.
+     *
+     * @param position The position in milliseconds
+     */
+    private void updateCurrentTime(long position) {
+        long time = live ? Math.max(0, liveWindowEnd - position) : position;
+        long second = time / DateUtils.SECOND_IN_MILLIS;
+        if (second != displayedSecond) {
+            displayedSecond = second;
+            currentTime.setText(live ? "-" + formatTime(time) : formatTime(time));
         }
     }
 
@@ -378,8 +419,8 @@ class DefaultControls extends RelativeLayout {
             return;
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaPlayPauseEvent());
+        if (eventDispatcher != null) {
+            eventDispatcher.post(EMMediaPlayPauseEvent.INSTANCE);
         }
 
         //toggles the playback
@@ -403,8 +444,8 @@ class DefaultControls extends RelativeLayout {
             return;
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaPreviousEvent());
+        if (eventDispatcher != null) {
+            eventDispatcher.post(EMMediaPreviousEvent.INSTANCE);
         }
     }
 
@@ -418,8 +459,8 @@ class DefaultControls extends RelativeLayout {
             return;
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaNextEvent());
+        if (eventDispatcher != null) {
+            eventDispatcher.post(EMMediaNextEvent.INSTANCE);
         }
     }
 
@@ -437,8 +478,8 @@ class DefaultControls extends RelativeLayout {
             }
         }
 
-        if (!handled && bus != null) {
-            bus.post(new EMVideoViewControlVisibilityEvent(isVisible));
+        if (!handled && eventDispatcher != null) {
+            eventDispatcher.post(EMVideoViewControlVisibilityEvent.obtain(isVisible));
         }
     }
 
@@ -450,16 +491,7 @@ class DefaultControls extends RelativeLayout {
      * @return The human readable time
      */
     private String formatTime(long time) {
-        long seconds = (time % DateUtils.MINUTE_IN_MILLIS) / DateUtils.SECOND_IN_MILLIS;
-        long minutes = (time % DateUtils.HOUR_IN_MILLIS) / DateUtils.MINUTE_IN_MILLIS;
-        long hours = (time % DateUtils.DAY_IN_MILLIS) / DateUtils.HOUR_IN_MILLIS;
-
-        formatBuilder.setLength(0);
-        if (hours > 0) {
-            return formatter.format("%d:%02d:%02d", hours, minutes, seconds).toString();
-        }
-
-        return formatter.format("%02d:%02d", minutes, seconds).toString();
+        return timeFormatter.format(time);
     }
 
     /**
@@ -482,6 +514,7 @@ class DefaultControls extends RelativeLayout {
         startAnimation(animation);
 
         isVisible = toVisible;
+        videoView.onControlsVisibilityChanged(isVisible);
         onVisibilityChanged();
     }
 
@@ -497,10 +530,11 @@ class DefaultControls extends RelativeLayout {
                 return;
             }
 
-            seekToTime = progress;
+            //The seek bar progress is relative to the start of the live window
+            seekToTime = (int) (progress + liveWindowStart);
 
             if (currentTime != null) {
-                currentTime.setText(formatTime(progress));
+                updateCurrentTime(seekToTime);
             }
         }
 
@@ -20,16 +20,38 @@ import android.content.Context;
 import android.media.MediaPlayer;
 import android.net.Uri;
 import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
+import com.devbrackets.android.exomedia.abr.AbrPolicy;
+import com.devbrackets.android.exomedia.abr.BandwidthEstimateStore;
+import com.devbrackets.android.exomedia.abr.ThroughputAbrPolicy;
+import com.devbrackets.android.exomedia.builder.DashRenderBuilder;
 import com.devbrackets.android.exomedia.builder.HlsRenderBuilder;
 import com.devbrackets.android.exomedia.builder.RenderBuilder;
+import com.devbrackets.android.exomedia.cache.EMSegmentCache;
+import com.devbrackets.android.exomedia.cache.HlsPlaylistCache;
+import com.devbrackets.android.exomedia.event.EMEventDispatcher;
 import com.devbrackets.android.exomedia.event.EMMediaProgressEvent;
+import com.devbrackets.android.exomedia.event.OttoEventDispatcher;
+import com.devbrackets.android.exomedia.event.TypedEventDispatcher;
+import com.devbrackets.android.exomedia.exoplayer.BufferStats;
 import com.devbrackets.android.exomedia.exoplayer.EMExoPlayer;
+import com.devbrackets.android.exomedia.exoplayer.EMExoPlayerPool;
+import com.devbrackets.android.exomedia.exoplayer.EMLoadControl;
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+import com.devbrackets.android.exomedia.exoplayer.QoeSnapshot;
+import com.devbrackets.android.exomedia.exoplayer.StartupStats;
+import com.devbrackets.android.exomedia.hls.HlsLiveTracker;
 import com.devbrackets.android.exomedia.listener.ExoPlayerListener;
-import com.devbrackets.android.exomedia.util.EMDeviceUtil;
-import com.devbrackets.android.exomedia.util.Repeater;
+import com.devbrackets.android.exomedia.listener.PlaybackTimelineListener;
+import com.devbrackets.android.exomedia.listener.StallListener;
+import com.devbrackets.android.exomedia.util.DecoderCapabilityRegistry;
+import com.devbrackets.android.exomedia.util.MediaTypeDetector;
+import com.devbrackets.android.exomedia.util.ProgressScheduler;
 import com.devbrackets.android.exomedia.util.StopWatch;
+import com.google.android.exoplayer.ExoPlayer;
 import com.squareup.otto.Bus;
 import com.squareup.otto.Produce;
 
@@ -48,38 +70,83 @@ public class EMAudioPlayer {
 
     public enum AudioType {
         HLS,
+        DASH,
         DEFAULT;
 
         public static AudioType get(Uri uri) {
-            if (uri.toString().matches(".*\\.m3u8.*")) {
-                return AudioType.HLS;
-            }
+            return get(MediaTypeDetector.getType(uri.toString()));
+        }
 
-            return AudioType.DEFAULT;
+        public static AudioType get(MediaTypeDetector.MediaType mediaType) {
+            switch (mediaType) {
+                case HLS:
+                    return AudioType.HLS;
+                case DASH:
+                    return AudioType.DASH;
+                default:
+                    return AudioType.DEFAULT;
+            }
         }
     }
 
     private Context context;
     private MediaPlayer mediaPlayer;
     private EMExoPlayer emExoPlayer;
+    private EMExoPlayerPool exoPlayerPool;
+    private EMExoPlayer nextEmExoPlayer;
+    private Uri nextUri;
+    private Uri currentUri;
+    private EMSegmentCache segmentCache;
+    private HlsPlaylistCache hlsPlaylistCache;
+    private MediaTypeDetector mediaTypeDetector;
+    private AbrPolicy abrPolicy = new ThroughputAbrPolicy();
+    private EMLoadControl loadControl;
+    private PlaybackTimelineListener playbackTimelineListener;
     private EMListenerMux listenerMux;
 
     private boolean useExo;
     private int currentBufferPercent = 0;
     private int overriddenDuration = -1;
     private int positionOffset = 0;
+    private int lowLatencySegmentCount = HlsLiveTracker.LOW_LATENCY_DISABLED;
+    private float volume = 1f;
+
+    //The wake mode is applied again when the EMExoPlayer is replaced
+    @Nullable
+    private Context wakeModeContext;
+    private int wakeMode;
 
     private boolean overridePosition = false;
 
-    private Bus bus;
-    private Repeater pollRepeater = new Repeater();
+    private final TypedEventDispatcher defaultEventDispatcher = new TypedEventDispatcher();
+    private EMEventDispatcher eventDispatcher = defaultEventDispatcher;
+    private ProgressScheduler progressScheduler;
+    private boolean playRequested = false;
+    private int exoPlaybackState = ExoPlayer.STATE_IDLE;
+    private ProgressScheduler.UpdateRate busProgressRate = ProgressScheduler.UpdateRate.CONTINUOUS;
     private StopWatch overriddenPositionStopWatch = new StopWatch();
 
     private EMMediaProgressEvent currentMediaProgressEvent = new EMMediaProgressEvent(0, 0, 0);
 
     public EMAudioPlayer(Context context) {
+        this(context, EMExoPlayerPool.getDefaultPool());
+    }
+
+    /**
+     * Creates the EMAudioPlayer, retrieving the EMExoPlayer from the specified pool
+     * when the ExoPlayer is supported.  When {@link #release()} is called the EMExoPlayer
+     * will be returned to the pool instead of being released.
+     *
+     * @param context The context to use
+     * @param exoPlayerPool The pool to retrieve the EMExoPlayer from, or null
+     */
+    public EMAudioPlayer(Context context, @Nullable EMExoPlayerPool exoPlayerPool) {
         this.context = context;
-        useExo = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN  && EMDeviceUtil.isDeviceCTSCompliant();
+        this.exoPlayerPool = exoPlayerPool;
+        DecoderCapabilityRegistry.getInstance().initialize(context);
+        useExo = DecoderCapabilityRegistry.getInstance().isExoAudioSupported();
+        BandwidthEstimateStore.getInstance().enablePersistence(context);
+        loadControl = EMLoadControl.createDefault(context);
 
         if (!useExo && mediaPlayer == null) {
             setupMediaPlayer();
@@ -87,12 +154,22 @@ public class EMAudioPlayer {
             setupEMExoPlayer();
         }
 
-        pollRepeater.setRepeatListener(new Repeater.RepeatListener() {
+        progressScheduler = new ProgressScheduler(new ProgressScheduler.Callback() {
+            @Override
+            public long getCurrentPosition() {
+                return EMAudioPlayer.this.getCurrentPosition();
+            }
+
             @Override
-            public void onRepeat() {
-                if (bus != null) {
-                    currentMediaProgressEvent.update(getCurrentPosition(), getBufferPercentage(), getDuration());
-                    bus.post(currentMediaProgressEvent);
+            public void onProgressUpdate() {
+                if (eventDispatcher != null) {
+                    if (isLive()) {
+                        currentMediaProgressEvent.updateLive(getCurrentPosition(), getBufferPercentage(), getLiveWindowStart(), getLiveEdgePosition());
+                    } else {
+                        currentMediaProgressEvent.update(getCurrentPosition(), getBufferPercentage(), getDuration());
+                    }
+
+                    eventDispatcher.post(currentMediaProgressEvent);
                 }
             }
         });
@@ -103,13 +180,46 @@ public class EMAudioPlayer {
      */
     private void setupEMExoPlayer() {
         if (emExoPlayer == null) {
-            emExoPlayer = new EMExoPlayer();
+            emExoPlayer = obtainEMExoPlayer();
 
-            //Sets the internal listener
-            listenerMux = new EMListenerMux(new MuxNotifier());
-            emExoPlayer.addListener(listenerMux);
+            //Sets the internal listener, keeping the existing one when the player is replaced after a release
+            if (listenerMux == null) {
+                listenerMux = new EMListenerMux(new MuxNotifier());
+                listenerMux.setEventDispatcher(eventDispatcher);
+            }
 
+            emExoPlayer.addListener(listenerMux);
             emExoPlayer.setMetadataListener(null);
+            emExoPlayer.setVolume(volume);
+            if (wakeModeContext != null) {
+                emExoPlayer.setWakeMode(wakeModeContext, wakeMode);
+            }
+        }
+    }
+
+    /**
+     * Retrieves a new EMExoPlayer from the pool, or creates one if
+     * a pool wasn't specified.
+     *
+     * @return The new EMExoPlayer
+     */
+    private EMExoPlayer obtainEMExoPlayer() {
+        EMExoPlayer player = exoPlayerPool != null ? exoPlayerPool.acquire(loadControl) : new EMExoPlayer(null, loadControl);
+        player.setAbrPolicy(abrPolicy);
+        player.setPlaybackTimelineListener(playbackTimelineListener);
+        return player;
+    }
+
+    /**
+     * Releases the EMExoPlayer, returning it to the pool if one was specified.
+     *
+     * @param player The EMExoPlayer to release
+     */
+    private void releaseEMExoPlayer(EMExoPlayer player) {
+        if (exoPlayerPool != null) {
+            exoPlayerPool.release(player);
+        } else {
+            player.release();
         }
     }
 
@@ -118,35 +228,241 @@ public class EMAudioPlayer {
      */
     private void setupMediaPlayer() {
         listenerMux = new EMListenerMux(new MuxNotifier());
+        listenerMux.setEventDispatcher(eventDispatcher);
 
         mediaPlayer = new MediaPlayer();
         mediaPlayer.setOnCompletionListener(listenerMux);
         mediaPlayer.setOnPreparedListener(listenerMux);
         mediaPlayer.setOnErrorListener(listenerMux);
         mediaPlayer.setOnBufferingUpdateListener(listenerMux);
+        mediaPlayer.setOnSeekCompleteListener(listenerMux);
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
             mediaPlayer.setOnInfoListener(listenerMux);
         }
     }
 
     /**
-     * Sets the delay to use when notifying of progress.  The
-     * default is 33 milliseconds, or 30 frames-per-second
+     * Sets the cache to use for storing downloaded media segments so that replays and
+     * seeks don't need to download them again.  This needs to be set before the audio item
+     * is specified with {@link #setDataSource(android.content.Context, android.net.Uri)}, and
+     * is currently only used for HLS streams.
+     *
+     * @param segmentCache The cache to use or null
+     */
+    public void setSegmentCache(@Nullable EMSegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    /**
+     * Sets the cache to use for HLS playlists so that re-playing a known stream
+     * doesn't need to wait on the playlist to be downloaded again.  This needs to be set
+     * before the audio item is specified with {@link #setDataSource(android.content.Context, android.net.Uri)}
+     *
+     * @param playlistCache The cache to use or null
+     */
+    public void setHlsPlaylistCache(@Nullable HlsPlaylistCache playlistCache) {
+        hlsPlaylistCache = playlistCache;
+    }
+
+    /**
+     * Sets the detector to use for determining the type of the audio (e.g. HLS) when
+     * it can't be determined from the url or mime type, such as streams served without a
+     * file extension.  By default only the url and mime type are used.
+     *
+     * @param detector The detector to use or null
+     */
+    public void setMediaTypeDetector(@Nullable MediaTypeDetector detector) {
+        mediaTypeDetector = detector;
+    }
+
+    /**
+     * Sets the policy used to select the quality of adaptive streams (HLS, DASH)
+     * based on the available bandwidth and buffered media.
+     *
+     * @param policy The policy to use, or null to use the {@link ThroughputAbrPolicy}
+     */
+    public void setAbrPolicy(@Nullable AbrPolicy policy) {
+        abrPolicy = policy != null ? policy : new ThroughputAbrPolicy();
+        if (emExoPlayer != null) {
+            emExoPlayer.setAbrPolicy(abrPolicy);
+        }
+
+        if (nextEmExoPlayer != null) {
+            nextEmExoPlayer.setAbrPolicy(abrPolicy);
+        }
+    }
+
+    /**
+     * Sets the listener to inform when the playback reaches each of the startup phases, such as
+     * the first frame being drawn.  The aggregated latencies for all playbacks are available
+     * from the {@link StartupStats}.  This is only supported when the ExoPlayer is being used.
+     *
+     * @param listener The listener to inform or null
+     */
+    public void setPlaybackTimelineListener(@Nullable PlaybackTimelineListener listener) {
+        playbackTimelineListener = listener;
+        if (emExoPlayer != null) {
+            emExoPlayer.setPlaybackTimelineListener(listener);
+        }
+
+        if (nextEmExoPlayer != null) {
+            nextEmExoPlayer.setPlaybackTimelineListener(listener);
+        }
+    }
+
+    /**
+     * Retrieves the timeline for starting the current playback.  This is only supported
+     * when the ExoPlayer is being used.
+     *
+     * @return The playback timeline or null
+     */
+    @Nullable
+    public PlaybackTimeline getPlaybackTimeline() {
+        return useExo && emExoPlayer != null ? emExoPlayer.getPlaybackTimeline() : null;
+    }
+
+    /**
+     * Sets the buffer configuration to use for the ExoPlayer.  The buffer sizes are applied
+     * the next time media is prepared, however if the durations needed to start and resume
+     * playback differ they will only be used once the current EMExoPlayer is replaced
+     * (e.g. by {@link #prepareNext(android.net.Uri)} or after {@link #release()}).
+     *
+     * @param loadControl The configuration to use, or null to use {@link EMLoadControl#createDefault(Context)}
+     */
+    public void setLoadControl(@Nullable EMLoadControl loadControl) {
+        this.loadControl = loadControl != null ? loadControl : EMLoadControl.createDefault(context);
+        if (emExoPlayer != null) {
+            emExoPlayer.setLoadControl(this.loadControl);
+        }
+
+        if (nextEmExoPlayer != null) {
+            nextEmExoPlayer.setLoadControl(this.loadControl);
+        }
+    }
+
+    @NonNull
+    public EMLoadControl getLoadControl() {
+        return loadControl;
+    }
+
+    /**
+     * Retrieves the statistics on the buffered media for the current playback.  This
+     * is only supported when the ExoPlayer is being used.
+     *
+     * @return The buffer statistics or null
+     */
+    @Nullable
+    public BufferStats getBufferStats() {
+        return useExo && emExoPlayer != null ? emExoPlayer.getBufferStats() : null;
+    }
+
+    /**
+     * Captures the quality of experience statistics (rebuffers, dropped frames, bitrate, etc.)
+     * for the current playback.  This is only supported when the ExoPlayer is being used.
+     *
+     * @return The snapshot of the statistics or null
+     */
+    @Nullable
+    public QoeSnapshot getQoeSnapshot() {
+        return useExo && emExoPlayer != null ? emExoPlayer.getQoeStats().getSnapshot() : null;
+    }
+
+    /**
+     * Retrieves the names of the tracks available for the type, such as the different
+     * bitrates in a DASH stream.  This is only supported when the ExoPlayer is being used
+     * and the renderers have been built (see {@link #setOnPreparedListener(android.media.MediaPlayer.OnPreparedListener)}).
+     *
+     * @param type The type of track, e.g. {@link EMExoPlayer#RENDER_AUDIO_INDEX}
+     * @return The names of the tracks or null
+     */
+    @Nullable
+    public String[] getTracks(int type) {
+        return useExo && emExoPlayer != null ? emExoPlayer.getTracks(type) : null;
+    }
+
+    /**
+     * Retrieves the index of the selected track for the type
+     *
+     * @param type The type of track, e.g. {@link EMExoPlayer#RENDER_AUDIO_INDEX}
+     * @return The index of the selected track or -1 if tracks aren't supported
+     */
+    public int getSelectedTrackIndex(int type) {
+        return useExo && emExoPlayer != null ? emExoPlayer.getSelectedTrackIndex(type) : -1;
+    }
+
+    /**
+     * Selects the track to use for the type.  This is only supported when
+     * the ExoPlayer is being used.
+     *
+     * @param type The type of track, e.g. {@link EMExoPlayer#RENDER_AUDIO_INDEX}
+     * @param index The index of the track in {@link #getTracks(int)}
+     */
+    public void selectTrack(int type, int index) {
+        if (useExo && emExoPlayer != null) {
+            emExoPlayer.selectTrack(type, index);
+        }
+    }
+
+    /**
+     * Sets the delay to use when notifying of progress while the progress
+     * is displayed continuously (e.g. a visible seek bar).  The default
+     * is 33 milliseconds, or 30 frames-per-second
      *
      * @param milliSeconds The millisecond delay to use
      */
     public void setProgressPollDelay(int milliSeconds) {
-        pollRepeater.setRepeaterDelay(milliSeconds);
+        progressScheduler.setContinuousDelay(milliSeconds);
+    }
+
+    /**
+     * Sets the rate to post progress events to the bus at.  This should reflect what the
+     * subscribers are using the progress for; e.g. {@link ProgressScheduler.UpdateRate#SECONDS}
+     * when the progress is only displayed as a time in a notification.  The progress will only
+     * be posted when the progress poll has been started (see {@link #startProgressPoll(Bus)}).
+     *
+     * @param rate The rate to post progress events at [default: {@link ProgressScheduler.UpdateRate#CONTINUOUS}]
+     */
+    public void setProgressUpdateRate(ProgressScheduler.UpdateRate rate) {
+        busProgressRate = rate;
+        if (progressScheduler.getUpdateRate() != ProgressScheduler.UpdateRate.NONE) {
+            progressScheduler.setUpdateRate(rate);
+        }
     }
 
     /**
-     * Sets the bus to use for dispatching Events such as the poll progress
+     * Sets the bus to use for dispatching Events such as the poll progress.  This is
+     * the same as setting an {@link OttoEventDispatcher} with {@link #setEventDispatcher(EMEventDispatcher)},
+     * and is only needed for Otto subscribers; by default the events are posted on the
+     * {@link #getDefaultEventDispatcher()}
      *
      * @param bus The Otto bus to dispatch events on
      */
     public void setBus(Bus bus) {
-        this.bus = bus;
-        listenerMux.setBus(bus);
+        setEventDispatcher(bus != null ? new OttoEventDispatcher(bus) : null);
+    }
+
+    /**
+     * Retrieves the dispatcher the events are posted on until a different one is set with
+     * {@link #setEventDispatcher(EMEventDispatcher)} or {@link #setBus(Bus)}.  Subscribers
+     * can be registered on it to be informed of the events without an Otto Bus.
+     *
+     * @return The default TypedEventDispatcher
+     */
+    @NonNull
+    public TypedEventDispatcher getDefaultEventDispatcher() {
+        return defaultEventDispatcher;
+    }
+
+    /**
+     * Sets the dispatcher to use for dispatching Events such as the poll progress.  The
+     * {@link com.devbrackets.android.exomedia.event.TypedEventDispatcher} delivers the events
+     * without the reflection used by the Otto bus.
+     *
+     * @param eventDispatcher The dispatcher to post the events on
+     */
+    public void setEventDispatcher(EMEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+        listenerMux.setEventDispatcher(eventDispatcher);
     }
 
     /**
@@ -156,10 +472,18 @@ public class EMAudioPlayer {
      */
     public void startProgressPoll(Bus bus) {
         setBus(bus);
+        startProgressPoll();
+    }
 
-        if (bus != null) {
-            pollRepeater.start();
-        }
+    /**
+     * Starts the progress poll.  The progress events are posted on the {@link #getDefaultEventDispatcher()}
+     * unless a different dispatcher was set with {@link #setEventDispatcher(EMEventDispatcher)} or {@link #setBus(Bus)}.
+     * The progress is only polled when the dispatcher has subscribers for the {@link EMMediaProgressEvent}, so
+     * they should be registered before this is called.
+     */
+    public void startProgressPoll() {
+        boolean subscribed = eventDispatcher != null && eventDispatcher.hasSubscribers(EMMediaProgressEvent.class);
+        progressScheduler.setUpdateRate(subscribed ? busProgressRate : ProgressScheduler.UpdateRate.NONE);
     }
 
     /**
@@ -167,7 +491,7 @@ public class EMAudioPlayer {
      * (see {@link #startProgressPoll(Bus)})
      */
     public void stopProgressPoll() {
-        pollRepeater.stop();
+        progressScheduler.setUpdateRate(ProgressScheduler.UpdateRate.NONE);
     }
 
     /**
@@ -178,12 +502,68 @@ public class EMAudioPlayer {
      * @return The appropriate RenderBuilder
      */
     private RenderBuilder getRendererBuilder(AudioType renderType, Uri uri) {
+        RenderBuilder renderBuilder;
         switch (renderType) {
             case HLS:
-                return new HlsRenderBuilder(getUserAgent(), uri.toString(), "uid:hls:applesinglemedia");
+                HlsRenderBuilder hlsRenderBuilder = new HlsRenderBuilder(getUserAgent(), uri.toString(), "uid:hls:applesinglemedia");
+                hlsRenderBuilder.setPlaylistCache(hlsPlaylistCache);
+                hlsRenderBuilder.setLowLatencySegmentCount(lowLatencySegmentCount);
+                renderBuilder = hlsRenderBuilder;
+                break;
+            case DASH:
+                renderBuilder = new DashRenderBuilder(getUserAgent(), uri.toString(), "uid:dash:mediapresentation");
+                break;
             default:
-                return new RenderBuilder(context, uri.toString());
+                renderBuilder = new RenderBuilder(context, uri.toString());
+                break;
         }
+
+        renderBuilder.setSegmentCache(segmentCache);
+        return renderBuilder;
+    }
+
+    /**
+     * Determines the AudioType without performing any network requests, using the
+     * types previously sniffed by the MediaTypeDetector when one is set.
+     *
+     * @param uri The audio item's Uri
+     * @param mimeType The mime type for the audio item if known, otherwise null
+     * @return The AudioType for the item
+     */
+    private AudioType getAudioType(Uri uri, @Nullable String mimeType) {
+        if (mediaTypeDetector != null) {
+            return AudioType.get(mediaTypeDetector.getCachedType(uri.toString(), mimeType));
+        }
+
+        return AudioType.get(MediaTypeDetector.getType(uri.toString(), mimeType));
+    }
+
+    /**
+     * Replaces the render builder with the one for the type of the audio.  If a
+     * MediaTypeDetector is set and needs to sniff the content, the render builder
+     * will be replaced once the content has been sniffed.
+     *
+     * @param uri The audio item's Uri
+     * @param mimeType The mime type for the audio item if known, otherwise null
+     */
+    private void replaceRenderBuilder(final Uri uri, @Nullable String mimeType) {
+        if (mediaTypeDetector == null) {
+            emExoPlayer.replaceRenderBuilder(getRendererBuilder(getAudioType(uri, mimeType), uri));
+            return;
+        }
+
+        //Stops the previous audio so that it doesn't keep playing (or restart) while the content is sniffed
+        emExoPlayer.replaceRenderBuilder(null);
+
+        mediaTypeDetector.detect(uri.toString(), mimeType, getUserAgent(), new MediaTypeDetector.Callback() {
+            @Override
+            public void onMediaTypeDetected(String url, MediaTypeDetector.MediaType mediaType) {
+                //The audio item may have been changed or released while the content was sniffed
+                if (emExoPlayer != null && uri.equals(currentUri)) {
+                    emExoPlayer.replaceRenderBuilder(getRendererBuilder(AudioType.get(mediaType), uri));
+                }
+            }
+        });
     }
 
     /**
@@ -196,6 +576,79 @@ public class EMAudioPlayer {
         return String.format(USER_AGENT_FORMAT, BuildConfig.VERSION_NAME + " (" + BuildConfig.VERSION_CODE + ")", Build.VERSION.RELEASE, Build.MODEL);
     }
 
+    /**
+     * Starts preparing the audio item that will be played after the current one.  The
+     * renderers are built and the start of the item is buffered on a second EMExoPlayer
+     * while the current item plays.  When {@link #setDataSource(android.content.Context, android.net.Uri)}
+     * is later called with the same Uri (e.g. from the completion listener) the prepared player is
+     * swapped in instead of building the renderers again, greatly reducing the time until
+     * the audio starts.
+     * <p/>
+     * This is only supported when the ExoPlayer is being used, otherwise this call will be ignored.
+     *
+     * @param uri The Uri representing the path to the next audio item, or null to clear the next item
+     * @return True if the next item is being prepared
+     */
+    public boolean prepareNext(@Nullable Uri uri) {
+        if (!useExo) {
+            return false;
+        }
+
+        releaseNext();
+        if (uri == null) {
+            return false;
+        }
+
+        nextUri = uri;
+        nextEmExoPlayer = obtainEMExoPlayer();
+        nextEmExoPlayer.setMetadataListener(null);
+        nextEmExoPlayer.replaceRenderBuilder(getRendererBuilder(getAudioType(uri, null), uri));
+        return true;
+    }
+
+    /**
+     * Retrieves the Uri for the item being prepared with {@link #prepareNext(android.net.Uri)}
+     *
+     * @return The Uri for the next item or null
+     */
+    @Nullable
+    public Uri getNextUri() {
+        return nextUri;
+    }
+
+    /**
+     * Releases the item being prepared with {@link #prepareNext(android.net.Uri)}
+     */
+    public void releaseNext() {
+        if (nextEmExoPlayer != null) {
+            releaseEMExoPlayer(nextEmExoPlayer);
+            nextEmExoPlayer = null;
+        }
+
+        nextUri = null;
+    }
+
+    /**
+     * Replaces the current EMExoPlayer with the one prepared with {@link #prepareNext(android.net.Uri)},
+     * moving the listeners over to it.
+     */
+    private void swapToNextEMExoPlayer() {
+        EMExoPlayer previousPlayer = emExoPlayer;
+        previousPlayer.removeListener(listenerMux);
+
+        emExoPlayer = nextEmExoPlayer;
+        emExoPlayer.addListener(listenerMux);
+        emExoPlayer.setVolume(volume);
+        if (wakeModeContext != null) {
+            emExoPlayer.setWakeMode(wakeModeContext, wakeMode);
+        }
+
+        nextEmExoPlayer = null;
+        nextUri = null;
+
+        releaseEMExoPlayer(previousPlayer);
+    }
+
     @Produce
     public EMMediaProgressEvent produceMediaProgressEvent() {
         return currentMediaProgressEvent;
@@ -238,24 +691,55 @@ public class EMAudioPlayer {
      * @param uri The Uri representing the path to the audio item
      */
     public void setDataSource(Context context, Uri uri) {
+        setDataSource(context, uri, null);
+    }
+
+    /**
+     * Sets the source path for the audio item, using the mime type to determine
+     * the type of the audio (e.g. "application/x-mpegURL" for HLS)
+     *
+     * @param context The applications context that owns the media
+     * @param uri The Uri representing the path to the audio item
+     * @param mimeType The mime type for the audio item if known, otherwise null
+     */
+    public void setDataSource(Context context, Uri uri, @Nullable String mimeType) {
+        currentUri = uri;
+
         if (!useExo) {
             try {
                 mediaPlayer.setDataSource(context, uri);
             } catch (Exception e) {
                 Log.d(TAG, "MediaPlayer: error setting data source", e);
             }
+
+            listenerMux.setNotifiedPrepared(false);
+        } else if (uri != null && uri.equals(nextUri)) {
+            swapToNextEMExoPlayer();
+            listenerMux.setNotifiedCompleted(false);
+            listenerMux.setNotifiedPrepared(false);
+
+            //If the swapped in player has already buffered enough to play, make sure the listeners are informed
+            if (emExoPlayer.getPlaybackState() == ExoPlayer.STATE_READY) {
+                listenerMux.onStateChanged(emExoPlayer.getPlayWhenReady(), ExoPlayer.STATE_READY);
+            }
         } else {
+            //The item being prepared won't be used, so stop it from buffering
+            releaseNext();
+
+            //The player is returned to the pool when released, so a new one is needed
+            setupEMExoPlayer();
+
             if (uri != null) {
-                emExoPlayer.replaceRenderBuilder(getRendererBuilder(AudioType.get(uri), uri));
+                replaceRenderBuilder(uri, mimeType);
                 listenerMux.setNotifiedCompleted(false);
             } else {
                 emExoPlayer.replaceRenderBuilder(null);
             }
 
             emExoPlayer.seekTo(0);
+            listenerMux.setNotifiedPrepared(false);
         }
 
-        listenerMux.setNotifiedPrepared(false);
         overrideDuration(-1);
         setPositionOffset(0);
     }
@@ -278,14 +762,18 @@ public class EMAudioPlayer {
         if (!useExo) {
             mediaPlayer.setVolume(leftVolume, rightVolume);
         } else {
+            volume = leftVolume;
             emExoPlayer.setVolume(leftVolume);
         }
     }
 
     public void setWakeMode(Context context, int mode) {
+        wakeModeContext = context.getApplicationContext();
+        wakeMode = mode;
+
         if (!useExo) {
             mediaPlayer.setWakeMode(context, mode);
-        } else {
+        } else if (emExoPlayer != null) {
             emExoPlayer.setWakeMode(context, mode);
         }
     }
@@ -319,11 +807,69 @@ public class EMAudioPlayer {
             milliSeconds = (int)getDuration();
         }
 
+        listenerMux.onSeek();
         if (!useExo) {
             mediaPlayer.seekTo(milliSeconds);
         } else {
             emExoPlayer.seekTo(milliSeconds);
         }
+
+        progressScheduler.requestUpdate();
+    }
+
+    /**
+     * Determines if the current audio item is a live stream.  The positions for live streams are on
+     * the stream timeline and the seekable range is from {@link #getLiveWindowStart()} to
+     * {@link #getLiveEdgePosition()}.
+     *
+     * @return True if the audio item is a live stream
+     */
+    public boolean isLive() {
+        return useExo && emExoPlayer != null && listenerMux.isPrepared() && emExoPlayer.isLive();
+    }
+
+    /**
+     * Retrieves the start of the live window, which is the earliest position that can be seeked to
+     *
+     * @return The window start in milliseconds or 0 if the audio item isn't live
+     */
+    public long getLiveWindowStart() {
+        return isLive() ? emExoPlayer.getLiveWindowStart() : 0;
+    }
+
+    /**
+     * Retrieves the position of the live edge, which is the furthest position that can be seeked to
+     *
+     * @return The live edge position in milliseconds or 0 if the audio item isn't live
+     */
+    public long getLiveEdgePosition() {
+        return isLive() ? emExoPlayer.getLiveEdgePosition() : 0;
+    }
+
+    /**
+     * Moves the playback of a live stream back to the live edge.  This has no
+     * effect if the audio item isn't live.
+     */
+    public void seekToLiveEdge() {
+        if (!isLive()) {
+            return;
+        }
+
+        listenerMux.onSeek();
+        emExoPlayer.seekToLiveEdge();
+        progressScheduler.requestUpdate();
+    }
+
+    /**
+     * Enables the low latency mode for live HLS streams, where the playback starts the
+     * specified number of segments from the live edge instead of the default 3 and moves
+     * back to the edge when stalls cause it to fall behind.  This takes effect for the
+     * next audio item that is set.
+     *
+     * @param segmentCount The number of segments behind the live edge to play, or {@link HlsLiveTracker#LOW_LATENCY_DISABLED}
+     */
+    public void setLowLatencySegmentCount(int segmentCount) {
+        lowLatencySegmentCount = segmentCount;
     }
 
     /**
@@ -350,7 +896,9 @@ public class EMAudioPlayer {
             emExoPlayer.setPlayWhenReady(true);
         }
 
-        startProgressPoll(bus);
+        playRequested = true;
+        updatePlaybackActive();
+        startProgressPoll();
     }
 
     /**
@@ -364,7 +912,8 @@ public class EMAudioPlayer {
             emExoPlayer.setPlayWhenReady(false);
         }
 
-        stopProgressPoll();
+        playRequested = false;
+        updatePlaybackActive();
     }
 
     /**
@@ -378,17 +927,24 @@ public class EMAudioPlayer {
             emExoPlayer.setPlayWhenReady(false);
         }
 
-        stopProgressPoll();
+        playRequested = false;
+        updatePlaybackActive();
     }
 
     public void release() {
         if (!useExo) {
             mediaPlayer.release();
         } else {
-            emExoPlayer.release();
+            releaseNext();
+            if (emExoPlayer != null) {
+                releaseEMExoPlayer(emExoPlayer);
+                emExoPlayer = null;
+            }
         }
 
-        stopProgressPoll();
+        currentUri = null;
+
+        progressScheduler.stop();
         overriddenPositionStopWatch.stop();
     }
 
@@ -511,6 +1067,17 @@ public class EMAudioPlayer {
         listenerMux.addExoPlayerListener(listener);
     }
 
+    /**
+     * Adds the listener to inform of any exoPlayer events, only holding a weak reference to
+     * it.  This is useful when the listener is an Activity or Fragment, so that it can still
+     * be garbage collected if it doesn't remove itself.
+     *
+     * @param listener The listener
+     */
+    public void addWeakExoPlayerListener(ExoPlayerListener listener) {
+        listenerMux.addWeakExoPlayerListener(listener);
+    }
+
     /**
      * Removes the specified listener for the ExoPlayer.
      *
@@ -568,19 +1135,59 @@ public class EMAudioPlayer {
         listenerMux.setOnBufferingUpdateListener(listener);
     }
 
+    /**
+     * Sets the listener to inform of playback stalls, which is when the audio runs out of buffered
+     * content while playing.  This can also be accessed through the Otto events
+     * {@link com.devbrackets.android.exomedia.event.EMMediaStallStartedEvent} and
+     * {@link com.devbrackets.android.exomedia.event.EMMediaStallEndedEvent}
+     *
+     * @param listener The listener
+     */
+    public void setStallListener(@Nullable StallListener listener) {
+        listenerMux.setStallListener(listener);
+    }
+
+    /**
+     * Retrieves the number of times the current audio has stalled
+     *
+     * @return The number of stalls
+     */
+    public int getStallCount() {
+        return listenerMux.getStallTracker().getStallCount();
+    }
+
+    /**
+     * Retrieves the fraction of the time the current audio should have been playing
+     * that it was stalled waiting for content to buffer.
+     *
+     * @return The stall ratio [0, 1]
+     */
+    public float getStallRatio() {
+        return listenerMux.getStallTracker().getStallRatio();
+    }
+
     /**
      * Performs the functionality to stop the progress polling, and stop any other
      * procedures from running that we no longer need.
      */
     private void onPlaybackEnded() {
         stopPlayback();
-        pollRepeater.stop();
+        progressScheduler.stop();
+    }
+
+    /**
+     * Informs the progress scheduler if the audio is actively playing, meaning
+     * the playback was requested and the audio isn't buffering.
+     */
+    private void updatePlaybackActive() {
+        progressScheduler.setPlaybackActive(playRequested && (!useExo || exoPlaybackState == ExoPlayer.STATE_READY));
+        listenerMux.setPlayRequested(playRequested);
     }
 
     private class MuxNotifier extends EMListenerMux.EMListenerMuxNotifier {
         @Override
         public boolean shouldNotifyCompletion(long endLeeway) {
-            return getCurrentPosition() + endLeeway >= getDuration();
+            return !isLive() && getCurrentPosition() + endLeeway >= getDuration();
         }
 
         @Override
@@ -595,6 +1202,26 @@ public class EMAudioPlayer {
            onPlaybackEnded();
         }
 
+        @Override
+        public void onStallStarted(long startTime) {
+            if (useExo && emExoPlayer != null) {
+                emExoPlayer.onStallStarted(startTime);
+            }
+        }
+
+        @Override
+        public void onStallEnded(long startTime, long endTime) {
+            if (useExo && emExoPlayer != null) {
+                emExoPlayer.onStallEnded(startTime, endTime);
+            }
+        }
+
+        @Override
+        public void onStateChanged(boolean playWhenReady, int playbackState) {
+            exoPlaybackState = playbackState;
+            updatePlaybackActive();
+        }
+
         @Override
         public void onBufferUpdated(int percent) {
             currentBufferPercent = percent;
@@ -20,15 +20,17 @@ import android.media.MediaPlayer;
 import android.os.Handler;
 import android.support.annotation.NonNull;
 
+import com.devbrackets.android.exomedia.event.EMEventDispatcher;
 import com.devbrackets.android.exomedia.event.EMMediaCompletionEvent;
 import com.devbrackets.android.exomedia.event.EMMediaErrorEvent;
 import com.devbrackets.android.exomedia.event.EMMediaPreparedEvent;
+import com.devbrackets.android.exomedia.event.EMMediaStallEndedEvent;
+import com.devbrackets.android.exomedia.event.EMMediaStallStartedEvent;
 import com.devbrackets.android.exomedia.listener.ExoPlayerListener;
+import com.devbrackets.android.exomedia.listener.StallListener;
+import com.devbrackets.android.exomedia.util.ListenerRegistry;
+import com.devbrackets.android.exomedia.util.StallTracker;
 import com.google.android.exoplayer.ExoPlayer;
-import com.squareup.otto.Bus;
-
-import java.util.LinkedList;
-import java.util.List;
 
 /**
  * An internal Listener that implements the listeners for the EMExoPlayer,
@@ -36,7 +38,7 @@ import java.util.List;
  * error listeners.
  */
 class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener, MediaPlayer.OnCompletionListener, MediaPlayer.OnErrorListener,
-        MediaPlayer.OnInfoListener, MediaPlayer.OnBufferingUpdateListener {
+        MediaPlayer.OnInfoListener, MediaPlayer.OnBufferingUpdateListener, MediaPlayer.OnSeekCompleteListener, StallTracker.Callback {
 
     //The amount of time the current position can be off the duration to call the onCompletion listener
     private static final long COMPLETED_DURATION_LEEWAY = 1000;
@@ -45,15 +47,17 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
 
     private Handler delayedHandler = new Handler();
     private EMListenerMuxNotifier muxNotifier;
-    private Bus bus;
+    private EMEventDispatcher eventDispatcher;
+    private StallTracker stallTracker = new StallTracker(this);
 
-    private List<ExoPlayerListener> exoPlayerListeners = new LinkedList<>();
+    private ListenerRegistry<ExoPlayerListener> exoPlayerListeners = new ListenerRegistry<>();
 
     private MediaPlayer.OnBufferingUpdateListener bufferingUpdateListener;
     private MediaPlayer.OnCompletionListener completionListener;
     private MediaPlayer.OnPreparedListener preparedListener;
     private MediaPlayer.OnErrorListener errorListener;
     private MediaPlayer.OnInfoListener infoListener;
+    private StallListener stallListener;
 
 
     EMListenerMux(@NonNull EMListenerMuxNotifier notifier) {
@@ -75,8 +79,8 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
             completionListener.onCompletion(null);
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaCompletionEvent());
+        if (eventDispatcher != null) {
+            eventDispatcher.post(EMMediaCompletionEvent.INSTANCE);
         }
     }
 
@@ -86,8 +90,9 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
             return true;
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaErrorEvent(mp, what, extra));
+        //The error is only handled when something is subscribed, otherwise the VideoView shows its error dialog
+        if (eventDispatcher != null && eventDispatcher.hasSubscribers(EMMediaErrorEvent.class)) {
+            eventDispatcher.post(new EMMediaErrorEvent(mp, what, extra));
             return true;
         }
 
@@ -96,12 +101,29 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
 
     @Override
     public boolean onInfo(MediaPlayer mp, int what, int extra) {
+        if (what == MediaPlayer.MEDIA_INFO_BUFFERING_START) {
+            stallTracker.setBuffering(true);
+        } else if (what == MediaPlayer.MEDIA_INFO_BUFFERING_END) {
+            stallTracker.setBuffering(false);
+        }
+
         return infoListener != null && infoListener.onInfo(mp, what, extra);
     }
 
+    @Override
+    public void onSeekComplete(MediaPlayer mp) {
+        stallTracker.onSeekComplete();
+    }
+
     @Override
     public void onPrepared(final MediaPlayer mp) {
         notifiedPrepared = true;
+        stallTracker.setBuffering(false);
+
+        //The VideoView doesn't expose the seek complete listener, so it is set on the MediaPlayer once it is available
+        if (mp != null) {
+            mp.setOnSeekCompleteListener(this);
+        }
 
         delayedHandler.post(new Runnable() {
             @Override
@@ -120,17 +142,29 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
             return;
         }
 
-        for (ExoPlayerListener listener : exoPlayerListeners) {
-            listener.onError(e);
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = exoPlayerListeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onError(e);
+            }
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaErrorEvent(null, 0, 0));
+        if (eventDispatcher != null) {
+            eventDispatcher.post(new EMMediaErrorEvent(null, 0, 0));
         }
     }
 
     @Override
     public void onStateChanged(boolean playWhenReady, int playbackState) {
+        muxNotifier.onStateChanged(playWhenReady, playbackState);
+        if (playbackState == ExoPlayer.STATE_BUFFERING) {
+            stallTracker.setBuffering(true);
+        } else if (playbackState == ExoPlayer.STATE_READY) {
+            stallTracker.setBuffering(false);
+            stallTracker.onSeekComplete();
+        }
+
         if (playbackState == ExoPlayer.STATE_ENDED) {
             muxNotifier.onMediaPlaybackEnded();
 
@@ -141,8 +175,12 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
             notifyPreparedListener(null);
         }
 
-        for (ExoPlayerListener listener : exoPlayerListeners) {
-            listener.onStateChanged(playWhenReady, playbackState);
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = exoPlayerListeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onStateChanged(playWhenReady, playbackState);
+            }
         }
     }
 
@@ -150,13 +188,64 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
     public void onVideoSizeChanged(int width, int height, float pixelWidthHeightRatio) {
         muxNotifier.onVideoSizeChanged(width, height, pixelWidthHeightRatio);
 
-        for (ExoPlayerListener listener : exoPlayerListeners) {
-            listener.onVideoSizeChanged(width, height, pixelWidthHeightRatio);
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = exoPlayerListeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onVideoSizeChanged(width, height, pixelWidthHeightRatio);
+            }
         }
     }
 
-    public void setBus(Bus bus) {
-        this.bus = bus;
+    @Override
+    public void onStallStarted(long startTime) {
+        muxNotifier.onStallStarted(startTime);
+        if (stallListener != null) {
+            stallListener.onStallStarted(startTime);
+        }
+
+        if (eventDispatcher != null) {
+            eventDispatcher.post(new EMMediaStallStartedEvent(startTime));
+        }
+    }
+
+    @Override
+    public void onStallEnded(long startTime, long endTime) {
+        muxNotifier.onStallEnded(startTime, endTime);
+        if (stallListener != null) {
+            stallListener.onStallEnded(startTime, endTime);
+        }
+
+        if (eventDispatcher != null) {
+            eventDispatcher.post(new EMMediaStallEndedEvent(startTime, endTime));
+        }
+    }
+
+    public void setEventDispatcher(EMEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+    }
+
+    /**
+     * Informs the mux if the user requested the media to play, used to
+     * determine if buffering is a stall
+     *
+     * @param playRequested True if the media should be playing
+     */
+    public void setPlayRequested(boolean playRequested) {
+        stallTracker.setPlayRequested(playRequested);
+    }
+
+    /**
+     * Informs the mux that a seek was requested so that the following
+     * buffering isn't reported as a stall
+     */
+    public void onSeek() {
+        stallTracker.onSeek();
+    }
+
+    @NonNull
+    public StallTracker getStallTracker() {
+        return stallTracker;
     }
 
     /**
@@ -170,15 +259,25 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
         }
     }
 
+    /**
+     * Adds the listener to inform of any exoPlayer events, only holding a weak reference
+     * to it so that a listener that isn't removed can still be garbage collected.
+     *
+     * @param listener The listener
+     */
+    public void addWeakExoPlayerListener(ExoPlayerListener listener) {
+        if (listener != null) {
+            exoPlayerListeners.addWeak(listener);
+        }
+    }
+
     /**
      * Removes the specified listener for the ExoPlayer.
      *
      * @param listener The listener to remove
      */
     public void removeExoPlayerListener(ExoPlayerListener listener) {
-        if (listener != null && exoPlayerListeners.contains(listener)) {
-            exoPlayerListeners.remove(listener);
-        }
+        exoPlayerListeners.remove(listener);
     }
 
     /**
@@ -229,6 +328,16 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
         bufferingUpdateListener = listener;
     }
 
+    /**
+     * Sets the listener to inform of playback stalls.  This can also be accessed through the
+     * Otto events {@link EMMediaStallStartedEvent} and {@link EMMediaStallEndedEvent}
+     *
+     * @param listener The listener
+     */
+    public void setStallListener(StallListener listener) {
+        stallListener = listener;
+    }
+
     /**
      * Sets weather the listener was notified when we became prepared.
      *
@@ -237,6 +346,11 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
     public void setNotifiedPrepared(boolean wasNotified) {
         notifiedPrepared = wasNotified;
         muxNotifier.onPreviewImageStateChanged(true);
+
+        //New media is being prepared so the previous stalls no longer apply
+        if (!wasNotified) {
+            stallTracker.reset();
+        }
     }
 
     /**
@@ -277,8 +391,8 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
             preparedListener.onPrepared(mediaPlayer);
         }
 
-        if (bus != null) {
-            bus.post(new EMMediaPreparedEvent());
+        if (eventDispatcher != null) {
+            eventDispatcher.post(EMMediaPreparedEvent.INSTANCE);
         }
     }
 
@@ -296,8 +410,8 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
                     completionListener.onCompletion(null);
                 }
 
-                if (bus != null) {
-                    bus.post(new EMMediaCompletionEvent());
+                if (eventDispatcher != null) {
+                    eventDispatcher.post(EMMediaCompletionEvent.INSTANCE);
                 }
             }
         });
@@ -322,6 +436,18 @@ class EMListenerMux implements ExoPlayerListener, MediaPlayer.OnPreparedListener
             //Purposefully left blank
         }
 
+        public void onStateChanged(boolean playWhenReady, int playbackState) {
+            //Purposefully left blank
+        }
+
+        public void onStallStarted(long startTime) {
+            //Purposefully left blank
+        }
+
+        public void onStallEnded(long startTime, long endTime) {
+            //Purposefully left blank
+        }
+
         public abstract boolean shouldNotifyCompletion(long endLeeway);
 
         public abstract void onExoPlayerError(Exception e);
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.devbrackets.android.exomedia.exoplayer.EMExoPlayer;
+import com.devbrackets.android.exomedia.exoplayer.EMExoPlayerPool;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An EMExoPlayer that has been detached from an {@link EMVideoView} with
+ * {@link EMVideoView#detachPlayerSession()} while keeping the prepared media, buffers,
+ * and playback position.  The session can then be attached to a different EMVideoView
+ * (e.g. when transitioning from a list to a full screen activity) with
+ * {@link EMVideoView#attachPlayerSession(EMPlayerSession)}, resuming without preparing
+ * the media again.
+ * <p/>
+ * A session that won't be attached must be released with {@link #release()}.  Sessions
+ * can be handed between activities with {@link #hold(String, EMPlayerSession)} and
+ * {@link #take(String)}; a held session that isn't taken before its timeout is released so
+ * that its player, Surface and wake lock aren't kept indefinitely.  The sessions should only
+ * be accessed from the main (UI) thread.
+ */
+public class EMPlayerSession {
+    public static final long DEFAULT_HOLD_TIMEOUT_MS = 10000;
+
+    private static final Map<String, EMPlayerSession> heldSessions = new HashMap<>();
+    private static final Map<String, Runnable> heldSessionTimeouts = new HashMap<>();
+    @Nullable
+    private static Handler timeoutHandler;
+
+    @Nullable
+    private EMExoPlayer emExoPlayer;
+    @Nullable
+    private final EMExoPlayerPool exoPlayerPool;
+    @Nullable
+    private final Uri videoUri;
+
+    EMPlayerSession(@NonNull EMExoPlayer emExoPlayer, @Nullable EMExoPlayerPool exoPlayerPool, @Nullable Uri videoUri) {
+        this.emExoPlayer = emExoPlayer;
+        this.exoPlayerPool = exoPlayerPool;
+        this.videoUri = videoUri;
+    }
+
+    /**
+     * Holds the session so that it can be retrieved with {@link #take(String)}, e.g.
+     * from the activity being started.  Any session previously held with the key
+     * is released.  The session is released if it isn't taken within the
+     * {@link #DEFAULT_HOLD_TIMEOUT_MS}.
+     *
+     * @param key The key to hold the session with
+     * @param session The session to hold
+     */
+    public static void hold(@NonNull String key, @NonNull EMPlayerSession session) {
+        hold(key, session, DEFAULT_HOLD_TIMEOUT_MS);
+    }
+
+    /**
+     * Holds the session so that it can be retrieved with {@link #take(String)}, e.g.
+     * from the activity being started.  Any session previously held with the key
+     * is released.
+     *
+     * @param key The key to hold the session with
+     * @param session The session to hold
+     * @param timeoutMs The amount of time in milliseconds to hold the session before it is released
+     */
+    public static void hold(@NonNull String key, @NonNull EMPlayerSession session, long timeoutMs) {
+        removeTimeout(key);
+        EMPlayerSession previous = heldSessions.put(key, session);
+        if (previous != null && previous != session) {
+            previous.release();
+        }
+
+        Runnable timeout = new TimeoutRunnable(key, session);
+        heldSessionTimeouts.put(key, timeout);
+        getTimeoutHandler().postDelayed(timeout, timeoutMs);
+    }
+
+    /**
+     * Retrieves and removes the session held with {@link #hold(String, EMPlayerSession)}
+     *
+     * @param key The key the session was held with
+     * @return The session or null if one isn't held with the key
+     */
+    @Nullable
+    public static EMPlayerSession take(@NonNull String key) {
+        removeTimeout(key);
+        return heldSessions.remove(key);
+    }
+
+    /**
+     * Releases the session held with the key, e.g. when the activity that would
+     * take it is finished without doing so
+     *
+     * @param key The key the session was held with
+     */
+    public static void releaseHeld(@NonNull String key) {
+        EMPlayerSession session = take(key);
+        if (session != null) {
+            session.release();
+        }
+    }
+
+    private static void removeTimeout(@NonNull String key) {
+        Runnable timeout = heldSessionTimeouts.remove(key);
+        if (timeout != null) {
+            getTimeoutHandler().removeCallbacks(timeout);
+        }
+    }
+
+    @NonNull
+    private static Handler getTimeoutHandler() {
+        if (timeoutHandler == null) {
+            timeoutHandler = new Handler(Looper.getMainLooper());
+        }
+
+        return timeoutHandler;
+    }
+
+    /**
+     * Retrieves the player for the session.
+     *
+     * @return The player or null if the session was attached or released
+     */
+    @Nullable
+    public EMExoPlayer getEMExoPlayer() {
+        return emExoPlayer;
+    }
+
+    @Nullable
+    public Uri getVideoUri() {
+        return videoUri;
+    }
+
+    /**
+     * Determines if the session can still be attached to a view
+     *
+     * @return True if the session hasn't been attached or released
+     */
+    public boolean isAvailable() {
+        return emExoPlayer != null;
+    }
+
+    /**
+     * Releases the player, returning it to the pool it was retrieved from if there was one.
+     * This should be called for sessions that won't be attached to a view.
+     */
+    public void release() {
+        if (emExoPlayer == null) {
+            return;
+        }
+
+        if (exoPlayerPool != null) {
+            exoPlayerPool.release(emExoPlayer);
+        } else {
+            emExoPlayer.release();
+        }
+
+        emExoPlayer = null;
+    }
+
+    /**
+     * Removes the player from the session so that it can be attached to a view
+     *
+     * @return The player or null if the session was already attached or released
+     */
+    @Nullable
+    EMExoPlayer claim() {
+        EMExoPlayer player = emExoPlayer;
+        emExoPlayer = null;
+        return player;
+    }
+
+    /**
+     * Releases a held session that wasn't taken before the timeout
+     */
+    private static class TimeoutRunnable implements Runnable {
+        private final String key;
+        private final EMPlayerSession session;
+
+        public TimeoutRunnable(String key, EMPlayerSession session) {
+            this.key = key;
+            this.session = session;
+        }
+
+        @Override
+        public void run() {
+            if (heldSessions.get(key) == session) {
+                heldSessions.remove(key);
+                heldSessionTimeouts.remove(key);
+                session.release();
+            }
+        }
+    }
+}
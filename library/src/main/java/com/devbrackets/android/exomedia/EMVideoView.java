@@ -18,30 +18,53 @@ package com.devbrackets.android.exomedia;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.media.MediaPlayer;
 import android.net.Uri;
 import android.os.Build;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
+import android.view.Surface;
 import android.view.SurfaceHolder;
 import android.view.View;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
 import android.widget.VideoView;
 
+import com.devbrackets.android.exomedia.abr.AbrPolicy;
+import com.devbrackets.android.exomedia.abr.BandwidthEstimateStore;
+import com.devbrackets.android.exomedia.abr.ThroughputAbrPolicy;
+import com.devbrackets.android.exomedia.builder.DashRenderBuilder;
 import com.devbrackets.android.exomedia.builder.HlsRenderBuilder;
 import com.devbrackets.android.exomedia.builder.RenderBuilder;
+import com.devbrackets.android.exomedia.cache.EMSegmentCache;
+import com.devbrackets.android.exomedia.cache.HlsPlaylistCache;
+import com.devbrackets.android.exomedia.event.EMEventDispatcher;
 import com.devbrackets.android.exomedia.event.EMMediaProgressEvent;
 import com.devbrackets.android.exomedia.event.EMVideoViewClickedEvent;
+import com.devbrackets.android.exomedia.event.OttoEventDispatcher;
+import com.devbrackets.android.exomedia.event.TypedEventDispatcher;
+import com.devbrackets.android.exomedia.exoplayer.BufferStats;
 import com.devbrackets.android.exomedia.exoplayer.EMExoPlayer;
+import com.devbrackets.android.exomedia.exoplayer.EMExoPlayerPool;
+import com.devbrackets.android.exomedia.exoplayer.EMLoadControl;
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+import com.devbrackets.android.exomedia.exoplayer.QoeSnapshot;
+import com.devbrackets.android.exomedia.exoplayer.StartupStats;
+import com.devbrackets.android.exomedia.hls.HlsLiveTracker;
 import com.devbrackets.android.exomedia.listener.EMVideoViewControlsCallback;
 import com.devbrackets.android.exomedia.listener.ExoPlayerListener;
-import com.devbrackets.android.exomedia.util.EMDeviceUtil;
-import com.devbrackets.android.exomedia.util.Repeater;
+import com.devbrackets.android.exomedia.listener.PlaybackTimelineListener;
+import com.devbrackets.android.exomedia.listener.StallListener;
+import com.devbrackets.android.exomedia.util.DecoderCapabilityRegistry;
+import com.devbrackets.android.exomedia.util.MediaTypeDetector;
+import com.devbrackets.android.exomedia.util.ProgressScheduler;
 import com.devbrackets.android.exomedia.util.StopWatch;
+import com.google.android.exoplayer.ExoPlayer;
 import com.google.android.exoplayer.VideoSurfaceView;
 import com.squareup.otto.Bus;
 import com.squareup.otto.Produce;
@@ -63,14 +86,22 @@ public class EMVideoView extends RelativeLayout {
 
     public enum VideoType {
         HLS,
+        DASH,
         DEFAULT;
 
         public static VideoType get(Uri uri) {
-            if (uri.toString().matches(".*\\.m3u8.*")) {
-                return VideoType.HLS;
-            }
+            return get(MediaTypeDetector.getType(uri.toString()));
+        }
 
-            return VideoType.DEFAULT;
+        public static VideoType get(MediaTypeDetector.MediaType mediaType) {
+            switch (mediaType) {
+                case HLS:
+                    return VideoType.HLS;
+                case DASH:
+                    return VideoType.DASH;
+                default:
+                    return VideoType.DEFAULT;
+            }
         }
     }
 
@@ -83,10 +114,24 @@ public class EMVideoView extends RelativeLayout {
 
     private VideoView videoView;
     private VideoSurfaceView exoVideoSurfaceView;
+    private VideoTextureView exoVideoTextureView;
+    private View textureContainer;
+    private boolean useTextureView = false;
     private EMExoPlayer emExoPlayer;
+    private EMExoPlayerPool exoPlayerPool = EMExoPlayerPool.getDefaultPool();
+    private EMExoVideoSurfaceCallback exoVideoSurfaceCallback = new EMExoVideoSurfaceCallback();
+    private EMSegmentCache segmentCache;
+    private HlsPlaylistCache hlsPlaylistCache;
+    private MediaTypeDetector mediaTypeDetector;
+    private AbrPolicy abrPolicy = new ThroughputAbrPolicy();
+    private EMLoadControl loadControl;
+    private boolean loadControlPending = false;
+    private PlaybackTimelineListener playbackTimelineListener;
+    private boolean audioOnly = false;
+    private int lowLatencySegmentCount = HlsLiveTracker.LOW_LATENCY_DISABLED;
 
     private DefaultControls defaultControls;
-    private Repeater pollRepeater = new Repeater();
+    private ProgressScheduler progressScheduler;
     private StopWatch overriddenPositionStopWatch = new StopWatch();
 
     private boolean useExo = false;
@@ -96,46 +141,78 @@ public class EMVideoView extends RelativeLayout {
 
     private EMListenerMux listenerMux;
     private boolean playRequested = false;
-    private Bus bus;
+    private int exoPlaybackState = ExoPlayer.STATE_IDLE;
+    private final TypedEventDispatcher defaultEventDispatcher = new TypedEventDispatcher();
+    private EMEventDispatcher eventDispatcher = defaultEventDispatcher;
+
+    private boolean busProgressEnabled = false;
+    private ProgressScheduler.UpdateRate busProgressRate = ProgressScheduler.UpdateRate.CONTINUOUS;
+    private boolean controlsVisible = true;
 
     private Uri videoUri;
     private EMMediaProgressEvent currentMediaProgressEvent = new EMMediaProgressEvent(0, 0, 0);
 
     public EMVideoView(Context context) {
         super(context);
-        setup(context);
+        setup(context, null);
+    }
+
+    /**
+     * Creates the EMVideoView, specifying the view to render the ExoPlayer video to.  When inflating
+     * the EMVideoView from xml this can be specified with the <code>exomedia_useTextureView</code> attribute.
+     *
+     * @param context The context to use
+     * @param useTextureView True if the video should be rendered to a {@link VideoTextureView} instead of a SurfaceView
+     */
+    public EMVideoView(Context context, boolean useTextureView) {
+        super(context);
+        this.useTextureView = useTextureView;
+        setup(context, null);
     }
 
     public EMVideoView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        setup(context);
+        setup(context, attrs);
     }
 
     @TargetApi(Build.VERSION_CODES.HONEYCOMB)
     public EMVideoView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        setup(context);
+        setup(context, attrs);
     }
 
     @TargetApi(Build.VERSION_CODES.LOLLIPOP)
     public EMVideoView(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
-        setup(context);
+        setup(context, attrs);
     }
 
-    private void setup(Context context) {
-        useExo = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && EMDeviceUtil.isDeviceCTSCompliant();
-        pollRepeater.setRepeatListener(new Repeater.RepeatListener() {
+    private void setup(Context context, @Nullable AttributeSet attrs) {
+        DecoderCapabilityRegistry.getInstance().initialize(context);
+        useExo = DecoderCapabilityRegistry.getInstance().isExoVideoSupported();
+        readAttributes(context, attrs);
+        BandwidthEstimateStore.getInstance().enablePersistence(context);
+        loadControl = EMLoadControl.createDefault(context);
+        progressScheduler = new ProgressScheduler(new ProgressScheduler.Callback() {
             @Override
-            public void onRepeat() {
-                currentMediaProgressEvent.update(getCurrentPosition(), getBufferPercentage(), getDuration());
+            public long getCurrentPosition() {
+                return EMVideoView.this.getCurrentPosition();
+            }
+
+            @Override
+            public void onProgressUpdate() {
+                if (isLive()) {
+                    currentMediaProgressEvent.updateLive(getCurrentPosition(), getBufferPercentage(), getLiveWindowStart(), getLiveEdgePosition());
+                } else {
+                    currentMediaProgressEvent.update(getCurrentPosition(), getBufferPercentage(), getDuration());
+                }
 
                 if (defaultControls != null) {
                     defaultControls.setProgressEvent(currentMediaProgressEvent);
                 }
 
-                if (bus != null) {
-                    bus.post(currentMediaProgressEvent);
+                if (eventDispatcher != null) {
+                    eventDispatcher.post(currentMediaProgressEvent);
                 }
             }
         });
@@ -143,8 +220,20 @@ public class EMVideoView extends RelativeLayout {
         initView(context);
     }
 
+    private void readAttributes(Context context, @Nullable AttributeSet attrs) {
+        if (attrs == null) {
+            return;
+        }
+
+        TypedArray typedArray = context.obtainStyledAttributes(attrs, R.styleable.EMVideoView);
+        useTextureView = typedArray.getBoolean(R.styleable.EMVideoView_exomedia_useTextureView, false);
+        typedArray.recycle();
+    }
+
     private void initView(Context context) {
-        if (useExo) {
+        if (useExo && useTextureView) {
+            View.inflate(context, R.layout.exomedia_exo_texture_view_layout, this);
+        } else if (useExo) {
             View.inflate(context, R.layout.exomedia_exo_view_layout, this);
         } else {
             View.inflate(context, R.layout.exomedia_video_view_layout, this);
@@ -157,11 +246,14 @@ public class EMVideoView extends RelativeLayout {
 
         previewImageView = (ImageView) findViewById(R.id.exomedia_video_preview_image);
 
+        textureContainer = findViewById(R.id.exomedia_video_texture_container);
+
         exoVideoSurfaceView = (VideoSurfaceView) findViewById(R.id.exomedia_exo_video_surface);
+        exoVideoTextureView = (VideoTextureView) findViewById(R.id.exomedia_exo_video_texture);
         videoView = (VideoView) findViewById(R.id.exomedia_android_video_view);
 
         //If we are using the exo player set it up
-        if (exoVideoSurfaceView != null) {
+        if (exoVideoSurfaceView != null || exoVideoTextureView != null) {
             setupExoPlayer();
         } else {
             setupVideoView();
@@ -169,18 +261,69 @@ public class EMVideoView extends RelativeLayout {
     }
 
     private void setupExoPlayer() {
-        emExoPlayer = new EMExoPlayer(null);
-
         //Sets the internal listener
         listenerMux = new EMListenerMux(new MuxNotifier());
+        listenerMux.setEventDispatcher(eventDispatcher);
+        if (exoVideoTextureView != null) {
+            exoVideoTextureView.setSurfaceListener(new EMExoVideoTextureCallback());
+        } else {
+            exoVideoSurfaceView.getHolder().addCallback(exoVideoSurfaceCallback);
+        }
+
+        attachExoPlayer();
+    }
+
+    /**
+     * Retrieves an EMExoPlayer, from the {@link EMExoPlayerPool} if one was specified, and
+     * connects it to the listeners and surface
+     */
+    private void attachExoPlayer() {
+        emExoPlayer = exoPlayerPool != null ? exoPlayerPool.acquire(loadControl) : new EMExoPlayer(null, loadControl);
+        loadControlPending = false;
+
         emExoPlayer.addListener(listenerMux);
         emExoPlayer.setMetadataListener(null);
-        emExoPlayer.setSurface(exoVideoSurfaceView.getHolder().getSurface());
-        exoVideoSurfaceView.getHolder().addCallback(new EMExoVideoSurfaceCallback());
+        emExoPlayer.setAbrPolicy(abrPolicy);
+        emExoPlayer.setPlaybackTimelineListener(playbackTimelineListener);
+        emExoPlayer.setAudioOnly(audioOnly);
+        emExoPlayer.setSurface(getExoSurface());
+    }
+
+    /**
+     * Releases the current EMExoPlayer, returning it to the {@link EMExoPlayerPool} if one
+     * was specified.
+     */
+    private void detachExoPlayer() {
+        if (emExoPlayer == null) {
+            return;
+        }
+
+        if (exoPlayerPool != null) {
+            exoPlayerPool.release(emExoPlayer);
+        } else {
+            emExoPlayer.release();
+        }
+
+        emExoPlayer = null;
+    }
+
+    /**
+     * Retrieves the surface the EMExoPlayer should render to
+     *
+     * @return The surface or null if the TextureView's surface hasn't been created yet
+     */
+    @Nullable
+    private Surface getExoSurface() {
+        if (exoVideoTextureView != null) {
+            return exoVideoTextureView.getSurface();
+        }
+
+        return exoVideoSurfaceView.getHolder().getSurface();
     }
 
     private void setupVideoView() {
         listenerMux = new EMListenerMux(new MuxNotifier());
+        listenerMux.setEventDispatcher(eventDispatcher);
         videoView.setOnCompletionListener(listenerMux);
         videoView.setOnPreparedListener(listenerMux);
         videoView.setOnErrorListener(listenerMux);
@@ -198,11 +341,61 @@ public class EMVideoView extends RelativeLayout {
      * @return The appropriate RenderBuilder
      */
     private RenderBuilder getRendererBuilder(VideoType renderType, Uri uri) {
+        RenderBuilder renderBuilder;
         switch (renderType) {
             case HLS:
-                return new HlsRenderBuilder(getUserAgent(), uri.toString(), "uid:hls:applesinglemedia");
+                HlsRenderBuilder hlsRenderBuilder = new HlsRenderBuilder(getUserAgent(), uri.toString(), "uid:hls:applesinglemedia");
+                hlsRenderBuilder.setPlaylistCache(hlsPlaylistCache);
+                hlsRenderBuilder.setLowLatencySegmentCount(lowLatencySegmentCount);
+                renderBuilder = hlsRenderBuilder;
+                break;
+            case DASH:
+                renderBuilder = new DashRenderBuilder(getUserAgent(), uri.toString(), "uid:dash:mediapresentation");
+                break;
             default:
-                return new RenderBuilder(getContext(), uri.toString());
+                renderBuilder = new RenderBuilder(getContext(), uri.toString());
+                break;
+        }
+
+        renderBuilder.setSegmentCache(segmentCache);
+        return renderBuilder;
+    }
+
+    /**
+     * Replaces the render builder with the one for the type of the video.  If a
+     * MediaTypeDetector is set and needs to sniff the content, the render builder
+     * will be replaced once the content has been sniffed.
+     *
+     * @param uri The video's Uri
+     * @param mimeType The mime type for the video if known, otherwise null
+     */
+    private void replaceRenderBuilder(final Uri uri, @Nullable String mimeType) {
+        if (mediaTypeDetector == null) {
+            emExoPlayer.replaceRenderBuilder(getRendererBuilder(VideoType.get(MediaTypeDetector.getType(uri.toString(), mimeType)), uri));
+            return;
+        }
+
+        //Stops the previous video so that it doesn't keep playing (or restart) while the content is sniffed
+        emExoPlayer.replaceRenderBuilder(null);
+
+        mediaTypeDetector.detect(uri.toString(), mimeType, getUserAgent(), new MediaTypeDetector.Callback() {
+            @Override
+            public void onMediaTypeDetected(String url, MediaTypeDetector.MediaType mediaType) {
+                //The video may have been changed or released while the content was sniffed
+                if (emExoPlayer != null && uri.equals(videoUri)) {
+                    emExoPlayer.replaceRenderBuilder(getRendererBuilder(VideoType.get(mediaType), uri));
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+
+        //If the player was returned to the pool when detached, retrieve a new one
+        if (useExo && emExoPlayer == null && (exoVideoSurfaceView != null || exoVideoTextureView != null)) {
+            attachExoPlayer();
         }
     }
 
@@ -214,9 +407,109 @@ public class EMVideoView extends RelativeLayout {
         stopPlayback();
         overriddenPositionStopWatch.stop();
 
-        if (emExoPlayer != null) {
-            emExoPlayer.release();
+        //Releases the player or returns it to the pool, a new one is retrieved if the view is attached again
+        detachExoPlayer();
+    }
+
+    /**
+     * Sets the pool to retrieve the EMExoPlayer from, and return it to once this view is
+     * detached from the window.  This should be called before {@link #setVideoURI(android.net.Uri)}
+     * since the current player will be replaced.  By default this will be the pool specified
+     * with {@link EMExoPlayerPool#setDefaultPool(EMExoPlayerPool)}.
+     *
+     * @param pool The pool to use or null to create a new EMExoPlayer
+     */
+    public void setExoPlayerPool(@Nullable EMExoPlayerPool pool) {
+        if (pool == exoPlayerPool) {
+            return;
+        }
+
+        boolean hadPlayer = emExoPlayer != null;
+        detachExoPlayer();
+        exoPlayerPool = pool;
+
+        if (useExo && hadPlayer) {
+            attachExoPlayer();
+        }
+    }
+
+    /**
+     * Detaches the current EMExoPlayer from this view without stopping it, so that the prepared
+     * media, buffers and playback position can be re-used by another EMVideoView with
+     * {@link #attachPlayerSession(EMPlayerSession)} (e.g. when transitioning from a list to a full
+     * screen activity).  The audio continues playing until the session is attached or released,
+     * and this view is given a new EMExoPlayer.  This is only supported when the ExoPlayer is being used.
+     *
+     * @return The detached session or null if there isn't an EMExoPlayer to detach
+     */
+    @Nullable
+    public EMPlayerSession detachPlayerSession() {
+        if (!useExo || emExoPlayer == null) {
+            return null;
+        }
+
+        //The surface belongs to this view, so the player can't keep rendering to it
+        emExoPlayer.removeListener(listenerMux);
+        emExoPlayer.setPlaybackTimelineListener(null);
+        emExoPlayer.blockingClearSurface();
+
+        EMPlayerSession session = new EMPlayerSession(emExoPlayer, exoPlayerPool, videoUri);
+        emExoPlayer = null;
+        videoUri = null;
+
+        attachExoPlayer();
+        listenerMux.setNotifiedPrepared(false);
+        pause();
+
+        return session;
+    }
+
+    /**
+     * Attaches the EMExoPlayer from a session detached from another view with {@link #detachPlayerSession()},
+     * releasing this views current player.  The playback resumes from the sessions current position without
+     * preparing the media again, and the listeners are informed of the players current state (e.g. prepared).
+     * <p/>
+     * <b>NOTE:</b> The video decoder is re-configured once this views surface is available, however the
+     * buffered media is kept.
+     *
+     * @param session The session to attach
+     * @return True if the session was attached, false if it was already attached, released, or the ExoPlayer isn't being used
+     */
+    public boolean attachPlayerSession(@NonNull EMPlayerSession session) {
+        if (!useExo) {
+            return false;
+        }
+
+        EMExoPlayer player = session.claim();
+        if (player == null) {
+            return false;
+        }
+
+        detachExoPlayer();
+        emExoPlayer = player;
+        videoUri = session.getVideoUri();
+
+        emExoPlayer.addListener(listenerMux);
+        emExoPlayer.setPlaybackTimelineListener(playbackTimelineListener);
+        emExoPlayer.setAudioOnly(audioOnly);
+        emExoPlayer.setSurface(getExoSurface());
+
+        //Brings the listeners up to date with the state of the player
+        listenerMux.setNotifiedPrepared(false);
+        listenerMux.setNotifiedCompleted(false);
+        if (emExoPlayer.getVideoWidth() > 0 && emExoPlayer.getVideoHeight() > 0) {
+            listenerMux.onVideoSizeChanged(emExoPlayer.getVideoWidth(), emExoPlayer.getVideoHeight(), emExoPlayer.getPixelWidthHeightRatio());
+        }
+
+        listenerMux.onStateChanged(emExoPlayer.getPlayWhenReady(), emExoPlayer.getPlaybackState());
+
+        if (emExoPlayer.getPlayWhenReady()) {
+            start();
+        } else {
+            pause();
         }
+
+        return true;
     }
 
     /**
@@ -303,30 +596,277 @@ public class EMVideoView extends RelativeLayout {
         if (shutterRight != null) {
             shutterRight.setBackgroundColor(color);
         }
+
+        if (textureContainer != null) {
+            textureContainer.setBackgroundColor(color);
+        }
+    }
+
+    /**
+     * Retrieves the TextureView the video is rendered to, which can be animated and transformed
+     * like any other view.  This is only available when the EMVideoView was created to use a
+     * TextureView (see {@link #EMVideoView(Context, boolean)}) and the ExoPlayer is being used.
+     *
+     * @return The TextureView or null
+     */
+    @Nullable
+    public VideoTextureView getVideoTextureView() {
+        return exoVideoTextureView;
     }
 
     /**
-     * Sets the delay to use when notifying of progress.  The
-     * default is 33 milliseconds, or 30 frames-per-second
+     * Sets how the video is scaled to the size of the view.  This is only supported when the video
+     * is rendered to a TextureView (see {@link #getVideoTextureView()}), the SurfaceView always
+     * uses {@link VideoTextureView.ScaleType#FIT_CENTER}.
+     *
+     * @param scaleType The type of scaling to use
+     */
+    public void setVideoScaleType(@NonNull VideoTextureView.ScaleType scaleType) {
+        if (exoVideoTextureView != null) {
+            exoVideoTextureView.setScaleType(scaleType);
+        }
+    }
+
+    /**
+     * Sets the cache to use for storing downloaded media segments so that replays and
+     * seeks don't need to download them again.  This needs to be set before the video
+     * is specified with {@link #setVideoURI(android.net.Uri)}, and is currently only used
+     * for HLS streams.
+     *
+     * @param segmentCache The cache to use or null
+     */
+    public void setSegmentCache(@Nullable EMSegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    /**
+     * Sets the cache to use for HLS playlists so that re-playing a known stream
+     * doesn't need to wait on the playlist to be downloaded again.  This needs to be set
+     * before the video is specified with {@link #setVideoURI(android.net.Uri)}
+     *
+     * @param playlistCache The cache to use or null
+     */
+    public void setHlsPlaylistCache(@Nullable HlsPlaylistCache playlistCache) {
+        hlsPlaylistCache = playlistCache;
+    }
+
+    /**
+     * Sets the detector to use for determining the type of the video (e.g. HLS) when
+     * it can't be determined from the url or mime type, such as streams served without a
+     * file extension.  By default only the url and mime type are used.
+     *
+     * @param detector The detector to use or null
+     */
+    public void setMediaTypeDetector(@Nullable MediaTypeDetector detector) {
+        mediaTypeDetector = detector;
+    }
+
+    /**
+     * Sets the policy used to select the quality of adaptive streams (HLS, DASH)
+     * based on the available bandwidth and buffered media.
+     *
+     * @param policy The policy to use, or null to use the {@link ThroughputAbrPolicy}
+     */
+    public void setAbrPolicy(@Nullable AbrPolicy policy) {
+        abrPolicy = policy != null ? policy : new ThroughputAbrPolicy();
+        if (emExoPlayer != null) {
+            emExoPlayer.setAbrPolicy(abrPolicy);
+        }
+    }
+
+    /**
+     * Enables or disables the audio only mode, which disables the video renderer and decoder and
+     * limits adaptive streams to their lowest quality (see {@link EMExoPlayer#setAudioOnly(boolean)}).
+     * This is useful when the app is in the background while playing content where the video
+     * isn't important.  The video resumes when the mode is disabled, without preparing the media
+     * again.  This is only supported when the ExoPlayer is being used.
+     *
+     * @param audioOnly True if only the audio should be played
+     */
+    public void setAudioOnly(boolean audioOnly) {
+        this.audioOnly = audioOnly;
+        if (emExoPlayer != null) {
+            emExoPlayer.setAudioOnly(audioOnly);
+        }
+    }
+
+    public boolean isAudioOnly() {
+        return audioOnly;
+    }
+
+    /**
+     * Sets the listener to inform when the playback reaches each of the startup phases, such as
+     * the first frame being drawn.  The aggregated latencies for all playbacks are available
+     * from the {@link StartupStats}.  This is only supported when the ExoPlayer is being used.
+     *
+     * @param listener The listener to inform or null
+     */
+    public void setPlaybackTimelineListener(@Nullable PlaybackTimelineListener listener) {
+        playbackTimelineListener = listener;
+        if (emExoPlayer != null) {
+            emExoPlayer.setPlaybackTimelineListener(listener);
+        }
+    }
+
+    /**
+     * Retrieves the timeline for starting the current playback.  This is only supported
+     * when the ExoPlayer is being used.
+     *
+     * @return The playback timeline or null
+     */
+    @Nullable
+    public PlaybackTimeline getPlaybackTimeline() {
+        return useExo && emExoPlayer != null ? emExoPlayer.getPlaybackTimeline() : null;
+    }
+
+    /**
+     * Sets the buffer configuration to use for the ExoPlayer.  If the durations needed to start and
+     * resume playback differ from the current configuration the player has to be replaced, so the
+     * configuration is only applied with the next call to {@link #setVideoURI(android.net.Uri)} and
+     * the current playback continues with the previous one.
+     *
+     * @param loadControl The configuration to use, or null to use {@link EMLoadControl#createDefault(Context)}
+     */
+    public void setLoadControl(@Nullable EMLoadControl loadControl) {
+        EMLoadControl previous = this.loadControl;
+        this.loadControl = loadControl != null ? loadControl : EMLoadControl.createDefault(getContext());
+        if (emExoPlayer == null) {
+            return;
+        }
+
+        if (this.loadControl.hasSameStartThresholds(previous)) {
+            emExoPlayer.setLoadControl(this.loadControl);
+        } else {
+            loadControlPending = true;
+        }
+    }
+
+    @NonNull
+    public EMLoadControl getLoadControl() {
+        return loadControl;
+    }
+
+    /**
+     * Retrieves the statistics on the buffered media for the current playback.  This
+     * is only supported when the ExoPlayer is being used.
+     *
+     * @return The buffer statistics or null
+     */
+    @Nullable
+    public BufferStats getBufferStats() {
+        return useExo && emExoPlayer != null ? emExoPlayer.getBufferStats() : null;
+    }
+
+    /**
+     * Captures the quality of experience statistics (rebuffers, dropped frames, bitrate, etc.)
+     * for the current playback.  This is only supported when the ExoPlayer is being used.
+     *
+     * @return The snapshot of the statistics or null
+     */
+    @Nullable
+    public QoeSnapshot getQoeSnapshot() {
+        return useExo && emExoPlayer != null ? emExoPlayer.getQoeStats().getSnapshot() : null;
+    }
+
+    /**
+     * Retrieves the names of the tracks available for the type, such as the different
+     * bitrates in a DASH stream.  This is only supported when the ExoPlayer is being used
+     * and the renderers have been built (see {@link #setOnPreparedListener(android.media.MediaPlayer.OnPreparedListener)}).
+     *
+     * @param type The type of track, e.g. {@link EMExoPlayer#RENDER_AUDIO_INDEX}
+     * @return The names of the tracks or null
+     */
+    @Nullable
+    public String[] getTracks(int type) {
+        return useExo && emExoPlayer != null ? emExoPlayer.getTracks(type) : null;
+    }
+
+    /**
+     * Retrieves the index of the selected track for the type
+     *
+     * @param type The type of track, e.g. {@link EMExoPlayer#RENDER_AUDIO_INDEX}
+     * @return The index of the selected track or -1 if tracks aren't supported
+     */
+    public int getSelectedTrackIndex(int type) {
+        return useExo && emExoPlayer != null ? emExoPlayer.getSelectedTrackIndex(type) : -1;
+    }
+
+    /**
+     * Selects the track to use for the type.  This is only supported when
+     * the ExoPlayer is being used.
+     *
+     * @param type The type of track, e.g. {@link EMExoPlayer#RENDER_AUDIO_INDEX}
+     * @param index The index of the track in {@link #getTracks(int)}
+     */
+    public void selectTrack(int type, int index) {
+        if (useExo && emExoPlayer != null) {
+            emExoPlayer.selectTrack(type, index);
+        }
+    }
+
+    /**
+     * Sets the delay to use when notifying of progress while the progress
+     * is displayed continuously (e.g. a visible seek bar).  The default
+     * is 33 milliseconds, or 30 frames-per-second
      *
      * @param milliSeconds The millisecond delay to use
      */
     public void setProgressPollDelay(int milliSeconds) {
-        pollRepeater.setRepeaterDelay(milliSeconds);
+        progressScheduler.setContinuousDelay(milliSeconds);
+    }
+
+    /**
+     * Sets the rate to post progress events to the bus at.  This should reflect what the
+     * subscribers are using the progress for; e.g. {@link ProgressScheduler.UpdateRate#SECONDS}
+     * when only a time label is displayed.  The progress will only be posted when the
+     * progress poll has been started (see {@link #startProgressPoll()}).
+     *
+     * @param rate The rate to post progress events at [default: {@link ProgressScheduler.UpdateRate#CONTINUOUS}]
+     */
+    public void setProgressUpdateRate(ProgressScheduler.UpdateRate rate) {
+        busProgressRate = rate;
+        updateProgressRate();
     }
 
     /**
      * Sets the bus to use for dispatching Events that correspond to the callbacks
-     * listed in {@link com.devbrackets.android.exomedia.listener.EMVideoViewControlsCallback}
+     * listed in {@link com.devbrackets.android.exomedia.listener.EMVideoViewControlsCallback}.
+     * This is the same as setting an {@link OttoEventDispatcher} with {@link #setEventDispatcher(EMEventDispatcher)},
+     * and is only needed for Otto subscribers; by default the events are posted on the
+     * {@link #getDefaultEventDispatcher()}
      *
      * @param bus The Otto bus to dispatch events on
      */
     public void setBus(Bus bus) {
-        this.bus = bus;
-        listenerMux.setBus(bus);
+        setEventDispatcher(bus != null ? new OttoEventDispatcher(bus) : null);
+    }
+
+    /**
+     * Retrieves the dispatcher the events are posted on until a different one is set with
+     * {@link #setEventDispatcher(EMEventDispatcher)} or {@link #setBus(com.squareup.otto.Bus)}.
+     * Subscribers can be registered on it to be informed of the events without an Otto Bus.
+     *
+     * @return The default TypedEventDispatcher
+     */
+    @NonNull
+    public TypedEventDispatcher getDefaultEventDispatcher() {
+        return defaultEventDispatcher;
+    }
+
+    /**
+     * Sets the dispatcher to use for dispatching Events that correspond to the callbacks
+     * listed in {@link com.devbrackets.android.exomedia.listener.EMVideoViewControlsCallback}
+     * as well as the media progress and playback events.  The {@link com.devbrackets.android.exomedia.event.TypedEventDispatcher}
+     * delivers the events without the reflection used by the Otto bus.
+     *
+     * @param eventDispatcher The dispatcher to post the events on
+     */
+    public void setEventDispatcher(EMEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
+        listenerMux.setEventDispatcher(eventDispatcher);
 
         if (defaultControls != null) {
-            defaultControls.setBus(bus);
+            defaultControls.setEventDispatcher(eventDispatcher);
         }
     }
 
@@ -342,14 +882,14 @@ public class EMVideoView extends RelativeLayout {
     }
 
     /**
-     * Starts the progress poll.  This should be called after you have set the bus with {@link #setBus(com.squareup.otto.Bus)}
-     * or previously called {@link #startProgressPoll(com.squareup.otto.Bus)}, otherwise you won't get notified
-     * of progress changes
+     * Starts the progress poll.  The progress events are posted on the {@link #getDefaultEventDispatcher()} unless
+     * a different dispatcher was set with {@link #setBus(com.squareup.otto.Bus)} or {@link #setEventDispatcher(EMEventDispatcher)}.
+     * The progress is only polled while the dispatcher has subscribers for the {@link EMMediaProgressEvent}, so
+     * they should be registered before this is called.
      */
     public void startProgressPoll() {
-        if (!pollRepeater.isRunning() && (bus != null || defaultControls != null)) {
-            pollRepeater.start();
-        }
+        busProgressEnabled = eventDispatcher != null;
+        updateProgressRate();
     }
 
     /**
@@ -357,9 +897,8 @@ public class EMVideoView extends RelativeLayout {
      * (see {@link #startProgressPoll()})
      */
     public void stopProgressPoll() {
-        if (defaultControls == null) {
-            pollRepeater.stop();
-        }
+        busProgressEnabled = false;
+        updateProgressRate();
     }
 
     @Produce
@@ -381,17 +920,15 @@ public class EMVideoView extends RelativeLayout {
         if (defaultControls == null && enabled) {
             defaultControls = new DefaultControls(getContext());
             defaultControls.setVideoView(this);
-            defaultControls.setBus(bus);
+            defaultControls.setEventDispatcher(eventDispatcher);
 
             addView(defaultControls);
-            startProgressPoll(bus);
+            controlsVisible = true;
+            updateProgressRate();
         } else if (defaultControls != null && !enabled) {
             removeView(defaultControls);
             defaultControls = null;
-
-            if (bus == null) {
-                stopProgressPoll();
-            }
+            updateProgressRate();
         }
 
         //Sets the onClick listener to show the default controls
@@ -401,6 +938,10 @@ public class EMVideoView extends RelativeLayout {
             exoVideoSurfaceView.setOnClickListener(enabled ? listener : null);
         }
 
+        if (exoVideoTextureView != null) {
+            exoVideoTextureView.setOnClickListener(enabled ? listener : null);
+        }
+
         if (videoView != null) {
             videoView.setOnClickListener(enabled ? listener : null);
         }
@@ -546,15 +1087,34 @@ public class EMVideoView extends RelativeLayout {
      * @param uri The video's Uri
      */
     public void setVideoURI(Uri uri) {
+        setVideoURI(uri, null);
+    }
+
+    /**
+     * Sets the Uri location for the video to play, using the mime type to
+     * determine the type of the video (e.g. "application/x-mpegURL" for HLS)
+     *
+     * @param uri The video's Uri
+     * @param mimeType The mime type for the video if known, otherwise null
+     */
+    public void setVideoURI(Uri uri, @Nullable String mimeType) {
         videoUri = uri;
 
         if (!useExo) {
             videoView.setVideoURI(uri);
+            listenerMux.getStallTracker().reset();
         } else {
+            //Replaces the player so that the start thresholds from setLoadControl are used, or
+            //retrieves a new one if it was released with suspend()
+            if (loadControlPending || emExoPlayer == null) {
+                detachExoPlayer();
+                attachExoPlayer();
+            }
+
             if (uri == null) {
                 emExoPlayer.replaceRenderBuilder(null);
             } else {
-                emExoPlayer.replaceRenderBuilder(getRendererBuilder(VideoType.get(uri), uri));
+                replaceRenderBuilder(uri, mimeType);
                 listenerMux.setNotifiedCompleted(false);
             }
 
@@ -620,11 +1180,69 @@ public class EMVideoView extends RelativeLayout {
      * @param milliSeconds The time to move the playback to
      */
     public void seekTo(int milliSeconds) {
+        listenerMux.onSeek();
         if (!useExo) {
             videoView.seekTo(milliSeconds);
         } else {
             emExoPlayer.seekTo(milliSeconds);
         }
+
+        progressScheduler.requestUpdate();
+    }
+
+    /**
+     * Determines if the current video is a live stream.  The positions for live streams are on
+     * the stream timeline and the seekable range is from {@link #getLiveWindowStart()} to
+     * {@link #getLiveEdgePosition()}.
+     *
+     * @return True if the video is a live stream
+     */
+    public boolean isLive() {
+        return useExo && emExoPlayer != null && listenerMux.isPrepared() && emExoPlayer.isLive();
+    }
+
+    /**
+     * Retrieves the start of the live window, which is the earliest position that can be seeked to
+     *
+     * @return The window start in milliseconds or 0 if the video isn't live
+     */
+    public long getLiveWindowStart() {
+        return isLive() ? emExoPlayer.getLiveWindowStart() : 0;
+    }
+
+    /**
+     * Retrieves the position of the live edge, which is the furthest position that can be seeked to
+     *
+     * @return The live edge position in milliseconds or 0 if the video isn't live
+     */
+    public long getLiveEdgePosition() {
+        return isLive() ? emExoPlayer.getLiveEdgePosition() : 0;
+    }
+
+    /**
+     * Moves the playback of a live stream back to the live edge.  This has no
+     * effect if the video isn't live.
+     */
+    public void seekToLiveEdge() {
+        if (!isLive()) {
+            return;
+        }
+
+        listenerMux.onSeek();
+        emExoPlayer.seekToLiveEdge();
+        progressScheduler.requestUpdate();
+    }
+
+    /**
+     * Enables the low latency mode for live HLS streams, where the playback starts the
+     * specified number of segments from the live edge instead of the default 3 and moves
+     * back to the edge when stalls cause it to fall behind.  This takes effect for the
+     * next video that is set.
+     *
+     * @param segmentCount The number of segments behind the live edge to play, or {@link HlsLiveTracker#LOW_LATENCY_DISABLED}
+     */
+    public void setLowLatencySegmentCount(int segmentCount) {
+        lowLatencySegmentCount = segmentCount;
     }
 
     /**
@@ -658,7 +1276,8 @@ public class EMVideoView extends RelativeLayout {
         }
 
         playRequested = true;
-        startProgressPoll(bus);
+        updatePlaybackActive();
+        startProgressPoll();
     }
 
     /**
@@ -678,7 +1297,7 @@ public class EMVideoView extends RelativeLayout {
         }
 
         playRequested = false;
-        stopProgressPoll();
+        updatePlaybackActive();
     }
 
     /**
@@ -698,7 +1317,7 @@ public class EMVideoView extends RelativeLayout {
         }
 
         playRequested = false;
-        stopProgressPoll();
+        updatePlaybackActive();
     }
 
     /**
@@ -709,7 +1328,8 @@ public class EMVideoView extends RelativeLayout {
         if (!useExo) {
             videoView.suspend();
         } else {
-            emExoPlayer.release();
+            //Returns the player to the pool (or releases it), a new one is retrieved with the next setVideoURI
+            detachExoPlayer();
         }
 
         if (defaultControls != null) {
@@ -718,7 +1338,7 @@ public class EMVideoView extends RelativeLayout {
         }
 
         playRequested = false;
-        stopProgressPoll();
+        updatePlaybackActive();
     }
 
     /**
@@ -836,6 +1456,17 @@ public class EMVideoView extends RelativeLayout {
         listenerMux.addExoPlayerListener(listener);
     }
 
+    /**
+     * Adds the listener to inform of any exoPlayer events, only holding a weak reference to
+     * it.  This is useful when the listener is an Activity or Fragment, so that it can still
+     * be garbage collected if it doesn't remove itself.
+     *
+     * @param listener The listener
+     */
+    public void addWeakExoPlayerListener(ExoPlayerListener listener) {
+        listenerMux.addWeakExoPlayerListener(listener);
+    }
+
     /**
      * Removes the specified listener for the ExoPlayer.
      *
@@ -885,19 +1516,83 @@ public class EMVideoView extends RelativeLayout {
         listenerMux.setOnInfoListener(listener);
     }
 
+    /**
+     * Sets the listener to inform of playback stalls, which is when the video runs out of buffered
+     * content while playing.  This can also be accessed through the Otto events
+     * {@link com.devbrackets.android.exomedia.event.EMMediaStallStartedEvent} and
+     * {@link com.devbrackets.android.exomedia.event.EMMediaStallEndedEvent}
+     *
+     * @param listener The listener
+     */
+    public void setStallListener(@Nullable StallListener listener) {
+        listenerMux.setStallListener(listener);
+    }
+
+    /**
+     * Retrieves the number of times the current video has stalled
+     *
+     * @return The number of stalls
+     */
+    public int getStallCount() {
+        return listenerMux.getStallTracker().getStallCount();
+    }
+
+    /**
+     * Retrieves the fraction of the time the current video should have been playing
+     * that it was stalled waiting for content to buffer.
+     *
+     * @return The stall ratio [0, 1]
+     */
+    public float getStallRatio() {
+        return listenerMux.getStallTracker().getStallRatio();
+    }
+
     /**
      * Performs the functionality to stop the progress polling, and stop any other
      * procedures from running that we no longer need.
      */
     private void onPlaybackEnded() {
         stopPlayback();
-        pollRepeater.stop();
+        progressScheduler.stop();
+    }
+
+    /**
+     * Informs the progress scheduler of the visibility of the DefaultControls, since the
+     * seek bar only needs to be updated while it is visible.
+     *
+     * @param visible True if the DefaultControls are visible
+     */
+    void onControlsVisibilityChanged(boolean visible) {
+        controlsVisible = visible;
+        updateProgressRate();
+    }
+
+    /**
+     * Determines the rate for the progress updates from the bus subscribers
+     * and the DefaultControls visibility.
+     */
+    private void updateProgressRate() {
+        boolean busSubscribed = eventDispatcher != null && eventDispatcher.hasSubscribers(EMMediaProgressEvent.class);
+        ProgressScheduler.UpdateRate busRate = busProgressEnabled && busSubscribed ? busProgressRate : ProgressScheduler.UpdateRate.NONE;
+        ProgressScheduler.UpdateRate controlsRate = defaultControls != null && controlsVisible ?
+                ProgressScheduler.UpdateRate.CONTINUOUS : ProgressScheduler.UpdateRate.NONE;
+
+        progressScheduler.setUpdateRate(ProgressScheduler.UpdateRate.max(busRate, controlsRate));
+    }
+
+    /**
+     * Informs the progress scheduler if the video is actively playing, meaning
+     * the playback was requested and the video isn't buffering.
+     */
+    private void updatePlaybackActive() {
+        progressScheduler.setPlaybackActive(playRequested && (!useExo || exoPlaybackState == ExoPlayer.STATE_READY));
+        listenerMux.setPlayRequested(playRequested);
     }
 
     private class MuxNotifier extends EMListenerMux.EMListenerMuxNotifier {
         @Override
         public boolean shouldNotifyCompletion(long endLeeway) {
-            return getCurrentPosition() + endLeeway >= getDuration();
+            return !isLive() && getCurrentPosition() + endLeeway >= getDuration();
         }
 
         @Override
@@ -912,8 +1607,28 @@ public class EMVideoView extends RelativeLayout {
             onPlaybackEnded();
         }
 
+        @Override
+        public void onStallStarted(long startTime) {
+            if (useExo && emExoPlayer != null) {
+                emExoPlayer.onStallStarted(startTime);
+            }
+        }
+
+        @Override
+        public void onStallEnded(long startTime, long endTime) {
+            if (useExo && emExoPlayer != null) {
+                emExoPlayer.onStallEnded(startTime, endTime);
+            }
+        }
+
         @Override
         public void onVideoSizeChanged(int width, int height, float pixelWidthHeightRatio) {
+            //The TextureView scales the video with a transform, so the shutters aren't used
+            if (exoVideoTextureView != null) {
+                exoVideoTextureView.setVideoSize(width, height, pixelWidthHeightRatio);
+                return;
+            }
+
             //Makes sure we have the correct aspect ratio
             float videoAspectRatio = height == 0 ? 1 : (width * pixelWidthHeightRatio) / height;
             exoVideoSurfaceView.setVideoWidthHeightRatio(videoAspectRatio);
@@ -939,6 +1654,12 @@ public class EMVideoView extends RelativeLayout {
             }
         }
 
+        @Override
+        public void onStateChanged(boolean playWhenReady, int playbackState) {
+            exoPlaybackState = playbackState;
+            updatePlaybackActive();
+        }
+
         @Override
         public void onPrepared() {
             if (defaultControls != null) {
@@ -1002,6 +1723,29 @@ public class EMVideoView extends RelativeLayout {
         }
     }
 
+    /**
+     * Makes sure that the EMExoPlayer has a reference to the TextureView's surface *after* it is
+     * created.  A new surface is created each time the VideoTextureView is attached to the window.
+     */
+    private class EMExoVideoTextureCallback implements VideoTextureView.SurfaceListener {
+        @Override
+        public void onSurfaceAvailable(@NonNull Surface surface) {
+            if (emExoPlayer != null) {
+                emExoPlayer.setSurface(surface);
+                if (playRequested) {
+                    emExoPlayer.setPlayWhenReady(true);
+                }
+            }
+        }
+
+        @Override
+        public void onSurfaceDestroyed() {
+            if (emExoPlayer != null) {
+                emExoPlayer.blockingClearSurface();
+            }
+        }
+    }
+
     /**
      * Monitors the view click events to show the default controls if they are enabled.
      */
@@ -1016,8 +1760,8 @@ public class EMVideoView extends RelativeLayout {
                 }
             }
 
-            if (bus != null) {
-                bus.post(new EMVideoViewClickedEvent());
+            if (eventDispatcher != null) {
+                eventDispatcher.post(EMVideoViewClickedEvent.INSTANCE);
             }
         }
     }
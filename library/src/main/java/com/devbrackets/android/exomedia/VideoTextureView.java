@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.graphics.Matrix;
+import android.graphics.SurfaceTexture;
+import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.Surface;
+import android.view.TextureView;
+
+/**
+ * A TextureView used as the render target for the EMExoPlayer.  Unlike the SurfaceView based
+ * {@link com.google.android.exoplayer.VideoSurfaceView} the video is scaled with a transform matrix
+ * instead of resizing the view, so changes in the video size don't require a layout pass and the
+ * view can be animated and transformed like any other view.
+ * <p/>
+ * The SurfaceTexture and Surface are released when the view is detached from the window, and
+ * created again once it is attached.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class VideoTextureView extends TextureView implements TextureView.SurfaceTextureListener {
+    public enum ScaleType {
+        /**
+         * Scales the video to fit within the view, keeping the aspect ratio (letterboxing)
+         */
+        FIT_CENTER,
+        /**
+         * Scales the video to fill the view, keeping the aspect ratio and cropping the edges
+         */
+        CENTER_CROP,
+        /**
+         * Stretches the video to fill the view, ignoring the aspect ratio
+         */
+        FIT_XY
+    }
+
+    public interface SurfaceListener {
+        /**
+         * Called when the Surface for the SurfaceTexture has been created
+         *
+         * @param surface The surface to render to
+         */
+        void onSurfaceAvailable(@NonNull Surface surface);
+
+        /**
+         * Called when the Surface is about to be released because the SurfaceTexture was destroyed
+         */
+        void onSurfaceDestroyed();
+    }
+
+    private final Matrix transform = new Matrix();
+    private ScaleType scaleType = ScaleType.FIT_CENTER;
+
+    private int videoWidth = 0;
+    private int videoHeight = 0;
+    private float pixelWidthHeightRatio = 1f;
+
+    @Nullable
+    private Surface surface;
+    @Nullable
+    private SurfaceListener surfaceListener;
+    @Nullable
+    private SurfaceTextureListener surfaceTextureListener;
+
+    public VideoTextureView(Context context) {
+        super(context);
+        super.setSurfaceTextureListener(this);
+    }
+
+    public VideoTextureView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        super.setSurfaceTextureListener(this);
+    }
+
+    public VideoTextureView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        super.setSurfaceTextureListener(this);
+    }
+
+    /**
+     * Sets the listener to inform of the SurfaceTexture events.  The view uses its own listener to
+     * manage the Surface, so the listener is informed by that and the value returned from
+     * {@link SurfaceTextureListener#onSurfaceTextureDestroyed(SurfaceTexture)} is ignored; the
+     * SurfaceTexture is always released.
+     *
+     * @param listener The listener or null
+     */
+    @Override
+    public void setSurfaceTextureListener(@Nullable SurfaceTextureListener listener) {
+        surfaceTextureListener = listener;
+    }
+
+    public void setSurfaceListener(@Nullable SurfaceListener listener) {
+        surfaceListener = listener;
+    }
+
+    /**
+     * Retrieves the Surface to render the video to
+     *
+     * @return The Surface or null if the SurfaceTexture hasn't been created yet
+     */
+    @Nullable
+    public Surface getSurface() {
+        return surface;
+    }
+
+    /**
+     * Sets the size of the video so that the transform can keep the correct aspect ratio
+     *
+     * @param width The width of the video
+     * @param height The height of the video
+     * @param pixelWidthHeightRatio The width to height ratio of each pixel
+     */
+    public void setVideoSize(int width, int height, float pixelWidthHeightRatio) {
+        videoWidth = width;
+        videoHeight = height;
+        this.pixelWidthHeightRatio = pixelWidthHeightRatio;
+        updateTransform();
+    }
+
+    /**
+     * Sets how the video is scaled to the size of the view
+     *
+     * @param scaleType The type of scaling to use [default: {@link ScaleType#FIT_CENTER}]
+     */
+    public void setScaleType(@NonNull ScaleType scaleType) {
+        this.scaleType = scaleType;
+        updateTransform();
+    }
+
+    @NonNull
+    public ScaleType getScaleType() {
+        return scaleType;
+    }
+
+    @Override
+    protected void onSizeChanged(int width, int height, int oldWidth, int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        updateTransform();
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surfaceTexture, int width, int height) {
+        surface = new Surface(surfaceTexture);
+
+        if (surfaceListener != null) {
+            surfaceListener.onSurfaceAvailable(surface);
+        }
+
+        if (surfaceTextureListener != null) {
+            surfaceTextureListener.onSurfaceTextureAvailable(surfaceTexture, width, height);
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surfaceTexture, int width, int height) {
+        updateTransform();
+
+        if (surfaceTextureListener != null) {
+            surfaceTextureListener.onSurfaceTextureSizeChanged(surfaceTexture, width, height);
+        }
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surfaceTexture) {
+        if (surface != null) {
+            if (surfaceListener != null) {
+                surfaceListener.onSurfaceDestroyed();
+            }
+
+            surface.release();
+            surface = null;
+        }
+
+        if (surfaceTextureListener != null) {
+            surfaceTextureListener.onSurfaceTextureDestroyed(surfaceTexture);
+        }
+
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surfaceTexture) {
+        if (surfaceTextureListener != null) {
+            surfaceTextureListener.onSurfaceTextureUpdated(surfaceTexture);
+        }
+    }
+
+    /**
+     * Scales the video around the center of the view.  The TextureView stretches the
+     * video to the size of the view, so the scale corrects the aspect ratio.
+     */
+    private void updateTransform() {
+        int viewWidth = getWidth();
+        int viewHeight = getHeight();
+        if (viewWidth == 0 || viewHeight == 0 || videoWidth == 0 || videoHeight == 0) {
+            return;
+        }
+
+        float videoAspectRatio = (videoWidth * pixelWidthHeightRatio) / videoHeight;
+        float viewAspectRatio = (float) viewWidth / (float) viewHeight;
+        float scaleX = 1f;
+        float scaleY = 1f;
+
+        switch (scaleType) {
+            case FIT_CENTER:
+                if (videoAspectRatio > viewAspectRatio) {
+                    scaleY = viewAspectRatio / videoAspectRatio;
+                } else {
+                    scaleX = videoAspectRatio / viewAspectRatio;
+                }
+                break;
+            case CENTER_CROP:
+                if (videoAspectRatio > viewAspectRatio) {
+                    scaleX = videoAspectRatio / viewAspectRatio;
+                } else {
+                    scaleY = viewAspectRatio / videoAspectRatio;
+                }
+                break;
+            default:
+                break;
+        }
+
+        transform.setScale(scaleX, scaleY, viewWidth / 2f, viewHeight / 2f);
+        setTransform(transform);
+    }
+}
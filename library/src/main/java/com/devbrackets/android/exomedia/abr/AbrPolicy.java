@@ -0,0 +1,39 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.abr;
+
+/**
+ * Determines the bitrate the chunk sources should use when selecting which variant
+ * (HLS) or representation (DASH) of the media to download next.  The chunk sources
+ * select the highest quality format that fits in to a fraction of the returned bitrate,
+ * so returning a smaller value selects a lower quality and a larger value a higher one.
+ * <p/>
+ * This will be called from the ExoPlayer loading threads so implementations should
+ * be thread safe.
+ */
+public interface AbrPolicy {
+    long NO_ESTIMATE = -1;
+
+    /**
+     * Retrieves the bitrate the chunk sources should use for selecting the next format
+     *
+     * @param bitrateEstimate The estimated bandwidth in bits per second, or {@link #NO_ESTIMATE}
+     * @param bufferedDurationMs The amount of media in milliseconds buffered ahead of the playback position
+     * @return The bitrate in bits per second to select the format with, or {@link #NO_ESTIMATE}
+     */
+    long getTargetBitrate(long bitrateEstimate, long bufferedDurationMs);
+}
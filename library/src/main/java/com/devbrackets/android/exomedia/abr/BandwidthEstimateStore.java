@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.abr;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+/**
+ * Keeps a smoothed estimate of the available bandwidth that is shared between all
+ * the players, so that a new playback can start with a sensible variant instead of the
+ * lowest one.  Once {@link #enablePersistence(android.content.Context)} has been called the
+ * estimate is also stored in the SharedPreferences so that it is available the next
+ * time the application is launched.
+ */
+public class BandwidthEstimateStore {
+    private static final String PREFERENCES_NAME = "EMBandwidthEstimateStore";
+    private static final String PREFERENCE_ESTIMATE = "bitrateEstimate";
+    private static final float SMOOTHING_FACTOR = 0.3f;
+    private static final long PERSIST_INTERVAL_MS = 10000;
+
+    private static final BandwidthEstimateStore instance = new BandwidthEstimateStore();
+
+    private long estimate = AbrPolicy.NO_ESTIMATE;
+    private SharedPreferences preferences;
+    private long lastPersistTime = 0;
+
+    private BandwidthEstimateStore() {
+        //Purposefully left blank
+    }
+
+    @NonNull
+    public static BandwidthEstimateStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Stores the estimate in the SharedPreferences, loading the previously stored
+     * estimate if one hasn't been measured yet.  This is safe to call multiple times.
+     *
+     * @param context The Context to use for retrieving the SharedPreferences
+     */
+    public synchronized void enablePersistence(@NonNull Context context) {
+        if (preferences != null) {
+            return;
+        }
+
+        preferences = context.getApplicationContext().getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        if (estimate == AbrPolicy.NO_ESTIMATE) {
+            estimate = preferences.getLong(PREFERENCE_ESTIMATE, AbrPolicy.NO_ESTIMATE);
+        }
+    }
+
+    /**
+     * Retrieves the smoothed bandwidth estimate
+     *
+     * @return The estimate in bits per second or {@link AbrPolicy#NO_ESTIMATE}
+     */
+    public synchronized long getEstimate() {
+        return estimate;
+    }
+
+    /**
+     * Adds a bandwidth measurement to the smoothed estimate
+     *
+     * @param bitrate The measured bandwidth in bits per second
+     */
+    public synchronized void addSample(long bitrate) {
+        if (bitrate <= 0) {
+            return;
+        }
+
+        if (estimate == AbrPolicy.NO_ESTIMATE) {
+            estimate = bitrate;
+        } else {
+            estimate = (long) (SMOOTHING_FACTOR * bitrate + (1 - SMOOTHING_FACTOR) * estimate);
+        }
+
+        persist();
+    }
+
+    /**
+     * Removes the estimate, including the persisted value
+     */
+    public synchronized void clear() {
+        estimate = AbrPolicy.NO_ESTIMATE;
+        if (preferences != null) {
+            preferences.edit().remove(PREFERENCE_ESTIMATE).apply();
+        }
+    }
+
+    private void persist() {
+        long now = SystemClock.elapsedRealtime();
+        if (preferences == null || now - lastPersistTime < PERSIST_INTERVAL_MS) {
+            return;
+        }
+
+        lastPersistTime = now;
+        preferences.edit().putLong(PREFERENCE_ESTIMATE, estimate).apply();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.abr;
+
+/**
+ * An {@link AbrPolicy} that selects the format from the amount of buffered media,
+ * ignoring the measured throughput.  While the buffer is below the reservoir the
+ * minimum bitrate is used; between the reservoir and the cushion the bitrate increases
+ * linearly up to the maximum bitrate.  This avoids the oscillation caused by noisy
+ * throughput measurements at the cost of a slower ramp up at the start of playback.
+ */
+public class BufferAbrPolicy implements AbrPolicy {
+    public static final long DEFAULT_RESERVOIR_MS = 5000;
+    public static final long DEFAULT_CUSHION_MS = 25000;
+
+    private final long minBitrate;
+    private final long maxBitrate;
+    private final long reservoirMs;
+    private final long cushionMs;
+
+    /**
+     * @param minBitrate The bitrate to use while the buffer is below the reservoir (e.g. the lowest variant)
+     * @param maxBitrate The bitrate to use once the buffer reaches the cushion (e.g. the highest variant)
+     */
+    public BufferAbrPolicy(long minBitrate, long maxBitrate) {
+        this(minBitrate, maxBitrate, DEFAULT_RESERVOIR_MS, DEFAULT_CUSHION_MS);
+    }
+
+    /**
+     * @param minBitrate The bitrate to use while the buffer is below the reservoir (e.g. the lowest variant)
+     * @param maxBitrate The bitrate to use once the buffer reaches the cushion (e.g. the highest variant)
+     * @param reservoirMs The amount of buffered media below which the minimum bitrate is used
+     * @param cushionMs The amount of buffered media above the reservoir at which the maximum bitrate is used
+     */
+    public BufferAbrPolicy(long minBitrate, long maxBitrate, long reservoirMs, long cushionMs) {
+        this.minBitrate = minBitrate;
+        this.maxBitrate = maxBitrate;
+        this.reservoirMs = reservoirMs;
+        this.cushionMs = cushionMs;
+    }
+
+    @Override
+    public long getTargetBitrate(long bitrateEstimate, long bufferedDurationMs) {
+        if (bufferedDurationMs <= reservoirMs) {
+            return minBitrate;
+        }
+
+        if (bufferedDurationMs >= reservoirMs + cushionMs) {
+            return maxBitrate;
+        }
+
+        float fraction = (float) (bufferedDurationMs - reservoirMs) / cushionMs;
+        return minBitrate + (long) ((maxBitrate - minBitrate) * fraction);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.abr;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer.ExoPlayer;
+import com.google.android.exoplayer.upstream.BandwidthMeter;
+import com.google.android.exoplayer.upstream.DefaultBandwidthMeter;
+
+/**
+ * A BandwidthMeter that reports the bitrate determined by the {@link AbrPolicy} to the
+ * chunk sources instead of the raw measurement.  Until a measurement has been made the
+ * estimate from the {@link BandwidthEstimateStore} is used, and each measurement is
+ * added to the store so that it can be used for later playbacks.
+ * <p/>
+ * A single meter is kept for the life of the EMExoPlayer so that the measurements are
+ * also re-used when the media is changed.
+ */
+public class EMBandwidthMeter implements BandwidthMeter, DefaultBandwidthMeter.EventListener {
+    public static final long NO_MAX_BITRATE = Long.MAX_VALUE;
+
+    private final DefaultBandwidthMeter bandwidthMeter;
+    private final ExoPlayer player;
+    private final BandwidthEstimateStore estimateStore;
+
+    @Nullable
+    private final DefaultBandwidthMeter.EventListener eventListener;
+
+    @NonNull
+    private volatile AbrPolicy abrPolicy = new ThroughputAbrPolicy();
+    private volatile long maxBitrate = NO_MAX_BITRATE;
+
+    /**
+     * @param player The player to retrieve the buffered duration from
+     * @param eventHandler The handler to inform the eventListener on
+     * @param eventListener The listener to inform of the bandwidth measurements
+     */
+    public EMBandwidthMeter(@NonNull ExoPlayer player, @NonNull Handler eventHandler, @Nullable DefaultBandwidthMeter.EventListener eventListener) {
+        this.player = player;
+        this.eventListener = eventListener;
+        this.estimateStore = BandwidthEstimateStore.getInstance();
+        this.bandwidthMeter = new DefaultBandwidthMeter(eventHandler, this);
+    }
+
+    /**
+     * Sets the policy that determines the bitrate reported to the chunk sources
+     *
+     * @param abrPolicy The policy to use [default: {@link ThroughputAbrPolicy}]
+     */
+    public void setAbrPolicy(@NonNull AbrPolicy abrPolicy) {
+        this.abrPolicy = abrPolicy;
+    }
+
+    @NonNull
+    public AbrPolicy getAbrPolicy() {
+        return abrPolicy;
+    }
+
+    /**
+     * Limits the bitrate reported to the chunk sources regardless of the policy, e.g. to keep
+     * an adaptive stream on its lowest quality while the video isn't being displayed.  The
+     * limit is also reported when there is no estimate.
+     *
+     * @param maxBitrate The maximum bitrate in bits per second or {@link #NO_MAX_BITRATE}
+     */
+    public void setMaxBitrate(long maxBitrate) {
+        this.maxBitrate = maxBitrate;
+    }
+
+    public long getMaxBitrate() {
+        return maxBitrate;
+    }
+
+    /**
+     * Retrieves the measured bandwidth, falling back to the stored estimate
+     * before the first measurement
+     *
+     * @return The estimate in bits per second or {@link #NO_ESTIMATE}
+     */
+    public long getMeasuredBitrateEstimate() {
+        long estimate = bandwidthMeter.getBitrateEstimate();
+        return estimate != NO_ESTIMATE ? estimate : estimateStore.getEstimate();
+    }
+
+    @Override
+    public long getBitrateEstimate() {
+        long targetBitrate = abrPolicy.getTargetBitrate(getMeasuredBitrateEstimate(), getBufferedDurationMs());
+        if (maxBitrate != NO_MAX_BITRATE && (targetBitrate == NO_ESTIMATE || targetBitrate > maxBitrate)) {
+            return maxBitrate;
+        }
+
+        return targetBitrate;
+    }
+
+    @Override
+    public void onTransferStart() {
+        bandwidthMeter.onTransferStart();
+    }
+
+    @Override
+    public void onBytesTransferred(int bytesTransferred) {
+        bandwidthMeter.onBytesTransferred(bytesTransferred);
+    }
+
+    @Override
+    public void onTransferEnd() {
+        bandwidthMeter.onTransferEnd();
+    }
+
+    @Override
+    public void onBandwidthSample(int elapsedMs, long bytes, long bitrate) {
+        estimateStore.addSample(bitrate);
+
+        if (eventListener != null) {
+            eventListener.onBandwidthSample(elapsedMs, bytes, bitrate);
+        }
+    }
+
+    private long getBufferedDurationMs() {
+        long bufferedPosition = player.getBufferedPosition();
+        if (bufferedPosition == ExoPlayer.UNKNOWN_TIME) {
+            return 0;
+        }
+
+        return Math.max(0, bufferedPosition - player.getCurrentPosition());
+    }
+}
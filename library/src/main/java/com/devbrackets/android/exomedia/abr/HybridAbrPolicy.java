@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.abr;
+
+/**
+ * An {@link AbrPolicy} that scales the measured throughput by the amount of buffered
+ * media.  With a small buffer the selection is more conservative than the throughput
+ * would allow so that a drop in bandwidth doesn't cause a stall, and with a large buffer
+ * the selection is more aggressive since there is time to recover.
+ */
+public class HybridAbrPolicy implements AbrPolicy {
+    public static final long DEFAULT_RESERVOIR_MS = 5000;
+    public static final long DEFAULT_CUSHION_MS = 25000;
+    public static final float DEFAULT_LOW_BUFFER_FRACTION = 0.5f;
+    public static final float DEFAULT_HIGH_BUFFER_FRACTION = 1.25f;
+
+    private final long reservoirMs;
+    private final long cushionMs;
+    private final float lowBufferFraction;
+    private final float highBufferFraction;
+
+    public HybridAbrPolicy() {
+        this(DEFAULT_RESERVOIR_MS, DEFAULT_CUSHION_MS, DEFAULT_LOW_BUFFER_FRACTION, DEFAULT_HIGH_BUFFER_FRACTION);
+    }
+
+    /**
+     * @param reservoirMs The amount of buffered media below which the low buffer fraction is used
+     * @param cushionMs The amount of buffered media above the reservoir at which the high buffer fraction is used
+     * @param lowBufferFraction The fraction of the throughput to use when the buffer is below the reservoir
+     * @param highBufferFraction The fraction of the throughput to use when the buffer is above the cushion
+     */
+    public HybridAbrPolicy(long reservoirMs, long cushionMs, float lowBufferFraction, float highBufferFraction) {
+        this.reservoirMs = reservoirMs;
+        this.cushionMs = cushionMs;
+        this.lowBufferFraction = lowBufferFraction;
+        this.highBufferFraction = highBufferFraction;
+    }
+
+    @Override
+    public long getTargetBitrate(long bitrateEstimate, long bufferedDurationMs) {
+        if (bitrateEstimate == NO_ESTIMATE) {
+            return NO_ESTIMATE;
+        }
+
+        float fraction;
+        if (bufferedDurationMs <= reservoirMs) {
+            fraction = lowBufferFraction;
+        } else if (bufferedDurationMs >= reservoirMs + cushionMs) {
+            fraction = highBufferFraction;
+        } else {
+            float bufferFraction = (float) (bufferedDurationMs - reservoirMs) / cushionMs;
+            fraction = lowBufferFraction + (highBufferFraction - lowBufferFraction) * bufferFraction;
+        }
+
+        return (long) (bitrateEstimate * fraction);
+    }
+}
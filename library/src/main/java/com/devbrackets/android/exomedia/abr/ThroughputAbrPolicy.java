@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.abr;
+
+/**
+ * An {@link AbrPolicy} that selects the format purely from the measured throughput,
+ * which is the default behaviour of the ExoPlayer chunk sources.  The estimate can be
+ * scaled to be more or less conservative than the chunk sources.
+ */
+public class ThroughputAbrPolicy implements AbrPolicy {
+    private final float bandwidthFraction;
+
+    public ThroughputAbrPolicy() {
+        this(1f);
+    }
+
+    /**
+     * @param bandwidthFraction The fraction of the estimated bandwidth to use
+     */
+    public ThroughputAbrPolicy(float bandwidthFraction) {
+        this.bandwidthFraction = bandwidthFraction;
+    }
+
+    @Override
+    public long getTargetBitrate(long bitrateEstimate, long bufferedDurationMs) {
+        if (bitrateEstimate == NO_ESTIMATE) {
+            return NO_ESTIMATE;
+        }
+
+        return (long) (bitrateEstimate * bandwidthFraction);
+    }
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (C) 2015 Brian Wernick,
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.builder;
+
+import android.annotation.TargetApi;
+import android.media.MediaCodec;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.devbrackets.android.exomedia.abr.EMBandwidthMeter;
+import com.devbrackets.android.exomedia.cache.EMCacheDataSource;
+import com.devbrackets.android.exomedia.exoplayer.EMExoPlayer;
+import com.devbrackets.android.exomedia.exoplayer.EMLoadControl;
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+import com.devbrackets.android.exomedia.listener.RendererBuilderCallback;
+import com.devbrackets.android.exomedia.renderer.EMMediaCodecAudioTrackRenderer;
+import com.devbrackets.android.exomedia.renderer.EMMediaCodecVideoTrackRenderer;
+import com.devbrackets.android.exomedia.util.DecoderCapabilityRegistry;
+import com.devbrackets.android.exomedia.util.MediaUtil;
+import com.google.android.exoplayer.LoadControl;
+import com.google.android.exoplayer.TrackRenderer;
+import com.google.android.exoplayer.chunk.ChunkSampleSource;
+import com.google.android.exoplayer.chunk.ChunkSource;
+import com.google.android.exoplayer.chunk.Format;
+import com.google.android.exoplayer.chunk.FormatEvaluator;
+import com.google.android.exoplayer.chunk.MultiTrackChunkSource;
+import com.google.android.exoplayer.dash.DashChunkSource;
+import com.google.android.exoplayer.dash.mpd.AdaptationSet;
+import com.google.android.exoplayer.dash.mpd.MediaPresentationDescription;
+import com.google.android.exoplayer.dash.mpd.MediaPresentationDescriptionParser;
+import com.google.android.exoplayer.dash.mpd.Period;
+import com.google.android.exoplayer.dash.mpd.Representation;
+import com.google.android.exoplayer.upstream.DataSource;
+import com.google.android.exoplayer.upstream.UriDataSource;
+import com.google.android.exoplayer.util.ManifestFetcher;
+import com.google.android.exoplayer.util.ManifestFetcher.ManifestCallback;
+import com.google.android.exoplayer.util.MimeTypes;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A RenderBuilder for parsing and creating the renderers for
+ * Dynamic Adaptive Streaming over HTTP (DASH).  The video renderer adapts between the
+ * representations the device is able to decode, and each audio representation is exposed
+ * as its own track.  The tracks can be retrieved and selected with
+ * {@link EMExoPlayer#getTracks(int)} and {@link EMExoPlayer#selectTrack(int, int)}, where
+ * the first video track is the adaptive track followed by each of the individual
+ * representations.
+ * <p/>
+ * Manifests stored on the device (e.g. file://) are supported so that
+ * downloaded or test content can be played.
+ */
+@TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+public class DashRenderBuilder extends RenderBuilder implements ManifestCallback<MediaPresentationDescription> {
+    private static final String TAG = DashRenderBuilder.class.getSimpleName();
+    private static final String ENCODING = "UTF-8";
+
+    private static final long LIVE_EDGE_LATENCY_MS = 30000;
+
+    private final String userAgent;
+    private final String url;
+    private final String contentId;
+
+    private EMExoPlayer player;
+    private RendererBuilderCallback callback;
+
+    @Nullable
+    private ManifestFetcher<MediaPresentationDescription> manifestFetcher;
+
+    public DashRenderBuilder(String userAgent, String url, String contentId) {
+        super();
+        this.userAgent = userAgent;
+        this.url = MediaUtil.getUriWithProtocol(url);
+        this.contentId = contentId;
+    }
+
+    @Override
+    public void buildRenderers(EMExoPlayer player, RendererBuilderCallback callback) {
+        this.player = player;
+        this.callback = callback;
+
+        if (MediaUtil.isLocalFile(url)) {
+            loadLocalManifest();
+            return;
+        }
+
+        manifestFetcher = new ManifestFetcher<>(new MediaPresentationDescriptionParser(), contentId, url, userAgent);
+        manifestFetcher.singleLoad(EMExoPlayer.getRendererBuilderHandler().getLooper(), this);
+    }
+
+    @Override
+    public void onManifestError(String contentId, IOException e) {
+        callback.onRenderersError(e);
+    }
+
+    @Override
+    public void onManifest(String contentId, MediaPresentationDescription manifest) {
+        player.getPlaybackTimeline().mark(PlaybackTimeline.Phase.MANIFEST_LOADED);
+
+        Handler mainHandler = player.getMainHandler();
+        Handler sourceEventHandler = EMExoPlayer.getSourceEventHandler();
+        EMLoadControl emLoadControl = player.getLoadControl();
+        LoadControl loadControl = emLoadControl.createLoadControl(mainHandler, player);
+        EMBandwidthMeter bandwidthMeter = player.getBandwidthMeter();
+
+        Period period = manifest.periods.get(0);
+        int videoAdaptationSetIndex = getAdaptationSetIndex(period, AdaptationSet.TYPE_VIDEO);
+        int audioAdaptationSetIndex = getAdaptationSetIndex(period, AdaptationSet.TYPE_AUDIO);
+
+        //The capabilities are probed in the background, the defaults are used until they are available
+        int maxDecodableFrameSize = DecoderCapabilityRegistry.getInstance().getMaxH264FrameSize();
+
+        //Create the video renderer
+        TrackRenderer videoRenderer = null;
+        String[] videoTrackNames = null;
+        MultiTrackChunkSource videoChunkSource = null;
+        long lowestVideoBitrate = EMBandwidthMeter.NO_MAX_BITRATE;
+
+        int[] videoRepresentationIndices = videoAdaptationSetIndex == -1 ? new int[0] :
+                getPlayableVideoRepresentations(period.adaptationSets.get(videoAdaptationSetIndex), maxDecodableFrameSize);
+        if (videoRepresentationIndices.length > 0) {
+            List<Representation> representations = period.adaptationSets.get(videoAdaptationSetIndex).representations;
+            DataSource videoDataSource = createDataSource(bandwidthMeter);
+
+            //The first track adapts between all the representations, followed by each individual representation
+            ChunkSource[] chunkSources = new ChunkSource[videoRepresentationIndices.length + 1];
+            videoTrackNames = new String[videoRepresentationIndices.length + 1];
+
+            chunkSources[0] = createChunkSource(manifest, videoAdaptationSetIndex, videoRepresentationIndices, videoDataSource,
+                    new FormatEvaluator.AdaptiveEvaluator(bandwidthMeter));
+            videoTrackNames[0] = "Auto";
+
+            for (int i = 0; i < videoRepresentationIndices.length; i++) {
+                Format format = representations.get(videoRepresentationIndices[i]).format;
+                chunkSources[i + 1] = createChunkSource(manifest, videoAdaptationSetIndex, new int[] {videoRepresentationIndices[i]},
+                        videoDataSource, new FormatEvaluator.FixedEvaluator());
+                videoTrackNames[i + 1] = format.height + "p (" + (format.bitrate / 1000) + "kbps)";
+                lowestVideoBitrate = Math.min(lowestVideoBitrate, format.bitrate);
+            }
+
+            videoChunkSource = new MultiTrackChunkSource(chunkSources);
+            ChunkSampleSource videoSampleSource = new ChunkSampleSource(videoChunkSource, loadControl, emLoadControl.getVideoBufferSize(),
+                    true, sourceEventHandler, player, EMExoPlayer.RENDER_VIDEO_INDEX);
+            EMMediaCodecVideoTrackRenderer emVideoRenderer = new EMMediaCodecVideoTrackRenderer(videoSampleSource,
+                    MediaCodec.VIDEO_SCALING_MODE_SCALE_TO_FIT, 0, mainHandler, player, DROPPED_FRAME_NOTIFICATION_AMOUNT);
+            emVideoRenderer.setPlaybackTimeline(player.getPlaybackTimeline());
+            videoRenderer = emVideoRenderer;
+        }
+
+        //Create the audio renderer
+        TrackRenderer audioRenderer = null;
+        String[] audioTrackNames = null;
+        MultiTrackChunkSource audioChunkSource = null;
+
+        if (audioAdaptationSetIndex != -1) {
+            List<Representation> representations = period.adaptationSets.get(audioAdaptationSetIndex).representations;
+            DataSource audioDataSource = createDataSource(bandwidthMeter);
+
+            ChunkSource[] chunkSources = new ChunkSource[representations.size()];
+            audioTrackNames = new String[representations.size()];
+
+            for (int i = 0; i < representations.size(); i++) {
+                Format format = representations.get(i).format;
+                chunkSources[i] = createChunkSource(manifest, audioAdaptationSetIndex, new int[] {i}, audioDataSource,
+                        new FormatEvaluator.FixedEvaluator());
+                audioTrackNames[i] = format.id + " (" + format.numChannels + "ch, " + format.audioSamplingRate + "Hz)";
+            }
+
+            audioChunkSource = new MultiTrackChunkSource(chunkSources);
+            ChunkSampleSource audioSampleSource = new ChunkSampleSource(audioChunkSource, loadControl, emLoadControl.getAudioBufferSize(),
+                    true, sourceEventHandler, player, EMExoPlayer.RENDER_AUDIO_INDEX);
+            EMMediaCodecAudioTrackRenderer emAudioRenderer = new EMMediaCodecAudioTrackRenderer(audioSampleSource, mainHandler, player);
+            emAudioRenderer.setPlaybackTimeline(player.getPlaybackTimeline());
+            audioRenderer = emAudioRenderer;
+        }
+
+        if (videoRenderer == null && audioRenderer == null) {
+            callback.onRenderersError(new IllegalStateException("No playable video or audio representations in the manifest"));
+            return;
+        }
+
+        //The AdaptiveEvaluator selects the lowest representation while the player is audio only
+        player.setLowestFormatBitrate(lowestVideoBitrate);
+
+        //Populate the Render list and tracks to pass back to the callback
+        TrackRenderer[] renderers = new TrackRenderer[EMExoPlayer.RENDER_COUNT];
+        renderers[EMExoPlayer.RENDER_VIDEO_INDEX] = videoRenderer;
+        renderers[EMExoPlayer.RENDER_AUDIO_INDEX] = audioRenderer;
+
+        String[][] trackNames = new String[EMExoPlayer.RENDER_COUNT][];
+        trackNames[EMExoPlayer.RENDER_VIDEO_INDEX] = videoTrackNames;
+        trackNames[EMExoPlayer.RENDER_AUDIO_INDEX] = audioTrackNames;
+
+        MultiTrackChunkSource[] multiTrackChunkSources = new MultiTrackChunkSource[EMExoPlayer.RENDER_COUNT];
+        multiTrackChunkSources[EMExoPlayer.RENDER_VIDEO_INDEX] = videoChunkSource;
+        multiTrackChunkSources[EMExoPlayer.RENDER_AUDIO_INDEX] = audioChunkSource;
+
+        callback.onRenderers(trackNames, multiTrackChunkSources, renderers);
+    }
+
+    /**
+     * Creates the chunk source for the representations.  When the manifest was retrieved
+     * with the ManifestFetcher it is used so that live manifests are refreshed.
+     */
+    private ChunkSource createChunkSource(MediaPresentationDescription manifest, int adaptationSetIndex, int[] representationIndices,
+                                          DataSource dataSource, FormatEvaluator formatEvaluator) {
+        if (manifestFetcher != null) {
+            return new DashChunkSource(manifestFetcher, adaptationSetIndex, representationIndices, dataSource, formatEvaluator, LIVE_EDGE_LATENCY_MS);
+        }
+
+        return new DashChunkSource(manifest, adaptationSetIndex, representationIndices, dataSource, formatEvaluator);
+    }
+
+    private DataSource createDataSource(EMBandwidthMeter bandwidthMeter) {
+        DataSource dataSource = new UriDataSource(userAgent, bandwidthMeter);
+        if (getSegmentCache() != null) {
+            dataSource = new EMCacheDataSource(dataSource, getSegmentCache());
+        }
+
+        return dataSource;
+    }
+
+    private static int getAdaptationSetIndex(Period period, int type) {
+        for (int i = 0; i < period.adaptationSets.size(); i++) {
+            if (period.adaptationSets.get(i).type == type) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Determines which of the video representations the device is able to play,
+     * filtering out those that are too large to decode or in an unsupported container.
+     */
+    private static int[] getPlayableVideoRepresentations(AdaptationSet adaptationSet, int maxDecodableFrameSize) {
+        List<Integer> playableIndices = new ArrayList<>();
+        List<Representation> representations = adaptationSet.representations;
+
+        for (int i = 0; i < representations.size(); i++) {
+            Format format = representations.get(i).format;
+            boolean supportedContainer = MimeTypes.VIDEO_MP4.equals(format.mimeType) || MimeTypes.VIDEO_WEBM.equals(format.mimeType);
+            if (supportedContainer && format.width * format.height <= maxDecodableFrameSize) {
+                playableIndices.add(i);
+            }
+        }
+
+        int[] indices = new int[playableIndices.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = playableIndices.get(i);
+        }
+
+        return indices;
+    }
+
+    /**
+     * The ManifestFetcher only supports http(s) urls, so manifests stored on the device are
+     * parsed directly.  This is called on the renderer builder thread so the parse doesn't
+     * need a thread of its own.
+     */
+    private void loadLocalManifest() {
+        InputStream inputStream = null;
+        try {
+            Uri uri = Uri.parse(url);
+            Uri baseUri = Uri.parse(url.substring(0, url.lastIndexOf('/') + 1));
+            inputStream = new FileInputStream(uri.getPath());
+
+            MediaPresentationDescription manifest = new MediaPresentationDescriptionParser().parse(inputStream, ENCODING, contentId, baseUri);
+            onManifest(contentId, manifest);
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to read the local manifest", e);
+            onManifestError(contentId, e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    //Purposefully left blank
+                }
+            }
+        }
+    }
+}
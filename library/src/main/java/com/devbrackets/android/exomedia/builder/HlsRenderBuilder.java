@@ -19,33 +19,47 @@ package com.devbrackets.android.exomedia.builder;
 import android.annotation.TargetApi;
 import android.media.MediaCodec;
 import android.os.Build;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.util.Log;
 
+import com.devbrackets.android.exomedia.abr.EMBandwidthMeter;
+import com.devbrackets.android.exomedia.cache.EMCacheDataSource;
+import com.devbrackets.android.exomedia.cache.HlsPlaylistCache;
 import com.devbrackets.android.exomedia.exoplayer.EMExoPlayer;
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+import com.devbrackets.android.exomedia.hls.HlsLiveTracker;
+import com.devbrackets.android.exomedia.hls.StreamingHlsPlaylistParser;
 import com.devbrackets.android.exomedia.listener.RendererBuilderCallback;
+import com.devbrackets.android.exomedia.metadata.Id3FrameParser;
+import com.devbrackets.android.exomedia.metadata.Id3Metadata;
 import com.devbrackets.android.exomedia.renderer.EMMediaCodecAudioTrackRenderer;
-import com.google.android.exoplayer.MediaCodecUtil;
-import com.google.android.exoplayer.MediaCodecVideoTrackRenderer;
+import com.devbrackets.android.exomedia.renderer.EMMediaCodecVideoTrackRenderer;
+import com.devbrackets.android.exomedia.util.DecoderCapabilityRegistry;
 import com.google.android.exoplayer.TrackRenderer;
 import com.google.android.exoplayer.hls.HlsChunkSource;
+import com.google.android.exoplayer.hls.HlsMasterPlaylist;
+import com.google.android.exoplayer.hls.HlsMediaPlaylist;
 import com.google.android.exoplayer.hls.HlsPlaylist;
-import com.google.android.exoplayer.hls.HlsPlaylistParser;
 import com.google.android.exoplayer.hls.HlsSampleSource;
-import com.google.android.exoplayer.metadata.Id3Parser;
+import com.google.android.exoplayer.hls.Variant;
 import com.google.android.exoplayer.metadata.MetadataTrackRenderer;
 import com.google.android.exoplayer.upstream.DataSource;
-import com.google.android.exoplayer.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer.upstream.UriDataSource;
 import com.google.android.exoplayer.util.ManifestFetcher;
 import com.google.android.exoplayer.util.ManifestFetcher.ManifestCallback;
-import com.google.android.exoplayer.util.MimeTypes;
 
 import java.io.IOException;
-import java.util.Map;
+import java.net.MalformedURLException;
+import java.net.URL;
 
 /**
  * A RenderBuilder for parsing and creating the renderers for
  * Http Live Streams (HLS).
+ * <p/>
+ * For live streams the playlist window is tracked with a {@link HlsLiveTracker}, which
+ * is kept between builds so that the renderers can be built again to seek within
+ * the window.
  */
 @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
 public class HlsRenderBuilder extends RenderBuilder implements ManifestCallback<HlsPlaylist> {
@@ -55,10 +69,17 @@ public class HlsRenderBuilder extends RenderBuilder implements ManifestCallback<
     private final String userAgent;
     private final String url;
     private final String contentId;
+    private final StreamingHlsPlaylistParser playlistParser = new StreamingHlsPlaylistParser();
 
     private EMExoPlayer player;
     private RendererBuilderCallback callback;
 
+    @Nullable
+    private HlsPlaylistCache playlistCache;
+    @Nullable
+    private volatile HlsLiveTracker liveTracker;
+    private int lowLatencySegmentCount = HlsLiveTracker.LOW_LATENCY_DISABLED;
+
     public HlsRenderBuilder(String userAgent, String url, String contentId) {
         super();
         this.userAgent = userAgent;
@@ -66,14 +87,56 @@ public class HlsRenderBuilder extends RenderBuilder implements ManifestCallback<
         this.contentId = contentId;
     }
 
+    /**
+     * Sets the cache to use for retrieving the playlist.  When this isn't
+     * specified the playlist will be fetched each time the renderers are built.
+     *
+     * @param playlistCache The cache to use or null
+     */
+    public void setPlaylistCache(@Nullable HlsPlaylistCache playlistCache) {
+        this.playlistCache = playlistCache;
+    }
+
+    /**
+     * Sets the number of segments behind the live edge that live streams should
+     * start (and stay) at.  This has no effect on streams that aren't live, and requires
+     * the url to be for a media playlist since ExoPlayer selects the start segment itself
+     * for master playlists.
+     *
+     * @param segmentCount The number of segments [1, ...] or {@link HlsLiveTracker#LOW_LATENCY_DISABLED}
+     */
+    public void setLowLatencySegmentCount(int segmentCount) {
+        lowLatencySegmentCount = segmentCount;
+        if (liveTracker != null) {
+            liveTracker.setLowLatencySegmentCount(segmentCount);
+        }
+    }
+
+    /**
+     * Retrieves the tracker for the live window.  This is also available for master playlists
+     * before it is known if the stream is live, see {@link HlsLiveTracker#isLive()}.
+     *
+     * @return The live tracker or null
+     */
+    @Nullable
+    @Override
+    public HlsLiveTracker getLiveTracker() {
+        return liveTracker;
+    }
+
     @Override
     public void buildRenderers(EMExoPlayer player, RendererBuilderCallback callback) {
         this.player = player;
         this.callback = callback;
 
-        HlsPlaylistParser parser = new HlsPlaylistParser();
-        ManifestFetcher<HlsPlaylist> playlistFetcher = new ManifestFetcher<>(parser, contentId, url, userAgent);
-        playlistFetcher.singleLoad(player.getMainHandler().getLooper(), this);
+        if (playlistCache != null) {
+            playlistCache.load(url, userAgent, contentId, EMExoPlayer.getRendererBuilderHandler().getLooper(), this);
+            return;
+        }
+
+        //The parser is kept between builds so that loading the playlist again only parses the new segments
+        ManifestFetcher<HlsPlaylist> playlistFetcher = new ManifestFetcher<>(playlistParser, contentId, url, userAgent);
+        playlistFetcher.singleLoad(EMExoPlayer.getRendererBuilderHandler().getLooper(), this);
     }
 
     @Override
@@ -83,31 +146,46 @@ public class HlsRenderBuilder extends RenderBuilder implements ManifestCallback<
 
     @Override
     public void onManifest(String contentId, HlsPlaylist manifest) {
-        DefaultBandwidthMeter bandwidthMeter = new DefaultBandwidthMeter();
+        player.getPlaybackTimeline().mark(PlaybackTimeline.Phase.MANIFEST_LOADED);
+
+        if (manifest instanceof HlsMediaPlaylist && ((HlsMediaPlaylist) manifest).live) {
+            manifest = prepareLiveMediaPlaylist((HlsMediaPlaylist) manifest);
+        } else if (manifest instanceof HlsMasterPlaylist) {
+            prepareLiveMasterPlaylist((HlsMasterPlaylist) manifest);
+        }
+
+        player.setLowestFormatBitrate(getLowestVariantBitrate(manifest));
+
+        //The player's meter is shared between playbacks and applies the ABR policy
+        EMBandwidthMeter bandwidthMeter = player.getBandwidthMeter();
 
         //Create the Sample Source to be used by the renderers
         DataSource dataSource = new UriDataSource(userAgent, bandwidthMeter);
-        boolean adaptiveDecoder = false;
-
-        try {
-            adaptiveDecoder = MediaCodecUtil.getDecoderInfo(MimeTypes.VIDEO_H264, false).adaptive;
-        } catch (MediaCodecUtil.DecoderQueryException dqe) {
-            Log.d(TAG, "Unable to determine adaptive availability.  Defaulting to false", dqe);
+        if (getSegmentCache() != null) {
+            dataSource = new EMCacheDataSource(dataSource, getSegmentCache());
         }
 
+        //The capabilities are probed in the background, the defaults are used until they are available
+        boolean adaptiveDecoder = DecoderCapabilityRegistry.getInstance().isH264AdaptiveSupported();
+
+        //The HlsChunkSource in r1.2.4 creates its own HlsPlaylistParser for the live refreshes and doesn't accept one,
+        //so only the playlists loaded by this builder use the StreamingHlsPlaylistParser
         HlsChunkSource chunkSource = new HlsChunkSource(dataSource, url, manifest, bandwidthMeter, null,
                 adaptiveDecoder ? HlsChunkSource.ADAPTIVE_MODE_SPLICE : HlsChunkSource.ADAPTIVE_MODE_NONE);
 
         HlsSampleSource sampleSource = new HlsSampleSource(chunkSource, true, DOWNSTREAM_RENDER_COUNT);
 
         //Create the renderers
-        MediaCodecVideoTrackRenderer videoRenderer = new MediaCodecVideoTrackRenderer(sampleSource,
+        EMMediaCodecVideoTrackRenderer videoRenderer = new EMMediaCodecVideoTrackRenderer(sampleSource,
                 MediaCodec.VIDEO_SCALING_MODE_SCALE_TO_FIT, 0, player.getMainHandler(), player, DROPPED_FRAME_NOTIFICATION_AMOUNT);
+        videoRenderer.setPlaybackTimeline(player.getPlaybackTimeline());
 
         EMMediaCodecAudioTrackRenderer audioRenderer = new EMMediaCodecAudioTrackRenderer(sampleSource);
+        audioRenderer.setPlaybackTimeline(player.getPlaybackTimeline());
 
-        MetadataTrackRenderer<Map<String, Object>> id3Renderer =
-                new MetadataTrackRenderer<>(sampleSource, new Id3Parser(), player.getId3MetadataRenderer(), player.getMainHandler().getLooper());
+        //The metadata is delivered by the player's Id3MetadataPipeline, so the renderer is invoked on the playback thread
+        MetadataTrackRenderer<Id3Metadata> id3Renderer =
+                new MetadataTrackRenderer<>(sampleSource, new Id3FrameParser(), player.getId3MetadataRenderer(), null);
 
 
         //Populate the Render list to pass back to the callback
@@ -117,4 +195,82 @@ public class HlsRenderBuilder extends RenderBuilder implements ManifestCallback<
         renderers[EMExoPlayer.RENDER_TIMED_METADATA_INDEX] = id3Renderer;
         callback.onRenderers(null, null, renderers);
     }
-}
\ No newline at end of file
+
+    /**
+     * Selects the segment the live playback starts at and trims the playlist so that ExoPlayer,
+     * which starts {@link HlsLiveTracker#DEFAULT_START_SEGMENTS_BEHIND_EDGE} segments from the end of
+     * the playlist (or at the first segment of a shorter playlist), starts at that segment.  ExoPlayer
+     * refreshes the playlist itself once the playback has started, so the removed segments
+     * are only hidden from the start selection.
+     */
+    @NonNull
+    private HlsMediaPlaylist prepareLiveMediaPlaylist(@NonNull HlsMediaPlaylist playlist) {
+        HlsLiveTracker tracker = getOrCreateLiveTracker(url);
+        if (tracker == null) {
+            return playlist;
+        }
+
+        int segmentCount = playlist.segments.size();
+        int startIndex = (int) (tracker.selectStartSequence(playlist.mediaSequence, segmentCount) - playlist.mediaSequence);
+
+        int end = Math.min(segmentCount, startIndex + HlsLiveTracker.DEFAULT_START_SEGMENTS_BEHIND_EDGE);
+        int begin = end - startIndex < HlsLiveTracker.DEFAULT_START_SEGMENTS_BEHIND_EDGE ? startIndex : 0;
+        if (begin == 0 && end == segmentCount) {
+            return playlist;
+        }
+
+        return new HlsMediaPlaylist(playlist.baseUri, playlist.mediaSequence + begin, playlist.targetDurationSecs, playlist.version,
+                playlist.live, playlist.segments.subList(begin, end));
+    }
+
+    /**
+     * Determines the bitrate of the lowest variant, which the HlsChunkSource selects when the
+     * bitrate estimate doesn't fit any of the variants
+     *
+     * @return The bitrate or {@link EMBandwidthMeter#NO_MAX_BITRATE} if the playlist doesn't have variants
+     */
+    private static long getLowestVariantBitrate(@NonNull HlsPlaylist playlist) {
+        if (!(playlist instanceof HlsMasterPlaylist) || ((HlsMasterPlaylist) playlist).variants.isEmpty()) {
+            return EMBandwidthMeter.NO_MAX_BITRATE;
+        }
+
+        long lowestBitrate = Long.MAX_VALUE;
+        for (Variant variant : ((HlsMasterPlaylist) playlist).variants) {
+            lowestBitrate = Math.min(lowestBitrate, variant.bitrate);
+        }
+
+        return lowestBitrate;
+    }
+
+    /**
+     * ExoPlayer loads the media playlists for a master playlist itself, so whether the stream is live
+     * isn't known yet.  The first variant is tracked, which stops refreshing if it isn't live.
+     */
+    private void prepareLiveMasterPlaylist(@NonNull HlsMasterPlaylist playlist) {
+        if (playlist.variants.isEmpty()) {
+            return;
+        }
+
+        try {
+            String variantUrl = new URL(new URL(url), playlist.variants.get(0).url).toString();
+            HlsLiveTracker tracker = getOrCreateLiveTracker(variantUrl);
+            if (tracker != null) {
+                tracker.useDefaultStart();
+            }
+        } catch (MalformedURLException e) {
+            Log.d(TAG, "Unable to determine the variant url to track", e);
+        }
+    }
+
+    @Nullable
+    private HlsLiveTracker getOrCreateLiveTracker(String playlistUrl) {
+        if (liveTracker == null) {
+            //The parser is only used when the playlist wasn't loaded from the cache
+            HlsLiveTracker tracker = new HlsLiveTracker(playlistUrl, userAgent, playlistCache == null ? playlistParser.getLastSnapshot() : null);
+            tracker.setLowLatencySegmentCount(lowLatencySegmentCount);
+            liveTracker = tracker;
+        }
+
+        return liveTracker;
+    }
+}
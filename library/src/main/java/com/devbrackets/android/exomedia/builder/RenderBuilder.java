@@ -20,12 +20,15 @@ import android.content.Context;
 import android.media.MediaCodec;
 import android.net.Uri;
 import android.os.Build;
+import android.support.annotation.Nullable;
 
+import com.devbrackets.android.exomedia.cache.EMSegmentCache;
 import com.devbrackets.android.exomedia.exoplayer.EMExoPlayer;
+import com.devbrackets.android.exomedia.hls.HlsLiveTracker;
 import com.devbrackets.android.exomedia.listener.RendererBuilderCallback;
 import com.devbrackets.android.exomedia.renderer.EMMediaCodecAudioTrackRenderer;
+import com.devbrackets.android.exomedia.renderer.EMMediaCodecVideoTrackRenderer;
 import com.devbrackets.android.exomedia.util.MediaUtil;
-import com.google.android.exoplayer.MediaCodecVideoTrackRenderer;
 import com.google.android.exoplayer.TrackRenderer;
 import com.google.android.exoplayer.source.DefaultSampleSource;
 import com.google.android.exoplayer.source.FrameworkSampleExtractor;
@@ -40,6 +43,9 @@ public class RenderBuilder {
     private final Context context;
     private final Uri uri;
 
+    @Nullable
+    private EMSegmentCache segmentCache;
+
     public RenderBuilder() {
         uri = null;
         context = null;
@@ -50,14 +56,54 @@ public class RenderBuilder {
         this.context = context;
     }
 
+    /**
+     * Sets the cache to use for storing and retrieving downloaded media segments.
+     * This is only used by builders that load the media through a DataSource, such as
+     * the {@link HlsRenderBuilder}; the default builder uses the framework extractor
+     * which performs its own loading.
+     *
+     * @param segmentCache The cache to use or null
+     */
+    public void setSegmentCache(@Nullable EMSegmentCache segmentCache) {
+        this.segmentCache = segmentCache;
+    }
+
+    @Nullable
+    public EMSegmentCache getSegmentCache() {
+        return segmentCache;
+    }
+
+    /**
+     * Retrieves the tracker for the live window when the media being built may be a live stream.
+     * This is read on the main thread after the renderers have been delivered.
+     *
+     * @return The live tracker or null if the media isn't live
+     */
+    @Nullable
+    public HlsLiveTracker getLiveTracker() {
+        return null;
+    }
+
+    /**
+     * Builds the renderers for the media.  This is called on the renderer builder thread
+     * (see {@link EMExoPlayer#getRendererBuilderHandler()}), not the main thread, so any
+     * manifest loading should also inform the builder on that thread.  The results can be
+     * passed to the callback from any thread, they are delivered to the EMExoPlayer on the
+     * main thread.
+     *
+     * @param player The player to build the renderers for
+     * @param callback The callback to inform of the renderers or error
+     */
     public void buildRenderers(EMExoPlayer player, RendererBuilderCallback callback) {
         DefaultSampleSource sampleSource = new DefaultSampleSource(new FrameworkSampleExtractor(context, uri, null), 2);
 
         //Create the renderers
-        MediaCodecVideoTrackRenderer videoRenderer = new MediaCodecVideoTrackRenderer(sampleSource, null, true, MediaCodec.VIDEO_SCALING_MODE_SCALE_TO_FIT,
-                0, null, player.getMainHandler(), player, DROPPED_FRAME_NOTIFICATION_AMOUNT);
+        EMMediaCodecVideoTrackRenderer videoRenderer = new EMMediaCodecVideoTrackRenderer(sampleSource, null, true, MediaCodec.VIDEO_SCALING_MODE_SCALE_TO_FIT,
+                0, player.getMainHandler(), player, DROPPED_FRAME_NOTIFICATION_AMOUNT);
+        videoRenderer.setPlaybackTimeline(player.getPlaybackTimeline());
 
         EMMediaCodecAudioTrackRenderer audioRenderer = new EMMediaCodecAudioTrackRenderer(sampleSource, null, true, player.getMainHandler(), player);
+        audioRenderer.setPlaybackTimeline(player.getPlaybackTimeline());
 
         //Create the Render list to send to the callback
         TrackRenderer[] renderers = new TrackRenderer[EMExoPlayer.RENDER_COUNT];
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.cache;
+
+import android.support.annotation.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Determines which entry should be removed from the {@link EMSegmentCache}
+ * when the cache has grown larger than its maximum size.
+ */
+public interface CacheEvictionPolicy {
+    /**
+     * Selects the entry to remove from the cache
+     *
+     * @param entries The entries currently in the cache
+     * @return The entry to remove or null if nothing should be removed
+     */
+    @Nullable
+    EMSegmentCache.Entry selectEviction(Collection<EMSegmentCache.Entry> entries);
+
+    /**
+     * Removes the entry that was accessed the longest time ago
+     */
+    CacheEvictionPolicy LEAST_RECENTLY_USED = new CacheEvictionPolicy() {
+        @Nullable
+        @Override
+        public EMSegmentCache.Entry selectEviction(Collection<EMSegmentCache.Entry> entries) {
+            EMSegmentCache.Entry selected = null;
+            for (EMSegmentCache.Entry entry : entries) {
+                if (selected == null || entry.getLastAccessTime() < selected.getLastAccessTime()) {
+                    selected = entry;
+                }
+            }
+
+            return selected;
+        }
+    };
+
+    /**
+     * Removes the largest entry first, freeing space with the fewest removals
+     */
+    CacheEvictionPolicy LARGEST_FIRST = new CacheEvictionPolicy() {
+        @Nullable
+        @Override
+        public EMSegmentCache.Entry selectEviction(Collection<EMSegmentCache.Entry> entries) {
+            EMSegmentCache.Entry selected = null;
+            for (EMSegmentCache.Entry entry : entries) {
+                if (selected == null || entry.getSize() > selected.getSize()) {
+                    selected = entry;
+                }
+            }
+
+            return selected;
+        }
+    };
+}
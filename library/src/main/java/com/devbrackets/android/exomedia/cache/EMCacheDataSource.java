@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.cache;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.google.android.exoplayer.C;
+import com.google.android.exoplayer.upstream.DataSource;
+import com.google.android.exoplayer.upstream.DataSpec;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Locale;
+
+/**
+ * A DataSource that reads segments from the {@link EMSegmentCache} when they have
+ * previously been downloaded, otherwise the segment is read from the upstream DataSource
+ * and written to the cache as it is read.
+ * <p/>
+ * Only media segments (recognized by their extension) are cached.  Everything else, such as
+ * the playlists which can change between requests and the AES-128 keys from #EXT-X-KEY (which
+ * must never be written to disk in plaintext), is always read from the upstream DataSource.
+ */
+public class EMCacheDataSource implements DataSource {
+    private static final String TAG = EMCacheDataSource.class.getSimpleName();
+    private static final String[] SEGMENT_EXTENSIONS = {".ts", ".aac", ".mp3", ".ac3", ".ec3", ".mp4", ".m4s", ".m4a", ".m4v", ".webm"};
+    private static final int END_OF_INPUT = -1;
+
+    private final DataSource upstream;
+    private final EMSegmentCache cache;
+
+    private RandomAccessFile cacheFile;
+    private long cacheBytesRemaining;
+
+    private boolean upstreamOpen = false;
+    private String writeKey;
+    private File writeFile;
+    private FileOutputStream writeStream;
+    private long writeLength;
+    private long bytesWritten;
+
+    public EMCacheDataSource(@NonNull DataSource upstream, @NonNull EMSegmentCache cache) {
+        this.upstream = upstream;
+        this.cache = cache;
+    }
+
+    @Override
+    public long open(DataSpec dataSpec) throws IOException {
+        String url = dataSpec.uri.toString();
+        if (!isMediaSegment(url)) {
+            upstreamOpen = true;
+            return upstream.open(dataSpec);
+        }
+
+        String key = EMSegmentCache.createKey(url, dataSpec.absoluteStreamPosition, dataSpec.length);
+        cacheFile = cache.open(key);
+        if (cacheFile != null) {
+            cacheBytesRemaining = cacheFile.length();
+            return cacheBytesRemaining;
+        }
+
+        upstreamOpen = true;
+        long length = upstream.open(dataSpec);
+        startWrite(key, length);
+        return length;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int readLength) throws IOException {
+        if (cacheFile != null) {
+            return readFromCache(buffer, offset, readLength);
+        }
+
+        int bytesRead = upstream.read(buffer, offset, readLength);
+        if (writeStream != null) {
+            if (bytesRead > 0) {
+                write(buffer, offset, bytesRead);
+            } else if (bytesRead == END_OF_INPUT) {
+                //The length was unbounded so we know it was completed when we reach the end
+                writeLength = bytesWritten;
+            }
+        }
+
+        return bytesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (cacheFile != null) {
+            cacheFile.close();
+            cacheFile = null;
+            return;
+        }
+
+        try {
+            if (upstreamOpen) {
+                upstreamOpen = false;
+                upstream.close();
+            }
+        } finally {
+            finishWrite();
+        }
+    }
+
+    private int readFromCache(byte[] buffer, int offset, int readLength) throws IOException {
+        if (cacheBytesRemaining == 0) {
+            return END_OF_INPUT;
+        }
+
+        int bytesRead = cacheFile.read(buffer, offset, (int) Math.min(cacheBytesRemaining, readLength));
+        if (bytesRead > 0) {
+            cacheBytesRemaining -= bytesRead;
+            cache.onBytesRead(bytesRead);
+        }
+
+        return bytesRead;
+    }
+
+    private void startWrite(String key, long length) {
+        writeFile = cache.startWrite(key);
+        if (writeFile == null) {
+            return;
+        }
+
+        try {
+            writeStream = new FileOutputStream(writeFile);
+            writeKey = key;
+            writeLength = length;
+            bytesWritten = 0;
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to create the cache file, the segment will not be cached", e);
+            abortWrite();
+        }
+    }
+
+    /**
+     * Writes the data to the cache file.  If this fails we stop caching the segment but
+     * continue serving the data from upstream.
+     */
+    private void write(byte[] buffer, int offset, int length) {
+        try {
+            writeStream.write(buffer, offset, length);
+            bytesWritten += length;
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to write to the cache file, the segment will not be cached", e);
+            abortWrite();
+        }
+    }
+
+    /**
+     * Adds the written segment to the cache if it was completely read,
+     * otherwise the partial file is removed.
+     */
+    private void finishWrite() {
+        if (writeStream == null) {
+            return;
+        }
+
+        boolean completed = writeLength != C.LENGTH_UNBOUNDED && bytesWritten == writeLength;
+        try {
+            writeStream.close();
+        } catch (IOException e) {
+            completed = false;
+        }
+
+        if (completed) {
+            cache.commit(writeKey, writeFile);
+        } else {
+            cache.abortWrite(writeFile);
+        }
+
+        writeStream = null;
+        writeFile = null;
+        writeKey = null;
+    }
+
+    private void abortWrite() {
+        if (writeStream != null) {
+            try {
+                writeStream.close();
+            } catch (IOException e) {
+                //Purposefully left blank
+            }
+        }
+
+        if (writeFile != null) {
+            cache.abortWrite(writeFile);
+        }
+
+        writeStream = null;
+        writeFile = null;
+        writeKey = null;
+    }
+
+    private static boolean isMediaSegment(String url) {
+        int queryStart = url.indexOf('?');
+        String path = (queryStart >= 0 ? url.substring(0, queryStart) : url).toLowerCase(Locale.US);
+        for (String extension : SEGMENT_EXTENSIONS) {
+            if (path.endsWith(extension)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.cache;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A size bound, disk backed cache for media segments.  Each segment is stored in
+ * its own file named after the hash of the segment key (the url and byte range).  When
+ * the size of the cache grows larger than the maximum size, entries are removed as
+ * determined by the {@link CacheEvictionPolicy}.
+ * <p/>
+ * This is used by the {@link EMCacheDataSource} and is safe to access from multiple threads.
+ */
+public class EMSegmentCache {
+    private static final String TAG = EMSegmentCache.class.getSimpleName();
+    private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+    private final File directory;
+    private final long maxSize;
+    private final CacheEvictionPolicy evictionPolicy;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private boolean initialized = false;
+    private long size = 0;
+
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long bytesRead = 0;
+
+    /**
+     * Creates a cache that uses the {@link CacheEvictionPolicy#LEAST_RECENTLY_USED} policy
+     *
+     * @param directory The directory to store the cached segments in
+     * @param maxSize The maximum size in bytes for the cache
+     */
+    public EMSegmentCache(@NonNull File directory, long maxSize) {
+        this(directory, maxSize, CacheEvictionPolicy.LEAST_RECENTLY_USED);
+    }
+
+    /**
+     * @param directory The directory to store the cached segments in
+     * @param maxSize The maximum size in bytes for the cache
+     * @param evictionPolicy The policy to determine which segments to remove when the cache is full
+     */
+    public EMSegmentCache(@NonNull File directory, long maxSize, @NonNull CacheEvictionPolicy evictionPolicy) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    /**
+     * Creates the key used to identify a segment
+     *
+     * @param url The url for the segment
+     * @param position The starting byte position of the segment
+     * @param length The length of the segment in bytes, or -1 if the length is unbounded
+     * @return The key for the segment
+     */
+    public static String createKey(String url, long position, long length) {
+        return url + "|" + position + "|" + length;
+    }
+
+    /**
+     * Retrieves the file for a cached segment, updating the hit and miss counters
+     *
+     * @param key The key for the segment (see {@link #createKey(String, long, long)})
+     * @return The file containing the segment or null if it isn't cached
+     */
+    @Nullable
+    public synchronized File get(String key) {
+        initialize();
+
+        Entry entry = entries.get(getFileName(key));
+        if (entry == null || !entry.file.exists()) {
+            if (entry != null) {
+                remove(entry);
+            }
+
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        entry.lastAccessTime = System.currentTimeMillis();
+
+        //Persists the access time so that the order is kept between application launches
+        //noinspection ResultOfMethodCallIgnored
+        entry.file.setLastModified(entry.lastAccessTime);
+        return entry.file;
+    }
+
+    /**
+     * Opens the file for a cached segment while holding the cache lock, so that the segment
+     * can't be evicted between finding and opening it.  Once opened the file remains readable
+     * even if the segment is evicted while it is being read.
+     *
+     * @param key The key for the segment (see {@link #createKey(String, long, long)})
+     * @return The opened file or null if the segment isn't cached
+     */
+    @Nullable
+    public synchronized RandomAccessFile open(String key) {
+        File file = get(key);
+        if (file == null) {
+            return null;
+        }
+
+        try {
+            return new RandomAccessFile(file, "r");
+        } catch (FileNotFoundException e) {
+            //The file was removed outside of the cache, treat it as a miss
+            Entry entry = entries.get(getFileName(key));
+            if (entry != null) {
+                remove(entry);
+            }
+
+            hitCount--;
+            missCount++;
+            return null;
+        }
+    }
+
+    /**
+     * Creates the temporary file to write a segment in to.  Once the segment has been
+     * completely written it should be added with {@link #commit(String, java.io.File)}
+     *
+     * @param key The key for the segment (see {@link #createKey(String, long, long)})
+     * @return The temporary file or null if the cache directory couldn't be created
+     */
+    @Nullable
+    public synchronized File startWrite(String key) {
+        initialize();
+        if (!directory.exists() && !directory.mkdirs()) {
+            return null;
+        }
+
+        return new File(directory, getFileName(key) + "." + System.nanoTime() + TEMP_FILE_EXTENSION);
+    }
+
+    /**
+     * Adds the completely written temporary file to the cache, evicting
+     * other segments as needed.
+     *
+     * @param key The key for the segment (see {@link #createKey(String, long, long)})
+     * @param tempFile The file returned from {@link #startWrite(String)}
+     */
+    public synchronized void commit(String key, File tempFile) {
+        String fileName = getFileName(key);
+        Entry existing = entries.get(fileName);
+        if (existing != null) {
+            remove(existing);
+        }
+
+        File file = new File(directory, fileName);
+        if (tempFile.length() > maxSize || !tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+
+        Entry entry = new Entry(fileName, file, file.length(), System.currentTimeMillis());
+        entries.put(fileName, entry);
+        size += entry.size;
+
+        trimToSize();
+    }
+
+    /**
+     * Removes the temporary file for a segment that wasn't completely written
+     *
+     * @param tempFile The file returned from {@link #startWrite(String)}
+     */
+    public void abortWrite(File tempFile) {
+        //noinspection ResultOfMethodCallIgnored
+        tempFile.delete();
+    }
+
+    /**
+     * Informs the cache that bytes were served from a cached segment
+     *
+     * @param count The number of bytes read
+     */
+    synchronized void onBytesRead(long count) {
+        bytesRead += count;
+    }
+
+    /**
+     * Removes all the segments from the cache.  This should not be called
+     * while a segment is being read.
+     */
+    public synchronized void clear() {
+        initialize();
+        for (Entry entry : entries.values()) {
+            //noinspection ResultOfMethodCallIgnored
+            entry.file.delete();
+        }
+
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of times a requested segment was in the cache
+     *
+     * @return The number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Retrieves the number of times a requested segment wasn't in the cache
+     *
+     * @return The number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Retrieves the number of bytes that were served from the cache
+     * instead of the network
+     *
+     * @return The number of bytes read from the cache
+     */
+    public synchronized long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Retrieves the current size of the cached segments
+     *
+     * @return The size in bytes
+     */
+    public synchronized long getSize() {
+        initialize();
+        return size;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Loads the entries that were previously stored in the cache directory.  This
+     * is performed the first time the cache is accessed so that creating the cache
+     * doesn't perform disk operations.
+     */
+    private void initialize() {
+        if (initialized) {
+            return;
+        }
+
+        initialized = true;
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        for (File file : files) {
+            if (file.getName().endsWith(TEMP_FILE_EXTENSION)) {
+                //Left over from a write that didn't complete
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+                continue;
+            }
+
+            Entry entry = new Entry(file.getName(), file, file.length(), file.lastModified());
+            entries.put(entry.fileName, entry);
+            size += entry.size;
+        }
+
+        trimToSize();
+    }
+
+    private void trimToSize() {
+        while (size > maxSize && !entries.isEmpty()) {
+            Entry entry = evictionPolicy.selectEviction(entries.values());
+            if (entry == null) {
+                return;
+            }
+
+            remove(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        if (entries.remove(entry.fileName) != null) {
+            size -= entry.size;
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        entry.file.delete();
+    }
+
+    private static String getFileName(String key) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(key.getBytes("UTF-8"));
+
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            Log.d(TAG, "Unable to hash the segment key, falling back to the hashCode", e);
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+
+    /**
+     * Represents a single segment stored in the cache
+     */
+    public static class Entry {
+        private final String fileName;
+        private final File file;
+        private final long size;
+        private long lastAccessTime;
+
+        Entry(String fileName, File file, long size, long lastAccessTime) {
+            this.fileName = fileName;
+            this.file = file;
+            this.size = size;
+            this.lastAccessTime = lastAccessTime;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public long getLastAccessTime() {
+            return lastAccessTime;
+        }
+    }
+}
@@ -0,0 +1,467 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.cache;
+
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+
+import com.devbrackets.android.exomedia.util.BackgroundThreadFactory;
+import com.google.android.exoplayer.hls.HlsMediaPlaylist;
+import com.google.android.exoplayer.hls.HlsPlaylist;
+import com.google.android.exoplayer.hls.HlsPlaylistParser;
+import com.google.android.exoplayer.util.ManifestFetcher.ManifestCallback;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-memory and on-disk cache for HLS playlists.  Playlists that were fetched within
+ * the time to live are returned without a network request; older playlists are revalidated
+ * with the server using the ETag and Last-Modified headers so that an unchanged playlist
+ * doesn't need to be downloaded or parsed again.
+ * <p/>
+ * Live media playlists (without #EXT-X-ENDLIST) change with every target duration, so they are
+ * never returned from the time to live and are always revalidated, however concurrent loads of
+ * the same url share a single request.
+ * <p/>
+ * The playlists are loaded on a background thread and the results are delivered on
+ * the Looper specified when loading.  The playlists stored on disk are limited to a maximum
+ * size, removing the least recently used playlists once it is exceeded.
+ */
+public class HlsPlaylistCache {
+    private static final String TAG = HlsPlaylistCache.class.getSimpleName();
+    private static final String ENCODING = "UTF-8";
+    private static final int DEFAULT_MEMORY_ENTRIES = 20;
+    private static final int TIMEOUT_MILLIS = 8000;
+    private static final int BUFFER_SIZE = 4096;
+    private static final long NEVER_VALIDATED = Long.MIN_VALUE / 2;
+    private static final String LOAD_THREAD_NAME = "EMExoPlayer:HlsPlaylistCache";
+
+    public static final long DEFAULT_TIME_TO_LIVE = 60000;
+    public static final long DEFAULT_MAX_DISK_BYTES = 4 * 1024 * 1024;
+
+    private static final ExecutorService loadExecutor = Executors.newSingleThreadExecutor(new BackgroundThreadFactory(LOAD_THREAD_NAME));
+
+    @Nullable
+    private final File directory;
+    private final long timeToLive;
+    private final long maxDiskBytes;
+    private final LruCache<String, CachedPlaylist> memoryCache = new LruCache<>(DEFAULT_MEMORY_ENTRIES);
+
+    //The callbacks waiting for the in-flight load of each url
+    private final Map<String, List<PendingLoad>> pendingLoads = new HashMap<>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong revalidatedCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public HlsPlaylistCache() {
+        this(null, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param directory The directory to store the playlists in, or null to only keep them in memory
+     * @param timeToLive The amount of time in milliseconds a playlist is used without revalidation
+     */
+    public HlsPlaylistCache(@Nullable File directory, long timeToLive) {
+        this(directory, timeToLive, DEFAULT_MAX_DISK_BYTES);
+    }
+
+    /**
+     * @param directory The directory to store the playlists in, or null to only keep them in memory
+     * @param timeToLive The amount of time in milliseconds a playlist is used without revalidation
+     * @param maxDiskBytes The maximum number of bytes the playlists stored in the directory can use
+     */
+    public HlsPlaylistCache(@Nullable File directory, long timeToLive, long maxDiskBytes) {
+        this.directory = directory;
+        this.timeToLive = timeToLive;
+        this.maxDiskBytes = maxDiskBytes;
+    }
+
+    /**
+     * Loads the playlist for the url, using the cached version when possible.  If the
+     * url is already being loaded the callback is informed of that load's result.
+     *
+     * @param url The url for the playlist
+     * @param userAgent The user agent to use when requesting the playlist
+     * @param contentId The id to pass to the callback
+     * @param callbackLooper The looper to inform the callback on
+     * @param callback The callback to inform when the playlist has been loaded
+     */
+    public void load(@NonNull final String url, final String userAgent, final String contentId, @NonNull Looper callbackLooper,
+                     @NonNull final ManifestCallback<HlsPlaylist> callback) {
+        PendingLoad pendingLoad = new PendingLoad(new Handler(callbackLooper), contentId, callback);
+        synchronized (pendingLoads) {
+            List<PendingLoad> pending = pendingLoads.get(url);
+            if (pending != null) {
+                pending.add(pendingLoad);
+                return;
+            }
+
+            pending = new ArrayList<>();
+            pending.add(pendingLoad);
+            pendingLoads.put(url, pending);
+        }
+
+        loadExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                HlsPlaylist playlist = null;
+                IOException exception = null;
+                try {
+                    playlist = loadPlaylist(url, userAgent, contentId);
+                } catch (IOException e) {
+                    exception = e;
+                }
+
+                List<PendingLoad> pending;
+                synchronized (pendingLoads) {
+                    pending = pendingLoads.remove(url);
+                }
+
+                for (PendingLoad load : pending) {
+                    load.deliver(playlist, exception);
+                }
+            }
+        });
+    }
+
+    /**
+     * Retrieves the number of times a playlist was returned without any network request
+     *
+     * @return The number of cache hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Retrieves the number of times the server informed us the cached playlist
+     * was still valid, saving the download and parse of the playlist.
+     *
+     * @return The number of successful revalidations
+     */
+    public long getRevalidatedCount() {
+        return revalidatedCount.get();
+    }
+
+    /**
+     * Retrieves the number of times the playlist had to be completely downloaded
+     *
+     * @return The number of cache misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Removes all the cached playlists
+     */
+    public void clear() {
+        memoryCache.evictAll();
+
+        File[] files = directory != null ? directory.listFiles() : null;
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+    }
+
+    private HlsPlaylist loadPlaylist(String url, String userAgent, String contentId) throws IOException {
+        CachedPlaylist cached = memoryCache.get(url);
+        if (cached == null) {
+            cached = readFromDisk(url, contentId);
+        }
+
+        boolean live = cached != null && isLive(cached.playlist);
+        if (cached != null && !live && SystemClock.elapsedRealtime() - cached.validatedTime < timeToLive) {
+            hitCount.incrementAndGet();
+            return cached.playlist;
+        }
+
+        try {
+            return fetchPlaylist(url, userAgent, contentId, cached);
+        } catch (IOException e) {
+            //A stale live playlist could reference segments that have already been removed
+            if (cached == null || live) {
+                throw e;
+            }
+
+            //We would rather play the (possibly stale) cached playlist than fail
+            Log.d(TAG, "Unable to revalidate the playlist, using the cached version", e);
+            return cached.playlist;
+        }
+    }
+
+    private HlsPlaylist fetchPlaylist(String url, String userAgent, String contentId, @Nullable CachedPlaylist cached) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestProperty("User-Agent", userAgent);
+            if (cached != null) {
+                if (cached.eTag != null) {
+                    connection.setRequestProperty("If-None-Match", cached.eTag);
+                }
+
+                if (cached.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+                }
+            }
+
+            if (cached != null && connection.getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                revalidatedCount.incrementAndGet();
+                cached.validatedTime = SystemClock.elapsedRealtime();
+                memoryCache.put(url, cached);
+                return cached.playlist;
+            }
+
+            missCount.incrementAndGet();
+            byte[] data = readFully(connection.getInputStream());
+            CachedPlaylist playlist = new CachedPlaylist(parse(url, contentId, data), data, connection.getHeaderField("ETag"),
+                    connection.getHeaderField("Last-Modified"), SystemClock.elapsedRealtime());
+
+            memoryCache.put(url, playlist);
+            if (!isLive(playlist.playlist)) {
+                writeToDisk(url, playlist);
+            }
+
+            return playlist.playlist;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static boolean isLive(HlsPlaylist playlist) {
+        return playlist instanceof HlsMediaPlaylist && ((HlsMediaPlaylist) playlist).live;
+    }
+
+    private static HlsPlaylist parse(String url, String contentId, byte[] data) throws IOException {
+        Uri baseUri = Uri.parse(url.substring(0, url.lastIndexOf('/') + 1));
+        return new HlsPlaylistParser().parse(new ByteArrayInputStream(data), ENCODING, contentId, baseUri);
+    }
+
+    /**
+     * Reads the playlist stored on disk.  Since we don't know how long ago the playlist was
+     * validated it will always be revalidated before being used.
+     */
+    @Nullable
+    private CachedPlaylist readFromDisk(String url, String contentId) {
+        File file = getFile(url);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+
+        DataInputStream inputStream = null;
+        try {
+            inputStream = new DataInputStream(new FileInputStream(file));
+            String eTag = inputStream.readUTF();
+            String lastModified = inputStream.readUTF();
+            byte[] data = new byte[inputStream.readInt()];
+            inputStream.readFully(data);
+
+            //The modification time orders the files for trimming, so reading a playlist marks it as recently used
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+
+            return new CachedPlaylist(parse(url, contentId, data), data, eTag.isEmpty() ? null : eTag,
+                    lastModified.isEmpty() ? null : lastModified, NEVER_VALIDATED);
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to read the cached playlist", e);
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+            return null;
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    private void writeToDisk(String url, CachedPlaylist playlist) {
+        File file = getFile(url);
+        if (file == null || (!directory.exists() && !directory.mkdirs())) {
+            return;
+        }
+
+        DataOutputStream outputStream = null;
+        try {
+            outputStream = new DataOutputStream(new FileOutputStream(file));
+            outputStream.writeUTF(playlist.eTag != null ? playlist.eTag : "");
+            outputStream.writeUTF(playlist.lastModified != null ? playlist.lastModified : "");
+            outputStream.writeInt(playlist.data.length);
+            outputStream.write(playlist.data);
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to write the playlist to the cache", e);
+        } finally {
+            closeQuietly(outputStream);
+        }
+
+        trimDisk();
+    }
+
+    /**
+     * Removes the least recently used playlists from the directory until the
+     * stored playlists fit within the maximum size
+     */
+    private void trimDisk() {
+        File[] files = directory != null ? directory.listFiles() : null;
+        if (files == null) {
+            return;
+        }
+
+        long totalBytes = 0;
+        for (File file : files) {
+            totalBytes += file.length();
+        }
+
+        if (totalBytes <= maxDiskBytes) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File lhs, File rhs) {
+                long lhsModified = lhs.lastModified();
+                long rhsModified = rhs.lastModified();
+                return lhsModified < rhsModified ? -1 : (lhsModified == rhsModified ? 0 : 1);
+            }
+        });
+
+        for (int i = 0; i < files.length && totalBytes > maxDiskBytes; i++) {
+            long length = files[i].length();
+            if (files[i].delete()) {
+                totalBytes -= length;
+            }
+        }
+    }
+
+    @Nullable
+    private File getFile(String url) {
+        if (directory == null) {
+            return null;
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(url.getBytes(ENCODING));
+
+            StringBuilder builder = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+
+            return new File(directory, builder.toString());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return new File(directory, Integer.toHexString(url.hashCode()));
+        }
+    }
+
+    private static byte[] readFully(InputStream inputStream) throws IOException {
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return outputStream.toByteArray();
+        } finally {
+            closeQuietly(inputStream);
+        }
+    }
+
+    private static void closeQuietly(@Nullable Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                //Purposefully left blank
+            }
+        }
+    }
+
+    private static class PendingLoad {
+        private final Handler callbackHandler;
+        private final String contentId;
+        private final ManifestCallback<HlsPlaylist> callback;
+
+        public PendingLoad(Handler callbackHandler, String contentId, ManifestCallback<HlsPlaylist> callback) {
+            this.callbackHandler = callbackHandler;
+            this.contentId = contentId;
+            this.callback = callback;
+        }
+
+        public void deliver(@Nullable final HlsPlaylist playlist, @Nullable final IOException exception) {
+            callbackHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (exception != null) {
+                        callback.onManifestError(contentId, exception);
+                    } else {
+                        callback.onManifest(contentId, playlist);
+                    }
+                }
+            });
+        }
+    }
+
+    private static class CachedPlaylist {
+        private final HlsPlaylist playlist;
+        private final byte[] data;
+        private final String eTag;
+        private final String lastModified;
+        private volatile long validatedTime;
+
+        public CachedPlaylist(HlsPlaylist playlist, byte[] data, @Nullable String eTag, @Nullable String lastModified, long validatedTime) {
+            this.playlist = playlist;
+            this.data = data;
+            this.eTag = eTag;
+            this.lastModified = lastModified;
+            this.validatedTime = validatedTime;
+        }
+    }
+}
@@ -25,6 +25,8 @@ import com.devbrackets.android.exomedia.util.EMAudioFocusHelper;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMAudioFocusGainedEvent {
+    public static final EMAudioFocusGainedEvent INSTANCE = new EMAudioFocusGainedEvent();
+
     public EMAudioFocusGainedEvent() {
         //Purposefully left blank
     }
@@ -25,6 +25,9 @@ import com.devbrackets.android.exomedia.util.EMAudioFocusHelper;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMAudioFocusLostEvent {
+    private static final EMAudioFocusLostEvent CAN_DUCK = new EMAudioFocusLostEvent(true);
+    private static final EMAudioFocusLostEvent CANNOT_DUCK = new EMAudioFocusLostEvent(false);
+
     private final boolean canDuck;
 
     public EMAudioFocusLostEvent(boolean canDuck) {
@@ -34,4 +37,14 @@ public class EMAudioFocusLostEvent {
     public boolean canDuck() {
         return canDuck;
     }
+
+    /**
+     * Retrieves a shared event for the focus loss instead of allocating a new one, the events are immutable
+     *
+     * @param canDuck True if the audio can continue playing at a lower volume
+     * @return The shared event
+     */
+    public static EMAudioFocusLostEvent obtain(boolean canDuck) {
+        return canDuck ? CAN_DUCK : CANNOT_DUCK;
+    }
 }
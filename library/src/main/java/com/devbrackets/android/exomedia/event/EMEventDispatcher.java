@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.devbrackets.android.exomedia.event;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Delivers the EM* events (e.g. {@link EMMediaProgressEvent}, {@link EMMediaPlayPauseEvent})
+ * to the interested subscribers.  The {@link TypedEventDispatcher} delivers the events without
+ * any reflection, and the {@link OttoEventDispatcher} adapts an existing Otto Bus.
+ * <p/>
+ * The events are posted on the main thread unless stated otherwise by the event.  The events
+ * without any values (e.g. {@link EMMediaPreparedEvent}) are posted using their shared
+ * {@code INSTANCE} instead of allocating a new one, and the events with values are immutable
+ * with the exception of the {@link EMMediaProgressEvent}, which is re-used for every update.
+ */
+public interface EMEventDispatcher {
+    /**
+     * Delivers the event to the subscribers registered for the events type
+     *
+     * @param event The event to deliver
+     */
+    void post(@NonNull Object event);
+
+    /**
+     * Determines if there are subscribers for the type of event, so that work only needed
+     * to produce the events (e.g. polling the progress) can be skipped when there aren't any.
+     *
+     * @param eventType The class of the events
+     * @return True if there are, or may be, subscribers for the events
+     */
+    boolean hasSubscribers(@NonNull Class<?> eventType);
+}
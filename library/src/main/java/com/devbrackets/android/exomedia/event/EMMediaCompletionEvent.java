@@ -22,6 +22,8 @@ package com.devbrackets.android.exomedia.event;
  * which is the same as {@link android.media.MediaPlayer.OnCompletionListener}
  */
 public class EMMediaCompletionEvent {
+    public static final EMMediaCompletionEvent INSTANCE = new EMMediaCompletionEvent();
+
     public EMMediaCompletionEvent() {
         //Purposefully left blank
     }
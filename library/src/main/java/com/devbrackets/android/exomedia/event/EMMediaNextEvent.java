@@ -23,6 +23,8 @@ package com.devbrackets.android.exomedia.event;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMMediaNextEvent {
+    public static final EMMediaNextEvent INSTANCE = new EMMediaNextEvent();
+
     public EMMediaNextEvent() {
         //Purposefully left blank
     }
@@ -23,6 +23,8 @@ package com.devbrackets.android.exomedia.event;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMMediaPlayPauseEvent {
+    public static final EMMediaPlayPauseEvent INSTANCE = new EMMediaPlayPauseEvent();
+
     public EMMediaPlayPauseEvent() {
         //Purposefully left blank
     }
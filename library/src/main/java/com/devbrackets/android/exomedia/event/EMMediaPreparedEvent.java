@@ -20,6 +20,8 @@ package com.devbrackets.android.exomedia.event;
  * Used to capture when the current media item has been prepared.
  */
 public class EMMediaPreparedEvent {
+    public static final EMMediaPreparedEvent INSTANCE = new EMMediaPreparedEvent();
+
     public EMMediaPreparedEvent() {
         //Purposefully left blank
     }
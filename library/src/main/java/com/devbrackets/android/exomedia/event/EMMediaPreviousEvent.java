@@ -23,6 +23,8 @@ package com.devbrackets.android.exomedia.event;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMMediaPreviousEvent {
+    public static final EMMediaPreviousEvent INSTANCE = new EMMediaPreviousEvent();
+
     public EMMediaPreviousEvent() {
         //Purposefully left blank
     }
@@ -19,48 +19,146 @@ package com.devbrackets.android.exomedia.event;
 /**
  * An event to be used to inform listeners of media (e.g. audio, video) progress
  * changes.  This event will be re-used internally to avoid over-creating objects,
- * if you need to store the current values use
+ * if you need to store the current values use {@link #copyTo(EMMediaProgressEvent)}
+ * or {@link #obtain(EMMediaProgressEvent)}.
+ * <p/>
+ * The values are updated on the main thread, however they can safely be read from
+ * any thread.  Each getter returns a value from a single update, but separate getter calls can
+ * return values from different updates (e.g. a position that is past the duration read just before).
+ * When the values need to be consistent with each other, {@link #copyTo(EMMediaProgressEvent)}
+ * captures all the values from the same update without allocating.
+ * <p/>
+ * For live streams the position and window are on the stream timeline, the window
+ * end is the live edge and the duration is the length of the window.
  */
 public class EMMediaProgressEvent {
     private static final int MAX_BUFFER_PERCENT = 100;
 
-    private long position;
-    private long duration;
-    private int bufferPercent;
-    private float bufferPercentFloat;
+    //Odd while the values are being changed; readers retry until they see the same even value before and after reading
+    private volatile int sequence = 0;
+
+    private volatile long position;
+    private volatile long duration;
+    private volatile int bufferPercent;
+    private volatile float bufferPercentFloat;
+    private volatile long windowStart;
+    private volatile long windowEnd;
+    private volatile boolean live;
+
+    public EMMediaProgressEvent() {
+        //Purposefully left blank
+    }
 
     public EMMediaProgressEvent(long position, int bufferPercent, long duration) {
         update(position, bufferPercent, duration);
     }
 
+    /**
+     * Updates all the values at once.  This should only be called from a single thread.
+     *
+     * @param position The position in milliseconds
+     * @param bufferPercent The buffered percent [0, 100]
+     * @param duration The duration in milliseconds
+     */
     public void update(long position, int bufferPercent, long duration) {
-        setPosition(position);
-        setBufferPercent(bufferPercent);
-        setDuration(duration);
+        sequence++;
+        this.position = position;
+        storeBufferPercent(bufferPercent);
+        this.duration = duration < 0 ? 0 : duration;
+        this.windowStart = 0;
+        this.windowEnd = this.duration;
+        this.live = false;
+        sequence++;
     }
 
-    public long getPosition() {
-        if (position < 0) {
-            position = 0;
-        }
+    /**
+     * Updates all the values at once for a live stream.  This should only be called from a single thread.
+     *
+     * @param position The position on the stream timeline in milliseconds
+     * @param bufferPercent The buffered percent [0, 100]
+     * @param windowStart The start of the live window in milliseconds
+     * @param windowEnd The end of the live window (the live edge) in milliseconds
+     */
+    public void updateLive(long position, int bufferPercent, long windowStart, long windowEnd) {
+        sequence++;
+        this.position = position;
+        storeBufferPercent(bufferPercent);
+        this.windowStart = windowStart;
+        this.windowEnd = Math.max(windowStart, windowEnd);
+        this.duration = this.windowEnd - windowStart;
+        this.live = true;
+        sequence++;
+    }
 
-        return position;
+    public long getPosition() {
+        long value;
+        int startSequence;
+        do {
+            startSequence = awaitStableSequence();
+            value = position;
+        } while (startSequence != sequence);
+
+        return value < 0 ? 0 : value;
     }
 
     public void setPosition(long position) {
+        sequence++;
         this.position = position;
+        sequence++;
     }
 
     public long getDuration() {
-        return duration;
+        long value;
+        int startSequence;
+        do {
+            startSequence = awaitStableSequence();
+            value = duration;
+        } while (startSequence != sequence);
+
+        return value;
     }
 
     public void setDuration(long duration) {
-        if (duration < 0) {
-            duration = 0;
-        }
+        sequence++;
+        this.duration = duration < 0 ? 0 : duration;
+        sequence++;
+    }
+
+    /**
+     * Retrieves the start of the seekable window, this is 0 for media that isn't live
+     *
+     * @return The window start in milliseconds
+     */
+    public long getWindowStart() {
+        long value;
+        int startSequence;
+        do {
+            startSequence = awaitStableSequence();
+            value = windowStart;
+        } while (startSequence != sequence);
+
+        return value;
+    }
 
-        this.duration = duration;
+    /**
+     * Retrieves the end of the seekable window, this is the live edge for live
+     * streams and the duration for other media.
+     *
+     * @return The window end in milliseconds
+     */
+    public long getWindowEnd() {
+        long value;
+        int startSequence;
+        do {
+            startSequence = awaitStableSequence();
+            value = windowEnd;
+        } while (startSequence != sequence);
+
+        return value;
+    }
+
+    public boolean isLive() {
+        return live;
     }
 
     public int getBufferPercent() {
@@ -68,6 +166,69 @@ public class EMMediaProgressEvent {
     }
 
     public void setBufferPercent(int bufferPercent) {
+        sequence++;
+        storeBufferPercent(bufferPercent);
+        sequence++;
+    }
+
+    public float getBufferPercentFloat() {
+        float value;
+        int startSequence;
+        do {
+            startSequence = awaitStableSequence();
+            value = bufferPercentFloat;
+        } while (startSequence != sequence);
+
+        return value;
+    }
+
+    /**
+     * Copies the current values in to the target event without allocating.  All the copied
+     * values will be from the same update, even when this is called from a different
+     * thread than the one performing the updates.
+     *
+     * @param target The event to copy the values in to
+     */
+    public void copyTo(EMMediaProgressEvent target) {
+        long copyPosition;
+        long copyDuration;
+        int copyBufferPercent;
+        long copyWindowStart;
+        long copyWindowEnd;
+        boolean copyLive;
+        int startSequence;
+
+        do {
+            startSequence = awaitStableSequence();
+            copyPosition = position;
+            copyDuration = duration;
+            copyBufferPercent = bufferPercent;
+            copyWindowStart = windowStart;
+            copyWindowEnd = windowEnd;
+            copyLive = live;
+        } while (startSequence != sequence);
+
+        if (copyLive) {
+            target.updateLive(copyPosition, copyBufferPercent, copyWindowStart, copyWindowEnd);
+        } else {
+            target.update(copyPosition, copyBufferPercent, copyDuration);
+        }
+    }
+
+    /**
+     * Obtains a copy of the passed EMMediaProgressEvent.  If you are copying the
+     * event frequently use {@link #copyTo(EMMediaProgressEvent)} with a re-used event instead.
+     *
+     * @param event The EMMediaProgressEvent to copy
+     * @return A copy of the event
+     */
+    public static EMMediaProgressEvent obtain(EMMediaProgressEvent event) {
+        EMMediaProgressEvent copy = new EMMediaProgressEvent();
+        event.copyTo(copy);
+        return copy;
+    }
+
+    private void storeBufferPercent(int bufferPercent) {
         //Makes sure the bufferPercent is between 0 and 100 inclusive
         if (bufferPercent < 0) {
             bufferPercent = 0;
@@ -81,17 +242,12 @@ public class EMMediaProgressEvent {
         this.bufferPercentFloat = (float) bufferPercent / (float) MAX_BUFFER_PERCENT;
     }
 
-    public float getBufferPercentFloat() {
-        return bufferPercentFloat;
-    }
+    private int awaitStableSequence() {
+        int currentSequence = sequence;
+        while ((currentSequence & 1) != 0) {
+            currentSequence = sequence;
+        }
 
-    /**
-     * Obtains a copy of the passed EMMediaProgressEvent
-     *
-     * @param event The EMMediaProgressEvent to copy
-     * @return A copy of the event
-     */
-    public static EMMediaProgressEvent obtain(EMMediaProgressEvent event) {
-        return new EMMediaProgressEvent(event.position, event.bufferPercent, event.duration);
+        return currentSequence;
     }
 }
@@ -23,6 +23,8 @@ package com.devbrackets.android.exomedia.event;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMMediaRepeatEvent {
+    public static final EMMediaRepeatEvent INSTANCE = new EMMediaRepeatEvent();
+
     public EMMediaRepeatEvent() {
         //Purposefully left blank
     }
@@ -20,6 +20,8 @@ package com.devbrackets.android.exomedia.event;
  * An event posted when a seek bar is first interacted with.
  */
 public class EMMediaSeekStartedEvent {
+    public static final EMMediaSeekStartedEvent INSTANCE = new EMMediaSeekStartedEvent();
+
     public EMMediaSeekStartedEvent() {
         //Purposefully left blank
     }
@@ -23,6 +23,8 @@ package com.devbrackets.android.exomedia.event;
  * are implemented consume the event, this will NOT be called.
  */
 public class EMMediaShareEvent {
+    public static final EMMediaShareEvent INSTANCE = new EMMediaShareEvent();
+
     public EMMediaShareEvent() {
         //Purposefully left blank
     }
@@ -23,6 +23,8 @@ package com.devbrackets.android.exomedia.event;
  * are implemented and consume the event, this will NOT be called.
  */
 public class EMMediaShuffleEvent {
+    public static final EMMediaShuffleEvent INSTANCE = new EMMediaShuffleEvent();
+
     public EMMediaShuffleEvent() {
         //Purposefully left blank
     }
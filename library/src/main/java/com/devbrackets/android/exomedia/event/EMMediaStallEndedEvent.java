@@ -0,0 +1,50 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.event;
+
+/**
+ * An event posted when the playback recovers from a stall, or the stall is
+ * interrupted by a seek or the playback being paused.
+ */
+public class EMMediaStallEndedEvent {
+    private final long startTime;
+    private final long endTime;
+
+    /**
+     * @param startTime The {@link android.os.SystemClock#elapsedRealtime()} the stall started
+     * @param endTime The {@link android.os.SystemClock#elapsedRealtime()} the stall ended
+     */
+    public EMMediaStallEndedEvent(long startTime, long endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public long getEndTime() {
+        return endTime;
+    }
+
+    /**
+     * @return The duration of the stall in milliseconds
+     */
+    public long getDuration() {
+        return endTime - startTime;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.event;
+
+/**
+ * An event posted when the playback stalls, which is when the media runs out of
+ * buffered content while playing.  The buffering before the media is first ready and
+ * the buffering caused by a seek are not stalls.
+ */
+public class EMMediaStallStartedEvent {
+    private final long startTime;
+
+    /**
+     * @param startTime The {@link android.os.SystemClock#elapsedRealtime()} the stall started
+     */
+    public EMMediaStallStartedEvent(long startTime) {
+        this.startTime = startTime;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+}
@@ -21,6 +21,8 @@ package com.devbrackets.android.exomedia.event;
  * to determine when to show custom playback controls, etc.
  */
 public class EMVideoViewClickedEvent {
+    public static final EMVideoViewClickedEvent INSTANCE = new EMVideoViewClickedEvent();
+
     public EMVideoViewClickedEvent() {
         //Purposefully left blank
     }
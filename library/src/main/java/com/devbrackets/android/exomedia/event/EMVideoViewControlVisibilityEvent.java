@@ -23,6 +23,9 @@ package com.devbrackets.android.exomedia.event;
  * are implemented consume the event, this will NOT be called.
  */
 public class EMVideoViewControlVisibilityEvent {
+    private static final EMVideoViewControlVisibilityEvent VISIBLE = new EMVideoViewControlVisibilityEvent(true);
+    private static final EMVideoViewControlVisibilityEvent HIDDEN = new EMVideoViewControlVisibilityEvent(false);
+
     private final boolean isVisible;
 
     public EMVideoViewControlVisibilityEvent(boolean isVisible) {
@@ -32,4 +35,14 @@ public class EMVideoViewControlVisibilityEvent {
     public boolean isVisible() {
         return isVisible;
     }
+
+    /**
+     * Retrieves a shared event for the visibility instead of allocating a new one, the events are immutable
+     *
+     * @param isVisible True if the controls are visible
+     * @return The shared event
+     */
+    public static EMVideoViewControlVisibilityEvent obtain(boolean isVisible) {
+        return isVisible ? VISIBLE : HIDDEN;
+    }
 }
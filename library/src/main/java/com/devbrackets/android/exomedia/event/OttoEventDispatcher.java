@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.devbrackets.android.exomedia.event;
+
+import android.support.annotation.NonNull;
+
+import com.squareup.otto.Bus;
+
+/**
+ * An {@link EMEventDispatcher} that posts the events on an Otto Bus, so that subscribers
+ * using the {@link com.squareup.otto.Subscribe} annotation continue to be informed.
+ */
+public class OttoEventDispatcher implements EMEventDispatcher {
+    @NonNull
+    private final Bus bus;
+
+    public OttoEventDispatcher(@NonNull Bus bus) {
+        this.bus = bus;
+    }
+
+    @NonNull
+    public Bus getBus() {
+        return bus;
+    }
+
+    @Override
+    public void post(@NonNull Object event) {
+        bus.post(event);
+    }
+
+    /**
+     * The Otto Bus doesn't expose its subscribers, so they are assumed to exist
+     */
+    @Override
+    public boolean hasSubscribers(@NonNull Class<?> eventType) {
+        return true;
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.devbrackets.android.exomedia.event;
+
+import android.support.annotation.NonNull;
+
+import com.devbrackets.android.exomedia.util.ListenerRegistry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An {@link EMEventDispatcher} that delivers the events to subscribers registered for the
+ * exact class of the event.  Unlike the Otto Bus no reflection is used to find or invoke the
+ * subscribers and posting an event doesn't allocate, the subscribers are looked up by the
+ * events class and invoked directly on the posting thread.
+ * <pre>
+ * dispatcher.register(EMMediaProgressEvent.class, new TypedEventDispatcher.Subscriber&lt;EMMediaProgressEvent&gt;() {
+ *     public void onEvent(EMMediaProgressEvent event) {
+ *         updateProgress(event.getPosition());
+ *     }
+ * });
+ * </pre>
+ * Subscribers can be registered and unregistered from any thread, including while
+ * an event is being delivered to them.
+ */
+public class TypedEventDispatcher implements EMEventDispatcher {
+    public interface Subscriber<T> {
+        void onEvent(@NonNull T event);
+    }
+
+    //Replaced (never modified) when the first subscriber for an event type is registered
+    private volatile Map<Class<?>, ListenerRegistry<Subscriber<?>>> subscribers = Collections.emptyMap();
+
+    /**
+     * Registers the subscriber to be informed of the events with the exact type
+     * (subclasses of the type are not delivered).
+     *
+     * @param eventType The class of the events to inform the subscriber of
+     * @param subscriber The subscriber to inform
+     */
+    public <T> void register(@NonNull Class<T> eventType, @NonNull Subscriber<? super T> subscriber) {
+        getRegistry(eventType).add(subscriber);
+    }
+
+    /**
+     * Registers the subscriber only holding a weak reference to it, see {@link #register(Class, Subscriber)}
+     *
+     * @param eventType The class of the events to inform the subscriber of
+     * @param subscriber The subscriber to inform
+     */
+    public <T> void registerWeak(@NonNull Class<T> eventType, @NonNull Subscriber<? super T> subscriber) {
+        getRegistry(eventType).addWeak(subscriber);
+    }
+
+    /**
+     * Stops informing the subscriber of the events with the type
+     *
+     * @param eventType The class of the events the subscriber was registered for
+     * @param subscriber The subscriber to remove
+     */
+    public <T> void unregister(@NonNull Class<T> eventType, @NonNull Subscriber<? super T> subscriber) {
+        ListenerRegistry<Subscriber<?>> registry = subscribers.get(eventType);
+        if (registry != null) {
+            registry.remove(subscriber);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void post(@NonNull Object event) {
+        ListenerRegistry<Subscriber<?>> registry = subscribers.get(event.getClass());
+        if (registry == null) {
+            return;
+        }
+
+        ListenerRegistry.Snapshot<Subscriber<?>> snapshot = registry.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Subscriber<Object> subscriber = (Subscriber<Object>) snapshot.get(i);
+            if (subscriber != null) {
+                subscriber.onEvent(event);
+            }
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers(@NonNull Class<?> eventType) {
+        ListenerRegistry<Subscriber<?>> registry = subscribers.get(eventType);
+        return registry != null && !registry.isEmpty();
+    }
+
+    private synchronized ListenerRegistry<Subscriber<?>> getRegistry(Class<?> eventType) {
+        ListenerRegistry<Subscriber<?>> registry = subscribers.get(eventType);
+        if (registry == null) {
+            registry = new ListenerRegistry<>();
+
+            Map<Class<?>, ListenerRegistry<Subscriber<?>>> updated = new HashMap<>(subscribers);
+            updated.put(eventType, registry);
+            subscribers = updated;
+        }
+
+        return registry;
+    }
+}
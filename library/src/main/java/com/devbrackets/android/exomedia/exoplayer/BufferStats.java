@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+/**
+ * Statistics on the amount of media buffered ahead of the playback position, sampled
+ * while the media is playing or buffering.  These can be reported to determine the
+ * {@link EMLoadControl} values to use in production.
+ */
+public class BufferStats {
+    private int sampleCount;
+    private long totalBufferedMs;
+    private long minBufferedMs = Long.MAX_VALUE;
+    private long maxBufferedMs;
+    private int lowBufferSampleCount;
+    private int loadingSampleCount;
+
+    /**
+     * Adds a sample of the buffered duration
+     *
+     * @param bufferedMs The amount of media buffered in milliseconds
+     * @param lowBuffer True if the buffered duration is below the amount needed to resume playback
+     * @param loading True if media is currently being loaded
+     */
+    synchronized void addSample(long bufferedMs, boolean lowBuffer, boolean loading) {
+        sampleCount++;
+        totalBufferedMs += bufferedMs;
+        minBufferedMs = Math.min(minBufferedMs, bufferedMs);
+        maxBufferedMs = Math.max(maxBufferedMs, bufferedMs);
+
+        if (lowBuffer) {
+            lowBufferSampleCount++;
+        }
+
+        if (loading) {
+            loadingSampleCount++;
+        }
+    }
+
+    synchronized void reset() {
+        sampleCount = 0;
+        totalBufferedMs = 0;
+        minBufferedMs = Long.MAX_VALUE;
+        maxBufferedMs = 0;
+        lowBufferSampleCount = 0;
+        loadingSampleCount = 0;
+    }
+
+    public synchronized int getSampleCount() {
+        return sampleCount;
+    }
+
+    public synchronized long getAverageBufferedMs() {
+        return sampleCount == 0 ? 0 : totalBufferedMs / sampleCount;
+    }
+
+    public synchronized long getMinBufferedMs() {
+        return sampleCount == 0 ? 0 : minBufferedMs;
+    }
+
+    public synchronized long getMaxBufferedMs() {
+        return maxBufferedMs;
+    }
+
+    /**
+     * Retrieves the fraction of the samples where the buffered media was below
+     * the amount needed to resume playback after a rebuffer
+     *
+     * @return The fraction of samples [0, 1]
+     */
+    public synchronized float getLowBufferFraction() {
+        return sampleCount == 0 ? 0 : (float) lowBufferSampleCount / sampleCount;
+    }
+
+    /**
+     * Retrieves the fraction of the samples where media was being loaded.  This
+     * is only reported for sample sources that use the {@link EMLoadControl}.
+     *
+     * @return The fraction of samples [0, 1]
+     */
+    public synchronized float getLoadingFraction() {
+        return sampleCount == 0 ? 0 : (float) loadingSampleCount / sampleCount;
+    }
+}
@@ -21,18 +21,32 @@ import android.content.Context;
 import android.media.MediaCodec;
 import android.media.MediaPlayer;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
 import android.os.PowerManager;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.view.Surface;
 
+import com.devbrackets.android.exomedia.abr.AbrPolicy;
+import com.devbrackets.android.exomedia.abr.EMBandwidthMeter;
+import com.devbrackets.android.exomedia.abr.ThroughputAbrPolicy;
 import com.devbrackets.android.exomedia.builder.RenderBuilder;
+import com.devbrackets.android.exomedia.hls.HlsLiveTracker;
 import com.devbrackets.android.exomedia.listener.ExoPlayerListener;
 import com.devbrackets.android.exomedia.listener.Id3MetadataListener;
 import com.devbrackets.android.exomedia.listener.InfoListener;
 import com.devbrackets.android.exomedia.listener.InternalErrorListener;
+import com.devbrackets.android.exomedia.listener.PlaybackTimelineListener;
 import com.devbrackets.android.exomedia.listener.RendererBuilderCallback;
 import com.devbrackets.android.exomedia.listener.TextListener;
+import com.devbrackets.android.exomedia.metadata.Id3Metadata;
+import com.devbrackets.android.exomedia.metadata.Id3MetadataPipeline;
 import com.devbrackets.android.exomedia.renderer.EMMediaCodecAudioTrackRenderer;
+import com.devbrackets.android.exomedia.util.EventExecutors;
+import com.devbrackets.android.exomedia.util.ListenerRegistry;
+import com.google.android.exoplayer.DefaultLoadControl;
 import com.google.android.exoplayer.DummyTrackRenderer;
 import com.google.android.exoplayer.ExoPlaybackException;
 import com.google.android.exoplayer.ExoPlayer;
@@ -50,14 +64,14 @@ import com.google.android.exoplayer.upstream.DefaultBandwidthMeter;
 import com.google.android.exoplayer.util.PlayerControl;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
 
 /**
  *
  */
 public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventListener, DefaultBandwidthMeter.EventListener,
-        MediaCodecVideoTrackRenderer.EventListener, TextRenderer, MediaCodecAudioTrackRenderer.EventListener, StreamingDrmSessionManager.EventListener{
+        MediaCodecVideoTrackRenderer.EventListener, TextRenderer, MediaCodecAudioTrackRenderer.EventListener, StreamingDrmSessionManager.EventListener,
+        DefaultLoadControl.EventListener {
 
     public static final int DISABLED_TRACK = -1;
     public static final int PRIMARY_TRACK = 0;
@@ -68,8 +82,16 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
     public static final int RENDER_CLOSED_CAPTION_INDEX = 2;
     public static final int RENDER_TIMED_METADATA_INDEX = 3;
 
-    public static final int BUFFER_LENGTH_MIN = 1000;
-    public static final int REBUFFER_LENGTH_MIN = 5000;
+    public static final int BUFFER_LENGTH_MIN = EMLoadControl.DEFAULT_MIN_BUFFER_MS;
+    public static final int REBUFFER_LENGTH_MIN = EMLoadControl.DEFAULT_MIN_REBUFFER_MS;
+
+    private static final int BUFFER_SAMPLE_INTERVAL_MS = 1000;
+    private static final int LOW_LATENCY_CATCH_UP_SEGMENTS = 2;
+    private static final String SOURCE_EVENT_THREAD_NAME = "EMExoPlayer:SourceEvents";
+    private static final String RENDERER_BUILDER_THREAD_NAME = "EMExoPlayer:RendererBuilder";
+
+    private static Handler sourceEventHandler;
+    private static Handler rendererBuilderHandler;
 
     public enum RenderBuildingState {
         IDLE,
@@ -81,15 +103,33 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
     private final ExoPlayer player;
     private final PlayerControl playerControl;
     private final Handler mainHandler;
-    private final CopyOnWriteArrayList<ExoPlayerListener> listeners;
+    private final EMBandwidthMeter bandwidthMeter;
+    private final BufferStats bufferStats = new BufferStats();
+    private final QoeStats qoeStats = new QoeStats();
+    private final BufferSampler bufferSampler = new BufferSampler();
+    private final PlaybackTimeline playbackTimeline;
+    private EMLoadControl loadControl;
+    private boolean loading = false;
+    private final ListenerRegistry<ExoPlayerListener> listeners = new ListenerRegistry<>();
 
     private RenderBuildingState rendererBuildingState;
     private int lastReportedPlaybackState;
     private boolean lastReportedPlayWhenReady;
 
     private boolean prepared = false;
+    private boolean audioOnly = false;
+    private float volume = 1f;
+    private boolean released = false;
+    private volatile long lowestFormatBitrate = EMBandwidthMeter.NO_MAX_BITRATE;
+
+    @Nullable
+    private HlsLiveTracker liveTracker;
+    private final LiveWindowListener liveWindowListener = new LiveWindowListener();
 
     private Surface surface;
+    private int videoWidth = 0;
+    private int videoHeight = 0;
+    private float pixelWidthHeightRatio = 1f;
     private InternalRendererBuilderCallback builderCallback;
     private TrackRenderer videoRenderer;
     private TrackRenderer audioRenderer;
@@ -100,8 +140,12 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
 
     private TextListener textListener;
     private Id3MetadataListener id3MetadataListener;
+    private final Id3MetadataPipeline id3MetadataPipeline = new Id3MetadataPipeline();
     private InternalErrorListener internalErrorListener;
     private InfoListener infoListener;
+    private final ListenerRegistry<InternalErrorListener> internalErrorListeners = new ListenerRegistry<>();
+    private final ListenerRegistry<InfoListener> infoListeners = new ListenerRegistry<>();
+    private Executor playbackExecutor;
 
     private PowerManager.WakeLock wakeLock = null;
 
@@ -110,12 +154,23 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
     }
 
     public EMExoPlayer(RenderBuilder rendererBuilder) {
+        this(rendererBuilder, new EMLoadControl());
+    }
+
+    /**
+     * @param rendererBuilder The builder for the renderers or null
+     * @param loadControl The buffer configuration, the start and resume durations can't be changed after the player is created
+     */
+    public EMExoPlayer(RenderBuilder rendererBuilder, @NonNull EMLoadControl loadControl) {
         this.rendererBuilder = rendererBuilder;
-        player = ExoPlayer.Factory.newInstance(RENDER_COUNT, BUFFER_LENGTH_MIN, REBUFFER_LENGTH_MIN);
+        this.loadControl = loadControl;
+        player = ExoPlayer.Factory.newInstance(RENDER_COUNT, loadControl.getMinBufferMs(), loadControl.getMinRebufferMs());
         player.addListener(this);
         playerControl = new PlayerControl(player);
         mainHandler = new Handler();
-        listeners = new CopyOnWriteArrayList<>();
+        playbackTimeline = new PlaybackTimeline(mainHandler);
+        qoeStats.reset();
+        bandwidthMeter = new EMBandwidthMeter(player, getSourceEventHandler(), this);
         lastReportedPlaybackState = ExoPlayer.STATE_IDLE;
         rendererBuildingState = RenderBuildingState.IDLE;
         selectedTracks = new int[RENDER_COUNT];
@@ -126,11 +181,150 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
 
     public void replaceRenderBuilder(RenderBuilder renderBuilder) {
         this.rendererBuilder = renderBuilder;
+        setLiveTracker(null);
+        bufferStats.reset();
+        qoeStats.reset();
 
         prepared = false;
+        if (renderBuilder == null) {
+            //Stops the previous media instead of leaving it playing until a builder is set
+            if (builderCallback != null) {
+                builderCallback.cancel();
+                builderCallback = null;
+            }
+
+            if (rendererBuildingState == RenderBuildingState.BUILT) {
+                player.stop();
+            }
+
+            rendererBuildingState = RenderBuildingState.IDLE;
+            reportPlayerState();
+            return;
+        }
+
         prepare();
     }
 
+    /**
+     * Retrieves the BandwidthMeter that the RenderBuilders should use for the
+     * DataSources and adaptive format selection
+     *
+     * @return The EMBandwidthMeter for this player
+     */
+    public EMBandwidthMeter getBandwidthMeter() {
+        return bandwidthMeter;
+    }
+
+    /**
+     * Sets the policy used to select the format (quality) for adaptive streams.  This
+     * can be changed during playback and will be used for the next segment loaded.
+     *
+     * @param abrPolicy The policy to use [default: {@link ThroughputAbrPolicy}]
+     */
+    public void setAbrPolicy(@NonNull AbrPolicy abrPolicy) {
+        bandwidthMeter.setAbrPolicy(abrPolicy);
+    }
+
+    @NonNull
+    public AbrPolicy getAbrPolicy() {
+        return bandwidthMeter.getAbrPolicy();
+    }
+
+    /**
+     * Sets the buffer configuration used when the renderers are next built.  The durations
+     * needed to start and resume playback are only applied when the player is created
+     * (see {@link EMLoadControl#hasSameStartThresholds(EMLoadControl)}).
+     *
+     * @param loadControl The buffer configuration
+     */
+    public void setLoadControl(@NonNull EMLoadControl loadControl) {
+        this.loadControl = loadControl;
+    }
+
+    @NonNull
+    public EMLoadControl getLoadControl() {
+        return loadControl;
+    }
+
+    /**
+     * Retrieves the statistics on the buffered media for the current playback,
+     * these are reset when the RenderBuilder is replaced.
+     *
+     * @return The buffer statistics
+     */
+    @NonNull
+    public BufferStats getBufferStats() {
+        return bufferStats;
+    }
+
+    /**
+     * Retrieves the quality of experience statistics for the current playback session,
+     * which is restarted when the RenderBuilder is replaced.  The rebuffers are only
+     * recorded when the stalls are reported with {@link #onStallStarted(long)} and
+     * {@link #onStallEnded(long, long)}, which the EMVideoView and EMAudioPlayer do.
+     *
+     * @return The quality of experience statistics
+     */
+    @NonNull
+    public QoeStats getQoeStats() {
+        return qoeStats;
+    }
+
+    /**
+     * Informs the player that the playback stalled, this is reported by the
+     * {@link com.devbrackets.android.exomedia.util.StallTracker} of the EMVideoView or
+     * EMAudioPlayer and is recorded as a rebuffer in the {@link QoeStats}.
+     *
+     * @param startTime The time the stall started
+     */
+    public void onStallStarted(long startTime) {
+        qoeStats.onStallStarted(startTime);
+    }
+
+    /**
+     * Informs the player that a stall reported with {@link #onStallStarted(long)} ended
+     *
+     * @param startTime The time the stall started
+     * @param endTime The time the stall ended
+     */
+    public void onStallEnded(long startTime, long endTime) {
+        qoeStats.onStallEnded(startTime, endTime);
+    }
+
+    /**
+     * Retrieves the timeline for starting the current playback, which is restarted each
+     * time the renderers are built.
+     *
+     * @return The playback timeline
+     */
+    @NonNull
+    public PlaybackTimeline getPlaybackTimeline() {
+        return playbackTimeline;
+    }
+
+    /**
+     * Sets the listener to inform when the current playback reaches a startup phase
+     *
+     * @param listener The listener to inform or null
+     */
+    public void setPlaybackTimelineListener(@Nullable PlaybackTimelineListener listener) {
+        playbackTimeline.setListener(listener);
+    }
+
+    /**
+     * Retrieves the amount of media buffered ahead of the current position
+     *
+     * @return The buffered duration in milliseconds
+     */
+    public long getBufferedDuration() {
+        long bufferedPosition = player.getBufferedPosition();
+        if (bufferedPosition == ExoPlayer.UNKNOWN_TIME) {
+            return 0;
+        }
+
+        return Math.max(0, bufferedPosition - player.getCurrentPosition());
+    }
+
     public PlayerControl getPlayerControl() {
         return playerControl;
     }
@@ -141,26 +335,123 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         }
     }
 
-    public void removeListener(ExoPlayerListener listener) {
+    /**
+     * Adds the listener, only holding a weak reference to it so that a listener
+     * that isn't removed (e.g. from a leaked Activity) can still be garbage collected.
+     *
+     * @param listener The listener to add
+     */
+    public void addWeakListener(ExoPlayerListener listener) {
         if (listener != null) {
-            listeners.remove(listener);
+            listeners.addWeak(listener);
         }
     }
 
+    public void removeListener(ExoPlayerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets the listener to inform of internal errors on the main thread, replacing the
+     * previously set listener.  Additional listeners can be added with
+     * {@link #addInternalErrorListener(InternalErrorListener, Executor)}.
+     *
+     * @param listener The listener or null
+     */
     public void setInternalErrorListener(InternalErrorListener listener) {
+        if (internalErrorListener != null) {
+            internalErrorListeners.remove(internalErrorListener);
+        }
+
         internalErrorListener = listener;
+        if (listener != null) {
+            internalErrorListeners.add(listener, EventExecutors.main());
+        }
     }
 
+    /**
+     * Adds a listener to inform of internal errors on the executor
+     *
+     * @param listener The listener to add
+     * @param executor The executor to inform the listener on, e.g. {@link EventExecutors#background()}
+     */
+    public void addInternalErrorListener(@NonNull InternalErrorListener listener, @NonNull Executor executor) {
+        internalErrorListeners.add(listener, executor);
+    }
+
+    public void removeInternalErrorListener(@NonNull InternalErrorListener listener) {
+        internalErrorListeners.remove(listener);
+    }
+
+    /**
+     * Sets the listener to inform of debugging information on the main thread, replacing
+     * the previously set listener.  Additional listeners can be added with
+     * {@link #addInfoListener(InfoListener, Executor)}.
+     *
+     * @param listener The listener or null
+     */
     public void setInfoListener(InfoListener listener) {
+        if (infoListener != null) {
+            infoListeners.remove(infoListener);
+        }
+
         infoListener = listener;
+        if (listener != null) {
+            infoListeners.add(listener, EventExecutors.main());
+        }
+    }
+
+    /**
+     * Adds a listener to inform of debugging information on the executor.  Since events such
+     * as the load and bandwidth samples are frequent, listeners that don't interact with the
+     * UI (e.g. analytics) should use {@link EventExecutors#background()} or {@link #getPlaybackExecutor()}.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to inform the listener on
+     */
+    public void addInfoListener(@NonNull InfoListener listener, @NonNull Executor executor) {
+        infoListeners.add(listener, executor);
+    }
+
+    public void removeInfoListener(@NonNull InfoListener listener) {
+        infoListeners.remove(listener);
     }
 
     public void setTextListener(TextListener listener) {
         textListener = listener;
     }
 
+    /**
+     * Sets the listener to inform of the ID3 metadata on the main thread, replacing
+     * the previously set listener.  Additional listeners can be added with
+     * {@link #addMetadataListener(Id3MetadataListener, Executor)}.
+     *
+     * @param listener The listener or null
+     */
     public void setMetadataListener(Id3MetadataListener listener) {
+        if (id3MetadataListener != null) {
+            id3MetadataPipeline.removeListener(id3MetadataListener);
+        }
+
         id3MetadataListener = listener;
+        if (listener != null) {
+            id3MetadataPipeline.addListener(listener, EventExecutors.main());
+        }
+    }
+
+    /**
+     * Adds a listener to inform of the ID3 metadata on the executor.  Streams with frequent timed
+     * metadata should use {@link EventExecutors#background()} for listeners that don't interact with the UI.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to inform the listener on
+     */
+    public void addMetadataListener(@NonNull Id3MetadataListener listener, @NonNull Executor executor) {
+        id3MetadataPipeline.addListener(listener, executor);
+    }
+
+    public void removeMetadataListener(@NonNull Id3MetadataListener listener) {
+        id3MetadataPipeline.removeListener(listener);
     }
 
     public void setSurface(Surface surface) {
@@ -177,6 +468,67 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         pushSurfaceAndVideoTrack(true);
     }
 
+    /**
+     * Enables or disables the audio only mode.  While enabled the video renderer is disabled,
+     * releasing its decoder and stopping the DASH video downloads, and the adaptive streams are
+     * limited to the bitrate of their lowest format (see {@link #setLowestFormatBitrate(long)}) so
+     * that HLS switches to the lowest (or audio only) variant.
+     * Disabling the mode re-enables the video renderer at the current position without
+     * preparing the media again.
+     *
+     * @param audioOnly True if only the audio should be played
+     */
+    public void setAudioOnly(boolean audioOnly) {
+        if (this.audioOnly == audioOnly) {
+            return;
+        }
+
+        this.audioOnly = audioOnly;
+        updateMaxBitrate();
+        pushSurfaceAndVideoTrack(false);
+    }
+
+    public boolean isAudioOnly() {
+        return audioOnly;
+    }
+
+    /**
+     * Sets the bitrate of the lowest format the adaptive chunk sources can select, which the
+     * {@link RenderBuilder}s specify when building the renderers.  While in the audio only mode
+     * the bitrate reported to the chunk sources is limited to this so that they select that format.
+     *
+     * @param bitrate The bitrate in bits per second or {@link EMBandwidthMeter#NO_MAX_BITRATE} if there isn't an adaptive stream
+     */
+    public void setLowestFormatBitrate(long bitrate) {
+        lowestFormatBitrate = bitrate;
+    }
+
+    private void updateMaxBitrate() {
+        bandwidthMeter.setMaxBitrate(audioOnly ? lowestFormatBitrate : EMBandwidthMeter.NO_MAX_BITRATE);
+    }
+
+    /**
+     * Retrieves the width of the video from the last {@link ExoPlayerListener#onVideoSizeChanged(int, int, float)}
+     *
+     * @return The width of the video or 0 if it isn't known
+     */
+    public int getVideoWidth() {
+        return videoWidth;
+    }
+
+    /**
+     * Retrieves the height of the video from the last {@link ExoPlayerListener#onVideoSizeChanged(int, int, float)}
+     *
+     * @return The height of the video or 0 if it isn't known
+     */
+    public int getVideoHeight() {
+        return videoHeight;
+    }
+
+    public float getPixelWidthHeightRatio() {
+        return pixelWidthHeightRatio;
+    }
+
     public String[] getTracks(int type) {
         return trackNames == null ? null : trackNames[type];
     }
@@ -201,8 +553,17 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         }
     }
 
+    /**
+     * Sets the volume for the audio renderer.  The volume is kept so that it is also
+     * applied to the renderers built for later media.
+     *
+     * @param volume The volume [0.0, 1.0]
+     */
     public void setVolume(float volume) {
-        player.sendMessage(audioRenderer, MediaCodecAudioTrackRenderer.MSG_SET_VOLUME, volume);
+        this.volume = volume;
+        if (audioRenderer != null) {
+            player.sendMessage(audioRenderer, MediaCodecAudioTrackRenderer.MSG_SET_VOLUME, volume);
+        }
     }
 
     public void forcePrepare() {
@@ -210,6 +571,15 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
     }
 
     public void prepare() {
+        prepare(true);
+    }
+
+    /**
+     * Builds the renderers for the current {@link RenderBuilder}
+     *
+     * @param startTimeline True if the {@link PlaybackTimeline} should record this as the start of a new playback
+     */
+    private void prepare(boolean startTimeline) {
         if (prepared || rendererBuilder == null) {
             return;
         }
@@ -223,9 +593,14 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         }
 
         rendererBuildingState = RenderBuildingState.BUILDING;
+        id3MetadataPipeline.reset();
         reportPlayerState();
-        builderCallback = new InternalRendererBuilderCallback();
-        rendererBuilder.buildRenderers(this, builderCallback);
+        if (startTimeline) {
+            playbackTimeline.start();
+        }
+
+        builderCallback = new InternalRendererBuilderCallback(rendererBuilder);
+        getRendererBuilderHandler().post(builderCallback);
 
         prepared = true;
     }
@@ -260,20 +635,35 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         this.trackNames = trackNames;
         this.multiTrackSources = multiTrackSources;
         rendererBuildingState = RenderBuildingState.BUILT;
+        playbackTimeline.mark(PlaybackTimeline.Phase.RENDERERS_BUILT);
+        updateMaxBitrate();
         pushSurfaceAndVideoTrack(false);
         pushTrackSelection(RENDER_AUDIO_INDEX, true);
         pushTrackSelection(RENDER_CLOSED_CAPTION_INDEX, true);
+        setLiveTracker(rendererBuilder != null ? rendererBuilder.getLiveTracker() : null);
         player.prepare(renderers);
+        if (volume != 1f) {
+            player.sendMessage(audioRenderer, MediaCodecAudioTrackRenderer.MSG_SET_VOLUME, volume);
+        }
     }
 
-    public void onRenderersError(Exception e) {
+    public void onRenderersError(final Exception e) {
         builderCallback = null;
-        if (internalErrorListener != null) {
-            internalErrorListener.onRendererInitializationError(e);
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onRendererInitializationError(e);
+                }
+            });
         }
 
-        for (ExoPlayerListener listener : listeners) {
-            listener.onError(e);
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = listeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onError(e);
+            }
         }
 
         rendererBuildingState = RenderBuildingState.IDLE;
@@ -284,19 +674,157 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         player.setPlayWhenReady(playWhenReady);
     }
 
+    /**
+     * Seeks to the position.  For live streams the position is on the stream timeline
+     * (see {@link #getLiveWindowStart()}) and is limited to the live window.
+     *
+     * @param positionMs The position to seek to in milliseconds
+     */
     public void seekTo(long positionMs) {
+        if (isLive()) {
+            //noinspection ConstantConditions
+            liveTracker.requestStartPosition(Math.max(getLiveWindowStart(), Math.min(getLiveEdgePosition(), positionMs)));
+            rebuildLive();
+            return;
+        }
+
+        id3MetadataPipeline.reset();
         player.seekTo(positionMs);
     }
 
+    /**
+     * Determines if the current media is a live stream.  Live streams don't have a duration,
+     * instead the playback position moves through a window that follows the live edge.
+     *
+     * @return True if the media is a live stream
+     */
+    public boolean isLive() {
+        return liveTracker != null && liveTracker.isLive();
+    }
+
+    /**
+     * Retrieves the start of the live window, which is the earliest position that can
+     * be seeked to.  The positions for live streams are on the stream timeline, which starts
+     * at the first segment seen since the media was set.
+     *
+     * @return The window start in milliseconds or 0 if the media isn't live
+     */
+    public long getLiveWindowStart() {
+        return isLive() ? liveTracker.getWindowStartMs() : 0;
+    }
+
+    /**
+     * Retrieves the position of the live edge, which is the end of the live window
+     *
+     * @return The live edge position in milliseconds or 0 if the media isn't live
+     */
+    public long getLiveEdgePosition() {
+        return isLive() ? liveTracker.getWindowEndMs() : 0;
+    }
+
+    /**
+     * Moves the playback of a live stream back to the live edge (or the low latency distance
+     * from it).  This has no effect if the media isn't live.
+     */
+    public void seekToLiveEdge() {
+        if (!isLive()) {
+            return;
+        }
+
+        //noinspection ConstantConditions
+        liveTracker.requestLiveEdgeStart();
+        rebuildLive();
+    }
+
     public void release() {
         if (builderCallback != null) {
             builderCallback.cancel();
             builderCallback = null;
         }
 
+        setLiveTracker(null);
+
         rendererBuildingState = RenderBuildingState.IDLE;
         surface = null;
+        mainHandler.removeCallbacks(bufferSampler);
         player.release();
+        released = true;
+    }
+
+    /**
+     * Determines if {@link #release()} has been called, after which the player can't be used
+     *
+     * @return True if the player has been released
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Stops the current playback and clears all the state associated with it so
+     * that the backing ExoPlayer (and its playback thread) can be re-used for a
+     * different media item.  This is used by the {@link EMExoPlayerPool} when a player
+     * is returned.
+     */
+    void reset() {
+        //Detaches the listeners first so that nobody is informed of the reset
+        listeners.clear();
+        textListener = null;
+        id3MetadataListener = null;
+        id3MetadataPipeline.clearListeners();
+        id3MetadataPipeline.reset();
+        internalErrorListener = null;
+        infoListener = null;
+        internalErrorListeners.clear();
+        infoListeners.clear();
+
+        if (builderCallback != null) {
+            builderCallback.cancel();
+            builderCallback = null;
+        }
+
+        setLiveTracker(null);
+
+        //Clears the surface while the renderers still exist, then stop (releasing the renderers)
+        blockingClearSurface();
+        player.setPlayWhenReady(false);
+        player.stop();
+        player.seekTo(0);
+        mainHandler.removeCallbacksAndMessages(null);
+
+        if (wakeLock != null) {
+            if (wakeLock.isHeld()) {
+                wakeLock.release();
+            }
+            wakeLock = null;
+        }
+
+        rendererBuilder = null;
+        prepared = false;
+        videoRenderer = null;
+        audioRenderer = null;
+        trackNames = null;
+        multiTrackSources = null;
+        selectedTracks = new int[RENDER_COUNT];
+        selectedTracks[RENDER_CLOSED_CAPTION_INDEX] = DISABLED_TRACK;
+        bandwidthMeter.setAbrPolicy(new ThroughputAbrPolicy());
+        bandwidthMeter.setMaxBitrate(EMBandwidthMeter.NO_MAX_BITRATE);
+        lowestFormatBitrate = EMBandwidthMeter.NO_MAX_BITRATE;
+        audioOnly = false;
+        volume = 1f;
+        mainHandler.removeCallbacks(bufferSampler);
+        bufferStats.reset();
+        qoeStats.reset();
+        loading = false;
+        playbackTimeline.setListener(null);
+        playbackTimeline.clear();
+
+        rendererBuildingState = RenderBuildingState.IDLE;
+        lastReportedPlaybackState = ExoPlayer.STATE_IDLE;
+        lastReportedPlayWhenReady = false;
+        videoWidth = 0;
+        videoHeight = 0;
+        pixelWidthHeightRatio = 1f;
     }
 
 
@@ -316,11 +844,33 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         return 0;
     }
 
+    /**
+     * Retrieves the playback position.  For live streams this is on the stream
+     * timeline, see {@link #getLiveWindowStart()}.
+     *
+     * @return The position in milliseconds
+     */
     public long getCurrentPosition() {
+        if (isLive()) {
+            //noinspection ConstantConditions
+            return liveTracker.getStartTimeMs() + player.getCurrentPosition();
+        }
+
         return player.getCurrentPosition();
     }
 
+    /**
+     * Retrieves the duration of the media.  Live streams don't have a duration so the
+     * live edge position is returned instead, which is the furthest position that can
+     * be seeked to.
+     *
+     * @return The duration in milliseconds
+     */
     public long getDuration() {
+        if (isLive()) {
+            return getLiveEdgePosition();
+        }
+
         return player.getDuration();
     }
 
@@ -340,6 +890,56 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         return mainHandler;
     }
 
+    /**
+     * Retrieves the executor for the ExoPlayer's playback thread
+     *
+     * @return The executor for the playback thread
+     */
+    @NonNull
+    public Executor getPlaybackExecutor() {
+        if (playbackExecutor == null) {
+            playbackExecutor = EventExecutors.forLooper(player.getPlaybackLooper());
+        }
+
+        return playbackExecutor;
+    }
+
+    /**
+     * Retrieves the handler that the sample sources and bandwidth meter should inform the
+     * EMExoPlayer of their (frequent) load events on, so that they don't compete with
+     * the UI for the main thread.  This is shared between all players.
+     *
+     * @return The handler for the source events
+     */
+    @NonNull
+    public static synchronized Handler getSourceEventHandler() {
+        if (sourceEventHandler == null) {
+            HandlerThread thread = new HandlerThread(SOURCE_EVENT_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            sourceEventHandler = new Handler(thread.getLooper());
+        }
+
+        return sourceEventHandler;
+    }
+
+    /**
+     * Retrieves the handler for the thread that the {@link RenderBuilder}s build the renderers
+     * on.  The manifests are parsed and the sample sources and renderers are created on this
+     * thread so that starting a video doesn't block the UI.  This is shared between all players.
+     *
+     * @return The handler for building the renderers
+     */
+    @NonNull
+    public static synchronized Handler getRendererBuilderHandler() {
+        if (rendererBuilderHandler == null) {
+            HandlerThread thread = new HandlerThread(RENDERER_BUILDER_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            rendererBuilderHandler = new Handler(thread.getLooper());
+        }
+
+        return rendererBuilderHandler;
+    }
+
     /**
      * This function has the MediaPlayer access the low-level power manager
      * service to control the device's power usage while playing is occurring.
@@ -373,96 +973,177 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
     @Override
     public void onPlayerStateChanged(boolean playWhenReady, int state) {
         reportPlayerState();
+        updateBufferSampling(playWhenReady, state);
+        updateLiveTracking(playWhenReady, state);
+        qoeStats.onStateChanged(playWhenReady, state);
+
+        if (state == ExoPlayer.STATE_READY) {
+            playbackTimeline.mark(PlaybackTimeline.Phase.PLAYER_READY);
+        }
+    }
+
+    @Override
+    public void onLoadingChanged(boolean loading) {
+        this.loading = loading;
     }
 
     @Override
     public void onPlayerError(ExoPlaybackException exception) {
         rendererBuildingState = RenderBuildingState.IDLE;
-        for (ExoPlayerListener listener : listeners) {
-            listener.onError(exception);
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = listeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onError(exception);
+            }
         }
     }
 
     @Override
     public void onVideoSizeChanged(int width, int height, float pixelWidthHeightRatio) {
-        for (ExoPlayerListener listener : listeners) {
-            listener.onVideoSizeChanged(width, height, pixelWidthHeightRatio);
+        videoWidth = width;
+        videoHeight = height;
+        this.pixelWidthHeightRatio = pixelWidthHeightRatio;
+
+        ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = listeners.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            ExoPlayerListener listener = snapshot.get(i);
+            if (listener != null) {
+                listener.onVideoSizeChanged(width, height, pixelWidthHeightRatio);
+            }
         }
     }
 
     @Override
-    public void onDroppedFrames(int count, long elapsed) {
-        if (infoListener != null) {
-            infoListener.onDroppedFrames(count, elapsed);
+    public void onDroppedFrames(final int count, final long elapsed) {
+        qoeStats.onDroppedFrames(count);
+        if (!infoListeners.isEmpty()) {
+            infoListeners.dispatch(new ListenerRegistry.Event<InfoListener>() {
+                @Override
+                public void dispatch(InfoListener listener) {
+                    listener.onDroppedFrames(count, elapsed);
+                }
+            });
         }
     }
 
     @Override
-    public void onBandwidthSample(int elapsedMs, long bytes, long bitrateEstimate) {
-        if (infoListener != null) {
-            infoListener.onBandwidthSample(elapsedMs, bytes, bitrateEstimate);
+    public void onBandwidthSample(final int elapsedMs, final long bytes, final long bitrateEstimate) {
+        if (!infoListeners.isEmpty()) {
+            infoListeners.dispatch(new ListenerRegistry.Event<InfoListener>() {
+                @Override
+                public void dispatch(InfoListener listener) {
+                    listener.onBandwidthSample(elapsedMs, bytes, bitrateEstimate);
+                }
+            });
         }
     }
 
     @Override
-    public void onDownstreamFormatChanged(int sourceId, String formatId, int trigger, int mediaTimeMs) {
-        if (infoListener == null) {
+    public void onDownstreamFormatChanged(final int sourceId, final String formatId, final int trigger, final int mediaTimeMs) {
+        qoeStats.onFormatChanged(sourceId, formatId);
+        if (infoListeners.isEmpty()) {
             return;
         }
 
         if (sourceId == RENDER_VIDEO_INDEX) {
-            infoListener.onVideoFormatEnabled(formatId, trigger, mediaTimeMs);
+            infoListeners.dispatch(new ListenerRegistry.Event<InfoListener>() {
+                @Override
+                public void dispatch(InfoListener listener) {
+                    listener.onVideoFormatEnabled(formatId, trigger, mediaTimeMs);
+                }
+            });
         } else if (sourceId == RENDER_AUDIO_INDEX) {
-            infoListener.onAudioFormatEnabled(formatId, trigger, mediaTimeMs);
+            infoListeners.dispatch(new ListenerRegistry.Event<InfoListener>() {
+                @Override
+                public void dispatch(InfoListener listener) {
+                    listener.onAudioFormatEnabled(formatId, trigger, mediaTimeMs);
+                }
+            });
         }
     }
 
     @Override
-    public void onDrmSessionManagerError(Exception e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onDrmSessionManagerError(e);
+    public void onDrmSessionManagerError(final Exception e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onDrmSessionManagerError(e);
+                }
+            });
         }
     }
 
     @Override
-    public void onDecoderInitializationError(MediaCodecTrackRenderer.DecoderInitializationException e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onDecoderInitializationError(e);
+    public void onDecoderInitializationError(final MediaCodecTrackRenderer.DecoderInitializationException e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onDecoderInitializationError(e);
+                }
+            });
         }
     }
 
     @Override
-    public void onAudioTrackInitializationError(AudioTrack.InitializationException e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onAudioTrackInitializationError(e);
+    public void onAudioTrackInitializationError(final AudioTrack.InitializationException e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onAudioTrackInitializationError(e);
+                }
+            });
         }
     }
 
     @Override
-    public void onAudioTrackWriteError(AudioTrack.WriteException e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onAudioTrackWriteError(e);
+    public void onAudioTrackWriteError(final AudioTrack.WriteException e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onAudioTrackWriteError(e);
+                }
+            });
         }
     }
 
     @Override
-    public void onCryptoError(MediaCodec.CryptoException e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onCryptoError(e);
+    public void onCryptoError(final MediaCodec.CryptoException e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onCryptoError(e);
+                }
+            });
         }
     }
 
     @Override
-    public void onUpstreamError(int sourceId, IOException e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onUpstreamError(sourceId, e);
+    public void onUpstreamError(final int sourceId, final IOException e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onUpstreamError(sourceId, e);
+                }
+            });
         }
     }
 
     @Override
-    public void onConsumptionError(int sourceId, IOException e) {
-        if (internalErrorListener != null) {
-            internalErrorListener.onConsumptionError(sourceId, e);
+    public void onConsumptionError(final int sourceId, final IOException e) {
+        if (!internalErrorListeners.isEmpty()) {
+            internalErrorListeners.dispatch(new ListenerRegistry.Event<InternalErrorListener>() {
+                @Override
+                public void dispatch(InternalErrorListener listener) {
+                    listener.onConsumptionError(sourceId, e);
+                }
+            });
         }
     }
 
@@ -471,15 +1152,14 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         processText(text);
     }
 
-    public MetadataTrackRenderer.MetadataRenderer<Map<String, Object>> getId3MetadataRenderer() {
-        return new MetadataTrackRenderer.MetadataRenderer<Map<String, Object>>() {
-            @Override
-            public void onMetadata(Map<String, Object> metadata) {
-                if (id3MetadataListener != null) {
-                    id3MetadataListener.onId3Metadata(metadata);
-                }
-            }
-        };
+    /**
+     * Retrieves the renderer for the ID3 metadata, the MetadataTrackRenderer should be created
+     * without a Looper so that the metadata is passed to the pipeline on the playback thread.
+     *
+     * @return The metadata renderer for this player
+     */
+    public MetadataTrackRenderer.MetadataRenderer<Id3Metadata> getId3MetadataRenderer() {
+        return id3MetadataPipeline;
     }
 
     @Override
@@ -489,45 +1169,60 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
 
     @Override
     public void onDrawnToSurface(Surface surface) {
-        //Purposefully left blank
+        playbackTimeline.mark(PlaybackTimeline.Phase.FIRST_FRAME_DRAWN);
     }
 
     @Override
-    public void onLoadStarted(int sourceId, String formatId, int trigger, boolean isInitialization, int mediaStartTimeMs, int mediaEndTimeMs, long length) {
-        if (infoListener != null) {
-            infoListener.onLoadStarted(sourceId, formatId, trigger, isInitialization, mediaStartTimeMs,
-                    mediaEndTimeMs, length);
+    public void onLoadStarted(final int sourceId, final String formatId, final int trigger, final boolean isInitialization, final int mediaStartTimeMs, final int mediaEndTimeMs, final long length) {
+        qoeStats.onLoadStarted(sourceId, isInitialization, mediaStartTimeMs, mediaEndTimeMs);
+        if (!infoListeners.isEmpty()) {
+            infoListeners.dispatch(new ListenerRegistry.Event<InfoListener>() {
+                @Override
+                public void dispatch(InfoListener listener) {
+                    listener.onLoadStarted(sourceId, formatId, trigger, isInitialization, mediaStartTimeMs, mediaEndTimeMs, length);
+                }
+            });
         }
     }
 
     @Override
-    public void onLoadCompleted(int sourceId, long bytesLoaded) {
-        if (infoListener != null) {
-            infoListener.onLoadCompleted(sourceId, bytesLoaded);
+    public void onLoadCompleted(final int sourceId, final long bytesLoaded) {
+        qoeStats.onLoadCompleted(sourceId, bytesLoaded);
+        if (!infoListeners.isEmpty()) {
+            infoListeners.dispatch(new ListenerRegistry.Event<InfoListener>() {
+                @Override
+                public void dispatch(InfoListener listener) {
+                    listener.onLoadCompleted(sourceId, bytesLoaded);
+                }
+            });
         }
     }
 
     @Override
     public void onLoadCanceled(int sourceId, long bytesLoaded) {
-        //Purposefully left blank
+        qoeStats.onBytesWasted(bytesLoaded);
     }
 
     @Override
     public void onUpstreamDiscarded(int sourceId, int mediaStartTimeMs, int mediaEndTimeMs, long bytesDiscarded) {
-        //Purposefully left blank
+        qoeStats.onBytesWasted(bytesDiscarded);
     }
 
     @Override
     public void onDownstreamDiscarded(int sourceId, int mediaStartTimeMs, int mediaEndTimeMs, long bytesDiscarded) {
-        //Purposefully left blank
+        qoeStats.onBytesWasted(bytesDiscarded);
     }
 
     private void reportPlayerState() {
         boolean playWhenReady = player.getPlayWhenReady();
         int playbackState = getPlaybackState();
         if (lastReportedPlayWhenReady != playWhenReady || lastReportedPlaybackState != playbackState) {
-            for (ExoPlayerListener listener : listeners) {
-                listener.onStateChanged(playWhenReady, playbackState);
+            ListenerRegistry.Snapshot<ExoPlayerListener> snapshot = listeners.getSnapshot();
+            for (int i = 0; i < snapshot.size(); i++) {
+                ExoPlayerListener listener = snapshot.get(i);
+                if (listener != null) {
+                    listener.onStateChanged(playWhenReady, playbackState);
+                }
             }
             lastReportedPlayWhenReady = playWhenReady;
             lastReportedPlaybackState = playbackState;
@@ -545,7 +1240,7 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
             player.sendMessage(videoRenderer, MediaCodecVideoTrackRenderer.MSG_SET_SURFACE, surface);
         }
 
-        pushTrackSelection(RENDER_VIDEO_INDEX, surface != null && surface.isValid());
+        pushTrackSelection(RENDER_VIDEO_INDEX, !audioOnly && surface != null && surface.isValid());
     }
 
     private void pushTrackSelection(int type, boolean allowRendererEnable) {
@@ -576,25 +1271,151 @@ public class EMExoPlayer implements ExoPlayer.Listener, ChunkSampleSource.EventL
         textListener.onText(text);
     }
 
-    private class InternalRendererBuilderCallback implements RendererBuilderCallback {
+    /**
+     * Starts sampling the buffered duration while the media is playing or buffering,
+     * stopping otherwise so that a paused player doesn't perform any work.
+     */
+    private void updateBufferSampling(boolean playWhenReady, int state) {
+        mainHandler.removeCallbacks(bufferSampler);
+        if (playWhenReady && (state == ExoPlayer.STATE_READY || state == ExoPlayer.STATE_BUFFERING)) {
+            mainHandler.postDelayed(bufferSampler, BUFFER_SAMPLE_INTERVAL_MS);
+        }
+    }
+
+    private void setLiveTracker(@Nullable HlsLiveTracker tracker) {
+        if (liveTracker == tracker) {
+            return;
+        }
+
+        if (liveTracker != null) {
+            liveTracker.setListener(null);
+            liveTracker.stop();
+        }
+
+        liveTracker = tracker;
+        if (tracker != null) {
+            tracker.setListener(liveWindowListener);
+            updateLiveTracking(player.getPlayWhenReady(), player.getPlaybackState());
+        }
+    }
+
+    /**
+     * The live tracker requests the playlist in addition to ExoPlayer's own refreshes, so
+     * it only runs while the playback is active
+     */
+    private void updateLiveTracking(boolean playWhenReady, int state) {
+        if (liveTracker == null) {
+            return;
+        }
+
+        if (playWhenReady && (state == ExoPlayer.STATE_READY || state == ExoPlayer.STATE_BUFFERING || state == ExoPlayer.STATE_PREPARING)) {
+            liveTracker.start();
+        } else {
+            liveTracker.stop();
+        }
+    }
+
+    /**
+     * ExoPlayer doesn't support seeking within a live window, so the renderers are built again
+     * with the playback starting at the segment requested from the {@link HlsLiveTracker}
+     */
+    private void rebuildLive() {
+        player.seekTo(0);
+        prepared = false;
+
+        //Seeking within the live window isn't the start of a new playback
+        prepare(false);
+    }
+
+    /**
+     * Keeps the low latency live playback within the requested number of segments from the
+     * live edge, moving back to the edge when stalls have caused it to fall further behind.
+     */
+    private class LiveWindowListener implements HlsLiveTracker.Listener {
+        @Override
+        public void onLiveWindowChanged(HlsLiveTracker tracker) {
+            int targetSegmentCount = tracker.getLowLatencySegmentCount();
+            if (tracker != liveTracker || targetSegmentCount == HlsLiveTracker.LOW_LATENCY_DISABLED || !player.getPlayWhenReady()
+                    || rendererBuildingState != RenderBuildingState.BUILT) {
+                return;
+            }
+
+            if (tracker.getSegmentsBehindEdge(getCurrentPosition()) > targetSegmentCount + LOW_LATENCY_CATCH_UP_SEGMENTS) {
+                seekToLiveEdge();
+            }
+        }
+    }
+
+    private class BufferSampler implements Runnable {
+        @Override
+        public void run() {
+            long bufferedDuration = getBufferedDuration();
+            bufferStats.addSample(bufferedDuration, bufferedDuration < loadControl.getMinRebufferMs(), loading);
+            mainHandler.postDelayed(this, BUFFER_SAMPLE_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Builds the renderers on the renderer builder thread and delivers the results
+     * to the EMExoPlayer on the main thread.  The cancellation is checked again on the
+     * main thread so that results for a canceled build are never delivered.
+     */
+    private class InternalRendererBuilderCallback implements RendererBuilderCallback, Runnable {
+        private final RenderBuilder builder;
         private volatile boolean canceled;
 
+        public InternalRendererBuilderCallback(RenderBuilder builder) {
+            this.builder = builder;
+        }
+
         public void cancel() {
             canceled = true;
+            getRendererBuilderHandler().removeCallbacks(this);
         }
 
         @Override
-        public void onRenderers(String[][] trackNames, MultiTrackChunkSource[] multiTrackSources, TrackRenderer[] renderers) {
-            if (!canceled) {
-                EMExoPlayer.this.onRenderers(trackNames, multiTrackSources, renderers);
+        public void run() {
+            if (canceled) {
+                return;
+            }
+
+            try {
+                builder.buildRenderers(EMExoPlayer.this, this);
+            } catch (RuntimeException e) {
+                onRenderersError(e);
             }
         }
 
         @Override
-        public void onRenderersError(Exception e) {
-            if (!canceled) {
-                EMExoPlayer.this.onRenderersError(e);
+        public void onRenderers(final String[][] trackNames, final MultiTrackChunkSource[] multiTrackSources, final TrackRenderer[] renderers) {
+            if (canceled) {
+                return;
             }
+
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!canceled) {
+                        EMExoPlayer.this.onRenderers(trackNames, multiTrackSources, renderers);
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void onRenderersError(final Exception e) {
+            if (canceled) {
+                return;
+            }
+
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (!canceled) {
+                        EMExoPlayer.this.onRenderersError(e);
+                    }
+                }
+            });
         }
     }
-}
\ No newline at end of file
+}
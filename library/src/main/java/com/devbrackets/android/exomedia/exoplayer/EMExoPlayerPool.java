@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Set;
+
+/**
+ * A bounded pool of {@link EMExoPlayer} instances.  Creating an EMExoPlayer also creates
+ * the ExoPlayer playback thread, which is expensive when views are frequently created
+ * and destroyed (e.g. in lists).  Players that are returned to the pool are reset so
+ * that they can be re-used for a different media item, and players that sit idle longer
+ * than the idle timeout are released.
+ * <p/>
+ * The pool should only be accessed from the main (UI) thread.
+ */
+public class EMExoPlayerPool {
+    public static final int DEFAULT_CAPACITY = 2;
+    public static final long DEFAULT_IDLE_TIMEOUT = 30000;
+
+    @Nullable
+    private static EMExoPlayerPool defaultPool;
+
+    private final int capacity;
+    private final long idleTimeout;
+    private final LinkedList<IdlePlayer> idlePlayers = new LinkedList<>();
+
+    //The players in idlePlayers, used to ignore a player that is returned to the pool more than once
+    private final Set<EMExoPlayer> pooledPlayers = Collections.newSetFromMap(new IdentityHashMap<EMExoPlayer, Boolean>());
+
+    private Handler evictionHandler = new Handler();
+    private EvictionRunnable evictionRunnable = new EvictionRunnable();
+
+    public EMExoPlayerPool() {
+        this(DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT);
+    }
+
+    /**
+     * @param capacity The maximum amount of idle players to keep in the pool
+     * @param idleTimeout The amount of time in milliseconds an idle player will be kept before being released
+     */
+    public EMExoPlayerPool(int capacity, long idleTimeout) {
+        this.capacity = capacity;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Sets the pool that the {@link com.devbrackets.android.exomedia.EMVideoView} and
+     * {@link com.devbrackets.android.exomedia.EMAudioPlayer} will use when they are created.
+     * By default this is null, meaning a new EMExoPlayer is created for each view or player.
+     *
+     * @param pool The pool to use or null
+     */
+    public static void setDefaultPool(@Nullable EMExoPlayerPool pool) {
+        defaultPool = pool;
+    }
+
+    /**
+     * Retrieves the pool specified with {@link #setDefaultPool(EMExoPlayerPool)}
+     *
+     * @return The default pool or null
+     */
+    @Nullable
+    public static EMExoPlayerPool getDefaultPool() {
+        return defaultPool;
+    }
+
+    /**
+     * Retrieves an idle player from the pool, creating a new one if
+     * there aren't any available.
+     *
+     * @return An EMExoPlayer ready to be used
+     */
+    @NonNull
+    public EMExoPlayer acquire() {
+        return acquire(null);
+    }
+
+    /**
+     * Retrieves an idle player from the pool that can use the specified buffer
+     * configuration, creating a new one if there aren't any available.
+     *
+     * @param loadControl The buffer configuration for the player, or null to use the defaults
+     * @return An EMExoPlayer ready to be used
+     */
+    @NonNull
+    public EMExoPlayer acquire(@Nullable EMLoadControl loadControl) {
+        if (loadControl == null) {
+            loadControl = new EMLoadControl();
+        }
+
+        Iterator<IdlePlayer> iterator = idlePlayers.iterator();
+        while (iterator.hasNext()) {
+            EMExoPlayer player = iterator.next().player;
+            if (player.isReleased()) {
+                //Released by a caller that still held it after returning it to the pool
+                iterator.remove();
+                pooledPlayers.remove(player);
+                continue;
+            }
+
+            if (loadControl.hasSameStartThresholds(player.getLoadControl())) {
+                iterator.remove();
+                pooledPlayers.remove(player);
+                if (idlePlayers.isEmpty()) {
+                    evictionHandler.removeCallbacks(evictionRunnable);
+                }
+
+                player.setLoadControl(loadControl);
+                return player;
+            }
+        }
+
+        return new EMExoPlayer(null, loadControl);
+    }
+
+    /**
+     * Returns the player to the pool so that it can be re-used.  The player will have
+     * its surface cleared, renderers released, and listeners removed.  If the pool is
+     * already at capacity the player will be released instead.  Returning a player that
+     * is already idle in the pool, or that has already been released, is ignored.  The
+     * caller shouldn't use the player after returning it.
+     *
+     * @param player The player to return to the pool
+     */
+    public void release(@Nullable EMExoPlayer player) {
+        if (player == null || player.isReleased() || pooledPlayers.contains(player)) {
+            return;
+        }
+
+        if (idlePlayers.size() >= capacity) {
+            player.release();
+            return;
+        }
+
+        player.reset();
+        idlePlayers.addFirst(new IdlePlayer(player, SystemClock.elapsedRealtime()));
+        pooledPlayers.add(player);
+
+        if (idlePlayers.size() == 1) {
+            evictionHandler.postDelayed(evictionRunnable, idleTimeout);
+        }
+    }
+
+    /**
+     * Releases all the idle players currently held by the pool
+     */
+    public void clear() {
+        evictionHandler.removeCallbacks(evictionRunnable);
+
+        for (IdlePlayer idlePlayer : idlePlayers) {
+            idlePlayer.player.release();
+        }
+
+        idlePlayers.clear();
+        pooledPlayers.clear();
+    }
+
+    /**
+     * Retrieves the number of idle players currently held by the pool
+     *
+     * @return The number of idle players
+     */
+    public int getIdleCount() {
+        return idlePlayers.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    private static class IdlePlayer {
+        private final EMExoPlayer player;
+        private final long idleStartTime;
+
+        public IdlePlayer(EMExoPlayer player, long idleStartTime) {
+            this.player = player;
+            this.idleStartTime = idleStartTime;
+        }
+    }
+
+    /**
+     * Releases the players that have been idle longer than the idle timeout.  The most
+     * recently returned players are at the front of the list so we only need to check
+     * from the end.
+     */
+    private class EvictionRunnable implements Runnable {
+        @Override
+        public void run() {
+            long now = SystemClock.elapsedRealtime();
+            while (!idlePlayers.isEmpty() && now - idlePlayers.getLast().idleStartTime >= idleTimeout) {
+                EMExoPlayer player = idlePlayers.removeLast().player;
+                pooledPlayers.remove(player);
+                player.release();
+            }
+
+            if (!idlePlayers.isEmpty()) {
+                long nextEviction = idlePlayers.getLast().idleStartTime + idleTimeout - now;
+                evictionHandler.postDelayed(evictionRunnable, nextEviction);
+            }
+        }
+    }
+}
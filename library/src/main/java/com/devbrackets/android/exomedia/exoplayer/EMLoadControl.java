@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer.DefaultLoadControl;
+import com.google.android.exoplayer.LoadControl;
+import com.google.android.exoplayer.upstream.BufferPool;
+
+/**
+ * The buffer configuration for an {@link EMExoPlayer}, allowing memory to be traded
+ * for resistance to rebuffering.  This covers the amount of media needed to start
+ * and resume playback, the durations between which media is loaded, and the maximum
+ * number of bytes the video and audio can buffer.
+ * <p/>
+ * The start and resume durations are applied when the EMExoPlayer is created, while
+ * the remaining values are applied when the renderers are built.  Currently only the
+ * {@link com.devbrackets.android.exomedia.builder.DashRenderBuilder} sizes its buffers
+ * from this configuration; the HLS and default sample sources manage their own buffers.
+ */
+public class EMLoadControl {
+    public static final int DEFAULT_MIN_BUFFER_MS = 1000;
+    public static final int DEFAULT_MIN_REBUFFER_MS = 5000;
+    public static final int DEFAULT_LOW_WATERMARK_MS = 15000;
+    public static final int DEFAULT_HIGH_WATERMARK_MS = 30000;
+    public static final int DEFAULT_BUFFER_SEGMENT_SIZE = 64 * 1024;
+    public static final int DEFAULT_VIDEO_BUFFER_SEGMENTS = 200;
+    public static final int DEFAULT_AUDIO_BUFFER_SEGMENTS = 60;
+
+    private static final float LOW_BUFFER_LOAD = 0.2f;
+    private static final float HIGH_BUFFER_LOAD = 0.8f;
+    private static final int LOW_MEMORY_CLASS_MB = 64;
+
+    private int minBufferMs = DEFAULT_MIN_BUFFER_MS;
+    private int minRebufferMs = DEFAULT_MIN_REBUFFER_MS;
+    private int lowWatermarkMs = DEFAULT_LOW_WATERMARK_MS;
+    private int highWatermarkMs = DEFAULT_HIGH_WATERMARK_MS;
+    private int bufferSegmentSize = DEFAULT_BUFFER_SEGMENT_SIZE;
+    private int videoBufferSegments = DEFAULT_VIDEO_BUFFER_SEGMENTS;
+    private int audioBufferSegments = DEFAULT_AUDIO_BUFFER_SEGMENTS;
+
+    /**
+     * Creates the configuration to use on the current device, which is the
+     * {@link #createLowMemoryProfile()} on low memory devices, otherwise the defaults.
+     *
+     * @param context The Context to use for determining the device memory
+     * @return The configuration for the device
+     */
+    @NonNull
+    public static EMLoadControl createDefault(@NonNull Context context) {
+        return isLowMemoryDevice(context) ? createLowMemoryProfile() : new EMLoadControl();
+    }
+
+    /**
+     * Creates a configuration for devices with limited memory, which buffers less media
+     * ahead of the playback position.
+     *
+     * @return The low memory configuration
+     */
+    @NonNull
+    public static EMLoadControl createLowMemoryProfile() {
+        EMLoadControl loadControl = new EMLoadControl();
+        loadControl.setMinRebufferMs(3000);
+        loadControl.setWatermarks(8000, 15000);
+        loadControl.setBufferSegments(80, 30);
+        return loadControl;
+    }
+
+    /**
+     * Determines if the device is considered to have low memory, either reported
+     * by the system or from the per application memory limit.
+     *
+     * @param context The Context to use for retrieving the ActivityManager
+     * @return True if the device has low memory
+     */
+    public static boolean isLowMemoryDevice(@NonNull Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT && activityManager.isLowRamDevice()) {
+            return true;
+        }
+
+        return activityManager.getMemoryClass() <= LOW_MEMORY_CLASS_MB;
+    }
+
+    /**
+     * Sets the amount of media that must be buffered before playback starts
+     *
+     * @param minBufferMs The duration in milliseconds [default: {@value #DEFAULT_MIN_BUFFER_MS}]
+     */
+    public void setMinBufferMs(int minBufferMs) {
+        this.minBufferMs = minBufferMs;
+    }
+
+    public int getMinBufferMs() {
+        return minBufferMs;
+    }
+
+    /**
+     * Sets the amount of media that must be buffered before playback resumes
+     * after running out of buffered media
+     *
+     * @param minRebufferMs The duration in milliseconds [default: {@value #DEFAULT_MIN_REBUFFER_MS}]
+     */
+    public void setMinRebufferMs(int minRebufferMs) {
+        this.minRebufferMs = minRebufferMs;
+    }
+
+    public int getMinRebufferMs() {
+        return minRebufferMs;
+    }
+
+    /**
+     * Sets the buffered durations between which media is loaded.  Loading is started when
+     * the buffered media drops below the low watermark and stopped at the high watermark.
+     *
+     * @param lowWatermarkMs The low watermark in milliseconds [default: {@value #DEFAULT_LOW_WATERMARK_MS}]
+     * @param highWatermarkMs The high watermark in milliseconds [default: {@value #DEFAULT_HIGH_WATERMARK_MS}]
+     */
+    public void setWatermarks(int lowWatermarkMs, int highWatermarkMs) {
+        this.lowWatermarkMs = lowWatermarkMs;
+        this.highWatermarkMs = highWatermarkMs;
+    }
+
+    public int getLowWatermarkMs() {
+        return lowWatermarkMs;
+    }
+
+    public int getHighWatermarkMs() {
+        return highWatermarkMs;
+    }
+
+    /**
+     * Sets the size of each buffer segment, the maximum bytes buffered for each
+     * type is this multiplied by the number of segments for the type.
+     *
+     * @param bufferSegmentSize The size in bytes [default: {@value #DEFAULT_BUFFER_SEGMENT_SIZE}]
+     */
+    public void setBufferSegmentSize(int bufferSegmentSize) {
+        this.bufferSegmentSize = bufferSegmentSize;
+    }
+
+    public int getBufferSegmentSize() {
+        return bufferSegmentSize;
+    }
+
+    /**
+     * Sets the maximum number of buffer segments the video and audio can use
+     *
+     * @param videoBufferSegments The segments for the video [default: {@value #DEFAULT_VIDEO_BUFFER_SEGMENTS}]
+     * @param audioBufferSegments The segments for the audio [default: {@value #DEFAULT_AUDIO_BUFFER_SEGMENTS}]
+     */
+    public void setBufferSegments(int videoBufferSegments, int audioBufferSegments) {
+        this.videoBufferSegments = videoBufferSegments;
+        this.audioBufferSegments = audioBufferSegments;
+    }
+
+    public int getVideoBufferSize() {
+        return videoBufferSegments * bufferSegmentSize;
+    }
+
+    public int getAudioBufferSize() {
+        return audioBufferSegments * bufferSegmentSize;
+    }
+
+    /**
+     * Creates the LoadControl to share between the sample sources of a single playback
+     *
+     * @param eventHandler The handler to inform the eventListener on, or null
+     * @param eventListener The listener to inform when loading starts and stops, or null
+     * @return The LoadControl for the sample sources
+     */
+    @NonNull
+    public LoadControl createLoadControl(@Nullable Handler eventHandler, @Nullable DefaultLoadControl.EventListener eventListener) {
+        return new DefaultLoadControl(new BufferPool(bufferSegmentSize), eventHandler, eventListener, lowWatermarkMs, highWatermarkMs,
+                LOW_BUFFER_LOAD, HIGH_BUFFER_LOAD);
+    }
+
+    /**
+     * Determines if the durations needed to start and resume playback are the same, meaning
+     * an EMExoPlayer created with either configuration can be used for the other.
+     *
+     * @param other The configuration to compare with
+     * @return True if the start and resume durations are the same
+     */
+    public boolean hasSameStartThresholds(@Nullable EMLoadControl other) {
+        return other != null && other.minBufferMs == minBufferMs && other.minRebufferMs == minRebufferMs;
+    }
+}
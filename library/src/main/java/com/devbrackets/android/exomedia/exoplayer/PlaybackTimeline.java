@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.devbrackets.android.exomedia.listener.PlaybackTimelineListener;
+
+/**
+ * Timestamps the phases of starting a playback using the monotonic
+ * {@link SystemClock#elapsedRealtime()}, from the EMExoPlayer being prepared until the first
+ * video frame is drawn and the first audio is written.  Each phase is only recorded the first
+ * time it is reached after being prepared, and is added to the {@link StartupStats}.
+ * <p/>
+ * Phases can be marked from any thread (the decoder phases are reached on the playback
+ * thread), however the listener is always informed on the main thread.
+ */
+public class PlaybackTimeline {
+    public static final long PHASE_NOT_REACHED = -1;
+
+    public enum Phase {
+        /**
+         * The EMExoPlayer started building the renderers
+         */
+        PREPARE_STARTED,
+        /**
+         * The manifest or playlist was loaded, this is only reached for HLS and DASH
+         */
+        MANIFEST_LOADED,
+        /**
+         * The RenderBuilder finished building the renderers
+         */
+        RENDERERS_BUILT,
+        /**
+         * The first decoder (audio or video) was configured with the format of the media
+         */
+        DECODER_INITIALIZED,
+        /**
+         * Enough media was buffered for the ExoPlayer to be ready
+         */
+        PLAYER_READY,
+        /**
+         * The first video frame was drawn to the surface
+         */
+        FIRST_FRAME_DRAWN,
+        /**
+         * The first audio was written to the AudioTrack
+         */
+        FIRST_AUDIO_WRITTEN
+    }
+
+    private final Handler handler;
+    private final long[] timestamps = new long[Phase.values().length];
+
+    private int generation;
+    @Nullable
+    private PlaybackTimelineListener listener;
+
+    /**
+     * @param handler The handler for the main thread to inform the listener on
+     */
+    public PlaybackTimeline(@NonNull Handler handler) {
+        this.handler = handler;
+        clear();
+    }
+
+    /**
+     * Sets the listener to inform when a phase is reached
+     *
+     * @param listener The listener to inform or null
+     */
+    public void setListener(@Nullable PlaybackTimelineListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Clears the previous timestamps and marks the {@link Phase#PREPARE_STARTED}
+     */
+    public synchronized void start() {
+        clear();
+        mark(Phase.PREPARE_STARTED);
+    }
+
+    /**
+     * Clears the timestamps, phases reached before {@link #start()} is called again are ignored
+     */
+    public synchronized void clear() {
+        generation++;
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = PHASE_NOT_REACHED;
+        }
+    }
+
+    /**
+     * Records the current time for the phase if it hasn't already been reached
+     *
+     * @param phase The phase that was reached
+     */
+    public void mark(@NonNull Phase phase) {
+        long now = SystemClock.elapsedRealtime();
+        long elapsed;
+        int markGeneration;
+
+        synchronized (this) {
+            long startTime = timestamps[Phase.PREPARE_STARTED.ordinal()];
+            if (timestamps[phase.ordinal()] != PHASE_NOT_REACHED || (startTime == PHASE_NOT_REACHED && phase != Phase.PREPARE_STARTED)) {
+                return;
+            }
+
+            timestamps[phase.ordinal()] = now;
+            elapsed = phase == Phase.PREPARE_STARTED ? 0 : now - startTime;
+            markGeneration = generation;
+        }
+
+        StartupStats.getInstance().record(phase, elapsed);
+        handler.post(new PhaseNotifier(phase, elapsed, markGeneration));
+    }
+
+    /**
+     * Determines if the phase has been reached since the timeline was started
+     *
+     * @param phase The phase to check
+     * @return True if the phase has been reached
+     */
+    public synchronized boolean hasReached(@NonNull Phase phase) {
+        return timestamps[phase.ordinal()] != PHASE_NOT_REACHED;
+    }
+
+    /**
+     * Retrieves the time the phase was reached
+     *
+     * @param phase The phase to retrieve the time for
+     * @return The {@link SystemClock#elapsedRealtime()} the phase was reached or {@link #PHASE_NOT_REACHED}
+     */
+    public synchronized long getTimestamp(@NonNull Phase phase) {
+        return timestamps[phase.ordinal()];
+    }
+
+    /**
+     * Retrieves the time between the {@link Phase#PREPARE_STARTED} and the phase
+     *
+     * @param phase The phase to retrieve the elapsed time for
+     * @return The elapsed time in milliseconds or {@link #PHASE_NOT_REACHED}
+     */
+    public synchronized long getElapsed(@NonNull Phase phase) {
+        long timestamp = timestamps[phase.ordinal()];
+        if (timestamp == PHASE_NOT_REACHED) {
+            return PHASE_NOT_REACHED;
+        }
+
+        return timestamp - timestamps[Phase.PREPARE_STARTED.ordinal()];
+    }
+
+    private class PhaseNotifier implements Runnable {
+        private final Phase phase;
+        private final long elapsed;
+        private final int markGeneration;
+
+        public PhaseNotifier(Phase phase, long elapsed, int markGeneration) {
+            this.phase = phase;
+            this.elapsed = elapsed;
+            this.markGeneration = markGeneration;
+        }
+
+        @Override
+        public void run() {
+            //Ignores the phases from a previous playback
+            synchronized (PlaybackTimeline.this) {
+                if (markGeneration != generation) {
+                    return;
+                }
+            }
+
+            if (listener != null) {
+                listener.onPlaybackPhase(PlaybackTimeline.this, phase, elapsed);
+            }
+        }
+    }
+}
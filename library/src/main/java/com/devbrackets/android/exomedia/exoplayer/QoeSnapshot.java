@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+/**
+ * An immutable capture of the {@link QoeStats} for a playback session
+ */
+public class QoeSnapshot {
+    private final long sessionTimeMs;
+    private final long playingTimeMs;
+    private final int rebufferCount;
+    private final long rebufferTimeMs;
+    private final int droppedFrames;
+    private final long averageBitrate;
+    private final long peakBitrate;
+    private final long wastedBytes;
+    private final int formatSwitchCount;
+
+    public QoeSnapshot(long sessionTimeMs, long playingTimeMs, int rebufferCount, long rebufferTimeMs, int droppedFrames,
+                       long averageBitrate, long peakBitrate, long wastedBytes, int formatSwitchCount) {
+        this.sessionTimeMs = sessionTimeMs;
+        this.playingTimeMs = playingTimeMs;
+        this.rebufferCount = rebufferCount;
+        this.rebufferTimeMs = rebufferTimeMs;
+        this.droppedFrames = droppedFrames;
+        this.averageBitrate = averageBitrate;
+        this.peakBitrate = peakBitrate;
+        this.wastedBytes = wastedBytes;
+        this.formatSwitchCount = formatSwitchCount;
+    }
+
+    /**
+     * @return The time in milliseconds since the session started
+     */
+    public long getSessionTimeMs() {
+        return sessionTimeMs;
+    }
+
+    /**
+     * @return The time in milliseconds the media was actively playing
+     */
+    public long getPlayingTimeMs() {
+        return playingTimeMs;
+    }
+
+    /**
+     * Retrieves the number of times the playback ran out of media, excluding the initial load and
+     * seeks.  These are the stalls reported by the EMVideoView or EMAudioPlayer, so this matches
+     * their <code>getStallCount()</code>.
+     *
+     * @return The number of rebuffers
+     */
+    public int getRebufferCount() {
+        return rebufferCount;
+    }
+
+    /**
+     * @return The time in milliseconds spent rebuffering
+     */
+    public long getRebufferTimeMs() {
+        return rebufferTimeMs;
+    }
+
+    /**
+     * @return The fraction of the playing and rebuffering time spent rebuffering [0, 1]
+     */
+    public float getRebufferRatio() {
+        long total = playingTimeMs + rebufferTimeMs;
+        return total == 0 ? 0 : (float) rebufferTimeMs / total;
+    }
+
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * @return The number of dropped frames per minute of playback
+     */
+    public float getDroppedFrameRate() {
+        return playingTimeMs == 0 ? 0 : droppedFrames * 60000f / playingTimeMs;
+    }
+
+    /**
+     * Retrieves the average bitrate of the loaded media.  When the audio and video are
+     * loaded separately (e.g. DASH) this is the sum of their average bitrates.
+     *
+     * @return The average bitrate in bits per second
+     */
+    public long getAverageBitrate() {
+        return averageBitrate;
+    }
+
+    /**
+     * Retrieves the highest bitrate of a single loaded chunk.  When the audio and video are
+     * loaded separately (e.g. DASH) this is the sum of the highest bitrate for each.
+     *
+     * @return The peak bitrate in bits per second
+     */
+    public long getPeakBitrate() {
+        return peakBitrate;
+    }
+
+    /**
+     * @return The number of bytes loaded that were discarded or canceled before being played
+     */
+    public long getWastedBytes() {
+        return wastedBytes;
+    }
+
+    public int getFormatSwitchCount() {
+        return formatSwitchCount;
+    }
+
+    @Override
+    public String toString() {
+        return "QoeSnapshot{session=" + sessionTimeMs + ", playing=" + playingTimeMs + ", rebuffers=" + rebufferCount
+                + ", rebufferTime=" + rebufferTimeMs + ", droppedFrames=" + droppedFrames + ", avgBitrate=" + averageBitrate
+                + ", peakBitrate=" + peakBitrate + ", wastedBytes=" + wastedBytes + ", formatSwitches=" + formatSwitchCount + "}";
+    }
+}
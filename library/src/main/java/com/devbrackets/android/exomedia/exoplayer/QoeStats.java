@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import com.google.android.exoplayer.ExoPlayer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Aggregates the quality of experience for a single playback session from the events
+ * reported to the {@link EMExoPlayer}: rebuffers, dropped frames, the bitrate of the loaded
+ * media, bytes wasted on discarded chunks and format switches.  The counters are lock-free
+ * so they can be updated from any thread, and {@link #getSnapshot()} captures the current
+ * values in an immutable {@link QoeSnapshot}.
+ * <p/>
+ * The rebuffers aren't detected by the player, they are the stalls reported to
+ * {@link EMExoPlayer#onStallStarted(long)} by the StallTracker of the EMVideoView or EMAudioPlayer.
+ * When the EMExoPlayer is used directly the rebuffers will be 0 unless the stalls are reported.
+ */
+public class QoeStats {
+    private static final int SOURCE_COUNT = EMExoPlayer.RENDER_COUNT;
+    private static final long NOT_STARTED = -1;
+
+    private final AtomicLong sessionStartTime = new AtomicLong(NOT_STARTED);
+    private final AtomicLong playingStartTime = new AtomicLong(NOT_STARTED);
+    private final AtomicLong playingTimeMs = new AtomicLong();
+
+    private final AtomicInteger rebufferCount = new AtomicInteger();
+    private final AtomicLong rebufferStartTime = new AtomicLong(NOT_STARTED);
+    private final AtomicLong rebufferTimeMs = new AtomicLong();
+
+    private final AtomicInteger droppedFrames = new AtomicInteger();
+
+    //The loads are tracked per source since the audio and video are separate sources for DASH
+    private final AtomicLong[] loadedBytes = new AtomicLong[SOURCE_COUNT];
+    private final AtomicLong[] loadedMediaTimeMs = new AtomicLong[SOURCE_COUNT];
+    private final AtomicLong[] peakBitrates = new AtomicLong[SOURCE_COUNT];
+    private final AtomicLong[] pendingLoadDurations = new AtomicLong[SOURCE_COUNT];
+
+    private final AtomicLong wastedBytes = new AtomicLong();
+
+    private final AtomicInteger formatSwitchCount = new AtomicInteger();
+    private final AtomicReferenceArray<String> currentFormatIds = new AtomicReferenceArray<>(SOURCE_COUNT);
+
+    public QoeStats() {
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            loadedBytes[i] = new AtomicLong();
+            loadedMediaTimeMs[i] = new AtomicLong();
+            peakBitrates[i] = new AtomicLong();
+            pendingLoadDurations[i] = new AtomicLong();
+        }
+    }
+
+    /**
+     * Captures the current values for the session, including the time spent in
+     * an ongoing rebuffer or playback.
+     *
+     * @return The snapshot of the session
+     */
+    @NonNull
+    public QoeSnapshot getSnapshot() {
+        long now = SystemClock.elapsedRealtime();
+        long sessionStart = sessionStartTime.get();
+        long playingStart = playingStartTime.get();
+        long rebufferStart = rebufferStartTime.get();
+
+        long playingTime = playingTimeMs.get() + (playingStart != NOT_STARTED ? now - playingStart : 0);
+        long rebufferTime = rebufferTimeMs.get() + (rebufferStart != NOT_STARTED ? now - rebufferStart : 0);
+
+        //The sources play at the same time, so the combined bitrate is the sum of each source's bitrate
+        long averageBitrate = 0;
+        long peakBitrate = 0;
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            long mediaTime = loadedMediaTimeMs[i].get();
+            averageBitrate += mediaTime > 0 ? loadedBytes[i].get() * 8 * 1000 / mediaTime : 0;
+            peakBitrate += peakBitrates[i].get();
+        }
+
+        return new QoeSnapshot(
+                sessionStart != NOT_STARTED ? now - sessionStart : 0,
+                playingTime,
+                rebufferCount.get(),
+                rebufferTime,
+                droppedFrames.get(),
+                averageBitrate,
+                peakBitrate,
+                wastedBytes.get(),
+                formatSwitchCount.get());
+    }
+
+    /**
+     * Clears all the values, starting a new session
+     */
+    void reset() {
+        sessionStartTime.set(SystemClock.elapsedRealtime());
+        playingStartTime.set(NOT_STARTED);
+        playingTimeMs.set(0);
+        rebufferCount.set(0);
+        rebufferStartTime.set(NOT_STARTED);
+        rebufferTimeMs.set(0);
+        droppedFrames.set(0);
+        wastedBytes.set(0);
+        formatSwitchCount.set(0);
+
+        for (int i = 0; i < SOURCE_COUNT; i++) {
+            loadedBytes[i].set(0);
+            loadedMediaTimeMs[i].set(0);
+            peakBitrates[i].set(0);
+            pendingLoadDurations[i].set(0);
+            currentFormatIds.set(i, null);
+        }
+    }
+
+    /**
+     * Tracks the time spent playing
+     */
+    void onStateChanged(boolean playWhenReady, int state) {
+        long now = SystemClock.elapsedRealtime();
+
+        boolean playing = playWhenReady && state == ExoPlayer.STATE_READY;
+        long playingStart = playingStartTime.get();
+        if (playing && playingStart == NOT_STARTED) {
+            playingStartTime.compareAndSet(NOT_STARTED, now);
+        } else if (!playing && playingStart != NOT_STARTED && playingStartTime.compareAndSet(playingStart, NOT_STARTED)) {
+            playingTimeMs.addAndGet(now - playingStart);
+        }
+    }
+
+    /**
+     * The rebuffers are the stalls determined by the {@link com.devbrackets.android.exomedia.util.StallTracker}
+     * so that there is a single definition of a stall
+     */
+    void onStallStarted(long startTime) {
+        if (rebufferStartTime.compareAndSet(NOT_STARTED, startTime)) {
+            rebufferCount.incrementAndGet();
+        }
+    }
+
+    void onStallEnded(long startTime, long endTime) {
+        if (rebufferStartTime.compareAndSet(startTime, NOT_STARTED)) {
+            rebufferTimeMs.addAndGet(endTime - startTime);
+        }
+    }
+
+    void onDroppedFrames(int count) {
+        droppedFrames.addAndGet(count);
+    }
+
+    void onLoadStarted(int sourceId, boolean isInitialization, int mediaStartTimeMs, int mediaEndTimeMs) {
+        //Initialization chunks don't contain any media so they aren't included in the bitrate
+        if (sourceId >= 0 && sourceId < SOURCE_COUNT) {
+            pendingLoadDurations[sourceId].set(isInitialization ? 0 : Math.max(0, mediaEndTimeMs - mediaStartTimeMs));
+        }
+    }
+
+    void onLoadCompleted(int sourceId, long bytesLoaded) {
+        if (sourceId < 0 || sourceId >= SOURCE_COUNT) {
+            return;
+        }
+
+        long mediaDuration = pendingLoadDurations[sourceId].getAndSet(0);
+        if (mediaDuration <= 0 || bytesLoaded <= 0) {
+            return;
+        }
+
+        loadedBytes[sourceId].addAndGet(bytesLoaded);
+        loadedMediaTimeMs[sourceId].addAndGet(mediaDuration);
+
+        long bitrate = bytesLoaded * 8 * 1000 / mediaDuration;
+        AtomicLong peakBitrate = peakBitrates[sourceId];
+        long peak;
+        do {
+            peak = peakBitrate.get();
+        } while (bitrate > peak && !peakBitrate.compareAndSet(peak, bitrate));
+    }
+
+    void onBytesWasted(long bytes) {
+        if (bytes > 0) {
+            wastedBytes.addAndGet(bytes);
+        }
+    }
+
+    void onFormatChanged(int sourceId, String formatId) {
+        if (sourceId < 0 || sourceId >= SOURCE_COUNT) {
+            return;
+        }
+
+        String previousFormatId = currentFormatIds.getAndSet(sourceId, formatId);
+        if (previousFormatId != null && !previousFormatId.equals(formatId)) {
+            formatSwitchCount.incrementAndGet();
+        }
+    }
+}
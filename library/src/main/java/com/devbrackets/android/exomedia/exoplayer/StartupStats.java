@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.exoplayer;
+
+import android.support.annotation.NonNull;
+
+import com.devbrackets.android.exomedia.util.LatencyHistogram;
+
+/**
+ * Aggregates the {@link PlaybackTimeline} phases of every playback into a histogram
+ * per phase, so that the startup latency can be reported as percentiles instead of
+ * individual measurements.
+ */
+public class StartupStats {
+    private static final StartupStats instance = new StartupStats();
+
+    private final LatencyHistogram[] histograms;
+
+    private StartupStats() {
+        PlaybackTimeline.Phase[] phases = PlaybackTimeline.Phase.values();
+        histograms = new LatencyHistogram[phases.length];
+        for (int i = 0; i < phases.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    @NonNull
+    public static StartupStats getInstance() {
+        return instance;
+    }
+
+    /**
+     * Retrieves the histogram of the time from {@link PlaybackTimeline.Phase#PREPARE_STARTED}
+     * until the phase was reached
+     *
+     * @param phase The phase to retrieve the histogram for
+     * @return The histogram for the phase
+     */
+    @NonNull
+    public LatencyHistogram getHistogram(@NonNull PlaybackTimeline.Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Removes all the recorded latencies
+     */
+    public void clear() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.clear();
+        }
+    }
+
+    void record(PlaybackTimeline.Phase phase, long elapsedMs) {
+        histograms[phase.ordinal()].record(elapsedMs);
+    }
+}
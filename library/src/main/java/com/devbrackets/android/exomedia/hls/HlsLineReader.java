@@ -0,0 +1,369 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the lines of an HLS playlist directly from the bytes of the stream.  The current
+ * line is read in place from the stream buffer (only lines that span two reads are copied)
+ * and the tags, numbers and attributes are matched against the bytes so that only the
+ * values that are actually needed are converted to Strings.
+ * The playlists are always UTF-8 (RFC 8216), so the ASCII tags can be compared byte by byte.
+ */
+final class HlsLineReader {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_SIZE = 8192;
+    private static final int INITIAL_LINE_SIZE = 256;
+    private static final int MICROS_PER_SECOND = 1000000;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private byte[] spill = new byte[INITIAL_LINE_SIZE];
+    private int spillLength;
+
+    private InputStream inputStream;
+    private int position;
+    private int limit;
+    private boolean firstLine;
+
+    //The current line is lineLength bytes in line starting at lineOffset
+    private byte[] line = buffer;
+    private int lineOffset;
+    private int lineLength;
+
+    /**
+     * Prepares the reader to read the lines from a new stream
+     *
+     * @param inputStream The stream to read the playlist from
+     */
+    public void reset(@NonNull InputStream inputStream) {
+        this.inputStream = inputStream;
+        position = 0;
+        limit = 0;
+        line = buffer;
+        lineOffset = 0;
+        lineLength = 0;
+        firstLine = true;
+    }
+
+    /**
+     * Reads the next line that isn't empty, leading and trailing whitespace is removed
+     *
+     * @return False if the end of the stream was reached
+     * @throws IOException If the stream couldn't be read
+     */
+    public boolean nextLine() throws IOException {
+        while (readLine()) {
+            if (lineLength > 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int length() {
+        return lineLength;
+    }
+
+    public byte byteAt(int index) {
+        return line[lineOffset + index];
+    }
+
+    public boolean startsWith(@NonNull byte[] prefix) {
+        if (prefix.length > lineLength) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[lineOffset + i] != prefix[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public int indexOf(byte value, int from) {
+        for (int i = from; i < lineLength; i++) {
+            if (line[lineOffset + i] == value) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @NonNull
+    public String getString(int start) {
+        return getString(start, lineLength);
+    }
+
+    @NonNull
+    public String getString(int start, int end) {
+        return new String(line, lineOffset + start, end - start, UTF_8);
+    }
+
+    /**
+     * Parses the decimal integer starting at the index, stopping at the first non-digit
+     *
+     * @param start The index in the line the number starts at
+     * @return The parsed number
+     * @throws IOException If there isn't a number at the index
+     */
+    public long parseLong(int start) throws IOException {
+        int index = start;
+        long value = 0;
+        while (index < lineLength && isDigit(index)) {
+            value = value * 10 + (line[lineOffset + index] - '0');
+            index++;
+        }
+
+        if (index == start) {
+            throw new IOException("Expected a number in the playlist line: " + getString(0));
+        }
+
+        return value;
+    }
+
+    /**
+     * Parses the decimal number of seconds starting at the index (e.g. "9.009")
+     * into microseconds without creating a String.
+     *
+     * @param start The index in the line the number starts at
+     * @return The parsed number of microseconds
+     * @throws IOException If there isn't a number at the index
+     */
+    public long parseSecondsAsMicros(int start) throws IOException {
+        long micros = parseLong(start) * MICROS_PER_SECOND;
+
+        int index = indexOfNonDigit(start);
+        if (index < lineLength && line[lineOffset + index] == '.') {
+            long scale = MICROS_PER_SECOND / 10;
+            index++;
+            while (index < lineLength && isDigit(index)) {
+                micros += (line[lineOffset + index] - '0') * scale;
+                scale /= 10;
+                index++;
+            }
+        }
+
+        return micros;
+    }
+
+    /**
+     * Finds the start of the value for the attribute in an attribute list (e.g.
+     * BANDWIDTH=1280000,CODECS="avc1.4d401f,mp4a.40.2")
+     *
+     * @param name The attribute name including the trailing '='
+     * @param from The index the attribute list starts at
+     * @return The index of the value or -1 if the attribute isn't in the list
+     */
+    public int findAttribute(@NonNull byte[] name, int from) {
+        int index = from;
+        while (index < lineLength) {
+            if (regionMatches(index, name)) {
+                return index + name.length;
+            }
+
+            index = attributeEnd(index) + 1;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Finds the end of the attribute value starting at the index, commas within
+     * a quoted value don't end the attribute.
+     *
+     * @param start The index the value or attribute starts at
+     * @return The index after the value
+     */
+    public int attributeEnd(int start) {
+        boolean quoted = false;
+        for (int i = start; i < lineLength; i++) {
+            if (line[lineOffset + i] == '"') {
+                quoted = !quoted;
+            } else if (line[lineOffset + i] == ',' && !quoted) {
+                return i;
+            }
+        }
+
+        return lineLength;
+    }
+
+    /**
+     * Retrieves the value for the attribute as a String, removing any quotes
+     *
+     * @param name The attribute name including the trailing '='
+     * @param from The index the attribute list starts at
+     * @return The value or null if the attribute isn't in the list
+     */
+    @Nullable
+    public String getAttribute(@NonNull byte[] name, int from) {
+        int start = findAttribute(name, from);
+        if (start == -1) {
+            return null;
+        }
+
+        int end = attributeEnd(start);
+        if (end - start >= 2 && line[lineOffset + start] == '"' && line[lineOffset + end - 1] == '"') {
+            start++;
+            end--;
+        }
+
+        return getString(start, end);
+    }
+
+    private int indexOfNonDigit(int from) {
+        int index = from;
+        while (index < lineLength && isDigit(index)) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private boolean isDigit(int index) {
+        byte value = line[lineOffset + index];
+        return value >= '0' && value <= '9';
+    }
+
+    private boolean regionMatches(int start, byte[] value) {
+        if (start + value.length > lineLength) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length; i++) {
+            if (line[lineOffset + start + i] != value[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Finds the next line in the stream buffer, copying it in to the spill buffer
+     * when it continues past the bytes that have been read.
+     *
+     * @return False if the end of the stream was reached
+     */
+    private boolean readLine() throws IOException {
+        if (position == limit && !fill()) {
+            return false;
+        }
+
+        int start = position;
+        int newline = indexOfNewline(start);
+        if (newline != -1) {
+            position = newline + 1;
+            setLine(buffer, start, newline);
+        } else {
+            spillLength = 0;
+            appendSpill(start, limit);
+            position = limit;
+
+            while (fill()) {
+                newline = indexOfNewline(0);
+                if (newline != -1) {
+                    appendSpill(0, newline);
+                    position = newline + 1;
+                    break;
+                }
+
+                appendSpill(0, limit);
+                position = limit;
+            }
+
+            setLine(spill, 0, spillLength);
+        }
+
+        if (firstLine) {
+            firstLine = false;
+            removeByteOrderMark();
+        }
+
+        return true;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer[i] == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Sets the current line, trimming the leading and trailing whitespace (including the '\r')
+     */
+    private void setLine(byte[] data, int start, int end) {
+        while (start < end && isWhitespace(data[start])) {
+            start++;
+        }
+
+        while (end > start && isWhitespace(data[end - 1])) {
+            end--;
+        }
+
+        line = data;
+        lineOffset = start;
+        lineLength = end - start;
+    }
+
+    private void appendSpill(int start, int end) {
+        int length = end - start;
+        if (spillLength + length > spill.length) {
+            byte[] expanded = new byte[Math.max(spill.length * 2, spillLength + length)];
+            System.arraycopy(spill, 0, expanded, 0, spillLength);
+            spill = expanded;
+        }
+
+        System.arraycopy(buffer, start, spill, spillLength, length);
+        spillLength += length;
+    }
+
+    private boolean fill() throws IOException {
+        int read = inputStream.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void removeByteOrderMark() {
+        if (lineLength >= 3 && line[lineOffset] == (byte) 0xEF && line[lineOffset + 1] == (byte) 0xBB && line[lineOffset + 2] == (byte) 0xBF) {
+            lineOffset += 3;
+            lineLength -= 3;
+        }
+    }
+
+    private static boolean isWhitespace(byte value) {
+        return value == ' ' || value == '\t' || value == '\r';
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Tracks the window of a live HLS media playlist by refreshing the playlist on the schedule
+ * specified by RFC 8216: the target duration after the playlist changed, or half the target
+ * duration when it hasn't.  The refreshes use the {@link IncrementalHlsPlaylistParser} so that
+ * only the appended segments are parsed.
+ * <p/>
+ * All times are on the stream timeline (see {@link HlsSegment}), which starts with the first
+ * segment seen by the tracker.  The playback starts at the start segment selected with
+ * {@link #selectStartSequence(long, int)}, so a playback position is converted to the stream
+ * timeline by adding {@link #getStartTimeMs()}.
+ * <p/>
+ * The HlsChunkSource in ExoPlayer r1.2.4 loads the media playlists with its own internal parser, so
+ * the tracker can't observe those loads and requests the playlist itself.  Every refresh is in addition
+ * to the ones made by ExoPlayer, so the tracker should only be running while the playback is active.
+ */
+public class HlsLiveTracker {
+    private static final String TAG = HlsLiveTracker.class.getSimpleName();
+    private static final String REFRESH_THREAD_NAME = "EMExoPlayer:HlsLiveRefresh";
+    private static final int TIMEOUT_MILLIS = 8000;
+    private static final long DEFAULT_TARGET_DURATION_MS = 10000;
+
+    /**
+     * The number of segments from the end of the playlist that ExoPlayer starts live playback at
+     */
+    public static final int DEFAULT_START_SEGMENTS_BEHIND_EDGE = 3;
+    public static final int LOW_LATENCY_DISABLED = -1;
+
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final long NO_SEQUENCE = -1;
+
+    public interface Listener {
+        /**
+         * Called on the main thread when a refresh of the playlist changed the live window
+         *
+         * @param tracker The tracker for the live playlist
+         */
+        void onLiveWindowChanged(HlsLiveTracker tracker);
+    }
+
+    private static Handler refreshHandler;
+
+    private final String playlistUrl;
+    private final String userAgent;
+    private final IncrementalHlsPlaylistParser parser = new IncrementalHlsPlaylistParser();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Refresher refresher = new Refresher();
+    private final Notifier notifier = new Notifier();
+
+    @Nullable
+    private volatile HlsPlaylistSnapshot snapshot;
+    @Nullable
+    private volatile Listener listener;
+    private volatile boolean running = false;
+    private volatile long lastRefreshMs = 0;
+
+    private volatile int lowLatencySegmentCount = LOW_LATENCY_DISABLED;
+    private volatile long requestedStartTimeUs = NO_START_TIME;
+    private volatile long startSequence = NO_SEQUENCE;
+    private volatile long startTimeUs = NO_START_TIME;
+
+    /**
+     * @param playlistUrl The absolute url for the media playlist to track
+     * @param userAgent The user agent to use when requesting the playlist
+     * @param initialSnapshot The snapshot for the media playlist if it has already been parsed
+     */
+    public HlsLiveTracker(@NonNull String playlistUrl, String userAgent, @Nullable HlsPlaylistSnapshot initialSnapshot) {
+        this.playlistUrl = playlistUrl;
+        this.userAgent = userAgent;
+        this.snapshot = initialSnapshot != null && !initialSnapshot.isMaster() ? initialSnapshot : null;
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Starts refreshing the playlist, a window that is older than the target duration
+     * (e.g. after the playback was paused) is refreshed immediately
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        HlsPlaylistSnapshot current = snapshot;
+        long delay = current == null ? 0 : lastRefreshMs + getTargetDurationMs(current) - SystemClock.elapsedRealtime();
+        getRefreshHandler().postDelayed(refresher, Math.max(0, delay));
+    }
+
+    /**
+     * Stops refreshing the playlist, the last window is still available
+     */
+    public void stop() {
+        running = false;
+        getRefreshHandler().removeCallbacks(refresher);
+        mainHandler.removeCallbacks(notifier);
+    }
+
+    /**
+     * Sets the number of segments behind the live edge that the playback should stay at.  Smaller
+     * values have a lower latency but a greater risk of stalling.
+     *
+     * @param segmentCount The number of segments [1, ...] or {@link #LOW_LATENCY_DISABLED}
+     */
+    public void setLowLatencySegmentCount(int segmentCount) {
+        lowLatencySegmentCount = segmentCount <= 0 ? LOW_LATENCY_DISABLED : segmentCount;
+    }
+
+    public int getLowLatencySegmentCount() {
+        return lowLatencySegmentCount;
+    }
+
+    /**
+     * Requests that the next playback start at the position in the live window.  This is
+     * used by {@link #selectStartSequence(long, int)} when the renderers are built again.
+     *
+     * @param positionMs The position on the stream timeline
+     */
+    public void requestStartPosition(long positionMs) {
+        requestedStartTimeUs = positionMs * 1000;
+    }
+
+    /**
+     * Requests that the next playback start at the live edge, taking in to account the
+     * low latency segment count
+     */
+    public void requestLiveEdgeStart() {
+        requestedStartTimeUs = NO_START_TIME;
+    }
+
+    /**
+     * Selects the segment the playback will start at for a playlist that was loaded to build the renderers,
+     * this consumes any requested start position.  This is called on the renderer builder thread.
+     *
+     * @param firstSequence The media sequence number for the first segment in the playlist
+     * @param segmentCount The number of segments in the playlist
+     * @return The media sequence number of the segment to start at
+     */
+    public long selectStartSequence(long firstSequence, int segmentCount) {
+        long lastSequence = firstSequence + Math.max(0, segmentCount - 1);
+        long sequence;
+
+        long requestedTimeUs = requestedStartTimeUs;
+        requestedStartTimeUs = NO_START_TIME;
+
+        HlsSegment requestedSegment = requestedTimeUs == NO_START_TIME ? null : findSegment(requestedTimeUs);
+        if (requestedSegment != null) {
+            sequence = requestedSegment.getSequence();
+        } else if (lowLatencySegmentCount != LOW_LATENCY_DISABLED) {
+            sequence = lastSequence + 1 - lowLatencySegmentCount;
+        } else {
+            sequence = lastSequence + 1 - DEFAULT_START_SEGMENTS_BEHIND_EDGE;
+        }
+
+        sequence = Math.max(firstSequence, Math.min(lastSequence, sequence));
+        setStartSequence(sequence);
+        return sequence;
+    }
+
+    /**
+     * Informs the tracker that the playback was built from a master playlist, which means ExoPlayer
+     * selects the start segment itself at its default distance from the live edge.
+     * This is called on the renderer builder thread.
+     */
+    public void useDefaultStart() {
+        requestedStartTimeUs = NO_START_TIME;
+        startSequence = NO_SEQUENCE;
+        startTimeUs = NO_START_TIME;
+
+        HlsPlaylistSnapshot current = snapshot;
+        if (current != null) {
+            resolveStartTime(current);
+        }
+    }
+
+    /**
+     * Determines if the tracked playlist is live, this will be false until the
+     * playlist has been loaded and after the live stream ended.
+     *
+     * @return True if the playlist is live
+     */
+    public boolean isLive() {
+        HlsPlaylistSnapshot current = snapshot;
+        return current != null && current.isLive();
+    }
+
+    /**
+     * Retrieves the position on the stream timeline that the playback started at
+     *
+     * @return The start time in milliseconds or 0 if it isn't known yet
+     */
+    public long getStartTimeMs() {
+        long timeUs = startTimeUs;
+        return timeUs == NO_START_TIME ? 0 : timeUs / 1000;
+    }
+
+    /**
+     * Retrieves the start of the live window, which is the earliest position that can be seeked to
+     *
+     * @return The window start in milliseconds on the stream timeline
+     */
+    public long getWindowStartMs() {
+        HlsPlaylistSnapshot current = snapshot;
+        return current == null ? getStartTimeMs() : current.getWindowStartUs() / 1000;
+    }
+
+    /**
+     * Retrieves the end of the live window, which is the live edge
+     *
+     * @return The window end in milliseconds on the stream timeline
+     */
+    public long getWindowEndMs() {
+        HlsPlaylistSnapshot current = snapshot;
+        return current == null ? getStartTimeMs() : current.getWindowEndUs() / 1000;
+    }
+
+    /**
+     * Determines how many whole segments the position is behind the live edge
+     *
+     * @param positionMs The position on the stream timeline
+     * @return The number of segments behind the live edge
+     */
+    public int getSegmentsBehindEdge(long positionMs) {
+        HlsPlaylistSnapshot current = snapshot;
+        if (current == null || current.getSegments().isEmpty()) {
+            return 0;
+        }
+
+        HlsSegment segment = findSegment(positionMs * 1000);
+        if (segment == null) {
+            return positionMs * 1000 < current.getWindowStartUs() ? current.getSegments().size() : 0;
+        }
+
+        return (int) (current.getMediaSequence() + current.getSegments().size() - segment.getSequence() - 1);
+    }
+
+    @Nullable
+    public HlsPlaylistSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @Nullable
+    private HlsSegment findSegment(long timeUs) {
+        HlsPlaylistSnapshot current = snapshot;
+        if (current == null) {
+            return null;
+        }
+
+        List<HlsSegment> segments = current.getSegments();
+        if (segments.isEmpty()) {
+            return null;
+        }
+
+        //Positions outside of the window are moved to the closest segment
+        if (timeUs < current.getWindowStartUs()) {
+            return segments.get(0);
+        }
+
+        int low = 0;
+        int high = segments.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (segments.get(middle).getStartTimeUs() <= timeUs) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return segments.get(low);
+    }
+
+    private void setStartSequence(long sequence) {
+        startSequence = sequence;
+        HlsPlaylistSnapshot current = snapshot;
+        HlsSegment segment = current == null ? null : current.getSegment(sequence);
+        startTimeUs = segment == null ? NO_START_TIME : segment.getStartTimeUs();
+    }
+
+    private void refresh() {
+        lastRefreshMs = SystemClock.elapsedRealtime();
+        HlsPlaylistSnapshot previous = snapshot;
+        boolean changed;
+
+        try {
+            HlsPlaylistSnapshot updated = load(previous);
+            changed = previous == null || updated.getMediaSequence() != previous.getMediaSequence()
+                    || updated.getSegments().size() != previous.getSegments().size();
+            snapshot = updated;
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to refresh the live playlist", e);
+            changed = false;
+        }
+
+        HlsPlaylistSnapshot current = snapshot;
+        if (current != null) {
+            resolveStartTime(current);
+        }
+
+        if (changed && running) {
+            mainHandler.post(notifier);
+        }
+
+        //Once the playlist has ended there is nothing more to refresh
+        if (running && (current == null || current.isLive())) {
+            long delay = current == null ? DEFAULT_TARGET_DURATION_MS : getTargetDurationMs(current);
+            getRefreshHandler().postDelayed(refresher, changed ? delay : delay / 2);
+        }
+    }
+
+    /**
+     * The start segment isn't known until the first refresh when the playback was built from a
+     * master playlist, in that case ExoPlayer started at its default distance from the edge.
+     */
+    private void resolveStartTime(@NonNull HlsPlaylistSnapshot current) {
+        if (startTimeUs != NO_START_TIME || current.getSegments().isEmpty()) {
+            return;
+        }
+
+        if (startSequence == NO_SEQUENCE) {
+            long lastSequence = current.getMediaSequence() + current.getSegments().size() - 1;
+            startSequence = Math.max(current.getMediaSequence(), lastSequence + 1 - DEFAULT_START_SEGMENTS_BEHIND_EDGE);
+        }
+
+        HlsSegment segment = current.getSegment(startSequence);
+        if (segment != null) {
+            startTimeUs = segment.getStartTimeUs();
+        }
+    }
+
+    @NonNull
+    private HlsPlaylistSnapshot load(@Nullable HlsPlaylistSnapshot previous) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(playlistUrl).openConnection();
+        InputStream inputStream = null;
+        try {
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setRequestProperty("User-Agent", userAgent);
+
+            inputStream = connection.getInputStream();
+            return parser.parse(inputStream, previous);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    //Purposefully left blank
+                }
+            }
+
+            connection.disconnect();
+        }
+    }
+
+    private static long getTargetDurationMs(@NonNull HlsPlaylistSnapshot snapshot) {
+        return snapshot.getTargetDurationSecs() > 0 ? snapshot.getTargetDurationSecs() * 1000L : DEFAULT_TARGET_DURATION_MS;
+    }
+
+    private static synchronized Handler getRefreshHandler() {
+        if (refreshHandler == null) {
+            HandlerThread thread = new HandlerThread(REFRESH_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            refreshHandler = new Handler(thread.getLooper());
+        }
+
+        return refreshHandler;
+    }
+
+    private class Refresher implements Runnable {
+        @Override
+        public void run() {
+            if (running) {
+                refresh();
+            }
+        }
+    }
+
+    private class Notifier implements Runnable {
+        @Override
+        public void run() {
+            Listener currentListener = listener;
+            if (running && currentListener != null) {
+                currentListener.onLiveWindowChanged(HlsLiveTracker.this);
+            }
+        }
+    }
+}
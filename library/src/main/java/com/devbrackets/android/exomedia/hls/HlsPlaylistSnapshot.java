@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable result from the {@link IncrementalHlsPlaylistParser}.  This is either
+ * a master playlist, which only contains the variants, or a media playlist which
+ * contains the segments currently in the playlist window.
+ */
+public final class HlsPlaylistSnapshot {
+    private final boolean master;
+    private final List<HlsVariant> variants;
+
+    private final long mediaSequence;
+    private final int targetDurationSecs;
+    private final int version;
+    private final boolean live;
+    private final List<HlsSegment> segments;
+    private final int reusedSegmentCount;
+
+    /**
+     * Creates a snapshot for a master playlist
+     *
+     * @param variants The variants in the master playlist
+     */
+    HlsPlaylistSnapshot(@NonNull List<HlsVariant> variants) {
+        this.master = true;
+        this.variants = Collections.unmodifiableList(variants);
+        this.mediaSequence = 0;
+        this.targetDurationSecs = 0;
+        this.version = 1;
+        this.live = false;
+        this.segments = Collections.emptyList();
+        this.reusedSegmentCount = 0;
+    }
+
+    /**
+     * Creates a snapshot for a media playlist
+     */
+    HlsPlaylistSnapshot(long mediaSequence, int targetDurationSecs, int version, boolean live, @NonNull List<HlsSegment> segments,
+                        int reusedSegmentCount) {
+        this.master = false;
+        this.variants = Collections.emptyList();
+        this.mediaSequence = mediaSequence;
+        this.targetDurationSecs = targetDurationSecs;
+        this.version = version;
+        this.live = live;
+        this.segments = Collections.unmodifiableList(segments);
+        this.reusedSegmentCount = reusedSegmentCount;
+    }
+
+    public boolean isMaster() {
+        return master;
+    }
+
+    @NonNull
+    public List<HlsVariant> getVariants() {
+        return variants;
+    }
+
+    /**
+     * Retrieves the media sequence number of the first segment in the playlist
+     *
+     * @return The media sequence number of the first segment
+     */
+    public long getMediaSequence() {
+        return mediaSequence;
+    }
+
+    public int getTargetDurationSecs() {
+        return targetDurationSecs;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Determines if the playlist is for a live stream, which is when
+     * the media playlist doesn't contain the EXT-X-ENDLIST tag.
+     *
+     * @return True if the playlist is for a live stream
+     */
+    public boolean isLive() {
+        return live;
+    }
+
+    @NonNull
+    public List<HlsSegment> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Retrieves the segment with the media sequence number if it is still in the playlist
+     *
+     * @param sequence The media sequence number of the segment
+     * @return The segment or null
+     */
+    @Nullable
+    public HlsSegment getSegment(long sequence) {
+        long index = sequence - mediaSequence;
+        if (index < 0 || index >= segments.size()) {
+            return null;
+        }
+
+        return segments.get((int) index);
+    }
+
+    /**
+     * Retrieves the start time of the first segment in the playlist window
+     *
+     * @return The window start time in microseconds
+     */
+    public long getWindowStartUs() {
+        return segments.isEmpty() ? 0 : segments.get(0).getStartTimeUs();
+    }
+
+    /**
+     * Retrieves the end time of the last segment in the playlist window
+     *
+     * @return The window end time in microseconds
+     */
+    public long getWindowEndUs() {
+        return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).getEndTimeUs();
+    }
+
+    /**
+     * Retrieves the number of segments that were reused from the previous snapshot
+     * instead of being parsed.
+     *
+     * @return The number of reused segments
+     */
+    public int getReusedSegmentCount() {
+        return reusedSegmentCount;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * An immutable media segment from an HLS media playlist.  Segments are identified by
+ * their media sequence number, so the {@link IncrementalHlsPlaylistParser} reuses the
+ * same instance for a segment across refreshes of a live playlist.
+ * <p/>
+ * The start time is relative to the first segment the parser saw for the playlist,
+ * not the first segment in the current playlist window, so it doesn't change as
+ * the window slides.
+ */
+public final class HlsSegment {
+    public static final long LENGTH_UNBOUNDED = -1;
+
+    private final long sequence;
+    private final String uri;
+    private final long durationUs;
+    private final long startTimeUs;
+    private final boolean discontinuity;
+
+    @Nullable
+    private final String encryptionMethod;
+    @Nullable
+    private final String encryptionKeyUri;
+    @Nullable
+    private final String encryptionIV;
+
+    private final long byterangeOffset;
+    private final long byterangeLength;
+
+    public HlsSegment(long sequence, @NonNull String uri, long durationUs, long startTimeUs, boolean discontinuity,
+                      @Nullable String encryptionMethod, @Nullable String encryptionKeyUri, @Nullable String encryptionIV,
+                      long byterangeOffset, long byterangeLength) {
+        this.sequence = sequence;
+        this.uri = uri;
+        this.durationUs = durationUs;
+        this.startTimeUs = startTimeUs;
+        this.discontinuity = discontinuity;
+        this.encryptionMethod = encryptionMethod;
+        this.encryptionKeyUri = encryptionKeyUri;
+        this.encryptionIV = encryptionIV;
+        this.byterangeOffset = byterangeOffset;
+        this.byterangeLength = byterangeLength;
+    }
+
+    /**
+     * Retrieves the media sequence number for the segment
+     *
+     * @return The media sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Retrieves the uri for the segment as it was specified in the playlist,
+     * this may be relative to the playlist uri.
+     *
+     * @return The segment uri
+     */
+    @NonNull
+    public String getUri() {
+        return uri;
+    }
+
+    public long getDurationUs() {
+        return durationUs;
+    }
+
+    public long getStartTimeUs() {
+        return startTimeUs;
+    }
+
+    public long getEndTimeUs() {
+        return startTimeUs + durationUs;
+    }
+
+    public boolean isDiscontinuity() {
+        return discontinuity;
+    }
+
+    /**
+     * Retrieves the encryption method for the segment
+     *
+     * @return The encryption method (e.g. AES-128) or null if the segment isn't encrypted
+     */
+    @Nullable
+    public String getEncryptionMethod() {
+        return encryptionMethod;
+    }
+
+    @Nullable
+    public String getEncryptionKeyUri() {
+        return encryptionKeyUri;
+    }
+
+    /**
+     * Retrieves the initialization vector specified for the segment's key.
+     *
+     * @return The initialization vector or null if it wasn't specified, in which case the media sequence number is used
+     */
+    @Nullable
+    public String getEncryptionIV() {
+        return encryptionIV;
+    }
+
+    public long getByterangeOffset() {
+        return byterangeOffset;
+    }
+
+    /**
+     * Retrieves the length of the sub-range of the resource that contains the segment
+     *
+     * @return The length in bytes or {@link #LENGTH_UNBOUNDED} if the segment is the entire resource
+     */
+    public long getByterangeLength() {
+        return byterangeLength;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * An immutable variant stream from an HLS master playlist
+ */
+public final class HlsVariant {
+    public static final int UNKNOWN_DIMENSION = -1;
+
+    private final int index;
+    private final String uri;
+    private final int bandwidth;
+    @Nullable
+    private final String codecs;
+    private final int width;
+    private final int height;
+
+    public HlsVariant(int index, @NonNull String uri, int bandwidth, @Nullable String codecs, int width, int height) {
+        this.index = index;
+        this.uri = uri;
+        this.bandwidth = bandwidth;
+        this.codecs = codecs;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Retrieves the index of the variant in the master playlist
+     *
+     * @return The variant index
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    @NonNull
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Retrieves the peak bandwidth specified for the variant
+     *
+     * @return The bandwidth in bits per second
+     */
+    public int getBandwidth() {
+        return bandwidth;
+    }
+
+    @Nullable
+    public String getCodecs() {
+        return codecs;
+    }
+
+    /**
+     * @return The width of the video or {@link #UNKNOWN_DIMENSION}
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return The height of the video or {@link #UNKNOWN_DIMENSION}
+     */
+    public int getHeight() {
+        return height;
+    }
+}
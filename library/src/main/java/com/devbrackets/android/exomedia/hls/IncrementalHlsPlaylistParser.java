@@ -0,0 +1,331 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A streaming parser for HLS master and media playlists.  The playlist is parsed line by line
+ * directly from the stream instead of being read in to Strings first, which is what makes
+ * large playlists expensive to parse.
+ * <p/>
+ * When a live media playlist is refreshed only the segments that were appended since the previous
+ * snapshot are parsed; the segments that are still in the window are identified by their media
+ * sequence number and the existing {@link HlsSegment} objects are reused without parsing their
+ * lines.  If the media sequence moves backwards (e.g. the stream was restarted) the playlist
+ * is parsed completely.
+ * <p/>
+ * The parser performs blocking reads so it should be used on a background thread, and
+ * it isn't thread safe.
+ */
+public class IncrementalHlsPlaylistParser {
+    private static final Charset ASCII = Charset.forName("US-ASCII");
+
+    private static final byte[] TAG_MEDIA_DURATION = bytes("#EXTINF:");
+    private static final byte[] TAG_PREFIX = bytes("#EXT-X-");
+    private static final byte[] TAG_STREAM_INF = bytes("#EXT-X-STREAM-INF:");
+    private static final byte[] TAG_TARGET_DURATION = bytes("#EXT-X-TARGETDURATION:");
+    private static final byte[] TAG_MEDIA_SEQUENCE = bytes("#EXT-X-MEDIA-SEQUENCE:");
+    private static final byte[] TAG_VERSION = bytes("#EXT-X-VERSION:");
+    private static final byte[] TAG_KEY = bytes("#EXT-X-KEY:");
+    private static final byte[] TAG_BYTERANGE = bytes("#EXT-X-BYTERANGE:");
+    private static final byte[] TAG_DISCONTINUITY = bytes("#EXT-X-DISCONTINUITY");
+    private static final byte[] TAG_ENDLIST = bytes("#EXT-X-ENDLIST");
+
+    private static final byte[] ATTR_BANDWIDTH = bytes("BANDWIDTH=");
+    private static final byte[] ATTR_CODECS = bytes("CODECS=");
+    private static final byte[] ATTR_RESOLUTION = bytes("RESOLUTION=");
+    private static final byte[] ATTR_METHOD = bytes("METHOD=");
+    private static final byte[] ATTR_URI = bytes("URI=");
+    private static final byte[] ATTR_IV = bytes("IV=");
+
+    private static final String METHOD_NONE = "NONE";
+
+    private final HlsLineReader reader = new HlsLineReader();
+
+    @Nullable
+    private HlsPlaylistSnapshot lastSnapshot;
+
+    /**
+     * Parses the playlist from the stream, reusing the segments from the
+     * previous media playlist returned by this parser.
+     *
+     * @param inputStream The stream to read the playlist from
+     * @return The parsed playlist
+     * @throws IOException If the stream couldn't be read or the playlist is malformed
+     */
+    @NonNull
+    public HlsPlaylistSnapshot parse(@NonNull InputStream inputStream) throws IOException {
+        lastSnapshot = parse(inputStream, lastSnapshot);
+        return lastSnapshot;
+    }
+
+    /**
+     * Retrieves the snapshot returned by the last call to {@link #parse(InputStream)}
+     *
+     * @return The last snapshot or null
+     */
+    @Nullable
+    public HlsPlaylistSnapshot getLastSnapshot() {
+        return lastSnapshot;
+    }
+
+    /**
+     * Forgets the previous playlist so the next playlist will be parsed completely
+     */
+    public void reset() {
+        lastSnapshot = null;
+    }
+
+    /**
+     * Parses the playlist from the stream, reusing the segments from the previous
+     * snapshot of the same media playlist.  This doesn't modify the state of the parser
+     * used by {@link #parse(InputStream)}.
+     *
+     * @param inputStream The stream to read the playlist from
+     * @param previous The previous snapshot for the same playlist or null to parse the playlist completely
+     * @return The parsed playlist
+     * @throws IOException If the stream couldn't be read or the playlist is malformed
+     */
+    @NonNull
+    public HlsPlaylistSnapshot parse(@NonNull InputStream inputStream, @Nullable HlsPlaylistSnapshot previous) throws IOException {
+        if (previous != null && (previous.isMaster() || previous.getSegments().isEmpty())) {
+            previous = null;
+        }
+
+        reader.reset(inputStream);
+
+        //Master playlist state
+        List<HlsVariant> variants = null;
+        int variantBandwidth = 0;
+        String variantCodecs = null;
+        int variantWidth = HlsVariant.UNKNOWN_DIMENSION;
+        int variantHeight = HlsVariant.UNKNOWN_DIMENSION;
+
+        //Media playlist state
+        List<HlsSegment> segments = null;
+        long mediaSequence = 0;
+        int targetDurationSecs = 0;
+        int version = 1;
+        boolean live = true;
+        int reusedCount = 0;
+
+        long segmentSequence = 0;
+        long segmentDurationUs = 0;
+        long segmentStartTimeUs = 0;
+        boolean segmentDiscontinuity = false;
+        String encryptionMethod = null;
+        String encryptionKeyUri = null;
+        String encryptionIV = null;
+        long byterangeOffset = 0;
+        long byterangeLength = HlsSegment.LENGTH_UNBOUNDED;
+
+        while (reader.nextLine()) {
+            if (reader.byteAt(0) == '#') {
+                if (reader.startsWith(TAG_MEDIA_DURATION)) {
+                    //The duration of a reused segment is already known
+                    if (!isReusable(previous, segmentSequence)) {
+                        segmentDurationUs = reader.parseSecondsAsMicros(TAG_MEDIA_DURATION.length);
+                    }
+
+                    continue;
+                }
+
+                //The tags are dispatched on the first character of their name so that the lines for
+                //tags that aren't used (e.g. EXT-X-PROGRAM-DATE-TIME) are only compared once
+                int tagName = reader.length() > TAG_PREFIX.length && reader.startsWith(TAG_PREFIX) ? reader.byteAt(TAG_PREFIX.length) : 0;
+                switch (tagName) {
+                    case 'S':
+                        if (reader.startsWith(TAG_STREAM_INF)) {
+                            int start = TAG_STREAM_INF.length;
+                            int bandwidthStart = reader.findAttribute(ATTR_BANDWIDTH, start);
+                            variantBandwidth = bandwidthStart == -1 ? 0 : (int) reader.parseLong(bandwidthStart);
+                            variantCodecs = reader.getAttribute(ATTR_CODECS, start);
+
+                            int resolutionStart = reader.findAttribute(ATTR_RESOLUTION, start);
+                            int separator = resolutionStart == -1 ? -1 : reader.indexOf((byte) 'x', resolutionStart);
+                            if (separator != -1) {
+                                variantWidth = (int) reader.parseLong(resolutionStart);
+                                variantHeight = (int) reader.parseLong(separator + 1);
+                            } else {
+                                variantWidth = HlsVariant.UNKNOWN_DIMENSION;
+                                variantHeight = HlsVariant.UNKNOWN_DIMENSION;
+                            }
+
+                            if (variants == null) {
+                                variants = new ArrayList<>();
+                            }
+                        }
+                        break;
+
+                    case 'T':
+                        if (reader.startsWith(TAG_TARGET_DURATION)) {
+                            targetDurationSecs = (int) reader.parseLong(TAG_TARGET_DURATION.length);
+                        }
+                        break;
+
+                    case 'M':
+                        if (reader.startsWith(TAG_MEDIA_SEQUENCE)) {
+                            mediaSequence = reader.parseLong(TAG_MEDIA_SEQUENCE.length);
+                            segmentSequence = mediaSequence;
+
+                            //A stream that restarted its sequence numbers can't reuse any segments
+                            if (previous != null && mediaSequence < previous.getMediaSequence()) {
+                                previous = null;
+                            }
+                        }
+                        break;
+
+                    case 'V':
+                        if (reader.startsWith(TAG_VERSION)) {
+                            version = (int) reader.parseLong(TAG_VERSION.length);
+                        }
+                        break;
+
+                    case 'K':
+                        //The key applies to all following segments so it is parsed even when the segments are reused
+                        if (reader.startsWith(TAG_KEY)) {
+                            int start = TAG_KEY.length;
+                            encryptionMethod = reader.getAttribute(ATTR_METHOD, start);
+                            if (encryptionMethod == null || METHOD_NONE.equals(encryptionMethod)) {
+                                encryptionMethod = null;
+                                encryptionKeyUri = null;
+                                encryptionIV = null;
+                            } else {
+                                encryptionKeyUri = reader.getAttribute(ATTR_URI, start);
+                                encryptionIV = reader.getAttribute(ATTR_IV, start);
+                            }
+                        }
+                        break;
+
+                    case 'B':
+                        if (reader.startsWith(TAG_BYTERANGE) && !isReusable(previous, segmentSequence)) {
+                            int start = TAG_BYTERANGE.length;
+                            byterangeLength = reader.parseLong(start);
+
+                            int offsetSeparator = reader.indexOf((byte) '@', start);
+                            if (offsetSeparator != -1) {
+                                byterangeOffset = reader.parseLong(offsetSeparator + 1);
+                            }
+                        }
+                        break;
+
+                    case 'D':
+                        //The length is checked so that the EXT-X-DISCONTINUITY-SEQUENCE tag isn't matched
+                        if (reader.length() == TAG_DISCONTINUITY.length && reader.startsWith(TAG_DISCONTINUITY)) {
+                            segmentDiscontinuity = true;
+                        }
+                        break;
+
+                    case 'E':
+                        if (reader.startsWith(TAG_ENDLIST)) {
+                            live = false;
+                        }
+                        break;
+
+                    default:
+                        //Purposefully left blank
+                }
+
+                continue;
+            }
+
+            //The line is a uri
+            if (variants != null) {
+                variants.add(new HlsVariant(variants.size(), reader.getString(0), variantBandwidth, variantCodecs, variantWidth, variantHeight));
+                variantBandwidth = 0;
+                variantCodecs = null;
+                variantWidth = HlsVariant.UNKNOWN_DIMENSION;
+                variantHeight = HlsVariant.UNKNOWN_DIMENSION;
+                continue;
+            }
+
+            if (segments == null) {
+                segments = new ArrayList<>(previous != null ? previous.getSegments().size() + 1 : 16);
+                segmentStartTimeUs = getFirstStartTime(previous, segmentSequence, targetDurationSecs);
+            }
+
+            HlsSegment segment;
+            if (isReusable(previous, segmentSequence)) {
+                //noinspection ConstantConditions
+                segment = previous.getSegment(segmentSequence);
+                reusedCount++;
+            } else {
+                segment = new HlsSegment(segmentSequence, reader.getString(0), segmentDurationUs, segmentStartTimeUs, segmentDiscontinuity,
+                        encryptionMethod, encryptionKeyUri, encryptionIV, byterangeOffset, byterangeLength);
+            }
+
+            //noinspection ConstantConditions
+            segments.add(segment);
+            segmentSequence++;
+            segmentStartTimeUs = segment.getEndTimeUs();
+            segmentDurationUs = 0;
+            segmentDiscontinuity = false;
+
+            if (segment.getByterangeLength() != HlsSegment.LENGTH_UNBOUNDED) {
+                byterangeOffset = segment.getByterangeOffset() + segment.getByterangeLength();
+            }
+            byterangeLength = HlsSegment.LENGTH_UNBOUNDED;
+        }
+
+        if (variants != null) {
+            return new HlsPlaylistSnapshot(variants);
+        }
+
+        if (segments == null) {
+            segments = new ArrayList<>(0);
+        }
+
+        return new HlsPlaylistSnapshot(mediaSequence, targetDurationSecs, version, live, segments, reusedCount);
+    }
+
+    private static boolean isReusable(@Nullable HlsPlaylistSnapshot previous, long sequence) {
+        return previous != null && sequence >= previous.getMediaSequence() && sequence - previous.getMediaSequence() < previous.getSegments().size();
+    }
+
+    /**
+     * Determines the start time of the first segment in the playlist so that the start times continue
+     * from the previous snapshot.  When segments were removed and appended between the snapshots
+     * the durations of the segments that were never seen are estimated with the target duration.
+     */
+    private static long getFirstStartTime(@Nullable HlsPlaylistSnapshot previous, long firstSequence, int targetDurationSecs) {
+        if (previous == null) {
+            return 0;
+        }
+
+        HlsSegment segment = previous.getSegment(firstSequence);
+        if (segment != null) {
+            return segment.getStartTimeUs();
+        }
+
+        List<HlsSegment> previousSegments = previous.getSegments();
+        HlsSegment lastSegment = previousSegments.get(previousSegments.size() - 1);
+        long missedCount = firstSequence - lastSegment.getSequence() - 1;
+        return lastSegment.getEndTimeUs() + missedCount * targetDurationSecs * 1000000L;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(ASCII);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.hls;
+
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.android.exoplayer.C;
+import com.google.android.exoplayer.hls.HlsMasterPlaylist;
+import com.google.android.exoplayer.hls.HlsMediaPlaylist;
+import com.google.android.exoplayer.hls.HlsPlaylist;
+import com.google.android.exoplayer.hls.Variant;
+import com.google.android.exoplayer.util.ManifestParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A replacement for the ExoPlayer HlsPlaylistParser that uses the {@link IncrementalHlsPlaylistParser}.
+ * The parser keeps the previous media playlist so that loading the same playlist again (e.g. rebuilding
+ * a live playback to seek or preparing the same stream again) only parses the newly appended segments,
+ * and the ExoPlayer segments for the reused {@link HlsSegment}s are reused as well.  The periodic live
+ * refreshes made by the HlsChunkSource don't use this parser, ExoPlayer r1.2.4 always uses its own.
+ * <p/>
+ * A parser instance should only be used for a single playlist url.
+ */
+public class StreamingHlsPlaylistParser implements ManifestParser<HlsPlaylist> {
+    private final IncrementalHlsPlaylistParser parser = new IncrementalHlsPlaylistParser();
+
+    @Nullable
+    private HlsPlaylistSnapshot previousSnapshot;
+    @Nullable
+    private List<HlsMediaPlaylist.Segment> previousSegments;
+
+    /**
+     * Parses the playlist.  HLS playlists are always UTF-8 so the input encoding is ignored.
+     */
+    @Override
+    public synchronized HlsPlaylist parse(InputStream inputStream, String inputEncoding, String contentId, Uri baseUri) throws IOException {
+        HlsPlaylistSnapshot snapshot = parser.parse(inputStream);
+        String baseUriString = baseUri.toString();
+
+        if (snapshot.isMaster()) {
+            return new HlsMasterPlaylist(baseUriString, Collections.unmodifiableList(convertVariants(snapshot.getVariants())));
+        }
+
+        List<HlsMediaPlaylist.Segment> segments = convertSegments(snapshot);
+        previousSnapshot = snapshot;
+        previousSegments = segments;
+
+        return new HlsMediaPlaylist(baseUriString, (int) snapshot.getMediaSequence(), snapshot.getTargetDurationSecs(), snapshot.getVersion(),
+                snapshot.isLive(), Collections.unmodifiableList(segments));
+    }
+
+    /**
+     * Retrieves the last playlist parsed, this can be used to determine the
+     * playlist window for live streams.
+     *
+     * @return The last parsed playlist or null
+     */
+    @Nullable
+    public synchronized HlsPlaylistSnapshot getLastSnapshot() {
+        return parser.getLastSnapshot();
+    }
+
+    @NonNull
+    private static List<Variant> convertVariants(@NonNull List<HlsVariant> hlsVariants) {
+        List<Variant> variants = new ArrayList<>(hlsVariants.size());
+        for (HlsVariant variant : hlsVariants) {
+            variants.add(new Variant(variant.getIndex(), variant.getUri(), variant.getBandwidth(), variant.getCodecs(),
+                    variant.getWidth(), variant.getHeight()));
+        }
+
+        return variants;
+    }
+
+    @NonNull
+    private List<HlsMediaPlaylist.Segment> convertSegments(@NonNull HlsPlaylistSnapshot snapshot) {
+        List<HlsSegment> hlsSegments = snapshot.getSegments();
+        List<HlsMediaPlaylist.Segment> segments = new ArrayList<>(hlsSegments.size());
+
+        //ExoPlayer expects the segments of a finished playlist to start at 0, which won't be the case for
+        //a live playlist that ended after the window slid
+        long startOffsetUs = snapshot.isLive() ? 0 : snapshot.getWindowStartUs();
+
+        for (HlsSegment hlsSegment : hlsSegments) {
+            HlsMediaPlaylist.Segment segment = startOffsetUs == 0 ? getPreviousSegment(hlsSegment) : null;
+            segments.add(segment != null ? segment : convertSegment(hlsSegment, startOffsetUs));
+        }
+
+        return segments;
+    }
+
+    /**
+     * Retrieves the ExoPlayer segment created for the HlsSegment when it was
+     * parsed with the previous playlist.
+     */
+    @Nullable
+    private HlsMediaPlaylist.Segment getPreviousSegment(@NonNull HlsSegment hlsSegment) {
+        if (previousSnapshot == null || previousSegments == null || previousSnapshot.getSegment(hlsSegment.getSequence()) != hlsSegment) {
+            return null;
+        }
+
+        return previousSegments.get((int) (hlsSegment.getSequence() - previousSnapshot.getMediaSequence()));
+    }
+
+    @NonNull
+    private static HlsMediaPlaylist.Segment convertSegment(@NonNull HlsSegment segment, long startOffsetUs) {
+        String encryptionIV = segment.getEncryptionIV();
+        if (segment.getEncryptionMethod() != null && encryptionIV == null) {
+            encryptionIV = Long.toHexString(segment.getSequence());
+        }
+
+        int byterangeLength = segment.getByterangeLength() == HlsSegment.LENGTH_UNBOUNDED ? C.LENGTH_UNBOUNDED : (int) segment.getByterangeLength();
+        return new HlsMediaPlaylist.Segment(segment.getUri(), segment.getDurationUs() / (double) C.MICROS_PER_SECOND, segment.isDiscontinuity(),
+                segment.getStartTimeUs() - startOffsetUs, segment.getEncryptionMethod(), segment.getEncryptionKeyUri(), encryptionIV,
+                (int) segment.getByterangeOffset(), byterangeLength);
+    }
+}
@@ -17,11 +17,19 @@
 
 package com.devbrackets.android.exomedia.listener;
 
-import java.util.Map;
+import android.support.annotation.NonNull;
+
+import com.devbrackets.android.exomedia.metadata.Id3Metadata;
 
 /**
  * A listener for receiving ID3 metadata parsed from the media stream.
  */
 public interface Id3MetadataListener {
-    void onId3Metadata(Map<String, Object> metadata);
+    /**
+     * Called on the executor the listener was added with when the metadata is reached in the
+     * playback.  Frames that are repeated without a change are only delivered the first time.
+     *
+     * @param metadata The frames from the ID3 tag that changed
+     */
+    void onId3Metadata(@NonNull Id3Metadata metadata);
 }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.listener;
+
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+
+/**
+ * A listener for the startup phases of a playback, informed on the main thread.
+ */
+public interface PlaybackTimelineListener {
+    /**
+     * Called the first time the playback reaches a phase after being prepared
+     *
+     * @param timeline The timeline that reached the phase
+     * @param phase The phase that was reached
+     * @param elapsedMs The time in milliseconds since {@link PlaybackTimeline.Phase#PREPARE_STARTED}
+     */
+    void onPlaybackPhase(PlaybackTimeline timeline, PlaybackTimeline.Phase phase, long elapsedMs);
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.listener;
+
+/**
+ * A listener for playback stalls, which is when the media runs out of buffered content
+ * while playing.  This can also be accessed through the Otto events
+ * {@link com.devbrackets.android.exomedia.event.EMMediaStallStartedEvent} and
+ * {@link com.devbrackets.android.exomedia.event.EMMediaStallEndedEvent}.  The times
+ * are from the {@link android.os.SystemClock#elapsedRealtime()}.
+ */
+public interface StallListener {
+    void onStallStarted(long startTime);
+
+    void onStallEnded(long startTime, long endTime);
+}
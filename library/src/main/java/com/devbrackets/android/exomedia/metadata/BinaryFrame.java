@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable frame that doesn't have a specific type, containing the
+ * raw frame data (e.g. COMM or APIC frames)
+ */
+public final class BinaryFrame extends Id3Frame {
+    @NonNull
+    private final byte[] data;
+
+    /**
+     * @param id The four character frame id
+     * @param data The frame data, this is not copied so it shouldn't be modified afterwards
+     */
+    public BinaryFrame(@NonNull String id, @NonNull byte[] data) {
+        super(id, id);
+        this.data = data;
+    }
+
+    /**
+     * Retrieves a copy of the frame data
+     *
+     * @return The frame data
+     */
+    @NonNull
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    public int getDataLength() {
+        return data.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof BinaryFrame)) {
+            return false;
+        }
+
+        BinaryFrame other = (BinaryFrame) o;
+        return getId().equals(other.getId()) && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getId().hashCode() + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return getId() + " (" + data.length + " bytes)";
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable general encapsulated object (GEOB) frame, which contains a file
+ */
+public final class GeobFrame extends Id3Frame {
+    public static final String ID = "GEOB";
+
+    @NonNull
+    private final String mimeType;
+    @NonNull
+    private final String filename;
+    @NonNull
+    private final String description;
+    @NonNull
+    private final byte[] data;
+
+    /**
+     * @param mimeType The mime type of the encapsulated object
+     * @param filename The filename of the encapsulated object
+     * @param description The description of the encapsulated object
+     * @param data The encapsulated object, this is not copied so it shouldn't be modified afterwards
+     */
+    public GeobFrame(@NonNull String mimeType, @NonNull String filename, @NonNull String description, @NonNull byte[] data) {
+        super(ID, ID + ":" + description);
+        this.mimeType = mimeType;
+        this.filename = filename;
+        this.description = description;
+        this.data = data;
+    }
+
+    @NonNull
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    @NonNull
+    public String getFilename() {
+        return filename;
+    }
+
+    @NonNull
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Retrieves a copy of the encapsulated object
+     *
+     * @return The encapsulated object
+     */
+    @NonNull
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    public int getDataLength() {
+        return data.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof GeobFrame)) {
+            return false;
+        }
+
+        GeobFrame other = (GeobFrame) o;
+        return description.equals(other.description) && mimeType.equals(other.mimeType) && filename.equals(other.filename)
+                && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = description.hashCode();
+        result = 31 * result + mimeType.hashCode();
+        result = 31 * result + filename.hashCode();
+        return 31 * result + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " " + mimeType + " (" + data.length + " bytes)";
+    }
+}
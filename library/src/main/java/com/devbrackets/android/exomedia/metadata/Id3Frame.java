@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+
+/**
+ * The base for the immutable frames parsed from an ID3v2 tag.  Frames that describe
+ * the same thing (e.g. two TIT2 title frames, or two PRIV frames with the same owner)
+ * have the same {@link #getKey()}, which is used to coalesce frames that are repeated
+ * without a change by the stream.
+ */
+public abstract class Id3Frame {
+    private final String id;
+    private final String key;
+
+    protected Id3Frame(@NonNull String id, @NonNull String key) {
+        this.id = id;
+        this.key = key;
+    }
+
+    /**
+     * Retrieves the four character frame id (e.g. "TIT2" or "PRIV")
+     *
+     * @return The frame id
+     */
+    @NonNull
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the key that identifies what the frame describes, a newer frame with
+     * the same key replaces the older one.
+     *
+     * @return The frame key
+     */
+    @NonNull
+    public String getKey() {
+        return key;
+    }
+}
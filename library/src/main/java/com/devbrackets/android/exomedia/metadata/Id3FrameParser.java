@@ -0,0 +1,346 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+import android.util.Log;
+
+import com.google.android.exoplayer.metadata.MetadataParser;
+import com.google.android.exoplayer.util.MimeTypes;
+
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the ID3v2.3 and ID3v2.4 tags from the timed metadata of a stream in to the
+ * typed, immutable {@link Id3Frame}s.  This replaces the ExoPlayer Id3Parser, which
+ * returns a Map of the raw values.
+ * <p/>
+ * Since the MetadataTrackRenderer treats a parsing error as fatal to the playback, tags
+ * that can't be parsed (e.g. ID3v2.2 or corrupt frame sizes) are logged and result in
+ * an empty {@link Id3Metadata} or the frames parsed before the error.
+ */
+public class Id3FrameParser implements MetadataParser<Id3Metadata> {
+    private static final String TAG = Id3FrameParser.class.getSimpleName();
+
+    private static final int HEADER_LENGTH = 10;
+    private static final int FRAME_HEADER_LENGTH = 10;
+
+    private static final int TAG_FLAG_UNSYNCHRONIZED = 0x80;
+    private static final int TAG_FLAG_EXTENDED_HEADER = 0x40;
+
+    //The frame format flags for ID3v2.3 and ID3v2.4 respectively
+    private static final int V3_FLAG_COMPRESSED = 0x0080;
+    private static final int V3_FLAG_ENCRYPTED = 0x0040;
+    private static final int V3_FLAG_GROUPED = 0x0020;
+    private static final int V4_FLAG_GROUPED = 0x0040;
+    private static final int V4_FLAG_COMPRESSED = 0x0008;
+    private static final int V4_FLAG_ENCRYPTED = 0x0004;
+    private static final int V4_FLAG_UNSYNCHRONIZED = 0x0002;
+    private static final int V4_FLAG_DATA_LENGTH = 0x0001;
+
+    private static final int ENCODING_ISO_8859_1 = 0;
+    private static final int ENCODING_UTF_16 = 1;
+    private static final int ENCODING_UTF_16BE = 2;
+    private static final int ENCODING_UTF_8 = 3;
+
+    @Override
+    public boolean canParse(String mimeType) {
+        return MimeTypes.APPLICATION_ID3.equals(mimeType);
+    }
+
+    @Override
+    public Id3Metadata parse(byte[] data, int size) throws UnsupportedEncodingException {
+        List<Id3Frame> frames = new ArrayList<>();
+        if (size < HEADER_LENGTH || data[0] != 'I' || data[1] != 'D' || data[2] != '3') {
+            Log.d(TAG, "Missing the ID3 tag header");
+            return Id3Metadata.create(frames);
+        }
+
+        int majorVersion = data[3] & 0xFF;
+        if (majorVersion != 3 && majorVersion != 4) {
+            Log.d(TAG, "Unsupported ID3 version: 2." + majorVersion);
+            return Id3Metadata.create(frames);
+        }
+
+        int flags = data[5] & 0xFF;
+        int tagEnd = Math.min(size, HEADER_LENGTH + readSynchsafeInt(data, 6));
+
+        //ID3v2.3 unsynchronizes the whole tag, ID3v2.4 does it for each frame
+        if (majorVersion == 3 && (flags & TAG_FLAG_UNSYNCHRONIZED) != 0) {
+            data = removeUnsynchronization(data, HEADER_LENGTH, tagEnd);
+            tagEnd = HEADER_LENGTH + data.length;
+            data = prependHeader(data);
+        }
+
+        int position = HEADER_LENGTH;
+        if ((flags & TAG_FLAG_EXTENDED_HEADER) != 0) {
+            if (position + 4 > tagEnd) {
+                Log.d(TAG, "Invalid ID3 extended header");
+                return Id3Metadata.create(frames);
+            }
+
+            position += skipExtendedHeader(data, position, majorVersion);
+        }
+
+        while (position + FRAME_HEADER_LENGTH <= tagEnd) {
+            //A zero byte in place of the frame id is the start of the padding
+            if (data[position] == 0) {
+                break;
+            }
+
+            String id = new String(data, position, 4, "ISO-8859-1");
+            int frameSize = majorVersion == 4 ? readSynchsafeInt(data, position + 4) : readInt(data, position + 4);
+            int frameFlags = ((data[position + 8] & 0xFF) << 8) | (data[position + 9] & 0xFF);
+            position += FRAME_HEADER_LENGTH;
+
+            if (frameSize < 0 || position + frameSize > tagEnd) {
+                Log.d(TAG, "Invalid size for the ID3 frame " + id);
+                break;
+            }
+
+            Id3Frame frame = parseFrame(id, data, position, position + frameSize, frameFlags, majorVersion);
+            if (frame != null) {
+                frames.add(frame);
+            }
+
+            position += frameSize;
+        }
+
+        return Id3Metadata.create(frames);
+    }
+
+    /**
+     * Parses the frame data, removing the extra data specified by the format flags first
+     *
+     * @return The frame or null if the frame is compressed or encrypted
+     */
+    private static Id3Frame parseFrame(String id, byte[] data, int start, int end, int frameFlags, int majorVersion) throws UnsupportedEncodingException {
+        boolean v4 = majorVersion == 4;
+        if ((frameFlags & (v4 ? V4_FLAG_COMPRESSED | V4_FLAG_ENCRYPTED : V3_FLAG_COMPRESSED | V3_FLAG_ENCRYPTED)) != 0) {
+            return null;
+        }
+
+        if ((frameFlags & (v4 ? V4_FLAG_GROUPED : V3_FLAG_GROUPED)) != 0) {
+            start++;
+        }
+
+        if (v4 && (frameFlags & V4_FLAG_DATA_LENGTH) != 0) {
+            start += 4;
+        }
+
+        if (start > end) {
+            return null;
+        }
+
+        if (v4 && (frameFlags & V4_FLAG_UNSYNCHRONIZED) != 0) {
+            data = removeUnsynchronization(data, start, end);
+            start = 0;
+            end = data.length;
+        }
+
+        if (id.equals(TextFrame.USER_DEFINED_ID)) {
+            return parseUserDefinedText(data, start, end);
+        } else if (id.charAt(0) == 'T') {
+            return parseText(id, data, start, end);
+        } else if (id.equals(UrlFrame.USER_DEFINED_ID)) {
+            return parseUserDefinedUrl(data, start, end);
+        } else if (id.charAt(0) == 'W') {
+            return new UrlFrame(id, null, decode(data, start, indexOfTerminator(data, start, end, ENCODING_ISO_8859_1), ENCODING_ISO_8859_1));
+        } else if (id.equals(PrivFrame.ID)) {
+            return parsePriv(data, start, end);
+        } else if (id.equals(GeobFrame.ID)) {
+            return parseGeob(data, start, end);
+        }
+
+        return new BinaryFrame(id, copy(data, start, end));
+    }
+
+    private static TextFrame parseUserDefinedText(byte[] data, int start, int end) throws UnsupportedEncodingException {
+        if (start >= end) {
+            return new TextFrame(TextFrame.USER_DEFINED_ID, "", "");
+        }
+
+        int encoding = data[start] & 0xFF;
+        int descriptionStart = start + 1;
+        int descriptionEnd = indexOfTerminator(data, descriptionStart, end, encoding);
+        int valueStart = Math.min(end, descriptionEnd + terminatorLength(encoding));
+
+        return new TextFrame(TextFrame.USER_DEFINED_ID, decode(data, descriptionStart, descriptionEnd, encoding),
+                decode(data, valueStart, indexOfTerminator(data, valueStart, end, encoding), encoding));
+    }
+
+    private static TextFrame parseText(String id, byte[] data, int start, int end) throws UnsupportedEncodingException {
+        if (start >= end) {
+            return new TextFrame(id, null, "");
+        }
+
+        int encoding = data[start] & 0xFF;
+        int valueStart = start + 1;
+        return new TextFrame(id, null, decode(data, valueStart, indexOfTerminator(data, valueStart, end, encoding), encoding));
+    }
+
+    private static UrlFrame parseUserDefinedUrl(byte[] data, int start, int end) throws UnsupportedEncodingException {
+        if (start >= end) {
+            return new UrlFrame(UrlFrame.USER_DEFINED_ID, "", "");
+        }
+
+        int encoding = data[start] & 0xFF;
+        int descriptionStart = start + 1;
+        int descriptionEnd = indexOfTerminator(data, descriptionStart, end, encoding);
+        int urlStart = Math.min(end, descriptionEnd + terminatorLength(encoding));
+
+        //The url is always ISO-8859-1, regardless of the encoding for the description
+        return new UrlFrame(UrlFrame.USER_DEFINED_ID, decode(data, descriptionStart, descriptionEnd, encoding),
+                decode(data, urlStart, indexOfTerminator(data, urlStart, end, ENCODING_ISO_8859_1), ENCODING_ISO_8859_1));
+    }
+
+    private static PrivFrame parsePriv(byte[] data, int start, int end) throws UnsupportedEncodingException {
+        int ownerEnd = indexOfTerminator(data, start, end, ENCODING_ISO_8859_1);
+        int dataStart = Math.min(end, ownerEnd + 1);
+
+        return new PrivFrame(decode(data, start, ownerEnd, ENCODING_ISO_8859_1), copy(data, dataStart, end));
+    }
+
+    private static GeobFrame parseGeob(byte[] data, int start, int end) throws UnsupportedEncodingException {
+        if (start >= end) {
+            return new GeobFrame("", "", "", new byte[0]);
+        }
+
+        int encoding = data[start] & 0xFF;
+        int mimeTypeStart = start + 1;
+        int mimeTypeEnd = indexOfTerminator(data, mimeTypeStart, end, ENCODING_ISO_8859_1);
+
+        int filenameStart = Math.min(end, mimeTypeEnd + 1);
+        int filenameEnd = indexOfTerminator(data, filenameStart, end, encoding);
+
+        int descriptionStart = Math.min(end, filenameEnd + terminatorLength(encoding));
+        int descriptionEnd = indexOfTerminator(data, descriptionStart, end, encoding);
+
+        int objectStart = Math.min(end, descriptionEnd + terminatorLength(encoding));
+        return new GeobFrame(decode(data, mimeTypeStart, mimeTypeEnd, ENCODING_ISO_8859_1), decode(data, filenameStart, filenameEnd, encoding),
+                decode(data, descriptionStart, descriptionEnd, encoding), copy(data, objectStart, end));
+    }
+
+    /**
+     * Finds the index of the string terminator for the encoding, the UTF-16 terminators
+     * are two zero bytes aligned to the start of the string.
+     *
+     * @return The index of the terminator or the end if the string isn't terminated
+     */
+    private static int indexOfTerminator(byte[] data, int start, int end, int encoding) {
+        if (terminatorLength(encoding) == 1) {
+            for (int i = start; i < end; i++) {
+                if (data[i] == 0) {
+                    return i;
+                }
+            }
+
+            return end;
+        }
+
+        for (int i = start; i + 1 < end; i += 2) {
+            if (data[i] == 0 && data[i + 1] == 0) {
+                return i;
+            }
+        }
+
+        return end;
+    }
+
+    private static int terminatorLength(int encoding) {
+        return encoding == ENCODING_UTF_16 || encoding == ENCODING_UTF_16BE ? 2 : 1;
+    }
+
+    @NonNull
+    private static String decode(byte[] data, int start, int end, int encoding) throws UnsupportedEncodingException {
+        if (start >= end) {
+            return "";
+        }
+
+        return new String(data, start, end - start, getCharsetName(encoding));
+    }
+
+    @NonNull
+    private static String getCharsetName(int encoding) {
+        switch (encoding) {
+            case ENCODING_UTF_16:
+                return "UTF-16";
+            case ENCODING_UTF_16BE:
+                return "UTF-16BE";
+            case ENCODING_UTF_8:
+                return "UTF-8";
+            case ENCODING_ISO_8859_1:
+            default:
+                return "ISO-8859-1";
+        }
+    }
+
+    /**
+     * Skips the extended header, which ID3v2.3 doesn't include in its size
+     *
+     * @return The number of bytes to skip
+     */
+    private static int skipExtendedHeader(byte[] data, int position, int majorVersion) {
+        return majorVersion == 4 ? readSynchsafeInt(data, position) : readInt(data, position) + 4;
+    }
+
+    /**
+     * Removes the unsynchronization, which inserts a zero byte after every 0xFF
+     *
+     * @return The data from start to end with the inserted zero bytes removed
+     */
+    @NonNull
+    private static byte[] removeUnsynchronization(byte[] data, int start, int end) {
+        byte[] result = new byte[end - start];
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            result[length++] = data[i];
+            if ((data[i] & 0xFF) == 0xFF && i + 1 < end && data[i + 1] == 0) {
+                i++;
+            }
+        }
+
+        return length == result.length ? result : copy(result, 0, length);
+    }
+
+    /**
+     * Places an empty header before the data so that the tag positions remain the same
+     */
+    @NonNull
+    private static byte[] prependHeader(byte[] data) {
+        byte[] result = new byte[HEADER_LENGTH + data.length];
+        System.arraycopy(data, 0, result, HEADER_LENGTH, data.length);
+        return result;
+    }
+
+    @NonNull
+    private static byte[] copy(byte[] data, int start, int end) {
+        byte[] result = new byte[Math.max(0, end - start)];
+        System.arraycopy(data, start, result, 0, result.length);
+        return result;
+    }
+
+    private static int readSynchsafeInt(byte[] data, int position) {
+        return ((data[position] & 0x7F) << 21) | ((data[position + 1] & 0x7F) << 14) | ((data[position + 2] & 0x7F) << 7) | (data[position + 3] & 0x7F);
+    }
+
+    private static int readInt(byte[] data, int position) {
+        return ((data[position] & 0xFF) << 24) | ((data[position + 1] & 0xFF) << 16) | ((data[position + 2] & 0xFF) << 8) | (data[position + 3] & 0xFF);
+    }
+}
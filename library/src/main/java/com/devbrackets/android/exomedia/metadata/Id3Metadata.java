@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The immutable frames from a single ID3v2 tag in the media stream
+ */
+public final class Id3Metadata {
+    @NonNull
+    private final List<Id3Frame> frames;
+
+    /**
+     * @param frames The frames in the tag, this is expected to be an unmodifiable list
+     */
+    Id3Metadata(@NonNull List<Id3Frame> frames) {
+        this.frames = frames;
+    }
+
+    @NonNull
+    public List<Id3Frame> getFrames() {
+        return frames;
+    }
+
+    /**
+     * Retrieves the first frame with the id
+     *
+     * @param id The four character frame id (e.g. "TIT2")
+     * @return The frame or null if the tag doesn't contain a frame with the id
+     */
+    @Nullable
+    public Id3Frame getFrame(@NonNull String id) {
+        for (Id3Frame frame : frames) {
+            if (frame.getId().equals(id)) {
+                return frame;
+            }
+        }
+
+        return null;
+    }
+
+    public boolean isEmpty() {
+        return frames.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return frames.toString();
+    }
+
+    @NonNull
+    static Id3Metadata create(@NonNull List<Id3Frame> frames) {
+        return new Id3Metadata(frames.isEmpty() ? Collections.<Id3Frame>emptyList() : Collections.unmodifiableList(frames));
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.devbrackets.android.exomedia.listener.Id3MetadataListener;
+import com.devbrackets.android.exomedia.util.EventExecutors;
+import com.devbrackets.android.exomedia.util.ListenerRegistry;
+import com.google.android.exoplayer.metadata.MetadataTrackRenderer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers the {@link Id3Metadata} from the MetadataTrackRenderer to the listeners without
+ * flooding their threads.  The metadata is received on the playback thread, where frames that
+ * are repeated without a change (many streams repeat the same tag in every segment) are coalesced
+ * away.  Each listener then has a bounded queue that is drained by a single task on its executor,
+ * so a slow listener causes its oldest pending metadata to be merged in to the following one
+ * (keeping the newest frame for each key) instead of tasks accumulating on its thread.
+ * <p/>
+ * Since the repeated frames are removed before they are queued, a listener that is added
+ * during playback is first informed of the last frame delivered for each key.
+ */
+public class Id3MetadataPipeline implements MetadataTrackRenderer.MetadataRenderer<Id3Metadata> {
+    public static final int DEFAULT_QUEUE_CAPACITY = 16;
+
+    private final ListenerRegistry<Subscriber> subscribers = new ListenerRegistry<>();
+    private final AtomicLong mergedCount = new AtomicLong();
+
+    //The last frame delivered for each frame key, used to coalesce the repeated frames
+    private final Map<String, Id3Frame> lastFrames = new LinkedHashMap<>();
+
+    /**
+     * Adds the listener to be informed of the metadata on the executor, with a queue
+     * of {@link #DEFAULT_QUEUE_CAPACITY}.  If the listener was already added it will be replaced.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to inform the listener on (see {@link EventExecutors})
+     */
+    public void addListener(@NonNull Id3MetadataListener listener, @NonNull Executor executor) {
+        addListener(listener, executor, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Adds the listener to be informed of the metadata on the executor.  If the listener
+     * was already added it will be replaced.  The listener is first informed of the last
+     * frame delivered for each key, since the repeats of those frames are coalesced away.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to inform the listener on (see {@link EventExecutors})
+     * @param queueCapacity The maximum number of metadata waiting to be delivered to the listener [1, ...]
+     */
+    public void addListener(@NonNull Id3MetadataListener listener, @NonNull Executor executor, int queueCapacity) {
+        removeListener(listener);
+        Subscriber subscriber = new Subscriber(listener, executor, Math.max(1, queueCapacity));
+
+        //Replays the current frames so that the listener isn't missing the ones that won't change
+        synchronized (this) {
+            subscribers.add(subscriber);
+            if (!lastFrames.isEmpty()) {
+                subscriber.offer(Id3Metadata.create(new ArrayList<>(lastFrames.values())));
+            }
+        }
+    }
+
+    /**
+     * Removes the listener, any metadata waiting to be delivered to it is discarded
+     *
+     * @param listener The listener to remove
+     */
+    public void removeListener(@Nullable Id3MetadataListener listener) {
+        ListenerRegistry.Snapshot<Subscriber> snapshot = subscribers.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Subscriber subscriber = snapshot.get(i);
+            if (subscriber != null && subscriber.listener == listener) {
+                subscriber.removed = true;
+                subscribers.remove(subscriber);
+            }
+        }
+    }
+
+    public void clearListeners() {
+        ListenerRegistry.Snapshot<Subscriber> snapshot = subscribers.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Subscriber subscriber = snapshot.get(i);
+            if (subscriber != null) {
+                subscriber.removed = true;
+            }
+        }
+
+        subscribers.clear();
+    }
+
+    public boolean hasListeners() {
+        return !subscribers.isEmpty();
+    }
+
+    /**
+     * Forgets the frames that have been delivered so that the next occurrence of every frame
+     * is delivered again.  This should be called when the media is prepared or seeked.
+     */
+    public synchronized void reset() {
+        lastFrames.clear();
+    }
+
+    /**
+     * Retrieves the number of times a listener's queue was full, causing the
+     * oldest metadata to be merged in to the following one
+     *
+     * @return The number of merged metadata
+     */
+    public long getMergedCount() {
+        return mergedCount.get();
+    }
+
+    /**
+     * Called on the playback thread with the metadata once its presentation time is reached
+     */
+    @Override
+    public void onMetadata(Id3Metadata metadata) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+
+        Id3Metadata changed = coalesce(metadata);
+        if (changed == null) {
+            return;
+        }
+
+        ListenerRegistry.Snapshot<Subscriber> snapshot = subscribers.getSnapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            Subscriber subscriber = snapshot.get(i);
+            if (subscriber != null) {
+                subscriber.offer(changed);
+            }
+        }
+    }
+
+    /**
+     * Removes the frames that are the same as the last frame delivered with the same key
+     *
+     * @return The metadata with the changed frames or null if none of the frames changed
+     */
+    @Nullable
+    private synchronized Id3Metadata coalesce(@NonNull Id3Metadata metadata) {
+        List<Id3Frame> frames = metadata.getFrames();
+        List<Id3Frame> changedFrames = null;
+
+        for (int i = 0; i < frames.size(); i++) {
+            Id3Frame frame = frames.get(i);
+            Id3Frame previous = lastFrames.put(frame.getKey(), frame);
+            boolean repeated = frame.equals(previous);
+
+            //The list is only created once a frame has been removed
+            if (repeated && changedFrames == null) {
+                changedFrames = new ArrayList<>(frames.subList(0, i));
+            } else if (!repeated && changedFrames != null) {
+                changedFrames.add(frame);
+            }
+        }
+
+        if (changedFrames == null) {
+            return frames.isEmpty() ? null : metadata;
+        }
+
+        return changedFrames.isEmpty() ? null : Id3Metadata.create(changedFrames);
+    }
+
+    /**
+     * Merges the older metadata in to the newer one, keeping the frames from the
+     * older metadata that weren't replaced by a frame with the same key
+     */
+    @NonNull
+    private static Id3Metadata merge(@NonNull Id3Metadata older, @NonNull Id3Metadata newer) {
+        List<Id3Frame> newerFrames = newer.getFrames();
+        List<Id3Frame> frames = new ArrayList<>(older.getFrames().size() + newerFrames.size());
+
+        for (Id3Frame frame : older.getFrames()) {
+            if (!containsKey(newerFrames, frame.getKey())) {
+                frames.add(frame);
+            }
+        }
+
+        frames.addAll(newerFrames);
+        return Id3Metadata.create(frames);
+    }
+
+    private static boolean containsKey(@NonNull List<Id3Frame> frames, @NonNull String key) {
+        for (Id3Frame frame : frames) {
+            if (frame.getKey().equals(key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private class Subscriber implements Runnable {
+        private final Id3MetadataListener listener;
+        private final Executor executor;
+        private final int capacity;
+        private final ArrayDeque<Id3Metadata> queue;
+
+        private volatile boolean removed = false;
+        private boolean drainScheduled = false;
+
+        public Subscriber(Id3MetadataListener listener, Executor executor, int capacity) {
+            this.listener = listener;
+            this.executor = executor;
+            this.capacity = capacity;
+            this.queue = new ArrayDeque<>(Math.min(capacity, DEFAULT_QUEUE_CAPACITY));
+        }
+
+        /**
+         * Queues the metadata, only scheduling the drain on the executor
+         * when one isn't already pending
+         */
+        public void offer(Id3Metadata metadata) {
+            boolean schedule;
+            synchronized (this) {
+                if (queue.size() >= capacity) {
+                    Id3Metadata oldest = queue.pollFirst();
+                    Id3Metadata next = queue.pollFirst();
+                    if (next != null) {
+                        queue.addFirst(merge(oldest, next));
+                    } else {
+                        metadata = merge(oldest, metadata);
+                    }
+
+                    mergedCount.incrementAndGet();
+                }
+
+                queue.addLast(metadata);
+                schedule = !drainScheduled;
+                drainScheduled = true;
+            }
+
+            if (schedule) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Id3Metadata metadata;
+                synchronized (this) {
+                    metadata = queue.pollFirst();
+                    if (metadata == null || removed) {
+                        queue.clear();
+                        drainScheduled = false;
+                        return;
+                    }
+                }
+
+                listener.onId3Metadata(metadata);
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * An immutable private (PRIV) frame, which contains data that is only
+ * understood by the owner (e.g. "com.apple.streaming.transportStreamTimestamp")
+ */
+public final class PrivFrame extends Id3Frame {
+    public static final String ID = "PRIV";
+
+    @NonNull
+    private final String owner;
+    @NonNull
+    private final byte[] data;
+
+    /**
+     * @param owner The identifier for the owner of the data
+     * @param data The private data, this is not copied so it shouldn't be modified afterwards
+     */
+    public PrivFrame(@NonNull String owner, @NonNull byte[] data) {
+        super(ID, ID + ":" + owner);
+        this.owner = owner;
+        this.data = data;
+    }
+
+    @NonNull
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Retrieves a copy of the private data
+     *
+     * @return The private data
+     */
+    @NonNull
+    public byte[] getData() {
+        return data.clone();
+    }
+
+    public int getDataLength() {
+        return data.length;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof PrivFrame)) {
+            return false;
+        }
+
+        PrivFrame other = (PrivFrame) o;
+        return owner.equals(other.owner) && Arrays.equals(data, other.data);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * owner.hashCode() + Arrays.hashCode(data);
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + " (" + data.length + " bytes)";
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.metadata;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * An immutable url link frame, this is either one of the standard url frames
+ * (e.g. WOAF for the audio file webpage) or a user defined WXXX frame that
+ * also has a description.
+ */
+public final class UrlFrame extends Id3Frame {
+    public static final String USER_DEFINED_ID = "WXXX";
+
+    @Nullable
+    private final String description;
+    @NonNull
+    private final String url;
+
+    public UrlFrame(@NonNull String id, @Nullable String description, @NonNull String url) {
+        super(id, description == null ? id : id + ":" + description);
+        this.description = description;
+        this.url = url;
+    }
+
+    /**
+     * @return The description for a user defined (WXXX) frame, otherwise null
+     */
+    @Nullable
+    public String getDescription() {
+        return description;
+    }
+
+    @NonNull
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof UrlFrame)) {
+            return false;
+        }
+
+        UrlFrame other = (UrlFrame) o;
+        return getKey().equals(other.getKey()) && url.equals(other.url);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * getKey().hashCode() + url.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return getKey() + "=" + url;
+    }
+}
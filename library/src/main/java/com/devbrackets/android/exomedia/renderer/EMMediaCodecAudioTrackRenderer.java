@@ -17,16 +17,23 @@
 package com.devbrackets.android.exomedia.renderer;
 
 import android.os.Handler;
+import android.support.annotation.Nullable;
 
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+import com.google.android.exoplayer.ExoPlaybackException;
 import com.google.android.exoplayer.MediaCodecAudioTrackRenderer;
+import com.google.android.exoplayer.MediaFormatHolder;
 import com.google.android.exoplayer.SampleSource;
 import com.google.android.exoplayer.drm.DrmSessionManager;
 
 /**
  * Extends the MediaCodecAudioTrackRenderer so that we can keep track of the audioSessionId
+ * and the startup phases of the {@link PlaybackTimeline}
  */
 public class EMMediaCodecAudioTrackRenderer extends MediaCodecAudioTrackRenderer {
     private int audioSessionId = 0;
+    @Nullable
+    private PlaybackTimeline playbackTimeline;
 
     public EMMediaCodecAudioTrackRenderer(SampleSource source) {
         super(source);
@@ -45,10 +52,32 @@ public class EMMediaCodecAudioTrackRenderer extends MediaCodecAudioTrackRenderer
         super(source, drmSessionManager, playClearSamplesWithoutKeys, eventHandler, eventListener);
     }
 
+    /**
+     * Sets the timeline to mark the decoder and first audio phases on
+     *
+     * @param playbackTimeline The timeline to mark or null
+     */
+    public void setPlaybackTimeline(@Nullable PlaybackTimeline playbackTimeline) {
+        this.playbackTimeline = playbackTimeline;
+    }
+
+    @Override
+    protected void onInputFormatChanged(MediaFormatHolder formatHolder) throws ExoPlaybackException {
+        super.onInputFormatChanged(formatHolder);
+        if (playbackTimeline != null) {
+            playbackTimeline.mark(PlaybackTimeline.Phase.DECODER_INITIALIZED);
+        }
+    }
+
     @Override
     protected void onAudioSessionId(int audioSessionId) {
         this.audioSessionId = audioSessionId;
         super.onAudioSessionId(audioSessionId);
+
+        //The AudioTrack is initialized immediately before the first audio is written to it
+        if (playbackTimeline != null) {
+            playbackTimeline.mark(PlaybackTimeline.Phase.FIRST_AUDIO_WRITTEN);
+        }
     }
 
     public int getAudioSessionId() {
@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.renderer;
+
+import android.os.Handler;
+import android.support.annotation.Nullable;
+
+import com.devbrackets.android.exomedia.exoplayer.PlaybackTimeline;
+import com.google.android.exoplayer.ExoPlaybackException;
+import com.google.android.exoplayer.MediaCodecVideoTrackRenderer;
+import com.google.android.exoplayer.MediaFormatHolder;
+import com.google.android.exoplayer.SampleSource;
+import com.google.android.exoplayer.drm.DrmSessionManager;
+
+/**
+ * Extends the MediaCodecVideoTrackRenderer so that we can keep track of the startup
+ * phases of the {@link PlaybackTimeline}.  The first frame is marked by the EMExoPlayer
+ * when it is informed the frame was drawn to the surface.
+ */
+public class EMMediaCodecVideoTrackRenderer extends MediaCodecVideoTrackRenderer {
+    @Nullable
+    private PlaybackTimeline playbackTimeline;
+
+    public EMMediaCodecVideoTrackRenderer(SampleSource source, int videoScalingMode, long allowedJoiningTimeMs, Handler eventHandler,
+                                          EventListener eventListener, int maxDroppedFrameCountToNotify) {
+        super(source, videoScalingMode, allowedJoiningTimeMs, eventHandler, eventListener, maxDroppedFrameCountToNotify);
+    }
+
+    public EMMediaCodecVideoTrackRenderer(SampleSource source, DrmSessionManager drmSessionManager, boolean playClearSamplesWithoutKeys,
+                                          int videoScalingMode, long allowedJoiningTimeMs, Handler eventHandler, EventListener eventListener,
+                                          int maxDroppedFrameCountToNotify) {
+        super(source, drmSessionManager, playClearSamplesWithoutKeys, videoScalingMode, allowedJoiningTimeMs, eventHandler, eventListener,
+                maxDroppedFrameCountToNotify);
+    }
+
+    /**
+     * Sets the timeline to mark the decoder phase on
+     *
+     * @param playbackTimeline The timeline to mark or null
+     */
+    public void setPlaybackTimeline(@Nullable PlaybackTimeline playbackTimeline) {
+        this.playbackTimeline = playbackTimeline;
+    }
+
+    @Override
+    protected void onInputFormatChanged(MediaFormatHolder holder) throws ExoPlaybackException {
+        super.onInputFormatChanged(holder);
+        if (playbackTimeline != null) {
+            playbackTimeline.mark(PlaybackTimeline.Phase.DECODER_INITIALIZED);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Creates the threads for the library's background executors.  The threads are named so they
+ * can be identified when debugging, run with the background priority, and are daemon threads
+ * so that an idle executor doesn't keep the process from exiting.
+ */
+public class BackgroundThreadFactory implements ThreadFactory {
+    private final String name;
+
+    /**
+     * @param name The name for the created threads
+     */
+    public BackgroundThreadFactory(@NonNull String name) {
+        this.name = name;
+    }
+
+    @Override
+    public Thread newThread(@NonNull final Runnable runnable) {
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }
+        }, name);
+
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import com.google.android.exoplayer.MediaCodecUtil;
+import com.google.android.exoplayer.util.MimeTypes;
+
+/**
+ * Probes the decoders available on the device once and caches the results, so that choosing
+ * between the ExoPlayer and the MediaPlayer and configuring the renderers doesn't query the
+ * MediaCodecList (which can take hundreds of milliseconds) on the main thread for each playback.
+ * <p/>
+ * The results are persisted in the SharedPreferences keyed by the {@link Build#FINGERPRINT}, so
+ * the decoders are only probed again once the system is updated.  Both the SharedPreferences and the
+ * decoders are read on a background thread; until that has completed the queries return conservative
+ * defaults instead of blocking, so the first playback after installing or updating the system may
+ * not use the probed values.
+ */
+public class DecoderCapabilityRegistry {
+    private static final String TAG = DecoderCapabilityRegistry.class.getSimpleName();
+    private static final String PROBE_THREAD_NAME = "EMDecoderCapabilityProbe";
+
+    private static final String PREFERENCES_NAME = "EMDecoderCapabilityRegistry";
+    private static final String PREFERENCE_FINGERPRINT = "fingerprint";
+    private static final String PREFERENCE_H264_DECODER = "h264Decoder";
+    private static final String PREFERENCE_H264_ADAPTIVE = "h264Adaptive";
+    private static final String PREFERENCE_H264_MAX_FRAME_SIZE = "h264MaxFrameSize";
+    private static final String PREFERENCE_AAC_DECODER = "aacDecoder";
+
+    /**
+     * The frame size (720p) assumed to be decodable before the decoders have been probed
+     */
+    public static final int DEFAULT_MAX_H264_FRAME_SIZE = 1280 * 720;
+
+    private static final DecoderCapabilityRegistry instance = new DecoderCapabilityRegistry();
+    private static Handler probeHandler;
+
+    @Nullable
+    private volatile Capabilities capabilities;
+    private volatile boolean initialized = false;
+
+    private DecoderCapabilityRegistry() {
+        //Purposefully left blank
+    }
+
+    @NonNull
+    public static DecoderCapabilityRegistry getInstance() {
+        return instance;
+    }
+
+    /**
+     * Starts loading the persisted capabilities for the current system on a background thread,
+     * probing the decoders when they haven't been stored yet.  This is safe to call multiple times.
+     *
+     * @param context The Context to use for retrieving the SharedPreferences
+     */
+    public synchronized void initialize(@NonNull Context context) {
+        if (initialized) {
+            return;
+        }
+
+        initialized = true;
+        getProbeHandler().post(new LoadRunnable(context.getApplicationContext()));
+    }
+
+    /**
+     * Determines if the decoders have been probed (or loaded from a previous probe)
+     *
+     * @return True if the capabilities are known
+     */
+    public boolean isProbed() {
+        return capabilities != null;
+    }
+
+    /**
+     * Determines if the ExoPlayer should be used to play video.  Once the decoders have been probed
+     * the probed decoders decide, otherwise this falls back to the API level and
+     * {@link EMDeviceUtil#isDeviceCTSCompliant()}.
+     *
+     * @return True if the ExoPlayer should be used for video
+     */
+    public boolean isExoVideoSupported() {
+        Capabilities current = capabilities;
+        if (current == null) {
+            return isExoSupported();
+        }
+
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && current.h264Decoder != null && current.aacDecoder != null;
+    }
+
+    /**
+     * Determines if the ExoPlayer should be used to play audio.  Once the decoders have been probed
+     * the probed decoders decide, otherwise this falls back to the API level and
+     * {@link EMDeviceUtil#isDeviceCTSCompliant()}.
+     *
+     * @return True if the ExoPlayer should be used for audio
+     */
+    public boolean isExoAudioSupported() {
+        Capabilities current = capabilities;
+        if (current == null) {
+            return isExoSupported();
+        }
+
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && current.aacDecoder != null;
+    }
+
+    /**
+     * Determines if the H264 decoder supports adaptive playback (seamlessly changing resolution)
+     *
+     * @return True if adaptive playback is supported, false if it isn't or the decoders haven't been probed
+     */
+    public boolean isH264AdaptiveSupported() {
+        Capabilities current = capabilities;
+        return current != null && current.h264Adaptive;
+    }
+
+    /**
+     * Retrieves the largest frame size (width * height) the H264 decoder supports
+     *
+     * @return The maximum frame size or {@link #DEFAULT_MAX_H264_FRAME_SIZE} if the decoders haven't been probed
+     */
+    public int getMaxH264FrameSize() {
+        Capabilities current = capabilities;
+        return current != null ? current.h264MaxFrameSize : DEFAULT_MAX_H264_FRAME_SIZE;
+    }
+
+    /**
+     * Retrieves the name of the H264 decoder
+     *
+     * @return The name of the decoder or null if there isn't one or the decoders haven't been probed
+     */
+    @Nullable
+    public String getH264DecoderName() {
+        Capabilities current = capabilities;
+        return current != null ? current.h264Decoder : null;
+    }
+
+    /**
+     * Retrieves the handler for the thread that the SharedPreferences are loaded and the
+     * decoders probed on.
+     *
+     * @return The Handler for the probe thread
+     */
+    private static synchronized Handler getProbeHandler() {
+        if (probeHandler == null) {
+            HandlerThread thread = new HandlerThread(PROBE_THREAD_NAME, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            probeHandler = new Handler(thread.getLooper());
+        }
+
+        return probeHandler;
+    }
+
+    private static boolean isExoSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN && EMDeviceUtil.isDeviceCTSCompliant();
+    }
+
+    private static class Capabilities {
+        @Nullable
+        private final String h264Decoder;
+        private final boolean h264Adaptive;
+        private final int h264MaxFrameSize;
+        @Nullable
+        private final String aacDecoder;
+
+        public Capabilities(@Nullable String h264Decoder, boolean h264Adaptive, int h264MaxFrameSize, @Nullable String aacDecoder) {
+            this.h264Decoder = h264Decoder;
+            this.h264Adaptive = h264Adaptive;
+            this.h264MaxFrameSize = h264MaxFrameSize;
+            this.aacDecoder = aacDecoder;
+        }
+    }
+
+    /**
+     * Loads the persisted capabilities, querying the MediaCodecList for the decoders and
+     * persisting the results when they haven't been stored for the current system
+     */
+    private class LoadRunnable implements Runnable {
+        private final Context context;
+
+        public LoadRunnable(Context context) {
+            this.context = context;
+        }
+
+        @Override
+        public void run() {
+            SharedPreferences preferences = context.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+            if (Build.FINGERPRINT.equals(preferences.getString(PREFERENCE_FINGERPRINT, null))) {
+                capabilities = new Capabilities(
+                        preferences.getString(PREFERENCE_H264_DECODER, null),
+                        preferences.getBoolean(PREFERENCE_H264_ADAPTIVE, false),
+                        preferences.getInt(PREFERENCE_H264_MAX_FRAME_SIZE, DEFAULT_MAX_H264_FRAME_SIZE),
+                        preferences.getString(PREFERENCE_AAC_DECODER, null));
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                probe(preferences);
+            }
+        }
+
+        @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+        private void probe(SharedPreferences preferences) {
+            Capabilities probed;
+            try {
+                MediaCodecUtil.DecoderInfo h264Info = MediaCodecUtil.getDecoderInfo(MimeTypes.VIDEO_H264, false);
+                MediaCodecUtil.DecoderInfo aacInfo = MediaCodecUtil.getDecoderInfo(MimeTypes.AUDIO_AAC, false);
+                int maxFrameSize = h264Info != null ? MediaCodecUtil.maxH264DecodableFrameSize() : 0;
+
+                probed = new Capabilities(h264Info != null ? h264Info.name : null, h264Info != null && h264Info.adaptive, maxFrameSize,
+                        aacInfo != null ? aacInfo.name : null);
+            } catch (MediaCodecUtil.DecoderQueryException e) {
+                //The defaults will continue to be used, and the decoders probed again on the next launch
+                Log.d(TAG, "Unable to probe the decoder capabilities", e);
+                return;
+            }
+
+            capabilities = probed;
+            preferences.edit()
+                    .putString(PREFERENCE_FINGERPRINT, Build.FINGERPRINT)
+                    .putString(PREFERENCE_H264_DECODER, probed.h264Decoder)
+                    .putBoolean(PREFERENCE_H264_ADAPTIVE, probed.h264Adaptive)
+                    .putInt(PREFERENCE_H264_MAX_FRAME_SIZE, probed.h264MaxFrameSize)
+                    .putString(PREFERENCE_AAC_DECODER, probed.aacDecoder)
+                    .apply();
+        }
+    }
+}
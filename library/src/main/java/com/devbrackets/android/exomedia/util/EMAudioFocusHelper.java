@@ -22,6 +22,8 @@ import android.support.annotation.Nullable;
 
 import com.devbrackets.android.exomedia.event.EMAudioFocusGainedEvent;
 import com.devbrackets.android.exomedia.event.EMAudioFocusLostEvent;
+import com.devbrackets.android.exomedia.event.EMEventDispatcher;
+import com.devbrackets.android.exomedia.event.OttoEventDispatcher;
 import com.devbrackets.android.exomedia.listener.EMAudioFocusCallback;
 import com.squareup.otto.Bus;
 
@@ -37,7 +39,7 @@ public class EMAudioFocusHelper {
         FOCUSED             // have full audio focus
     }
 
-    private Bus bus;
+    private EMEventDispatcher eventDispatcher;
     private AudioManager audioManager;
     private EMAudioFocusCallback callbacks;
     private AudioFocusListener audioFocusListener = new AudioFocusListener();
@@ -46,7 +48,7 @@ public class EMAudioFocusHelper {
 
     /**
      * Creates and sets up the basic information for the AudioFocusHelper.  In order to
-     * be of any use you must call {@link #setBus(com.squareup.otto.Bus)} or
+     * be of any use you must call {@link #setEventDispatcher(EMEventDispatcher)} or
      * {@link #setAudioFocusCallback(com.devbrackets.android.exomedia.listener.EMAudioFocusCallback)}
      *
      * @param context The context for the AudioFocus (Generally Application)
@@ -57,12 +59,23 @@ public class EMAudioFocusHelper {
 
     /**
      * Sets the bus to use for dispatching Events that correspond to the callbacks
-     * listed in {@link com.devbrackets.android.exomedia.listener.EMAudioFocusCallback}
+     * listed in {@link com.devbrackets.android.exomedia.listener.EMAudioFocusCallback}.
+     * This is the same as setting an {@link OttoEventDispatcher} with {@link #setEventDispatcher(EMEventDispatcher)}
      *
      * @param bus The Otto bus to dispatch events on
      */
     public void setBus(Bus bus) {
-        this.bus = bus;
+        setEventDispatcher(bus != null ? new OttoEventDispatcher(bus) : null);
+    }
+
+    /**
+     * Sets the dispatcher to use for dispatching Events that correspond to the callbacks
+     * listed in {@link com.devbrackets.android.exomedia.listener.EMAudioFocusCallback}
+     *
+     * @param eventDispatcher The dispatcher to post the events on
+     */
+    public void setEventDispatcher(EMEventDispatcher eventDispatcher) {
+        this.eventDispatcher = eventDispatcher;
     }
 
     /**
@@ -142,8 +155,8 @@ public class EMAudioFocusHelper {
                 return;
             }
 
-            if (bus != null) {
-                bus.post(new EMAudioFocusGainedEvent());
+            if (eventDispatcher != null) {
+                eventDispatcher.post(EMAudioFocusGainedEvent.INSTANCE);
             }
         }
 
@@ -152,8 +165,8 @@ public class EMAudioFocusHelper {
                 return;
             }
 
-            if (bus != null) {
-                bus.post(new EMAudioFocusLostEvent(canDuck));
+            if (eventDispatcher != null) {
+                eventDispatcher.post(EMAudioFocusLostEvent.obtain(canDuck));
             }
         }
     }
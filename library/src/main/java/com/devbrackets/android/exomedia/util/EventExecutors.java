@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The executors that listeners can choose to be informed on.  Events delivered to an
+ * executor for a Looper are performed immediately when they are already on that Looper's
+ * thread, otherwise they are posted to it.
+ */
+public final class EventExecutors {
+    private static final String BACKGROUND_THREAD_NAME = "EMExoPlayer:Events";
+
+    private static final Executor mainExecutor = new LooperExecutor(Looper.getMainLooper());
+    private static ExecutorService backgroundExecutor;
+
+    private EventExecutors() {
+        //Purposefully left blank
+    }
+
+    /**
+     * Retrieves the executor for the main (UI) thread
+     *
+     * @return The main thread executor
+     */
+    @NonNull
+    public static Executor main() {
+        return mainExecutor;
+    }
+
+    /**
+     * Retrieves the executor for a single background thread shared by all the players, this
+     * should be used for listeners that don't interact with the UI (e.g. analytics).  The
+     * events are delivered in the order they occurred.
+     *
+     * @return The shared background executor
+     */
+    @NonNull
+    public static synchronized Executor background() {
+        if (backgroundExecutor == null) {
+            backgroundExecutor = Executors.newSingleThreadExecutor(new BackgroundThreadFactory(BACKGROUND_THREAD_NAME));
+        }
+
+        return backgroundExecutor;
+    }
+
+    /**
+     * Creates an executor that performs the events on the thread for the Looper
+     *
+     * @param looper The Looper to perform the events on
+     * @return The executor for the Looper
+     */
+    @NonNull
+    public static Executor forLooper(@NonNull Looper looper) {
+        return looper == Looper.getMainLooper() ? mainExecutor : new LooperExecutor(looper);
+    }
+
+    private static class LooperExecutor implements Executor {
+        private final Looper looper;
+        private final Handler handler;
+
+        public LooperExecutor(Looper looper) {
+            this.looper = looper;
+            this.handler = new Handler(looper);
+        }
+
+        @Override
+        public void execute(@NonNull Runnable command) {
+            if (Looper.myLooper() == looper) {
+                command.run();
+            } else {
+                handler.post(command);
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A histogram of latencies using fixed bucket bounds, so that recording a
+ * value never allocates and the memory used doesn't grow with the number of values.
+ */
+public class LatencyHistogram {
+    /**
+     * The upper bounds (exclusive) of the buckets in milliseconds, the last bucket
+     * contains every value greater than or equal to the last bound.
+     */
+    private static final long[] BUCKET_BOUNDS = {50, 100, 200, 300, 500, 750, 1000, 1500, 2000, 3000, 5000, 10000};
+
+    private final int[] bucketCounts = new int[BUCKET_BOUNDS.length + 1];
+    private int count;
+    private long total;
+    private long max;
+
+    /**
+     * Adds a latency to the histogram
+     *
+     * @param latencyMs The latency in milliseconds
+     */
+    public synchronized void record(long latencyMs) {
+        latencyMs = Math.max(0, latencyMs);
+
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS.length && latencyMs >= BUCKET_BOUNDS[bucket]) {
+            bucket++;
+        }
+
+        bucketCounts[bucket]++;
+        count++;
+        total += latencyMs;
+        max = Math.max(max, latencyMs);
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public synchronized long getMean() {
+        return count == 0 ? 0 : total / count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    /**
+     * Estimates the latency at the percentile, using the upper bound of the bucket
+     * the percentile falls in (or the maximum recorded value for the last bucket).
+     *
+     * @param percentile The percentile to retrieve [0, 1]
+     * @return The estimated latency in milliseconds
+     */
+    public synchronized long getPercentile(float percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        int target = (int) Math.ceil(Math.min(1, Math.max(0, percentile)) * count);
+        int seen = 0;
+        for (int i = 0; i < BUCKET_BOUNDS.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= target && seen > 0) {
+                return Math.min(BUCKET_BOUNDS[i], max);
+            }
+        }
+
+        return max;
+    }
+
+    /**
+     * Retrieves a copy of the number of values in each bucket, the bounds
+     * for the buckets are retrieved with {@link #getBucketBounds()}
+     *
+     * @return The bucket counts
+     */
+    @NonNull
+    public synchronized int[] getBucketCounts() {
+        return bucketCounts.clone();
+    }
+
+    /**
+     * Retrieves the upper bounds (exclusive) of each bucket in milliseconds.  There is
+     * one more bucket than bounds, containing every value greater than the last bound.
+     *
+     * @return The bucket bounds
+     */
+    @NonNull
+    public static long[] getBucketBounds() {
+        return BUCKET_BOUNDS.clone();
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = 0;
+        }
+
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+}
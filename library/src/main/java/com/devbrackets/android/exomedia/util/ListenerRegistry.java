@@ -0,0 +1,263 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executor;
+
+/**
+ * Holds the listeners for an event source in an immutable array snapshot that is replaced
+ * whenever a listener is added or removed.  Dispatching only reads the current snapshot so
+ * it doesn't allocate, and listeners can safely be added or removed (from any thread)
+ * while an event is being dispatched; the change applies to the next dispatch.
+ * <p/>
+ * Listeners can be held with a weak reference so that a listener that is never
+ * removed (e.g. a leaked Activity) doesn't keep the listener or player in memory.
+ * Cleared references are skipped when dispatching and removed on the next change.
+ * <pre>
+ * ListenerRegistry.Snapshot&lt;Listener&gt; snapshot = registry.getSnapshot();
+ * for (int i = 0; i &lt; snapshot.size(); i++) {
+ *     Listener listener = snapshot.get(i);
+ *     if (listener != null) {
+ *         listener.onEvent();
+ *     }
+ * }
+ * </pre>
+ * <p/>
+ * Listeners can also be added with an executor (see {@link EventExecutors}) to be informed on,
+ * the events for a registry with those listeners should be passed to {@link #dispatch(Event)}
+ * since the snapshot doesn't know about the executors.
+ *
+ * @param <T> The type of listener
+ */
+public class ListenerRegistry<T> {
+    public interface Event<T> {
+        /**
+         * Informs the listener of the event, called on the executor the listener was added with
+         * or on the dispatching thread for listeners added without one
+         *
+         * @param listener The listener to inform
+         */
+        void dispatch(T listener);
+    }
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private volatile Snapshot<T> snapshot = new Snapshot<>(EMPTY);
+
+    /**
+     * Adds the listener, holding a strong reference to it.  A listener that
+     * has already been added will not be added again.
+     *
+     * @param listener The listener to add
+     */
+    public void add(@NonNull T listener) {
+        addEntry(listener, listener);
+    }
+
+    /**
+     * Adds the listener, only holding a weak reference to it.  The caller is responsible for
+     * keeping the listener referenced for as long as it should be informed.  A listener that
+     * has already been added will not be added again.
+     *
+     * @param listener The listener to add
+     */
+    public void addWeak(@NonNull T listener) {
+        addEntry(listener, new WeakReference<>(listener));
+    }
+
+    /**
+     * Adds the listener to be informed of the events passed to {@link #dispatch(Event)} on
+     * the executor.  If the listener was already added the executor will be replaced.
+     *
+     * @param listener The listener to add
+     * @param executor The executor to inform the listener on (see {@link EventExecutors})
+     */
+    public synchronized void add(@NonNull T listener, @NonNull Executor executor) {
+        remove(listener);
+        addEntry(listener, new ExecutorEntry(listener, executor));
+    }
+
+    /**
+     * Removes the listener whether it was added with a strong or weak reference, or an executor.
+     * Events that were already passed to the listener's executor may still be delivered.
+     *
+     * @param listener The listener to remove
+     */
+    public synchronized void remove(@Nullable T listener) {
+        if (listener == null) {
+            return;
+        }
+
+        Object[] entries = snapshot.entries;
+        int index = indexOf(entries, listener);
+        if (index == -1) {
+            return;
+        }
+
+        Object[] updated = new Object[entries.length - 1];
+        System.arraycopy(entries, 0, updated, 0, index);
+        System.arraycopy(entries, index + 1, updated, index, entries.length - index - 1);
+        snapshot = new Snapshot<>(pruneCleared(updated));
+    }
+
+    public synchronized void clear() {
+        snapshot = new Snapshot<>(EMPTY);
+    }
+
+    /**
+     * Retrieves the listeners to dispatch an event to.  The snapshot isn't affected
+     * by listeners being added or removed after it was retrieved.
+     *
+     * @return The current snapshot of the listeners
+     */
+    @NonNull
+    public Snapshot<T> getSnapshot() {
+        return snapshot;
+    }
+
+    public boolean isEmpty() {
+        return snapshot.entries.length == 0;
+    }
+
+    /**
+     * Informs each of the listeners of the event, on their executor for the listeners that
+     * were added with one and immediately for the others.  Since the event is created before
+     * this is called, {@link #isEmpty()} should be checked first to avoid the allocation
+     * when nobody is listening.
+     *
+     * @param event The event to inform the listeners of
+     */
+    public void dispatch(@NonNull final Event<T> event) {
+        Object[] entries = snapshot.entries;
+        for (Object entry : entries) {
+            if (entry instanceof ExecutorEntry) {
+                final ExecutorEntry executorEntry = (ExecutorEntry) entry;
+                executorEntry.executor.execute(new Runnable() {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public void run() {
+                        event.dispatch((T) executorEntry.listener);
+                    }
+                });
+                continue;
+            }
+
+            @SuppressWarnings("unchecked")
+            T listener = (T) resolve(entry);
+            if (listener != null) {
+                event.dispatch(listener);
+            }
+        }
+    }
+
+    private synchronized void addEntry(T listener, Object entry) {
+        Object[] entries = snapshot.entries;
+        if (indexOf(entries, listener) != -1) {
+            return;
+        }
+
+        Object[] updated = new Object[entries.length + 1];
+        System.arraycopy(entries, 0, updated, 0, entries.length);
+        updated[entries.length] = entry;
+        snapshot = new Snapshot<>(pruneCleared(updated));
+    }
+
+    private static int indexOf(Object[] entries, Object listener) {
+        for (int i = 0; i < entries.length; i++) {
+            if (resolve(entries[i]) == listener) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static Object[] pruneCleared(Object[] entries) {
+        int clearedCount = 0;
+        for (Object entry : entries) {
+            if (resolve(entry) == null) {
+                clearedCount++;
+            }
+        }
+
+        if (clearedCount == 0) {
+            return entries;
+        }
+
+        Object[] pruned = new Object[entries.length - clearedCount];
+        int index = 0;
+        for (Object entry : entries) {
+            if (resolve(entry) != null) {
+                pruned[index++] = entry;
+            }
+        }
+
+        return pruned;
+    }
+
+    @Nullable
+    private static Object resolve(Object entry) {
+        if (entry instanceof ExecutorEntry) {
+            return ((ExecutorEntry) entry).listener;
+        }
+
+        return entry instanceof WeakReference ? ((WeakReference<?>) entry).get() : entry;
+    }
+
+    private static class ExecutorEntry {
+        private final Object listener;
+        private final Executor executor;
+
+        public ExecutorEntry(Object listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * An immutable view of the listeners at the time it was retrieved
+     *
+     * @param <T> The type of listener
+     */
+    public static final class Snapshot<T> {
+        private final Object[] entries;
+
+        private Snapshot(Object[] entries) {
+            this.entries = entries;
+        }
+
+        public int size() {
+            return entries.length;
+        }
+
+        /**
+         * Retrieves the listener at the index
+         *
+         * @param index The index of the listener [0, {@link #size()})
+         * @return The listener or null if it was held with a weak reference that has been cleared
+         */
+        @Nullable
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            return (T) resolve(entries[index]);
+        }
+    }
+}
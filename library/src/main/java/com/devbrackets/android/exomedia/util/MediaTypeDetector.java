@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.Nullable;
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Determines the type of media (HLS, DASH, SmoothStreaming) for a url so that the
+ * correct RenderBuilder can be used.  The type is first determined from the mime type
+ * (when known) and the url path, which doesn't perform any network requests.  If those
+ * don't identify the type the detector can sniff the content by performing a HEAD request
+ * and reading the first bytes of the media.  The sniffed types are cached per url so that
+ * the network requests are only performed once.
+ */
+public class MediaTypeDetector extends MediaUtil {
+    private static final String TAG = MediaTypeDetector.class.getSimpleName();
+    private static final int DEFAULT_CACHE_SIZE = 50;
+    private static final int TIMEOUT_MILLIS = 8000;
+    private static final int SNIFF_LENGTH = 512;
+    private static final String HLS_EXTENSION = ".m3u8";
+    private static final String SNIFF_THREAD_NAME = "EMExoPlayer:MediaTypeSniff";
+
+    private static final ExecutorService sniffExecutor = Executors.newSingleThreadExecutor(new BackgroundThreadFactory(SNIFF_THREAD_NAME));
+
+    public enum MediaType {
+        HLS,
+        DASH,
+        SMOOTH_STREAMING,
+        UNKNOWN
+    }
+
+    public interface Callback {
+        /**
+         * Called on the main thread when the type of the media has been determined
+         *
+         * @param url The url the type was determined for
+         * @param mediaType The type of the media, {@link MediaType#UNKNOWN} for progressive media or when the type couldn't be determined
+         */
+        void onMediaTypeDetected(String url, MediaType mediaType);
+    }
+
+    private final Map<String, MediaType> sniffedTypes;
+    private final boolean sniffingEnabled;
+    private Handler callbackHandler = new Handler(Looper.getMainLooper());
+
+    public MediaTypeDetector() {
+        this(true);
+    }
+
+    /**
+     * @param sniffingEnabled True if the content should be sniffed when the type can't be determined from the url or mime type
+     */
+    public MediaTypeDetector(boolean sniffingEnabled) {
+        this.sniffingEnabled = sniffingEnabled;
+
+        sniffedTypes = new LinkedHashMap<String, MediaType>(DEFAULT_CACHE_SIZE, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MediaType> eldest) {
+                return size() > DEFAULT_CACHE_SIZE;
+            }
+        };
+    }
+
+    /**
+     * Determines the type of the media from the path of the url.  The extension can be
+     * followed by more path segments (e.g. "/video.m3u8/token") while the query and fragment
+     * are ignored, so urls that only reference a playlist in the query (e.g. a proxy) aren't
+     * misidentified.
+     *
+     * @param url The url for the media
+     * @return The type of the media or {@link MediaType#UNKNOWN}
+     */
+    public static MediaType getType(String url) {
+        if (url == null) {
+            return MediaType.UNKNOWN;
+        }
+
+        int pathEnd = url.length();
+        int queryStart = url.indexOf('?');
+        if (queryStart >= 0) {
+            pathEnd = queryStart;
+        }
+
+        int fragmentStart = url.indexOf('#');
+        if (fragmentStart >= 0 && fragmentStart < pathEnd) {
+            pathEnd = fragmentStart;
+        }
+
+        if (pathContainsExtension(url, pathEnd, HLS_EXTENSION) || pathContainsExtension(url, pathEnd, ".m3u")) {
+            return MediaType.HLS;
+        }
+
+        if (pathContainsExtension(url, pathEnd, ".mpd")) {
+            return MediaType.DASH;
+        }
+
+        //SmoothStreaming manifests are requested as "<name>.ism/Manifest"
+        if (pathContainsExtension(url, pathEnd, ".ism") || pathContainsExtension(url, pathEnd, ".isml")) {
+            return MediaType.SMOOTH_STREAMING;
+        }
+
+        return MediaType.UNKNOWN;
+    }
+
+    /**
+     * Determines the type of the media from the mime type, falling back
+     * to the path of the url when the mime type isn't known.
+     *
+     * @param url The url for the media
+     * @param mimeType The mime type for the media if known, otherwise null
+     * @return The type of the media or {@link MediaType#UNKNOWN}
+     */
+    public static MediaType getType(String url, String mimeType) {
+        MediaType type = getTypeFromMimeType(mimeType);
+        return type != MediaType.UNKNOWN ? type : getType(url);
+    }
+
+    /**
+     * Determines the type of the media from the mime type, such as the one
+     * specified in the Content-Type header.
+     *
+     * @param mimeType The mime type for the media
+     * @return The type of the media or {@link MediaType#UNKNOWN}
+     */
+    public static MediaType getTypeFromMimeType(String mimeType) {
+        if (mimeType == null) {
+            return MediaType.UNKNOWN;
+        }
+
+        //Removes any parameters such as the charset
+        int parameterStart = mimeType.indexOf(';');
+        String type = (parameterStart >= 0 ? mimeType.substring(0, parameterStart) : mimeType).trim().toLowerCase(Locale.US);
+
+        switch (type) {
+            case "application/vnd.apple.mpegurl":
+            case "application/x-mpegurl":
+            case "audio/mpegurl":
+            case "audio/x-mpegurl":
+                return MediaType.HLS;
+            case "application/dash+xml":
+                return MediaType.DASH;
+            case "application/vnd.ms-sstr+xml":
+                return MediaType.SMOOTH_STREAMING;
+            default:
+                return MediaType.UNKNOWN;
+        }
+    }
+
+    /**
+     * Determines the type of the media from the first bytes of the content
+     *
+     * @param data The first bytes of the content
+     * @param length The number of valid bytes in the data
+     * @return The type of the media or {@link MediaType#UNKNOWN}
+     */
+    public static MediaType getTypeFromContent(byte[] data, int length) {
+        String content = new String(data, 0, Math.min(length, data.length), Charset.forName("UTF-8"));
+
+        //Skips the byte order mark and any leading whitespace
+        int start = 0;
+        while (start < content.length() && (content.charAt(start) == '\uFEFF' || Character.isWhitespace(content.charAt(start)))) {
+            start++;
+        }
+
+        if (content.startsWith("#EXTM3U", start)) {
+            return MediaType.HLS;
+        }
+
+        if (content.contains("<MPD")) {
+            return MediaType.DASH;
+        }
+
+        if (content.contains("<SmoothStreamingMedia")) {
+            return MediaType.SMOOTH_STREAMING;
+        }
+
+        return MediaType.UNKNOWN;
+    }
+
+    /**
+     * Determines the type of the media without performing any network requests, using
+     * the mime type, the url, and any previously sniffed type for the url.
+     *
+     * @param url The url for the media
+     * @param mimeType The mime type for the media if known, otherwise null
+     * @return The type of the media or {@link MediaType#UNKNOWN}
+     */
+    public MediaType getCachedType(String url, String mimeType) {
+        MediaType type = getType(url, mimeType);
+        if (type != MediaType.UNKNOWN) {
+            return type;
+        }
+
+        synchronized (sniffedTypes) {
+            MediaType sniffedType = sniffedTypes.get(url);
+            return sniffedType != null ? sniffedType : MediaType.UNKNOWN;
+        }
+    }
+
+    /**
+     * Determines the type of the media, informing the callback once it is known.  If the
+     * type can be determined without any network requests (see {@link #getCachedType(String, String)})
+     * then the callback will be informed before this method returns, otherwise the content will be
+     * sniffed on a background thread and the callback informed on the main thread.
+     *
+     * @param url The url for the media
+     * @param mimeType The mime type for the media if known, otherwise null
+     * @param userAgent The user agent to use when sniffing the content
+     * @param callback The callback to inform of the media type
+     */
+    public void detect(final String url, String mimeType, final String userAgent, final Callback callback) {
+        MediaType type = getCachedType(url, mimeType);
+        if (type != MediaType.UNKNOWN || !shouldSniff(url)) {
+            callback.onMediaTypeDetected(url, type);
+            return;
+        }
+
+        sniffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final MediaType sniffedType = sniff(url, userAgent);
+                callbackHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onMediaTypeDetected(url, sniffedType);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Removes all the sniffed types
+     */
+    public void clear() {
+        synchronized (sniffedTypes) {
+            sniffedTypes.clear();
+        }
+    }
+
+    private boolean shouldSniff(String url) {
+        if (!sniffingEnabled || url == null || isLocalFile(url)) {
+            return false;
+        }
+
+        synchronized (sniffedTypes) {
+            return !sniffedTypes.containsKey(url);
+        }
+    }
+
+    /**
+     * Sniffs the type of the media by performing a HEAD request, and if the Content-Type
+     * is inconclusive (e.g. "text/plain"), reading the first bytes of the content.  This
+     * should not be called on the main thread.
+     */
+    private MediaType sniff(String url, String userAgent) {
+        MediaType type = MediaType.UNKNOWN;
+
+        try {
+            MediaType headerType = sniffHeaders(url, userAgent);
+            type = headerType != null ? headerType : sniffContent(url, userAgent);
+        } catch (IOException e) {
+            Log.d(TAG, "Unable to sniff the media type for " + url, e);
+        }
+
+        synchronized (sniffedTypes) {
+            sniffedTypes.put(url, type);
+        }
+
+        return type;
+    }
+
+    /**
+     * Determines the type of the media from the response headers
+     *
+     * @return The type of the media or null if the content needs to be read to determine it
+     */
+    @Nullable
+    private MediaType sniffHeaders(String url, String userAgent) throws IOException {
+        HttpURLConnection connection = openConnection(url, userAgent);
+        try {
+            connection.setRequestMethod("HEAD");
+            connection.connect();
+
+            String contentType = connection.getContentType();
+            MediaType type = getTypeFromMimeType(contentType);
+            if (type != MediaType.UNKNOWN) {
+                return type;
+            }
+
+            //The url may have been redirected to one we can identify
+            type = getType(connection.getURL().toString());
+            if (type != MediaType.UNKNOWN) {
+                return type;
+            }
+
+            //An audio or video Content-Type is progressive media, so the content doesn't need to be read
+            return isProgressiveMimeType(contentType) ? MediaType.UNKNOWN : null;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private MediaType sniffContent(String url, String userAgent) throws IOException {
+        HttpURLConnection connection = openConnection(url, userAgent);
+        InputStream inputStream = null;
+        try {
+            connection.setRequestProperty("Range", "bytes=0-" + (SNIFF_LENGTH - 1));
+            inputStream = connection.getInputStream();
+
+            byte[] data = new byte[SNIFF_LENGTH];
+            int length = 0;
+            int read;
+            while (length < SNIFF_LENGTH && (read = inputStream.read(data, length, SNIFF_LENGTH - length)) != -1) {
+                length += read;
+            }
+
+            return getTypeFromContent(data, length);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException e) {
+                    //Purposefully left blank
+                }
+            }
+
+            connection.disconnect();
+        }
+    }
+
+    private static HttpURLConnection openConnection(String url, String userAgent) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        connection.setRequestProperty("User-Agent", userAgent);
+        return connection;
+    }
+
+    private static boolean isProgressiveMimeType(@Nullable String mimeType) {
+        if (mimeType == null) {
+            return false;
+        }
+
+        String type = mimeType.trim().toLowerCase(Locale.US);
+        return type.startsWith("video/") || type.startsWith("audio/");
+    }
+
+    /**
+     * Determines if the extension ends a segment of the path, meaning it is followed
+     * by the end of the path or a "/"
+     */
+    private static boolean pathContainsExtension(String url, int pathEnd, String extension) {
+        int length = extension.length();
+        for (int start = 0; start + length <= pathEnd; start++) {
+            int end = start + length;
+            if (url.regionMatches(true, start, extension, 0, length) && (end == pathEnd || url.charAt(end) == '/')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -23,7 +23,7 @@ import android.net.Uri;
  *
  */
 public class MediaUtil {
-    private MediaUtil() {
+    protected MediaUtil() {
         //Purposefully left blank
     }
 
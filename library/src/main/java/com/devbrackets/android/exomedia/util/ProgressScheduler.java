@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.os.Handler;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * Schedules the media progress updates.  Unlike the {@link Repeater} the rate of the
+ * updates adapts to what is displaying the progress and to the playback state; when
+ * nothing is interested in the progress, or the media isn't actively playing (paused,
+ * buffering, ended), no updates are performed at all.
+ */
+public class ProgressScheduler {
+    private static final int DEFAULT_CONTINUOUS_DELAY = 33; // ~30 fps
+    private static final int SECOND_IN_MILLIS = 1000;
+    private static final int SECOND_ALIGNMENT_SLACK = 10;
+
+    public enum UpdateRate {
+        /**
+         * Nothing is displaying the progress, no updates will be performed
+         */
+        NONE,
+        /**
+         * Only the time is displayed (e.g. a notification or time label) so updates
+         * are performed just after the position changes to the next whole second
+         */
+        SECONDS,
+        /**
+         * The progress is displayed continuously (e.g. a visible seek bar) so updates
+         * are performed at the continuous delay
+         */
+        CONTINUOUS;
+
+        /**
+         * Retrieves the faster of the two rates
+         *
+         * @param first The first rate
+         * @param second The second rate
+         * @return The faster rate
+         */
+        public static UpdateRate max(UpdateRate first, UpdateRate second) {
+            return first.ordinal() >= second.ordinal() ? first : second;
+        }
+    }
+
+    public interface Callback {
+        /**
+         * Retrieves the current playback position, used to align the
+         * {@link UpdateRate#SECONDS} updates
+         *
+         * @return The current position in milliseconds
+         */
+        long getCurrentPosition();
+
+        /**
+         * Called when the progress should be updated
+         */
+        void onProgressUpdate();
+    }
+
+    private Handler handler = new Handler();
+    private TickRunnable tickRunnable = new TickRunnable();
+
+    private Callback callback;
+    private UpdateRate updateRate = UpdateRate.NONE;
+    private int continuousDelay = DEFAULT_CONTINUOUS_DELAY;
+    private boolean playbackActive = false;
+
+    public ProgressScheduler(@Nullable Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Sets the amount of time between updates when the rate is {@link UpdateRate#CONTINUOUS}
+     *
+     * @param milliSeconds The time between updates [default: {@value #DEFAULT_CONTINUOUS_DELAY}]
+     */
+    public void setContinuousDelay(int milliSeconds) {
+        continuousDelay = milliSeconds;
+    }
+
+    public int getContinuousDelay() {
+        return continuousDelay;
+    }
+
+    /**
+     * Sets the rate for the updates, determined by what is currently displaying the progress.
+     * If the rate is increased an update will be performed immediately.
+     *
+     * @param rate The rate to perform updates at
+     */
+    public void setUpdateRate(@NonNull UpdateRate rate) {
+        if (rate == updateRate) {
+            return;
+        }
+
+        boolean increased = rate.ordinal() > updateRate.ordinal();
+        updateRate = rate;
+        schedule(increased);
+    }
+
+    @NonNull
+    public UpdateRate getUpdateRate() {
+        return updateRate;
+    }
+
+    /**
+     * Sets if the media is actively playing (e.g. not paused or buffering).  When the playback
+     * becomes inactive a final update is performed so that the displayed progress is accurate.
+     *
+     * @param active True if the media is actively playing
+     */
+    public void setPlaybackActive(boolean active) {
+        if (active == playbackActive) {
+            return;
+        }
+
+        playbackActive = active;
+        if (active) {
+            schedule(true);
+        } else {
+            handler.removeCallbacks(tickRunnable);
+            requestUpdate();
+        }
+    }
+
+    public boolean isPlaybackActive() {
+        return playbackActive;
+    }
+
+    /**
+     * Determines if updates are currently being performed
+     *
+     * @return True if updates are being performed
+     */
+    public boolean isRunning() {
+        return playbackActive && updateRate != UpdateRate.NONE;
+    }
+
+    /**
+     * Performs a single update if anything is displaying the progress, such as after
+     * a seek while the playback is paused.
+     */
+    public void requestUpdate() {
+        if (updateRate != UpdateRate.NONE && callback != null) {
+            callback.onProgressUpdate();
+        }
+    }
+
+    /**
+     * Stops all updates until the playback becomes active again
+     */
+    public void stop() {
+        playbackActive = false;
+        handler.removeCallbacks(tickRunnable);
+    }
+
+    private void schedule(boolean immediate) {
+        handler.removeCallbacks(tickRunnable);
+        if (!isRunning() || callback == null) {
+            return;
+        }
+
+        if (immediate) {
+            handler.post(tickRunnable);
+        } else {
+            handler.postDelayed(tickRunnable, getNextDelay());
+        }
+    }
+
+    private long getNextDelay() {
+        if (updateRate == UpdateRate.CONTINUOUS) {
+            return continuousDelay;
+        }
+
+        //Lands the update just after the position moves to the next second
+        long position = Math.max(0, callback.getCurrentPosition());
+        return SECOND_IN_MILLIS - (position % SECOND_IN_MILLIS) + SECOND_ALIGNMENT_SLACK;
+    }
+
+    private class TickRunnable implements Runnable {
+        @Override
+        public void run() {
+            if (!isRunning() || callback == null) {
+                return;
+            }
+
+            callback.onProgressUpdate();
+            schedule(false);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import android.os.SystemClock;
+import android.support.annotation.Nullable;
+
+/**
+ * Determines when the playback stalls, which is when the media runs out of buffered
+ * content while playing.  The buffering before the media is first ready and the buffering
+ * caused by a seek are not stalls.  The time spent playing and stalled is tracked so that
+ * the stall ratio can be reported.
+ * <p/>
+ * All times use the {@link SystemClock#elapsedRealtime()}, and the tracker should only be
+ * accessed from the main (UI) thread.
+ */
+public class StallTracker {
+    private static final long NOT_STARTED = -1;
+
+    public interface Callback {
+        /**
+         * Called when the playback stalls
+         *
+         * @param startTime The time the stall started
+         */
+        void onStallStarted(long startTime);
+
+        /**
+         * Called when the playback recovers from a stall, or the stall is interrupted
+         * by a seek or the playback being paused
+         *
+         * @param startTime The time the stall started
+         * @param endTime The time the stall ended
+         */
+        void onStallEnded(long startTime, long endTime);
+    }
+
+    @Nullable
+    private Callback callback;
+
+    private boolean playRequested = false;
+    private boolean buffering = false;
+    private boolean hasBeenReady = false;
+    private boolean seeking = false;
+
+    private long playingStartTime = NOT_STARTED;
+    private long stallStartTime = NOT_STARTED;
+    private long playingTime = 0;
+    private long stallTime = 0;
+    private int stallCount = 0;
+
+    public StallTracker(@Nullable Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Clears the stall and playing times for new media, ending any current stall
+     */
+    public void reset() {
+        hasBeenReady = false;
+        buffering = false;
+        seeking = false;
+        update();
+
+        playingTime = 0;
+        stallTime = 0;
+        stallCount = 0;
+    }
+
+    /**
+     * Informs the tracker if the user requested the media to play (e.g. not paused)
+     *
+     * @param playRequested True if the media should be playing
+     */
+    public void setPlayRequested(boolean playRequested) {
+        this.playRequested = playRequested;
+        update();
+    }
+
+    /**
+     * Informs the tracker if the media is currently buffering.  When the buffering
+     * ends the media is considered ready to play.
+     *
+     * @param buffering True if the media is buffering
+     */
+    public void setBuffering(boolean buffering) {
+        this.buffering = buffering;
+        if (!buffering) {
+            hasBeenReady = true;
+            seeking = false;
+        }
+
+        update();
+    }
+
+    /**
+     * Informs the tracker that a seek was requested, the following
+     * buffering will not be considered a stall
+     */
+    public void onSeek() {
+        seeking = true;
+        update();
+    }
+
+    /**
+     * Informs the tracker that the seek has completed, buffering after this
+     * will be considered a stall again
+     */
+    public void onSeekComplete() {
+        seeking = false;
+        update();
+    }
+
+    public boolean isStalled() {
+        return stallStartTime != NOT_STARTED;
+    }
+
+    public int getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Retrieves the total time spent stalled, including the current stall
+     *
+     * @return The stall time in milliseconds
+     */
+    public long getStallTime() {
+        return stallTime + (stallStartTime != NOT_STARTED ? SystemClock.elapsedRealtime() - stallStartTime : 0);
+    }
+
+    /**
+     * Retrieves the total time spent playing, including the current playback
+     *
+     * @return The playing time in milliseconds
+     */
+    public long getPlayingTime() {
+        return playingTime + (playingStartTime != NOT_STARTED ? SystemClock.elapsedRealtime() - playingStartTime : 0);
+    }
+
+    /**
+     * Retrieves the fraction of the time the media should have been playing that it was stalled
+     *
+     * @return The stall ratio [0, 1]
+     */
+    public float getStallRatio() {
+        long stalled = getStallTime();
+        long total = stalled + getPlayingTime();
+        return total == 0 ? 0 : (float) stalled / total;
+    }
+
+    private void update() {
+        long now = SystemClock.elapsedRealtime();
+
+        boolean playing = playRequested && hasBeenReady && !buffering;
+        if (playing && playingStartTime == NOT_STARTED) {
+            playingStartTime = now;
+        } else if (!playing && playingStartTime != NOT_STARTED) {
+            playingTime += now - playingStartTime;
+            playingStartTime = NOT_STARTED;
+        }
+
+        boolean stalled = playRequested && hasBeenReady && buffering && !seeking;
+        if (stalled && stallStartTime == NOT_STARTED) {
+            stallStartTime = now;
+            stallCount++;
+            if (callback != null) {
+                callback.onStallStarted(now);
+            }
+        } else if (!stalled && stallStartTime != NOT_STARTED) {
+            long startTime = stallStartTime;
+            stallTime += now - startTime;
+            stallStartTime = NOT_STARTED;
+            if (callback != null) {
+                callback.onStallEnded(startTime, now);
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2015 Brian Wernick
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.devbrackets.android.exomedia.util;
+
+import java.util.Formatter;
+import java.util.Locale;
+
+/**
+ * Formats millisecond times in to a human readable format in the form of
+ * (Hours : Minutes : Seconds).  The internal buffers are re-used so a single
+ * instance should only be used from one thread.
+ */
+public class TimeFormatter {
+    private static final long SECOND_IN_MILLIS = 1000;
+    private static final long MINUTE_IN_MILLIS = SECOND_IN_MILLIS * 60;
+    private static final long HOUR_IN_MILLIS = MINUTE_IN_MILLIS * 60;
+    private static final long DAY_IN_MILLIS = HOUR_IN_MILLIS * 24;
+
+    private StringBuilder formatBuilder = new StringBuilder();
+    private Formatter formatter = new Formatter(formatBuilder, Locale.getDefault());
+
+    /**
+     * Formats the specified millisecond time to a human readable format
+     * in the form of (Hours : Minutes : Seconds)
+     *
+     * @param time The time in milliseconds to format
+     * @return The human readable time
+     */
+    public String format(long time) {
+        long seconds = (time % MINUTE_IN_MILLIS) / SECOND_IN_MILLIS;
+        long minutes = (time % HOUR_IN_MILLIS) / MINUTE_IN_MILLIS;
+        long hours = (time % DAY_IN_MILLIS) / HOUR_IN_MILLIS;
+
+        formatBuilder.setLength(0);
+        if (hours > 0) {
+            return formatter.format("%d:%02d:%02d", hours, minutes, seconds).toString();
+        }
+
+        return formatter.format("%02d:%02d", minutes, seconds).toString();
+    }
+}